@@ -1,12 +1,15 @@
 package com.example.demo;
 
+import com.example.demo.fx.FxProperties;
 import com.example.demo.holiday.CalendarificProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableConfigurationProperties(CalendarificProperties.class)
+@EnableConfigurationProperties({CalendarificProperties.class, FxProperties.class})
+@EnableScheduling
 public class DemoApplication {
 
     public static void main(String[] args) {
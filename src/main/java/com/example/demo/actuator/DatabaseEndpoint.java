@@ -0,0 +1,130 @@
+package com.example.demo.actuator;
+
+import com.example.demo.datasource.HibernateStatisticsMetrics;
+import com.example.demo.datasource.StatementMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// GET /actuator/database gathers the database meters into one report: statements per endpoint (most per request
+// first), statement totals, connection pool usage, Hibernate statistics and the latest slow statements
+@Component
+@Endpoint(id = "database")
+public class DatabaseEndpoint {
+
+    private static final int TOP_QUERIES = 10;
+
+    private final MeterRegistry registry;
+    private final StatementMetrics statementMetrics;
+    private final HibernateStatisticsMetrics hibernateMetrics;
+
+    public DatabaseEndpoint(MeterRegistry registry, StatementMetrics statementMetrics, HibernateStatisticsMetrics hibernateMetrics) {
+        this.registry = registry;
+        this.statementMetrics = statementMetrics;
+        this.hibernateMetrics = hibernateMetrics;
+    }
+
+    @ReadOperation
+    public DatabaseReport report() {
+        return new DatabaseReport(endpoints(), statements(), pools(), hibernate(),
+                statementMetrics.slowStatementThreshold().toMillis(), statementMetrics.slowStatements());
+    }
+
+    private List<EndpointStatements> endpoints() {
+        return registry.find("db.request.statements").summaries().stream()
+                .map(summary -> {
+                    String method = summary.getId().getTag("method");
+                    String uri = summary.getId().getTag("uri");
+                    Timer time = registry.find("db.request.time").tags("method", method, "uri", uri).timer();
+                    return new EndpointStatements(method, uri, summary.count(), summary.mean(), (long) summary.max(),
+                            time == null ? 0 : time.mean(TimeUnit.MILLISECONDS));
+                })
+                .sorted(Comparator.comparingDouble(EndpointStatements::meanStatements).reversed())
+                .toList();
+    }
+
+    private List<OperationStatements> statements() {
+        return registry.find("db.statements").timers().stream()
+                .filter(timer -> timer.count() > 0)
+                .map(timer -> new OperationStatements(timer.getId().getTag("operation"), timer.getId().getTag("outcome"),
+                        timer.count(), timer.totalTime(TimeUnit.MILLISECONDS), timer.max(TimeUnit.MILLISECONDS)))
+                .toList();
+    }
+
+    private List<PoolUsage> pools() {
+        return registry.find("hikaricp.connections.max").gauges().stream()
+                .map(max -> {
+                    String pool = max.getId().getTag("pool");
+                    Timer acquire = registry.find("hikaricp.connections.acquire").tag("pool", pool).timer();
+                    Counter timeouts = registry.find("hikaricp.connections.timeout").tag("pool", pool).counter();
+                    return new PoolUsage(pool, (int) max.value(), gauge("hikaricp.connections.active", pool),
+                            gauge("hikaricp.connections.idle", pool), gauge("hikaricp.connections.pending", pool),
+                            acquire == null ? 0 : acquire.mean(TimeUnit.MILLISECONDS),
+                            acquire == null ? 0 : acquire.max(TimeUnit.MILLISECONDS),
+                            timeouts == null ? 0 : (long) timeouts.count());
+                })
+                .toList();
+    }
+
+    private int gauge(String name, String pool) {
+        Gauge gauge = registry.find(name).tag("pool", pool).gauge();
+        return gauge == null ? 0 : (int) gauge.value();
+    }
+
+    private HibernateReport hibernate() {
+        Statistics statistics = hibernateMetrics.statistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return new HibernateReport(false, 0, 0, 0, 0, 0, 0, List.of());
+        }
+        List<QueryTime> slowest = Arrays.stream(statistics.getQueries())
+                .map(query -> queryTime(query, statistics.getQueryStatistics(query)))
+                .sorted(Comparator.comparingLong(QueryTime::totalMillis).reversed())
+                .limit(TOP_QUERIES)
+                .toList();
+        return new HibernateReport(true, statistics.getPrepareStatementCount(), statistics.getQueryExecutionCount(),
+                statistics.getEntityLoadCount(), statistics.getEntityFetchCount(), statistics.getCollectionFetchCount(),
+                statistics.getTransactionCount(), slowest);
+    }
+
+    private static QueryTime queryTime(String query, QueryStatistics statistics) {
+        return new QueryTime(query, statistics.getExecutionCount(), statistics.getExecutionTotalTime(),
+                statistics.getExecutionAvgTime(), statistics.getExecutionMaxTime(), statistics.getExecutionRowCount());
+    }
+
+    public record DatabaseReport(List<EndpointStatements> endpoints,
+                                 List<OperationStatements> statements,
+                                 List<PoolUsage> pools,
+                                 HibernateReport hibernate,
+                                 long slowStatementThresholdMillis,
+                                 List<StatementMetrics.SlowStatement> slowStatements) {
+    }
+
+    public record EndpointStatements(String method, String uri, long requests, double meanStatements, long maxStatements,
+                                     double meanMillis) {
+    }
+
+    public record OperationStatements(String operation, String outcome, long count, double totalMillis, double maxMillis) {
+    }
+
+    public record PoolUsage(String pool, int max, int active, int idle, int pending, double acquireMeanMillis,
+                            double acquireMaxMillis, long timeouts) {
+    }
+
+    public record HibernateReport(boolean enabled, long statementsPrepared, long queryExecutions, long entityLoads,
+                                  long entityFetches, long collectionFetches, long transactions, List<QueryTime> slowestQueries) {
+    }
+
+    public record QueryTime(String query, long executions, long totalMillis, long meanMillis, long maxMillis, long rows) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.actuator;
+
+import com.example.demo.outbox.InMemoryOutboxSink;
+import com.example.demo.outbox.OutboxMessage;
+import com.example.demo.outbox.OutboxRelay;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+// GET /actuator/outbox shows the configured sinks, what is waiting in each shard's outbox as of the relay's last run,
+// and the in-memory sink's latest messages when it is on. POST publishes now instead of waiting for the next run.
+@Component
+@Endpoint(id = "outbox")
+public class OutboxEndpoint {
+
+    private static final int RECENT_MESSAGES = 50;
+
+    private final OutboxRelay relay;
+    private final ObjectProvider<InMemoryOutboxSink> memorySink;
+
+    public OutboxEndpoint(OutboxRelay relay, ObjectProvider<InMemoryOutboxSink> memorySink) {
+        this.relay = relay;
+        this.memorySink = memorySink;
+    }
+
+    @ReadOperation
+    public OutboxReport report() {
+        List<ShardBacklog> shards = relay.backlogs().entrySet().stream()
+                .map(shard -> new ShardBacklog(shard.getKey(), shard.getValue().pending(), shard.getValue().oldest(),
+                        shard.getValue().lag().toMillis()))
+                .toList();
+        InMemoryOutboxSink memory = memorySink.getIfAvailable();
+        List<OutboxMessage> recent = List.of();
+        if (memory != null) {
+            List<OutboxMessage> messages = memory.messages();
+            recent = messages.subList(Math.max(0, messages.size() - RECENT_MESSAGES), messages.size());
+        }
+        return new OutboxReport(relay.sinkNames(), shards, recent);
+    }
+
+    @WriteOperation
+    public RelayResult relay() {
+        return new RelayResult(relay.relay());
+    }
+
+    public record OutboxReport(List<String> sinks, List<ShardBacklog> shards, List<OutboxMessage> recentMessages) {
+    }
+
+    public record ShardBacklog(String shard, long pending, Instant oldest, long lagMillis) {
+    }
+
+    public record RelayResult(int published) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.actuator;
+
+import com.example.demo.archive.ExpenseArchive;
+import com.example.demo.service.ActivitySketchService;
+import com.example.demo.service.ClosedMonthSummaryService;
+import com.example.demo.service.ExpenseStatsService;
+import com.example.demo.service.MonthlyTotalsCache;
+import com.example.demo.service.MonthlyTotalsRollupService;
+import com.example.demo.shard.Shards;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+// GET /actuator/rollups compares the rollup with the raw expenses; POST rebuilds it and the stats sketches from scratch.
+// Both run on every shard in parallel.
+@Component
+@Endpoint(id = "rollups")
+public class RollupEndpoint {
+
+    private final MonthlyTotalsRollupService rollupService;
+    private final ExpenseStatsService expenseStatsService;
+    private final ActivitySketchService activitySketchService;
+    private final MonthlyTotalsCache monthlyTotalsCache;
+    private final ClosedMonthSummaryService closedMonthSummaryService;
+    private final ExpenseArchive expenseArchive;
+    private final Shards shards;
+
+    public RollupEndpoint(MonthlyTotalsRollupService rollupService, ExpenseStatsService expenseStatsService,
+                          ActivitySketchService activitySketchService, MonthlyTotalsCache monthlyTotalsCache,
+                          ClosedMonthSummaryService closedMonthSummaryService, ExpenseArchive expenseArchive, Shards shards) {
+        this.rollupService = rollupService;
+        this.expenseStatsService = expenseStatsService;
+        this.activitySketchService = activitySketchService;
+        this.monthlyTotalsCache = monthlyTotalsCache;
+        this.closedMonthSummaryService = closedMonthSummaryService;
+        this.expenseArchive = expenseArchive;
+        this.shards = shards;
+    }
+
+    @ReadOperation
+    public VerifyResult verify() {
+        // Archived months are no longer in expenses, so their rollup rows cannot be checked or rebuilt
+        LocalDate from = expenseArchive.archivedBefore().orElse(null);
+        List<MonthlyTotalsRollupService.Mismatch> mismatches = shards.scatter(() -> rollupService.verifyFrom(from)).values().stream()
+                .flatMap(Collection::stream)
+                .toList();
+        return new VerifyResult(mismatches.isEmpty(), mismatches);
+    }
+
+    @WriteOperation
+    public RebuildResult rebuild() {
+        LocalDate from = expenseArchive.archivedBefore().orElse(null);
+        RebuildResult result = shards.scatter(() -> {
+            int rows = rollupService.rebuildFrom(from);
+            // The rebuild has committed; frozen months may predate it
+            closedMonthSummaryService.reopenAll();
+            return new RebuildResult(rows, expenseStatsService.rebuildFrom(from), activitySketchService.rebuildFrom(from));
+        }).values().stream().reduce(new RebuildResult(0, 0, 0), RebuildResult::plus);
+        // So do cached monthly totals
+        monthlyTotalsCache.clear();
+        return result;
+    }
+
+    public record VerifyResult(boolean consistent, List<MonthlyTotalsRollupService.Mismatch> mismatches) {
+    }
+
+    public record RebuildResult(int rows, int sketches, int activityMonths) {
+
+        RebuildResult plus(RebuildResult other) {
+            return new RebuildResult(rows + other.rows, sketches + other.sketches, activityMonths + other.activityMonths);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.actuator;
+
+import com.example.demo.shard.ShardDirectory;
+import com.example.demo.shard.ShardMigrationService;
+import com.example.demo.shard.Shards;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// GET /actuator/shards reports the ring and what each shard holds, counted on every shard in parallel, with the moves
+// a rebalance would make. POST {"userId": ..., "shard": ...} moves one user (to their ring shard when shard is left
+// out); POST without a userId rebalances everyone.
+@Component
+@ConditionalOnProperty(prefix = "datasource.shards", name = "enabled", havingValue = "true")
+@Endpoint(id = "shards")
+public class ShardsEndpoint {
+
+    private final Shards shards;
+    private final ShardDirectory directory;
+    private final ShardMigrationService migrationService;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShardsEndpoint(Shards shards, ShardDirectory directory, ShardMigrationService migrationService, JdbcTemplate jdbcTemplate) {
+        this.shards = shards;
+        this.directory = directory;
+        this.migrationService = migrationService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @ReadOperation
+    public ShardsReport report() {
+        Map<String, Long> users = directory.all().values().stream()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        List<ShardUsage> usage = shards.scatter(this::counts).entrySet().stream()
+                .map(shard -> new ShardUsage(shard.getKey(), directory.ring().shards().contains(shard.getKey()),
+                        users.getOrDefault(shard.getKey(), 0L), shard.getValue().categories(), shard.getValue().expenses(),
+                        shard.getValue().baseTotal()))
+                .toList();
+        return new ShardsReport(directory.ring().shards(), usage, migrationService.plan());
+    }
+
+    @WriteOperation
+    public List<ShardMigrationService.Migration> migrate(@Nullable UUID userId, @Nullable String shard) {
+        if (userId == null) {
+            return migrationService.rebalance();
+        }
+        return List.of(migrationService.migrate(userId, shard == null ? directory.ring().shardFor(userId) : shard));
+    }
+
+    private Counts counts() {
+        return jdbcTemplate.queryForObject("""
+                select (select count(*) from categories) as categories,
+                       (select count(*) from expenses) as expenses,
+                       (select coalesce(sum(base_amount), 0) from expenses) as base_total
+                """, (rs, rowNum) -> new Counts(rs.getLong("categories"), rs.getLong("expenses"), rs.getBigDecimal("base_total")));
+    }
+
+    private record Counts(long categories, long expenses, BigDecimal baseTotal) {
+    }
+
+    public record ShardsReport(List<String> ring, List<ShardUsage> shards, List<ShardMigrationService.Move> plannedMoves) {
+    }
+
+    public record ShardUsage(String shard, boolean inRing, long users, long categories, long expenses, BigDecimal baseTotal) {
+    }
+}
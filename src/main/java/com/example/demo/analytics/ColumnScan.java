@@ -0,0 +1,11 @@
+package com.example.demo.analytics;
+
+import java.util.Set;
+import java.util.UUID;
+
+// What a scan aggregates: rows whose UTC day falls in [fromDay, fromDay + dayToBucket.length) are summed into
+// dayToBucket[day - fromDay] (negative skips the day), per category when byCategory is set. Only rows of categoryIds
+// are read; null reads every category.
+// Without a currency the base-currency column is summed; with one, only that currency's own amounts are.
+public record ColumnScan(long fromDay, int[] dayToBucket, int bucketCount, boolean byCategory, Set<UUID> categoryIds, String currency) {
+}
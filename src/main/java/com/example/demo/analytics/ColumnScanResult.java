@@ -0,0 +1,25 @@
+package com.example.demo.analytics;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+// Cell (group, bucket) lives at group * bucketCount + bucket; group is a category ordinal, or 0 when not grouped
+public record ColumnScanResult(List<UUID> categories, int bucketCount, long[] cents, long[] rows, long[] unconverted) {
+
+    public int groupCount() {
+        return rows.length / bucketCount;
+    }
+
+    public BigDecimal total(int group, int bucket) {
+        return BigDecimal.valueOf(cents[group * bucketCount + bucket], 2);
+    }
+
+    public long rows(int group, int bucket) {
+        return rows[group * bucketCount + bucket];
+    }
+
+    public long unconverted(int group, int bucket) {
+        return unconverted[group * bucketCount + bucket];
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.demo.analytics;
+
+import com.example.demo.archive.ExpenseArchive;
+import com.example.demo.datasource.ReplicaRoutingDataSource;
+import com.example.demo.event.ExpenseChangedEvent;
+import com.example.demo.event.ExpenseSnapshot;
+import com.example.demo.repository.ExpenseColumnRow;
+import com.example.demo.repository.ExpenseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Optional in-process copy of every expense as primitive columns (cents, UTC epoch day, category and currency
+// ordinals), so summary scans add longs instead of BigDecimals and never leave the JVM. Loaded at startup when
+// analytics.columnar.enabled is set and kept current from committed expense writes; callers fall back to SQL
+// until isReady().
+@Component
+public class ColumnarExpenseStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ColumnarExpenseStore.class);
+
+    // Marks a row without a base-currency amount
+    static final long NO_BASE = Long.MIN_VALUE;
+    // Rows per fork-join leaf; smaller ranges are summed on the calling thread
+    private static final int SCAN_CHUNK = 32_768;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ExpenseRepository expenseRepository;
+    private final ExpenseArchive expenseArchive;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Writes committed while a load is running are queued and replayed on top of it in order
+    private final List<ExpenseChangedEvent> pending = new ArrayList<>();
+    private boolean loading;
+
+    private volatile boolean ready;
+    private Columns columns = new Columns(INITIAL_CAPACITY);
+
+    public ColumnarExpenseStore(ExpenseRepository expenseRepository, ExpenseArchive expenseArchive,
+                                @Value("${analytics.columnar.enabled:false}") boolean enabled) {
+        this.expenseRepository = expenseRepository;
+        this.expenseArchive = expenseArchive;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadOnStartup() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    // Rebuilds the columns from the database; the current columns keep serving scans until the swap
+    @Transactional(readOnly = true)
+    public void reload() {
+        // From the primary: queued writes are applied on top of the load, so it must not miss any a replica has not replayed
+        ReplicaRoutingDataSource.onPrimary(this::load);
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        synchronized (pending) {
+            loading = true;
+        }
+        long expected = expenseRepository.count() + expenseArchive.rowCount();
+        Columns loaded = new Columns(Math.max(INITIAL_CAPACITY, (int) Math.min(Integer.MAX_VALUE - 8, expected)));
+        try (Stream<ExpenseColumnRow> rows = Stream.concat(expenseArchive.streamColumns(), expenseRepository.streamColumns())) {
+            rows.forEach(row -> loaded.upsert(row.id(), row.categoryId(), row.currency(), row.amountMinorUnits(), row.baseAmount(), row.spentAt()));
+        } catch (RuntimeException e) {
+            // Keep serving the previous columns, caught up with the writes queued meanwhile
+            finishLoad(columns, ready);
+            throw e;
+        }
+        finishLoad(loaded, true);
+        log.info("Loaded {} expense(s) into the columnar store in {} ms", loaded.size, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void finishLoad(Columns target, boolean nowReady) {
+        lock.writeLock().lock();
+        try {
+            synchronized (pending) {
+                pending.forEach(target::apply);
+                pending.clear();
+                loading = false;
+            }
+            columns = target;
+            ready = nowReady;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // After commit, so the store only ever reflects committed rows
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        synchronized (pending) {
+            if (loading) {
+                pending.add(event);
+                return;
+            }
+        }
+        // Nothing to keep current until the first load, which reads the row from the database anyway
+        if (!ready) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            columns.apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public ColumnScanResult scan(ColumnScan scan) {
+        lock.readLock().lock();
+        try {
+            Columns columns = this.columns;
+            int groups = scan.byCategory() ? Math.max(1, columns.categoryIds.size()) : 1;
+            List<UUID> categorySnapshot = List.copyOf(columns.categoryIds);
+            boolean[] categoryFilter = null;
+            if (scan.categoryIds() != null) {
+                categoryFilter = new boolean[categorySnapshot.size()];
+                boolean any = false;
+                for (UUID categoryId : scan.categoryIds()) {
+                    Integer ordinal = columns.categoryOrdinals.get(categoryId);
+                    if (ordinal != null) {
+                        categoryFilter[ordinal] = true;
+                        any = true;
+                    }
+                }
+                if (!any) {
+                    return empty(categorySnapshot, groups, scan.bucketCount());
+                }
+            }
+            int currencyFilter = -1;
+            if (scan.currency() != null) {
+                Integer ordinal = columns.currencyOrdinals.get(scan.currency());
+                if (ordinal == null) {
+                    return empty(categorySnapshot, groups, scan.bucketCount());
+                }
+                currencyFilter = ordinal;
+            }
+            Accumulator total = ForkJoinPool.commonPool().invoke(
+                    new ScanTask(columns, scan, groups, categoryFilter, currencyFilter, 0, columns.size));
+            return new ColumnScanResult(categorySnapshot, scan.bucketCount(), total.cents, total.rows, total.unconverted);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    private static ColumnScanResult empty(List<UUID> categories, int groups, int buckets) {
+        int cells = groups * buckets;
+        return new ColumnScanResult(categories, buckets, new long[cells], new long[cells], new long[cells]);
+    }
+
+    private static final class Columns {
+        private final Map<UUID, Integer> rowById;
+        private final Map<UUID, Integer> categoryOrdinals = new HashMap<>();
+        private final List<UUID> categoryIds = new ArrayList<>();
+        private final Map<String, Integer> currencyOrdinals = new HashMap<>();
+        private UUID[] ids;
+        private long[] amountCents;
+        private long[] baseCents;
+        private int[] epochDays;
+        private int[] categories;
+        private int[] currencies;
+        private int size;
+
+        private Columns(int capacity) {
+            rowById = new HashMap<>(capacity * 4 / 3 + 1);
+            ids = new UUID[capacity];
+            amountCents = new long[capacity];
+            baseCents = new long[capacity];
+            epochDays = new int[capacity];
+            categories = new int[capacity];
+            currencies = new int[capacity];
+        }
+
+        private void apply(ExpenseChangedEvent event) {
+            ExpenseSnapshot after = event.after();
+            if (after == null) {
+                remove(event.before().id());
+            } else {
+                upsert(after.id(), after.categoryId(), after.currency(), after.amount().minorUnits(), after.baseAmount(), after.spentAt());
+            }
+        }
+
+        private void upsert(UUID id, UUID categoryId, String currency, long amountMinorUnits, BigDecimal baseAmount, OffsetDateTime spentAt) {
+            Integer row = rowById.get(id);
+            int index = row != null ? row : append(id);
+            amountCents[index] = amountMinorUnits;
+            baseCents[index] = baseAmount == null ? NO_BASE : toCents(baseAmount);
+            epochDays[index] = (int) spentAt.withOffsetSameInstant(ZoneOffset.UTC).toLocalDate().toEpochDay();
+            categories[index] = categoryOrdinals.computeIfAbsent(categoryId, key -> {
+                categoryIds.add(key);
+                return categoryIds.size() - 1;
+            });
+            currencies[index] = currencyOrdinals.computeIfAbsent(currency, key -> currencyOrdinals.size());
+        }
+
+        // Swap-remove keeps the columns dense
+        private void remove(UUID id) {
+            Integer row = rowById.remove(id);
+            if (row == null) {
+                return;
+            }
+            int last = --size;
+            if (row != last) {
+                ids[row] = ids[last];
+                amountCents[row] = amountCents[last];
+                baseCents[row] = baseCents[last];
+                epochDays[row] = epochDays[last];
+                categories[row] = categories[last];
+                currencies[row] = currencies[last];
+                rowById.put(ids[row], row);
+            }
+            ids[last] = null;
+        }
+
+        private int append(UUID id) {
+            if (size == ids.length) {
+                int capacity = ids.length + (ids.length >> 1);
+                ids = Arrays.copyOf(ids, capacity);
+                amountCents = Arrays.copyOf(amountCents, capacity);
+                baseCents = Arrays.copyOf(baseCents, capacity);
+                epochDays = Arrays.copyOf(epochDays, capacity);
+                categories = Arrays.copyOf(categories, capacity);
+                currencies = Arrays.copyOf(currencies, capacity);
+            }
+            ids[size] = id;
+            rowById.put(id, size);
+            return size++;
+        }
+    }
+
+    private static final class Accumulator {
+        private final long[] cents;
+        private final long[] rows;
+        private final long[] unconverted;
+
+        private Accumulator(int cells) {
+            cents = new long[cells];
+            rows = new long[cells];
+            unconverted = new long[cells];
+        }
+
+        private Accumulator add(Accumulator other) {
+            for (int i = 0; i < cents.length; i++) {
+                cents[i] += other.cents[i];
+                rows[i] += other.rows[i];
+                unconverted[i] += other.unconverted[i];
+            }
+            return this;
+        }
+    }
+
+    // Splits the row range in halves until a leaf is at most SCAN_CHUNK rows; each leaf sums into its own cells
+    private static final class ScanTask extends RecursiveTask<Accumulator> {
+        private final Columns columns;
+        private final ColumnScan scan;
+        private final int groups;
+        // Indexed by category ordinal; null keeps every category
+        private final boolean[] categoryFilter;
+        private final int currencyFilter;
+        private final int from;
+        private final int to;
+
+        private ScanTask(Columns columns, ColumnScan scan, int groups, boolean[] categoryFilter, int currencyFilter, int from, int to) {
+            this.columns = columns;
+            this.scan = scan;
+            this.groups = groups;
+            this.categoryFilter = categoryFilter;
+            this.currencyFilter = currencyFilter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Accumulator compute() {
+            if (to - from > SCAN_CHUNK) {
+                int middle = (from + to) >>> 1;
+                ScanTask left = new ScanTask(columns, scan, groups, categoryFilter, currencyFilter, from, middle);
+                ScanTask right = new ScanTask(columns, scan, groups, categoryFilter, currencyFilter, middle, to);
+                left.fork();
+                return right.compute().add(left.join());
+            }
+            int buckets = scan.bucketCount();
+            Accumulator acc = new Accumulator(groups * buckets);
+            int[] dayToBucket = scan.dayToBucket();
+            long fromDay = scan.fromDay();
+            boolean byCurrency = currencyFilter >= 0;
+            for (int i = from; i < to; i++) {
+                long offset = columns.epochDays[i] - fromDay;
+                if (offset < 0 || offset >= dayToBucket.length) {
+                    continue;
+                }
+                int bucket = dayToBucket[(int) offset];
+                if (bucket < 0
+                        || (categoryFilter != null && !categoryFilter[columns.categories[i]])
+                        || (byCurrency && columns.currencies[i] != currencyFilter)) {
+                    continue;
+                }
+                int cell = (scan.byCategory() ? columns.categories[i] * buckets : 0) + bucket;
+                acc.rows[cell]++;
+                if (byCurrency) {
+                    acc.cents[cell] += columns.amountCents[i];
+                } else if (columns.baseCents[i] == NO_BASE) {
+                    acc.unconverted[cell]++;
+                } else {
+                    acc.cents[cell] += columns.baseCents[i];
+                }
+            }
+            return acc;
+        }
+    }
+}
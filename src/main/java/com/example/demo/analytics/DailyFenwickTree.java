@@ -0,0 +1,84 @@
+package com.example.demo.analytics;
+
+// Fenwick (binary indexed) tree of longs over consecutive epoch days: point add and inclusive range sum in O(log n).
+// The covered span starts around the first day added and doubles towards any day outside it, so growth is amortized.
+final class DailyFenwickTree {
+
+    private static final int INITIAL_SPAN = 64;
+
+    private long firstDay;
+    // 1-based; tree[i] holds the sum of the lowbit(i) days ending at firstDay + i - 1
+    private long[] tree;
+
+    DailyFenwickTree(long day) {
+        firstDay = day - INITIAL_SPAN / 2;
+        tree = new long[INITIAL_SPAN + 1];
+    }
+
+    void add(long day, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        cover(day);
+        for (int i = (int) (day - firstDay) + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // Sum over [fromDay, toDay]
+    long sum(long fromDay, long toDay) {
+        return fromDay > toDay ? 0 : prefix(toDay) - prefix(fromDay - 1);
+    }
+
+    int span() {
+        return tree.length - 1;
+    }
+
+    // Sum over every day up to and including day; days past the span add nothing
+    private long prefix(long day) {
+        long offset = day - firstDay;
+        if (offset < 0) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = (int) Math.min(offset + 1, tree.length - 1); i > 0; i -= i & -i) {
+            total += tree[i];
+        }
+        return total;
+    }
+
+    private void cover(long day) {
+        long lastDay = firstDay + span() - 1;
+        if (day >= firstDay && day <= lastDay) {
+            return;
+        }
+        long needed = day < firstDay ? lastDay - day + 1 : day - firstDay + 1;
+        long span = span();
+        while (span < needed) {
+            span *= 2;
+        }
+        if (span > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Day " + day + " is too far from the indexed days");
+        }
+        long newFirstDay = day < firstDay ? lastDay - span + 1 : firstDay;
+
+        // Back to plain daily values (the inverse of the linear build), shift them into place, then rebuild
+        int size = span();
+        for (int i = size; i > 0; i--) {
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                tree[parent] -= tree[i];
+            }
+        }
+        long[] grown = new long[(int) span + 1];
+        System.arraycopy(tree, 1, grown, (int) (firstDay - newFirstDay) + 1, size);
+        for (int i = 1; i < grown.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < grown.length) {
+                grown[parent] += grown[i];
+            }
+        }
+        firstDay = newFirstDay;
+        tree = grown;
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.demo.analytics;
+
+import com.example.demo.archive.ExpenseArchive;
+import com.example.demo.datasource.ReplicaRoutingDataSource;
+import com.example.demo.event.ExpenseChangedEvent;
+import com.example.demo.event.ExpenseSnapshot;
+import com.example.demo.money.Money;
+import com.example.demo.repository.ExpenseColumnRow;
+import com.example.demo.repository.ExpenseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Per-category daily running sums of base-currency cents, row counts and unconverted rows, as Fenwick trees over UTC
+// epoch days, so the total for any day range costs two O(log n) lookups instead of a scan. Loaded at startup when
+// analytics.period-index.enabled is set and kept current from committed expense writes; callers fall back to SQL
+// until isReady().
+@Component
+public class DailyPrefixSumIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyPrefixSumIndex.class);
+
+    private final ExpenseRepository expenseRepository;
+    private final ExpenseArchive expenseArchive;
+    private final boolean enabled;
+    // Guards categories, loading and pending; writes queue while a load runs and are reconciled with it in finishLoad
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ExpenseChangedEvent> pending = new ArrayList<>();
+    private boolean loading;
+
+    private volatile boolean ready;
+    private Map<UUID, CategoryDays> categories = new HashMap<>();
+
+    public DailyPrefixSumIndex(ExpenseRepository expenseRepository, ExpenseArchive expenseArchive,
+                               @Value("${analytics.period-index.enabled:false}") boolean enabled) {
+        this.expenseRepository = expenseRepository;
+        this.expenseArchive = expenseArchive;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadOnStartup() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    // Rebuilds the trees from the database; the current trees keep answering until the swap
+    @Transactional(readOnly = true)
+    public void reload() {
+        ReplicaRoutingDataSource.onPrimary(this::load);
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            loading = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<UUID, CategoryDays> loaded = new HashMap<>();
+        // What the load saw of each expense, so queued writes it already includes are not counted twice
+        Map<UUID, Contribution> seen = new HashMap<>();
+        try (Stream<ExpenseColumnRow> rows = Stream.concat(expenseArchive.streamColumns(), expenseRepository.streamColumns())) {
+            rows.forEach(row -> {
+                Contribution contribution = Contribution.of(row.categoryId(), row.baseAmount(), row.spentAt());
+                seen.put(row.id(), contribution);
+                contribution.addTo(loaded, 1);
+            });
+        } catch (RuntimeException e) {
+            // Keep the previous trees, caught up with the writes queued meanwhile
+            finishLoad(categories, null, ready);
+            throw e;
+        }
+        finishLoad(loaded, seen, true);
+        log.info("Indexed {} expense(s) across {} categories in {} ms", seen.size(), loaded.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Applying a queued write is a delta, so it only counts if the load saw exactly its before state; each expense's
+    // writes are ordered, so from the state the load saw the applied deltas always end at the latest state
+    private void finishLoad(Map<UUID, CategoryDays> target, Map<UUID, Contribution> seen, boolean nowReady) {
+        lock.writeLock().lock();
+        try {
+            for (ExpenseChangedEvent event : pending) {
+                if (seen == null) {
+                    apply(target, event);
+                    continue;
+                }
+                UUID id = event.before() != null ? event.before().id() : event.after().id();
+                if (Objects.equals(seen.get(id), Contribution.of(event.before()))) {
+                    apply(target, event);
+                    Contribution after = Contribution.of(event.after());
+                    if (after == null) {
+                        seen.remove(id);
+                    } else {
+                        seen.put(id, after);
+                    }
+                }
+            }
+            pending.clear();
+            loading = false;
+            categories = target;
+            ready = nowReady;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // After commit, so the index only ever reflects committed rows
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                pending.add(event);
+            } else if (ready) {
+                apply(categories, event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Period p covers epoch days [boundaries[p], boundaries[p + 1]); one group per requested category, or per indexed
+    // category when categoryIds is null
+    public ColumnScanResult periodTotals(long[] boundaries, Set<UUID> categoryIds) {
+        int periods = boundaries.length - 1;
+        lock.readLock().lock();
+        try {
+            List<UUID> ids = List.copyOf(categoryIds != null ? categoryIds : categories.keySet());
+            int cells = Math.max(1, ids.size()) * periods;
+            long[] cents = new long[cells];
+            long[] rows = new long[cells];
+            long[] unconverted = new long[cells];
+            for (int group = 0; group < ids.size(); group++) {
+                CategoryDays days = categories.get(ids.get(group));
+                if (days == null) {
+                    continue;
+                }
+                for (int period = 0; period < periods; period++) {
+                    long from = boundaries[period];
+                    long to = boundaries[period + 1] - 1;
+                    int cell = group * periods + period;
+                    cents[cell] = days.cents.sum(from, to);
+                    rows[cell] = days.rows.sum(from, to);
+                    unconverted[cell] = days.unconverted.sum(from, to);
+                }
+            }
+            return new ColumnScanResult(ids, periods, cents, rows, unconverted);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void apply(Map<UUID, CategoryDays> target, ExpenseChangedEvent event) {
+        Contribution before = Contribution.of(event.before());
+        if (before != null) {
+            before.addTo(target, -1);
+        }
+        Contribution after = Contribution.of(event.after());
+        if (after != null) {
+            after.addTo(target, 1);
+        }
+    }
+
+    // What one expense adds to the index; baseCents is null without a base amount
+    private record Contribution(UUID categoryId, long day, Long baseCents) {
+
+        private static Contribution of(ExpenseSnapshot snapshot) {
+            return snapshot == null ? null : of(snapshot.categoryId(), snapshot.baseAmount(), snapshot.spentAt());
+        }
+
+        private static Contribution of(UUID categoryId, BigDecimal baseAmount, OffsetDateTime spentAt) {
+            return new Contribution(categoryId, spentAt.withOffsetSameInstant(ZoneOffset.UTC).toLocalDate().toEpochDay(),
+                    baseAmount == null ? null : Money.minorUnits(baseAmount));
+        }
+
+        private void addTo(Map<UUID, CategoryDays> target, int sign) {
+            CategoryDays days = target.computeIfAbsent(categoryId, id -> new CategoryDays(day));
+            days.rows.add(day, sign);
+            if (baseCents == null) {
+                days.unconverted.add(day, sign);
+            } else {
+                days.cents.add(day, sign * baseCents);
+            }
+        }
+    }
+
+    private static final class CategoryDays {
+        private final DailyFenwickTree cents;
+        private final DailyFenwickTree rows;
+        private final DailyFenwickTree unconverted;
+
+        private CategoryDays(long day) {
+            cents = new DailyFenwickTree(day);
+            rows = new DailyFenwickTree(day);
+            unconverted = new DailyFenwickTree(day);
+        }
+    }
+}
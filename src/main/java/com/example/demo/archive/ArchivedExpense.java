@@ -0,0 +1,41 @@
+package com.example.demo.archive;
+
+import com.example.demo.money.Money;
+import com.example.demo.repository.ExpenseColumnRow;
+import com.example.demo.repository.ExpenseExportRow;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+// Every column of an archived expenses row; spentAt is in UTC, as the database returns it
+public record ArchivedExpense(UUID id,
+                              UUID ownerId,
+                              UUID categoryId,
+                              String name,
+                              BigDecimal amount,
+                              String currency,
+                              BigDecimal baseAmount,
+                              OffsetDateTime spentAt,
+                              String location,
+                              boolean holiday,
+                              String holidayName,
+                              Instant createdAt,
+                              Instant updatedAt,
+                              long version) {
+
+    public LocalDate spentOn() {
+        return spentAt.withOffsetSameInstant(ZoneOffset.UTC).toLocalDate();
+    }
+
+    public ExpenseColumnRow toColumnRow() {
+        return new ExpenseColumnRow(id, categoryId, currency, Money.minorUnits(amount), baseAmount, spentAt);
+    }
+
+    public ExpenseExportRow toExportRow(String categoryName) {
+        return new ExpenseExportRow(id, categoryId, categoryName, name, Money.of(amount, currency), spentAt, location, holiday, holidayName);
+    }
+}
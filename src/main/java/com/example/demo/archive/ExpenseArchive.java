@@ -0,0 +1,373 @@
+package com.example.demo.archive;
+
+import com.example.demo.archive.ExpenseSegment.Column;
+import com.example.demo.archive.ExpenseSegment.Columns;
+import com.example.demo.event.ExpenseChangedEvent;
+import com.example.demo.model.Category;
+import com.example.demo.model.ExpenseArchiveSegment;
+import com.example.demo.money.Money;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.repository.DailyCategoryTotal;
+import com.example.demo.repository.DayKindTotal;
+import com.example.demo.repository.ExpenseArchiveSegmentRepository;
+import com.example.demo.repository.ExpenseColumnRow;
+import com.example.demo.repository.ExpenseExportRow;
+import com.example.demo.repository.HolidayCategoryTotal;
+import com.example.demo.repository.TimeBucketTotal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Months moved out of the expenses table (see ExpenseArchiveService), one segment file per month under
+// expenses.archive.dir and one catalog row each. Readers of raw expenses merge these months back in: which months are
+// archived comes from the catalog in the reader's own transaction, so the result matches the expenses it read.
+// Archived months are read-only; their rollups and sketches are kept.
+@Component
+public class ExpenseArchive {
+
+    private final ExpenseArchiveSegmentRepository segmentRepository;
+    private final CategoryRepository categoryRepository;
+    private final Path directory;
+    private final boolean sharded;
+    // Opened on first read and kept mapped; a segment never changes once its catalog row has committed
+    private final Map<LocalDate, ExpenseSegment> segments = new ConcurrentHashMap<>();
+    // First month after the last archived one; null while nothing has been archived
+    private volatile LocalDate archivedBefore;
+
+    public ExpenseArchive(ExpenseArchiveSegmentRepository segmentRepository, CategoryRepository categoryRepository,
+                          @Value("${expenses.archive.dir:data/archive}") Path directory,
+                          @Value("${datasource.shards.enabled:false}") boolean sharded) {
+        this.segmentRepository = segmentRepository;
+        this.categoryRepository = categoryRepository;
+        this.directory = directory;
+        this.sharded = sharded;
+    }
+
+    public Optional<LocalDate> archivedBefore() {
+        return Optional.ofNullable(archivedBefore);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void refresh() {
+        LocalDate last = segmentRepository.findLastPeriodStart();
+        // The catalog and the cold copies are on main, where they hold every user's months; a user on another shard
+        // would read neither
+        if (last != null && sharded) {
+            throw new IllegalStateException("Expenses are archived up to " + last + "; sharding needs a database without archived months");
+        }
+        archivedBefore = last == null ? null : last.plusMonths(1);
+    }
+
+    // Archived rows are gone from expenses, so an update or a new row there would not be seen alongside them
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        LocalDate boundary = archivedBefore;
+        if (boundary != null && event.affectedMonths().stream().anyMatch(month -> month.atDay(1).isBefore(boundary))) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Expenses before " + boundary + " are archived and read-only");
+        }
+    }
+
+    // Segments keep each user's rows in a block of their own, so the merges below only inflate ownerId's rows.
+
+    // Live per-day totals of UTC days [fromDay, toDay) plus the archived ones; a day may appear in both
+    @Transactional(readOnly = true)
+    public List<DailyCategoryTotal> mergeDailyCategoryTotals(UUID ownerId, LocalDate fromDay, LocalDate toDay, List<DailyCategoryTotal> live) {
+        Map<DayKey, Totals> totals = new LinkedHashMap<>();
+        scan(ownerId, fromDay, toDay, EnumSet.of(Column.BASE_AMOUNT, Column.SPENT_AT), (columns, row) ->
+                totals.computeIfAbsent(new DayKey(columns.categories[row], ExpenseSegment.epochDay(columns.spentAt[row])), key -> new Totals())
+                        .add(columns.baseAmounts[row]));
+        if (totals.isEmpty()) {
+            return live;
+        }
+        List<DailyCategoryTotal> merged = new ArrayList<>(live);
+        totals.forEach((key, total) -> merged.add(new DailyCategoryTotal(
+                key.categoryId(), LocalDate.ofEpochDay(key.epochDay()), total.amount(), total.rows, total.unconverted)));
+        return merged;
+    }
+
+    @Transactional(readOnly = true)
+    public List<HolidayCategoryTotal> mergeHolidayCategoryTotals(UUID ownerId, LocalDate fromDay, LocalDate toDay,
+                                                                 List<HolidayCategoryTotal> live) {
+        Map<HolidayKey, Totals> totals = new LinkedHashMap<>();
+        scan(ownerId, fromDay, toDay, EnumSet.of(Column.BASE_AMOUNT, Column.SPENT_AT, Column.HOLIDAY, Column.HOLIDAY_NAME), (columns, row) -> {
+            if (columns.holidays[row]) {
+                totals.computeIfAbsent(new HolidayKey(columns.holidayNames[row], columns.categories[row]), key -> new Totals())
+                        .add(columns.baseAmounts[row]);
+            }
+        });
+        if (totals.isEmpty()) {
+            return live;
+        }
+        // The same holiday recurs every year, so archived and live rows can share a key
+        for (HolidayCategoryTotal row : live) {
+            totals.computeIfAbsent(new HolidayKey(row.holidayName(), row.categoryId()), key -> new Totals())
+                    .add(row.baseTotal(), row.rows(), row.unconvertedCount());
+        }
+        List<HolidayCategoryTotal> merged = new ArrayList<>(totals.size());
+        totals.forEach((key, total) -> merged.add(new HolidayCategoryTotal(
+                key.holidayName(), key.categoryId(), total.amount(), total.rows, total.unconverted)));
+        return merged;
+    }
+
+    // Days are counted per side: a day only has live rows left if they were written while its month was archived
+    @Transactional(readOnly = true)
+    public List<DayKindTotal> mergeDayKindTotals(UUID ownerId, LocalDate fromDay, LocalDate toDay, List<DayKindTotal> live) {
+        Totals[] totals = {new Totals(), new Totals()};
+        List<Set<Long>> days = List.of(new HashSet<>(), new HashSet<>());
+        scan(ownerId, fromDay, toDay, EnumSet.of(Column.BASE_AMOUNT, Column.SPENT_AT, Column.HOLIDAY), (columns, row) -> {
+            int kind = columns.holidays[row] ? 1 : 0;
+            totals[kind].add(columns.baseAmounts[row]);
+            days.get(kind).add(ExpenseSegment.epochDay(columns.spentAt[row]));
+        });
+        if (totals[0].rows == 0 && totals[1].rows == 0) {
+            return live;
+        }
+        long[] liveDays = new long[2];
+        for (DayKindTotal row : live) {
+            int kind = row.holiday() ? 1 : 0;
+            totals[kind].add(row.baseTotal(), row.rows(), row.unconvertedCount());
+            liveDays[kind] += row.days();
+        }
+        List<DayKindTotal> merged = new ArrayList<>(2);
+        for (int kind = 0; kind < 2; kind++) {
+            if (totals[kind].rows > 0) {
+                merged.add(new DayKindTotal(kind == 1, totals[kind].amount(), totals[kind].rows, days.get(kind).size() + liveDays[kind],
+                        totals[kind].unconverted));
+            }
+        }
+        return merged;
+    }
+
+    // UTC days [from, to]; bucket maps a day to its bucket start. Like the SQL: base amounts, or raw amounts of the
+    // given currency only; categoryId, when given, must be one of the owner's.
+    @Transactional(readOnly = true)
+    public List<TimeBucketTotal> mergeTimeBuckets(UUID ownerId, LocalDate from, LocalDate to, UnaryOperator<LocalDate> bucket,
+                                                  UUID categoryId, String currency, List<TimeBucketTotal> live) {
+        Map<LocalDate, Totals> totals = new LinkedHashMap<>();
+        scan(ownerId, from, to.plusDays(1), EnumSet.of(Column.AMOUNT, Column.CURRENCY, Column.BASE_AMOUNT, Column.SPENT_AT), (columns, row) -> {
+            if ((categoryId == null || categoryId.equals(columns.categories[row]))
+                    && (currency == null || currency.equals(columns.currencies[row]))) {
+                Totals total = totals.computeIfAbsent(bucket.apply(LocalDate.ofEpochDay(ExpenseSegment.epochDay(columns.spentAt[row]))),
+                        start -> new Totals());
+                total.add(currency == null ? columns.baseAmounts[row] : columns.amounts[row]);
+                if (currency != null && ExpenseSegment.isNull(columns.baseAmounts[row])) {
+                    total.unconverted++;
+                }
+            }
+        });
+        if (totals.isEmpty()) {
+            return live;
+        }
+        // A week can straddle the last archived month
+        for (TimeBucketTotal row : live) {
+            Totals total = totals.computeIfAbsent(row.bucketStart(), start -> new Totals());
+            total.add(row.total(), 0, row.unconvertedCount());
+        }
+        return totals.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> new TimeBucketTotal(entry.getKey(), entry.getValue().amountOrZero(), entry.getValue().unconverted))
+                .toList();
+    }
+
+    // The owner's archived rows spent in [start, end), ordered by spentAt then id; they all precede the live rows of
+    // the range
+    @Transactional(readOnly = true)
+    public Stream<ExpenseExportRow> streamForExport(UUID ownerId, OffsetDateTime start, OffsetDateTime end) {
+        List<ExpenseArchiveSegment> overlapping = segmentRepository.findOverlapping(utcDay(start), utcDay(end).plusDays(1));
+        if (overlapping.isEmpty()) {
+            return Stream.empty();
+        }
+        Map<UUID, String> categoryNames = categoryRepository.findByOwnerId(ownerId, Sort.unsorted()).stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
+        // One month is decoded at a time
+        return overlapping.stream().flatMap(entry -> {
+            Columns columns = segment(entry).read(ownerId, ExpenseSegment.ALL_COLUMNS);
+            return IntStream.range(columns.firstAtOrAfter(start.toInstant()), columns.firstAtOrAfter(end.toInstant()))
+                    .mapToObj(row -> columns.row(row).toExportRow(categoryNames.get(columns.categories[row])));
+        });
+    }
+
+    // Union of live and the owner's archived values in [start, end). A block's dictionaries cover its whole month,
+    // so the archived side is read from the rows.
+    @Transactional(readOnly = true)
+    public List<String> mergeCurrencies(UUID ownerId, OffsetDateTime start, OffsetDateTime end, List<String> live) {
+        return mergeValues(ownerId, start, end, Column.CURRENCY, live, Integer.MAX_VALUE);
+    }
+
+    // Stops collecting past limit values, so the result has at most limit + 1
+    @Transactional(readOnly = true)
+    public List<String> mergeLocations(UUID ownerId, OffsetDateTime start, OffsetDateTime end, List<String> live, int limit) {
+        return mergeValues(ownerId, start, end, Column.LOCATION, live, limit);
+    }
+
+    // Every archived row, for the in-memory indexes
+    @Transactional(readOnly = true)
+    public Stream<ExpenseColumnRow> streamColumns() {
+        return segmentRepository.findAllByOrderByPeriodStartAsc().stream().flatMap(entry -> segment(entry).readEach(EnumSet.of(
+                Column.ID, Column.CATEGORY, Column.CURRENCY, Column.AMOUNT, Column.BASE_AMOUNT, Column.SPENT_AT))).flatMap(columns ->
+                IntStream.range(0, columns.size).mapToObj(row -> new ExpenseColumnRow(
+                        columns.ids[row], columns.categories[row], columns.currencies[row],
+                        columns.amounts[row], ExpenseSegment.amount(columns.baseAmounts[row]),
+                        OffsetDateTime.ofInstant(ExpenseSegment.instant(columns.spentAt[row]), ZoneOffset.UTC))));
+    }
+
+    @Transactional(readOnly = true)
+    public long rowCount() {
+        return segmentRepository.findAll().stream().mapToLong(ExpenseArchiveSegment::getRowCount).sum();
+    }
+
+    // Writes or replaces the month's segment file; returns its checksum. The month only becomes visible to readers
+    // once its catalog row commits.
+    public long writeSegment(LocalDate periodStart, List<ArchivedExpense> rows) throws IOException {
+        Files.createDirectories(directory);
+        return ExpenseSegment.write(segmentFile(periodStart), periodStart, rows);
+    }
+
+    public boolean hasSegmentFile(LocalDate periodStart) {
+        return Files.isRegularFile(segmentFile(periodStart));
+    }
+
+    // Only for a segment whose catalog row never committed
+    public void deleteSegmentFile(LocalDate periodStart) {
+        try {
+            Files.deleteIfExists(segmentFile(periodStart));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path segmentFile(LocalDate periodStart) {
+        return directory.resolve("expenses-" + YearMonth.from(periodStart) + ".seg");
+    }
+
+    private ExpenseSegment segment(ExpenseArchiveSegment entry) {
+        return segments.computeIfAbsent(entry.getPeriodStart(), month -> {
+            ExpenseSegment segment;
+            try {
+                segment = ExpenseSegment.open(segmentFile(month));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Archive segment for " + YearMonth.from(month) + " is unreadable", e);
+            }
+            if (segment.rowCount() != entry.getRowCount() || segment.checksum() != entry.getChecksum()) {
+                throw new IllegalStateException("Archive segment for " + YearMonth.from(month) + " does not match its catalog entry");
+            }
+            return segment;
+        });
+    }
+
+    // Visits the owner's archived rows spent on UTC days [fromDay, toDay); the category column is always read
+    private void scan(UUID ownerId, LocalDate fromDay, LocalDate toDay, Set<Column> read, RowVisitor visitor) {
+        if (!fromDay.isBefore(toDay)) {
+            return;
+        }
+        Set<Column> columnsToRead = EnumSet.copyOf(read);
+        columnsToRead.add(Column.CATEGORY);
+        for (ExpenseArchiveSegment entry : segmentRepository.findOverlapping(fromDay, toDay)) {
+            Columns columns = segment(entry).read(ownerId, columnsToRead);
+            int end = columns.firstAtOrAfter(toDay.atStartOfDay().toInstant(ZoneOffset.UTC));
+            for (int row = columns.firstAtOrAfter(fromDay.atStartOfDay().toInstant(ZoneOffset.UTC)); row < end; row++) {
+                visitor.visit(columns, row);
+            }
+        }
+    }
+
+    private List<String> mergeValues(UUID ownerId, OffsetDateTime start, OffsetDateTime end, Column column, List<String> live,
+                                     int limit) {
+        Set<String> values = new LinkedHashSet<>(live);
+        scan(ownerId, utcDay(start), utcDay(end).plusDays(1), EnumSet.of(column, Column.SPENT_AT), (columns, row) -> {
+            if (values.size() > limit) {
+                return;
+            }
+            Instant spentAt = ExpenseSegment.instant(columns.spentAt[row]);
+            String value = column == Column.CURRENCY ? columns.currencies[row] : columns.locations[row];
+            if (value != null && !spentAt.isBefore(start.toInstant()) && spentAt.isBefore(end.toInstant())) {
+                values.add(value);
+            }
+        });
+        return values.size() == live.size() ? live : List.copyOf(values);
+    }
+
+    private static LocalDate utcDay(OffsetDateTime time) {
+        return time.withOffsetSameInstant(ZoneOffset.UTC).toLocalDate();
+    }
+
+    private interface RowVisitor {
+        void visit(Columns columns, int row);
+    }
+
+    private record DayKey(UUID categoryId, long epochDay) {
+    }
+
+    private record HolidayKey(String holidayName, UUID categoryId) {
+    }
+
+    // Minor units of the converted rows, like sum(base_amount): null when no row had an amount
+    private static final class Totals {
+
+        long cents;
+        long rows;
+        long unconverted;
+        boolean summed;
+
+        void add(long minorUnits) {
+            rows++;
+            if (ExpenseSegment.isNull(minorUnits)) {
+                unconverted++;
+            } else {
+                cents = Math.addExact(cents, minorUnits);
+                summed = true;
+            }
+        }
+
+        void add(BigDecimal amount, long rowCount, long unconvertedCount) {
+            if (amount != null) {
+                cents = Math.addExact(cents, Money.minorUnits(amount));
+                summed = true;
+            }
+            rows += rowCount;
+            unconverted += unconvertedCount;
+        }
+
+        BigDecimal amount() {
+            return summed ? BigDecimal.valueOf(cents, Money.SCALE) : null;
+        }
+
+        BigDecimal amountOrZero() {
+            return BigDecimal.valueOf(cents, Money.SCALE);
+        }
+    }
+}
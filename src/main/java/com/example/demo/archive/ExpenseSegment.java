@@ -0,0 +1,519 @@
+package com.example.demo.archive;
+
+import com.example.demo.money.Money;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// One archived UTC month of expenses in an immutable file. Rows are grouped into one block per owner, and within a
+// block each column is deflated on its own, so a query inflates only the columns it reads of the one user it reads,
+// straight out of a read-only memory mapping of the file.
+//
+// Layout, big-endian: magic, format version, period start (epoch day), row count, CRC-32 of everything after the
+// fixed header, block count; then per block its owner (0 for none, else 1 and the UUID), row count and the raw and
+// deflated length of each column; then the deflated columns, block by block in Column order. Blocks are sorted by owner
+// (none first), rows within a block by (spentAt, id). Text and category columns are a dictionary followed by one index
+// per row (-1 for null); amounts are minor units (Long.MIN_VALUE for null), instants are epoch microseconds, spentAt
+// delta-encoded.
+final class ExpenseSegment {
+
+    enum Column {
+        ID, CATEGORY, NAME, AMOUNT, CURRENCY, BASE_AMOUNT, SPENT_AT, LOCATION, HOLIDAY, HOLIDAY_NAME, CREATED_AT, UPDATED_AT, VERSION
+    }
+
+    static final Set<Column> ALL_COLUMNS = EnumSet.allOf(Column.class);
+
+    private static final int MAGIC = 0x45585347;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 4 + 8 + 4;
+    private static final int BLOCK_BYTES = 4 + 16 + 4 + Column.values().length * 8;
+    private static final long NULL_AMOUNT = Long.MIN_VALUE;
+    private static final long MICROS_PER_SECOND = 1_000_000L;
+    private static final long MICROS_PER_DAY = 86_400L * MICROS_PER_SECOND;
+    private static final Comparator<ArchivedExpense> ROW_ORDER =
+            Comparator.comparing(ArchivedExpense::ownerId, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(row -> row.spentAt().toInstant())
+                    .thenComparing(ArchivedExpense::id);
+
+    private final Path file;
+    private final LocalDate periodStart;
+    private final int rowCount;
+    private final long checksum;
+    private final ByteBuffer mapped;
+    private final List<Block> blocks = new ArrayList<>();
+    private final Map<UUID, Block> blocksByOwner = new HashMap<>();
+
+    private ExpenseSegment(Path file, ByteBuffer mapped) throws IOException {
+        this.file = file;
+        this.mapped = mapped;
+        if (mapped.capacity() < HEADER_BYTES || mapped.getInt(0) != MAGIC || mapped.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Not an expense segment: " + file);
+        }
+        periodStart = LocalDate.ofEpochDay(mapped.getInt(8));
+        rowCount = mapped.getInt(12);
+        checksum = mapped.getLong(16);
+        int blockCount = mapped.getInt(24);
+        if (blockCount < 0 || (long) HEADER_BYTES + (long) blockCount * BLOCK_BYTES > mapped.capacity()) {
+            throw new IOException("Corrupt expense segment: " + file);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(mapped.slice(HEADER_BYTES, mapped.capacity() - HEADER_BYTES));
+        long offset = HEADER_BYTES + (long) blockCount * BLOCK_BYTES;
+        long rows = 0;
+        for (int i = 0; i < blockCount; i++) {
+            int entry = HEADER_BYTES + i * BLOCK_BYTES;
+            UUID owner = mapped.getInt(entry) == 0 ? null : new UUID(mapped.getLong(entry + 4), mapped.getLong(entry + 12));
+            Block block = new Block(owner, mapped.getInt(entry + 20));
+            for (Column column : Column.values()) {
+                block.rawLengths[column.ordinal()] = mapped.getInt(entry + 24 + column.ordinal() * 8);
+                block.packedLengths[column.ordinal()] = mapped.getInt(entry + 28 + column.ordinal() * 8);
+                block.offsets[column.ordinal()] = Math.toIntExact(offset);
+                offset += block.packedLengths[column.ordinal()];
+            }
+            rows += block.rowCount;
+            blocks.add(block);
+            if (owner != null) {
+                blocksByOwner.put(owner, block);
+            }
+        }
+        if (offset != mapped.capacity() || rows != rowCount || crc.getValue() != checksum) {
+            throw new IOException("Corrupt expense segment: " + file);
+        }
+    }
+
+    // The mapping stays valid after the channel is closed and is released with the segment
+    static ExpenseSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ExpenseSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Written to a temporary file and moved into place, so a reader never maps a partial segment; returns the checksum
+    static long write(Path file, LocalDate periodStart, List<ArchivedExpense> rows) throws IOException {
+        List<List<ArchivedExpense>> owners = new ArrayList<>();
+        for (ArchivedExpense row : rows.stream().sorted(ROW_ORDER).toList()) {
+            if (owners.isEmpty() || !Objects.equals(owners.get(owners.size() - 1).get(0).ownerId(), row.ownerId())) {
+                owners.add(new ArrayList<>());
+            }
+            owners.get(owners.size() - 1).add(row);
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + owners.size() * BLOCK_BYTES);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(Math.toIntExact(periodStart.toEpochDay())).putInt(rows.size());
+        header.putLong(0).putInt(owners.size());
+        List<byte[]> packed = new ArrayList<>();
+        for (List<ArchivedExpense> block : owners) {
+            UUID owner = block.get(0).ownerId();
+            header.putInt(owner == null ? 0 : 1);
+            header.putLong(owner == null ? 0 : owner.getMostSignificantBits()).putLong(owner == null ? 0 : owner.getLeastSignificantBits());
+            header.putInt(block.size());
+            for (Column column : Column.values()) {
+                byte[] raw = encode(column, block);
+                byte[] deflated = deflate(raw);
+                header.putInt(raw.length).putInt(deflated.length);
+                packed.add(deflated);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), HEADER_BYTES, header.capacity() - HEADER_BYTES);
+        packed.forEach(crc::update);
+        header.putLong(16, crc.getValue()).flip();
+
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                writeFully(channel, header);
+                for (byte[] column : packed) {
+                    writeFully(channel, ByteBuffer.wrap(column));
+                }
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return crc.getValue();
+    }
+
+    LocalDate periodStart() {
+        return periodStart;
+    }
+
+    int rowCount() {
+        return rowCount;
+    }
+
+    long checksum() {
+        return checksum;
+    }
+
+    // The owner's rows only; none when the owner has no rows in this month
+    Columns read(UUID ownerId, Set<Column> columns) {
+        Block block = blocksByOwner.get(ownerId);
+        return block == null ? new Columns(ownerId, 0) : read(block, columns);
+    }
+
+    // Every row, one owner at a time; a block is inflated when the stream reaches it
+    Stream<Columns> readEach(Set<Column> columns) {
+        return blocks.stream().map(block -> read(block, columns));
+    }
+
+    private Columns read(Block block, Set<Column> columns) {
+        int rows = block.rowCount;
+        Columns result = new Columns(block.owner, rows);
+        try {
+            for (Column column : columns) {
+                try (DataInputStream in = inflate(block, column)) {
+                    switch (column) {
+                        case ID -> result.ids = readIds(in, rows);
+                        case CATEGORY -> result.categories = readCategories(in, rows);
+                        case NAME -> result.names = readIndexedStrings(in, rows);
+                        case AMOUNT -> result.amounts = readLongs(in, rows);
+                        case CURRENCY -> result.currencies = readIndexedStrings(in, rows);
+                        case BASE_AMOUNT -> result.baseAmounts = readLongs(in, rows);
+                        case SPENT_AT -> result.spentAt = readDeltas(in, rows);
+                        case LOCATION -> result.locations = readIndexedStrings(in, rows);
+                        case HOLIDAY -> result.holidays = readFlags(in, rows);
+                        case HOLIDAY_NAME -> result.holidayNames = readIndexedStrings(in, rows);
+                        case CREATED_AT -> result.createdAt = readLongs(in, rows);
+                        case UPDATED_AT -> result.updatedAt = readLongs(in, rows);
+                        case VERSION -> result.versions = readLongs(in, rows);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable expense segment " + file, e);
+        }
+        return result;
+    }
+
+    static long micros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), MICROS_PER_SECOND), instant.getNano() / 1000);
+    }
+
+    static Instant instant(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, MICROS_PER_SECOND), Math.floorMod(micros, MICROS_PER_SECOND) * 1000);
+    }
+
+    static long epochDay(long micros) {
+        return Math.floorDiv(micros, MICROS_PER_DAY);
+    }
+
+    static BigDecimal amount(long minorUnits) {
+        return minorUnits == NULL_AMOUNT ? null : BigDecimal.valueOf(minorUnits, Money.SCALE);
+    }
+
+    static boolean isNull(long minorUnits) {
+        return minorUnits == NULL_AMOUNT;
+    }
+
+    // Decoded columns of one owner's rows, one array slot per row; columns that were not read are null
+    static final class Columns {
+
+        final UUID ownerId;
+        final int size;
+        UUID[] ids;
+        UUID[] categories;
+        String[] names;
+        long[] amounts;
+        String[] currencies;
+        long[] baseAmounts;
+        long[] spentAt;
+        String[] locations;
+        boolean[] holidays;
+        String[] holidayNames;
+        long[] createdAt;
+        long[] updatedAt;
+        long[] versions;
+
+        private Columns(UUID ownerId, int size) {
+            this.ownerId = ownerId;
+            this.size = size;
+        }
+
+        // First row spent at or after the instant; needs SPENT_AT
+        int firstAtOrAfter(Instant instant) {
+            if (size == 0) {
+                return 0;
+            }
+            long micros = micros(instant);
+            int index = Arrays.binarySearch(spentAt, micros);
+            if (index < 0) {
+                return -index - 1;
+            }
+            while (index > 0 && spentAt[index - 1] == micros) {
+                index--;
+            }
+            return index;
+        }
+
+        // Needs every column
+        ArchivedExpense row(int index) {
+            return new ArchivedExpense(
+                    ids[index],
+                    ownerId,
+                    categories[index],
+                    names[index],
+                    amount(amounts[index]),
+                    currencies[index],
+                    amount(baseAmounts[index]),
+                    OffsetDateTime.ofInstant(instant(spentAt[index]), ZoneOffset.UTC),
+                    locations[index],
+                    holidays[index],
+                    holidayNames[index],
+                    instant(createdAt[index]),
+                    instant(updatedAt[index]),
+                    versions[index]);
+        }
+    }
+
+    private DataInputStream inflate(Block block, Column column) throws IOException {
+        int index = column.ordinal();
+        byte[] raw = new byte[block.rawLengths[index]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(mapped.slice(block.offsets[index], block.packedLengths[index]));
+            int read = 0;
+            while (read < raw.length) {
+                int inflated = inflater.inflate(raw, read, raw.length - read);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IOException("Truncated column " + column + " in " + file);
+                }
+                read += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt column " + column + " in " + file, e);
+        } finally {
+            inflater.end();
+        }
+        return new DataInputStream(new ByteArrayInputStream(raw));
+    }
+
+    private static byte[] encode(Column column, List<ArchivedExpense> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            switch (column) {
+                case ID -> {
+                    for (ArchivedExpense row : rows) {
+                        writeUuid(out, row.id());
+                    }
+                }
+                case CATEGORY -> {
+                    Map<UUID, Integer> dictionary = dictionary(rows, ArchivedExpense::categoryId);
+                    out.writeInt(dictionary.size());
+                    for (UUID category : dictionary.keySet()) {
+                        writeUuid(out, category);
+                    }
+                    for (ArchivedExpense row : rows) {
+                        out.writeInt(dictionary.get(row.categoryId()));
+                    }
+                }
+                case NAME -> writeIndexedStrings(out, rows, ArchivedExpense::name);
+                case AMOUNT -> {
+                    for (ArchivedExpense row : rows) {
+                        out.writeLong(Money.minorUnits(row.amount()));
+                    }
+                }
+                case CURRENCY -> writeIndexedStrings(out, rows, ArchivedExpense::currency);
+                case BASE_AMOUNT -> {
+                    for (ArchivedExpense row : rows) {
+                        out.writeLong(row.baseAmount() == null ? NULL_AMOUNT : Money.minorUnits(row.baseAmount()));
+                    }
+                }
+                case SPENT_AT -> {
+                    long previous = 0;
+                    for (ArchivedExpense row : rows) {
+                        long micros = micros(row.spentAt().toInstant());
+                        out.writeLong(micros - previous);
+                        previous = micros;
+                    }
+                }
+                case LOCATION -> writeIndexedStrings(out, rows, ArchivedExpense::location);
+                case HOLIDAY -> {
+                    for (ArchivedExpense row : rows) {
+                        out.writeBoolean(row.holiday());
+                    }
+                }
+                case HOLIDAY_NAME -> writeIndexedStrings(out, rows, ArchivedExpense::holidayName);
+                case CREATED_AT -> {
+                    for (ArchivedExpense row : rows) {
+                        out.writeLong(micros(row.createdAt()));
+                    }
+                }
+                case UPDATED_AT -> {
+                    for (ArchivedExpense row : rows) {
+                        out.writeLong(micros(row.updatedAt()));
+                    }
+                }
+                case VERSION -> {
+                    for (ArchivedExpense row : rows) {
+                        out.writeLong(row.version());
+                    }
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <T> Map<T, Integer> dictionary(List<ArchivedExpense> rows, Function<ArchivedExpense, T> value) {
+        Map<T, Integer> dictionary = new LinkedHashMap<>();
+        for (ArchivedExpense row : rows) {
+            T key = value.apply(row);
+            if (key != null) {
+                dictionary.putIfAbsent(key, dictionary.size());
+            }
+        }
+        return dictionary;
+    }
+
+    private static void writeIndexedStrings(DataOutputStream out, List<ArchivedExpense> rows, Function<ArchivedExpense, String> value)
+            throws IOException {
+        Map<String, Integer> dictionary = dictionary(rows, value);
+        out.writeInt(dictionary.size());
+        for (String entry : dictionary.keySet()) {
+            out.writeUTF(entry);
+        }
+        for (ArchivedExpense row : rows) {
+            String entry = value.apply(row);
+            out.writeInt(entry == null ? -1 : dictionary.get(entry));
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static UUID[] readIds(DataInputStream in, int rowCount) throws IOException {
+        UUID[] ids = new UUID[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            ids[i] = new UUID(in.readLong(), in.readLong());
+        }
+        return ids;
+    }
+
+    private static UUID[] readCategories(DataInputStream in, int rowCount) throws IOException {
+        UUID[] dictionary = new UUID[in.readInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = new UUID(in.readLong(), in.readLong());
+        }
+        UUID[] categories = new UUID[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            categories[i] = dictionary[in.readInt()];
+        }
+        return categories;
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<String> dictionary = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            dictionary.add(in.readUTF());
+        }
+        return dictionary;
+    }
+
+    private static String[] readIndexedStrings(DataInputStream in, int rowCount) throws IOException {
+        List<String> dictionary = readStrings(in);
+        String[] values = new String[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            int entry = in.readInt();
+            values[i] = entry < 0 ? null : dictionary.get(entry);
+        }
+        return values;
+    }
+
+    private static long[] readLongs(DataInputStream in, int rowCount) throws IOException {
+        long[] values = new long[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            values[i] = in.readLong();
+        }
+        return values;
+    }
+
+    private static long[] readDeltas(DataInputStream in, int rowCount) throws IOException {
+        long[] values = new long[rowCount];
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            previous += in.readLong();
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    private static boolean[] readFlags(DataInputStream in, int rowCount) throws IOException {
+        boolean[] values = new boolean[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            values[i] = in.readBoolean();
+        }
+        return values;
+    }
+
+    // Where one owner's columns are in the file
+    private static final class Block {
+
+        final UUID owner;
+        final int rowCount;
+        final int[] offsets = new int[Column.values().length];
+        final int[] rawLengths = new int[Column.values().length];
+        final int[] packedLengths = new int[Column.values().length];
+
+        Block(UUID owner, int rowCount) {
+            this.owner = owner;
+            this.rowCount = rowCount;
+        }
+    }
+}
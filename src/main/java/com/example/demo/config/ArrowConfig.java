@@ -0,0 +1,17 @@
+package com.example.demo.config;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ArrowConfig {
+
+    // Off-heap ceiling shared by all concurrent Arrow exports; each export takes a child allocator
+    @Bean(destroyMethod = "close")
+    public BufferAllocator arrowAllocator(@Value("${export.arrow.max-memory-bytes:268435456}") long maxMemoryBytes) {
+        return new RootAllocator(maxMemoryBytes);
+    }
+}
@@ -5,17 +5,21 @@ import com.example.demo.dto.CategoryResponse;
 import com.example.demo.dto.CategoryPatchRequest;
 import com.example.demo.service.CategoryService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -45,18 +49,25 @@ public class CategoryController {
     }
 
     @GetMapping
-    public List<CategoryResponse> listCategories() {
+    public List<CategoryResponse> listCategories(WebRequest webRequest) {
+        if (webRequest.checkNotModified(categoryService.categoriesETag())) {
+            return null;
+        }
         return categoryService.listCategories();
     }
 
     @PutMapping("/{id}")
-    public CategoryResponse updateCategory(@PathVariable UUID id, @Valid @RequestBody CategoryRequest request) {
-        return categoryService.updateCategory(id, request);
+    public ResponseEntity<CategoryResponse> updateCategory(@PathVariable UUID id, @Valid @RequestBody CategoryRequest request,
+                                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        CategoryResponse response = categoryService.updateCategory(id, request, ETags.expectedVersions(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.ofVersion(response.getVersion())).body(response);
     }
 
     @PatchMapping("/{id}")
-    public CategoryResponse patchCategory(@PathVariable UUID id, @Valid @RequestBody CategoryPatchRequest request) {
-        return categoryService.patchCategory(id, request);
+    public ResponseEntity<CategoryResponse> patchCategory(@PathVariable UUID id, @Valid @RequestBody CategoryPatchRequest request,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        CategoryResponse response = categoryService.patchCategory(id, request, ETags.expectedVersions(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.ofVersion(response.getVersion())).body(response);
     }
 
     @DeleteMapping("/{id}")
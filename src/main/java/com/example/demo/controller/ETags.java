@@ -0,0 +1,64 @@
+package com.example.demo.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Entity tags for single resources are the quoted @Version value, e.g. "3"
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String ofVersion(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    // The versions an If-Match list accepts, or null when there is no precondition ("*" or no header). If-Match
+    // requires strong comparison, so weak tags and tags we never issued match nothing; a list of only those fails here.
+    static Set<Long> expectedVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<Long> versions = new LinkedHashSet<>();
+        for (String element : ifMatch.split(",")) {
+            String tag = element.trim();
+            if (!tag.startsWith("W/") && tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                try {
+                    versions.add(Long.parseLong(tag.substring(1, tag.length() - 1)));
+                } catch (NumberFormatException ignored) {
+                    // Not one of ours
+                }
+            }
+        }
+        if (versions.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match does not match the current version");
+        }
+        return versions;
+    }
+
+    // A gzipped body is a different representation of the same content, so it gets its own strong tag
+    static String gzipVariant(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    // If-None-Match uses weak comparison, so W/ is ignored; "*" matches whenever there is a current representation
+    static boolean noneMatchFails(String ifNoneMatch, String... etags) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        if (ifNoneMatch.trim().equals("*")) {
+            return true;
+        }
+        Set<String> current = Set.of(etags);
+        for (String element : ifNoneMatch.split(",")) {
+            String tag = element.trim();
+            if (current.contains(tag.startsWith("W/") ? tag.substring(2) : tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -2,11 +2,17 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.ExpenseRequest;
 import com.example.demo.dto.ExpenseResponse;
-import com.example.demo.dto.MonthlyCategoryTotalResponse;
 import com.example.demo.dto.ExpensePatchRequest;
+import com.example.demo.model.MonthlySummarySnapshot;
+import com.example.demo.service.ClosedMonthSummaryService;
 import com.example.demo.service.ExpenseService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -14,15 +20,21 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.WebRequest;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -34,10 +46,14 @@ import java.util.UUID;
 })
 public class ExpenseController {
 
+    private static final List<MediaType> BINARY_TYPES = List.of(MediaType.APPLICATION_CBOR, new MediaType("application", "x-jackson-smile"));
+
     private final ExpenseService expenseService;
+    private final ClosedMonthSummaryService closedMonthSummaryService;
 
-    public ExpenseController(ExpenseService expenseService) {
+    public ExpenseController(ExpenseService expenseService, ClosedMonthSummaryService closedMonthSummaryService) {
         this.expenseService = expenseService;
+        this.closedMonthSummaryService = closedMonthSummaryService;
     }
 
     @PostMapping("/expenses")
@@ -47,13 +63,17 @@ public class ExpenseController {
     }
 
     @PutMapping("/expenses/{expenseId}")
-    public ExpenseResponse updateExpense(@PathVariable UUID expenseId, @Valid @RequestBody ExpenseRequest request) {
-        return expenseService.updateExpense(expenseId, request);
+    public ResponseEntity<ExpenseResponse> updateExpense(@PathVariable UUID expenseId, @Valid @RequestBody ExpenseRequest request,
+                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ExpenseResponse response = expenseService.updateExpense(expenseId, request, ETags.expectedVersions(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.ofVersion(response.getVersion())).body(response);
     }
 
     @PatchMapping("/expenses/{expenseId}")
-    public ExpenseResponse patchExpense(@PathVariable UUID expenseId, @Valid @RequestBody ExpensePatchRequest request) {
-        return expenseService.patchExpense(expenseId, request);
+    public ResponseEntity<ExpenseResponse> patchExpense(@PathVariable UUID expenseId, @Valid @RequestBody ExpensePatchRequest request,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ExpenseResponse response = expenseService.patchExpense(expenseId, request, ETags.expectedVersions(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.ofVersion(response.getVersion())).body(response);
     }
 
     @GetMapping("/expenses/recent")
@@ -67,9 +87,41 @@ public class ExpenseController {
         return expenseService.listRecentExpensesByCategory(categoryId, limit);
     }
 
+    // Closed months are served from their frozen snapshot, gzipped when the client accepts it; clients preferring
+    // CBOR or Smile get the negotiated response instead
     @GetMapping("/summary/monthly")
-    public List<MonthlyCategoryTotalResponse> monthlyTotals(@RequestParam int year, @RequestParam int month) {
-        return expenseService.calculateMonthlyTotals(year, month);
+    public ResponseEntity<?> monthlyTotals(@RequestParam int year, @RequestParam int month,
+                                           @RequestParam(defaultValue = "false") boolean convert,
+                                           HttpServletRequest request, WebRequest webRequest) {
+        if (acceptsJsonSnapshot(request)) {
+            Optional<MonthlySummarySnapshot> snapshot = closedMonthSummaryService.snapshot(year, month, convert);
+            if (snapshot.isPresent()) {
+                boolean gzip = ContentCoding.acceptsGzip(request);
+                String etag = snapshot.get().getEtag();
+                String gzipEtag = ETags.gzipVariant(etag);
+                // A tag of either coding validates the cached copy: both carry the same content
+                boolean notModified = ETags.noneMatchFails(
+                        String.join(",", Collections.list(request.getHeaders(HttpHeaders.IF_NONE_MATCH))), etag, gzipEtag);
+                ResponseEntity.BodyBuilder response = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                        .eTag(gzip ? gzipEtag : etag)
+                        .cacheControl(CacheControl.maxAge(closedMonthSummaryService.getMaxAge()).cachePrivate())
+                        .varyBy(HttpHeaders.ACCEPT_ENCODING, HttpHeaders.AUTHORIZATION);
+                if (notModified) {
+                    return response.build();
+                }
+                response.contentType(MediaType.APPLICATION_JSON);
+                if (gzip) {
+                    response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+                }
+                return response.body(gzip ? snapshot.get().getGzipBody() : snapshot.get().getBody());
+            }
+        }
+        if (webRequest.checkNotModified(expenseService.monthlyTotalsETag(year, month))) {
+            return null;
+        }
+        return ResponseEntity.ok(convert
+                ? expenseService.calculateMonthlyTotalsInBaseCurrency(year, month)
+                : expenseService.calculateMonthlyTotals(year, month));
     }
 
     @DeleteMapping("/expenses/{expenseId}")
@@ -77,4 +129,28 @@ public class ExpenseController {
     public void deleteExpense(@PathVariable UUID expenseId) {
         expenseService.deleteExpense(expenseId);
     }
+
+    // Mirrors converter negotiation: the most preferred Accept entry that JSON, CBOR or Smile can satisfy decides
+    private static boolean acceptsJsonSnapshot(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        try {
+            List<MediaType> accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+            MimeTypeUtils.sortBySpecificity(accepted);
+            for (MediaType type : accepted) {
+                if (type.includes(MediaType.APPLICATION_JSON)) {
+                    return type.getQualityValue() > 0;
+                }
+                if (BINARY_TYPES.stream().anyMatch(type::includes)) {
+                    return false;
+                }
+            }
+            return false;
+        } catch (IllegalArgumentException e) {
+            // Unparseable or oversized Accept; let negotiation report it
+            return false;
+        }
+    }
 }
@@ -0,0 +1,118 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.CategoryStatsResponse;
+import com.example.demo.dto.DistinctMerchantsResponse;
+import com.example.demo.dto.HolidaySummaryResponse;
+import com.example.demo.dto.PeriodSummaryResponse;
+import com.example.demo.dto.RangeSummaryResponse;
+import com.example.demo.dto.TimeseriesResponse;
+import com.example.demo.dto.TopLocationsResponse;
+import com.example.demo.service.ActivitySketchService;
+import com.example.demo.service.ExpenseStatsService;
+import com.example.demo.service.HolidaySummaryService;
+import com.example.demo.service.PeriodSummaryService;
+import com.example.demo.service.SummaryService;
+import com.example.demo.service.TimeseriesGranularity;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/summary")
+@SecurityRequirement(name = "bearerAuth")
+@ApiResponses({
+        @ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @ApiResponse(responseCode = "403", description = "Forbidden")
+})
+public class SummaryController {
+
+    private final SummaryService summaryService;
+    private final ExpenseStatsService expenseStatsService;
+    private final ActivitySketchService activitySketchService;
+    private final PeriodSummaryService periodSummaryService;
+    private final HolidaySummaryService holidaySummaryService;
+
+    public SummaryController(SummaryService summaryService, ExpenseStatsService expenseStatsService,
+                             ActivitySketchService activitySketchService, PeriodSummaryService periodSummaryService,
+                             HolidaySummaryService holidaySummaryService) {
+        this.summaryService = summaryService;
+        this.expenseStatsService = expenseStatsService;
+        this.activitySketchService = activitySketchService;
+        this.periodSummaryService = periodSummaryService;
+        this.holidaySummaryService = holidaySummaryService;
+    }
+
+    @GetMapping("/range")
+    public RangeSummaryResponse range(@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+                                      @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to,
+                                      @RequestParam(required = false) Integer trailing,
+                                      @RequestParam(defaultValue = "none") String compare) {
+        return summaryService.summarizeRange(from, to, trailing, previousYear(compare));
+    }
+
+    @GetMapping("/timeseries")
+    public TimeseriesResponse timeseries(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                         @RequestParam(defaultValue = "day") String granularity,
+                                         @RequestParam(required = false) UUID categoryId,
+                                         @RequestParam(required = false) String currency) {
+        return summaryService.timeseries(from, to, TimeseriesGranularity.fromParameter(granularity), categoryId, currency);
+    }
+
+    // Custom day ranges, e.g. biweekly pay periods with periodDays=14
+    @GetMapping("/periods")
+    public PeriodSummaryResponse periods(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                         @RequestParam(required = false) Integer periodDays,
+                                         @RequestParam(required = false) UUID categoryId) {
+        return periodSummaryService.summarize(from, to, periodDays, categoryId);
+    }
+
+    // Spend per holiday and category, and holiday against regular-day averages
+    @GetMapping("/holidays")
+    public HolidaySummaryResponse holidays(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return holidaySummaryService.summarize(from, to);
+    }
+
+    // Approximate median and p90 (t-digest) with the exact max, per category
+    @GetMapping("/stats")
+    public List<CategoryStatsResponse> stats(@RequestParam int year, @RequestParam int month) {
+        return expenseStatsService.stats(year, month);
+    }
+
+    // Most frequent locations over the months, merged from per-month Space-Saving sketches
+    @GetMapping("/top-locations")
+    public TopLocationsResponse topLocations(@RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+                                             @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth to,
+                                             @RequestParam(defaultValue = "10") int limit) {
+        return activitySketchService.topLocations(from, to, limit);
+    }
+
+    // Approximate number of distinct merchant names over the months (HyperLogLog)
+    @GetMapping("/distinct-merchants")
+    public DistinctMerchantsResponse distinctMerchants(@RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+                                                       @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth to) {
+        return activitySketchService.distinctMerchants(from, to);
+    }
+
+    private boolean previousYear(String compare) {
+        return switch (compare.toLowerCase()) {
+            case "none" -> false;
+            case "previous-year", "yoy" -> true;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "compare must be none or previous-year");
+        };
+    }
+}
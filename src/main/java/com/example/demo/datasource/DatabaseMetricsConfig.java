@@ -0,0 +1,39 @@
+package com.example.demo.datasource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DatabaseMetricsConfig {
+
+    // Wraps the application's DataSource (the auto-configured pool, or the replica router) in an
+    // InstrumentedDataSource. The pools stay unwrapped beans, so their Hikari metrics are still bound.
+    @Bean
+    static BeanPostProcessor instrumentedDataSourcePostProcessor(ObjectProvider<StatementMetrics> statementMetrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof InstrumentedDataSource)) {
+                    return new InstrumentedDataSource(dataSource, statementMetrics.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Ahead of every other filter, so the security filters' user lookup counts towards the request
+    @Bean
+    public FilterRegistrationBean<RequestStatementsFilter> requestStatementsFilter(StatementMetrics statementMetrics) {
+        FilterRegistrationBean<RequestStatementsFilter> registration =
+                new FilterRegistrationBean<>(new RequestStatementsFilter(statementMetrics));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.datasource;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Inserts a row unless its key is taken, without failing the transaction when a concurrent insert of the same key
+// wins: on PostgreSQL "on conflict do nothing" waits for the other insert and then skips. Other databases (H2 in
+// tests) get an insert guarded by "not exists", which is only safe without concurrent writers. Runs as a native query
+// in the current transaction, so pending entity changes (a category the row refers to) are flushed first. Values must
+// not be null.
+@Component
+public class InsertIfAbsent {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    public InsertIfAbsent(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Values by column; returns whether the row was inserted
+    public boolean insert(String table, List<String> keyColumns, Map<String, ?> values) {
+        List<String> columns = new ArrayList<>();
+        List<Object> arguments = new ArrayList<>();
+        values.forEach((column, value) -> {
+            columns.add(column);
+            arguments.add(value);
+        });
+        String columnList = String.join(", ", columns);
+        String parameters = IntStream.rangeClosed(1, columns.size()).mapToObj(i -> "?" + i).collect(Collectors.joining(", "));
+        String sql;
+        if (postgres()) {
+            sql = "insert into " + table + " (" + columnList + ") values (" + parameters + ") on conflict do nothing";
+        } else {
+            // Comparing each key with its column types the parameters, which a merge's values list leaves untyped
+            sql = "insert into " + table + " (" + columnList + ") select " + parameters + " where not exists (select 1 from "
+                    + table + " where " + keyColumns.stream().map(column -> column + " = ?" + (columns.indexOf(column) + 1))
+                    .collect(Collectors.joining(" and ")) + ")";
+        }
+        Query query = entityManager.createNativeQuery(sql);
+        for (int i = 0; i < arguments.size(); i++) {
+            query.setParameter(i + 1, arguments.get(i));
+        }
+        return query.executeUpdate() > 0;
+    }
+
+    private boolean postgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            postgres = result = "PostgreSQL".equals(database);
+        }
+        return result;
+    }
+}
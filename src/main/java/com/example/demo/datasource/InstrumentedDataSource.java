@@ -0,0 +1,84 @@
+package com.example.demo.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Hands out connections whose statements report each execution to StatementMetrics, so Hibernate, JdbcTemplate and
+// Flyway are all counted. Everything else is passed straight through to the target's connections.
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private final StatementMetrics metrics;
+
+    public InstrumentedDataSource(DataSource target, StatementMetrics metrics) {
+        super(target);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return instrument(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return instrument(super.getConnection(username, password));
+    }
+
+    private Connection instrument(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(proxy, connection, method, args);
+                    return switch (method.getName()) {
+                        case "createStatement" -> statement(Statement.class, (Statement) result, null);
+                        case "prepareStatement" -> statement(PreparedStatement.class, (Statement) result, (String) args[0]);
+                        case "prepareCall" -> statement(CallableStatement.class, (Statement) result, (String) args[0]);
+                        default -> result;
+                    };
+                });
+    }
+
+    private Statement statement(Class<? extends Statement> type, Statement statement, String preparedSql) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            StatementMetrics.Operation operation = StatementMetrics.Operation.of(method.getName());
+            if (operation == null) {
+                return invoke(proxy, statement, method, args);
+            }
+            String sql = preparedSql != null || args == null || args.length == 0 ? preparedSql : (String) args[0];
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = invoke(proxy, statement, method, args);
+                failed = false;
+                return result;
+            } finally {
+                metrics.record(operation, sql, System.nanoTime() - start, failed);
+            }
+        };
+        return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        // Identity is the proxy's, so callers comparing the connection they were handed still match
+        if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
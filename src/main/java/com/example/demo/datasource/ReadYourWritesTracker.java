@@ -0,0 +1,70 @@
+package com.example.demo.datasource;
+
+import com.example.demo.event.CategoryChangedEvent;
+import com.example.demo.event.ExpenseChangedEvent;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Remembers when each user's last write committed, so their read-only transactions stay on the primary until the
+// replica has had the window to replay it. Per instance: a user whose next request lands on another instance is
+// not covered.
+public class ReadYourWritesTracker {
+
+    // Expired entries are dropped once the map grows past this
+    private static final int PRUNE_THRESHOLD = 1024;
+
+    private final long windowNanos;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        recordWrite();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        recordWrite();
+    }
+
+    public void recordWrite() {
+        String user = currentUser();
+        if (user == null || windowNanos <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        lastWrites.put(user, now);
+        if (lastWrites.size() > PRUNE_THRESHOLD) {
+            lastWrites.values().removeIf(at -> now - at >= windowNanos);
+        }
+    }
+
+    public boolean recentlyWrote() {
+        String user = currentUser();
+        Long at = user == null ? null : lastWrites.get(user);
+        if (at == null) {
+            return false;
+        }
+        if (System.nanoTime() - at < windowNanos) {
+            return true;
+        }
+        lastWrites.remove(user, at);
+        return false;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken
+                ? null
+                : authentication.getName();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Sends read-only transactions to the replica and everything else to the primary. Must sit behind a
+// LazyConnectionDataSourceProxy: the transaction manager takes its connection before the read-only flag is bound,
+// and the proxy defers the choice to the first statement.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> PRIMARY_SCOPE = new ThreadLocal<>();
+
+    private final ReadYourWritesTracker tracker;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReadYourWritesTracker tracker) {
+        this.tracker = tracker;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    // For reads whose result outlives the request (shared caches, snapshots, in-memory indexes), which must not come
+    // from a replica that has not replayed the latest writes. Only affects transactions that have not run a
+    // statement yet; without a replica it is a no-op.
+    public static <T> T onPrimary(Supplier<T> read) {
+        Boolean previous = PRIMARY_SCOPE.get();
+        PRIMARY_SCOPE.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_SCOPE.remove();
+            } else {
+                PRIMARY_SCOPE.set(previous);
+            }
+        }
+    }
+
+    public static void onPrimary(Runnable read) {
+        onPrimary(() -> {
+            read.run();
+            return null;
+        });
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && PRIMARY_SCOPE.get() == null
+                && !tracker.recentlyWrote()
+                ? Target.REPLICA
+                : Target.PRIMARY;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.demo.datasource;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Times every statement run through InstrumentedDataSource (db.statements, by operation and outcome) and logs those
+// slower than datasource.metrics.slow-query-threshold, keeping the most recent for /actuator/database. Statements run
+// inside an HTTP request (see RequestStatementsFilter) are also counted per endpoint: db.request.statements and
+// db.request.time, tagged with the handler's path pattern, so a handler that starts issuing one query per row stands out.
+@Component
+public class StatementMetrics implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementMetrics.class);
+
+    private static final int KEPT_SLOW_STATEMENTS = 50;
+    private static final int MAX_SQL_LENGTH = 500;
+
+    private static final ThreadLocal<RequestStatements> CURRENT_REQUEST = new ThreadLocal<>();
+
+    public enum Operation {
+        QUERY, UPDATE, BATCH, EXECUTE;
+
+        static Operation of(String methodName) {
+            return switch (methodName) {
+                case "executeQuery" -> QUERY;
+                case "executeUpdate", "executeLargeUpdate" -> UPDATE;
+                case "executeBatch", "executeLargeBatch" -> BATCH;
+                case "execute" -> EXECUTE;
+                default -> null;
+            };
+        }
+    }
+
+    private final Duration slowStatementThreshold;
+    private final int requestStatementsWarning;
+    private final Deque<SlowStatement> slowStatements = new ArrayDeque<>();
+    // Set once the registry binds this; statements run before that (Flyway) are only logged when slow
+    private volatile MeterRegistry registry;
+    private volatile Map<Operation, Timer> succeeded;
+    private volatile Map<Operation, Timer> failed;
+
+    public StatementMetrics(@Value("${datasource.metrics.slow-query-threshold:500ms}") Duration slowStatementThreshold,
+                            @Value("${datasource.metrics.request-statements-warning:50}") int requestStatementsWarning) {
+        this.slowStatementThreshold = slowStatementThreshold;
+        this.requestStatementsWarning = requestStatementsWarning;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Map<Operation, Timer> succeeded = new EnumMap<>(Operation.class);
+        Map<Operation, Timer> failed = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            succeeded.put(operation, statementTimer(registry, operation, "success"));
+            failed.put(operation, statementTimer(registry, operation, "error"));
+        }
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.registry = registry;
+    }
+
+    void record(Operation operation, String sql, long nanos, boolean error) {
+        Map<Operation, Timer> timers = error ? failed : succeeded;
+        if (timers != null) {
+            timers.get(operation).record(nanos, TimeUnit.NANOSECONDS);
+        }
+        RequestStatements request = CURRENT_REQUEST.get();
+        if (request != null) {
+            request.count++;
+            request.nanos += nanos;
+        }
+        if (nanos >= slowStatementThreshold.toNanos()) {
+            SlowStatement slow = new SlowStatement(Instant.now(), TimeUnit.NANOSECONDS.toMillis(nanos), truncate(sql),
+                    request == null ? null : request.name);
+            log.warn("Slow statement ({} ms{}): {}", slow.millis(), request == null ? "" : ", " + request.name, slow.sql());
+            synchronized (slowStatements) {
+                if (slowStatements.size() == KEPT_SLOW_STATEMENTS) {
+                    slowStatements.removeLast();
+                }
+                slowStatements.addFirst(slow);
+            }
+        }
+    }
+
+    // Statements on this thread count towards the request until endRequest; requests do not nest
+    public RequestStatements beginRequest(String name) {
+        RequestStatements request = new RequestStatements(name);
+        CURRENT_REQUEST.set(request);
+        return request;
+    }
+
+    public void endRequest(RequestStatements request, String method, String uri) {
+        CURRENT_REQUEST.remove();
+        MeterRegistry registry = this.registry;
+        if (registry != null) {
+            DistributionSummary.builder("db.request.statements")
+                    .description("JDBC statements run per HTTP request")
+                    .tags("method", method, "uri", uri)
+                    .register(registry)
+                    .record(request.count);
+            Timer.builder("db.request.time")
+                    .description("Time spent in JDBC statements per HTTP request")
+                    .tags("method", method, "uri", uri)
+                    .register(registry)
+                    .record(request.nanos, TimeUnit.NANOSECONDS);
+        }
+        if (requestStatementsWarning > 0 && request.count >= requestStatementsWarning) {
+            log.warn("{} ran {} statements ({} ms)", request.name, request.count, TimeUnit.NANOSECONDS.toMillis(request.nanos));
+        } else if (log.isDebugEnabled()) {
+            log.debug("{} ran {} statement(s) ({} ms)", request.name, request.count, TimeUnit.NANOSECONDS.toMillis(request.nanos));
+        }
+    }
+
+    public Duration slowStatementThreshold() {
+        return slowStatementThreshold;
+    }
+
+    // Newest first
+    public List<SlowStatement> slowStatements() {
+        synchronized (slowStatements) {
+            return List.copyOf(slowStatements);
+        }
+    }
+
+    private static Timer statementTimer(MeterRegistry registry, Operation operation, String outcome) {
+        return Timer.builder("db.statements")
+                .description("JDBC statement executions")
+                .tags("operation", operation.name().toLowerCase(), "outcome", outcome)
+                .register(registry);
+    }
+
+    private static String truncate(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        String line = sql.strip().replaceAll("\\s+", " ");
+        return line.length() <= MAX_SQL_LENGTH ? line : line.substring(0, MAX_SQL_LENGTH) + "...";
+    }
+
+    public static final class RequestStatements {
+
+        private final String name;
+        private int count;
+        private long nanos;
+
+        private RequestStatements(String name) {
+            this.name = name;
+        }
+
+        public int count() {
+            return count;
+        }
+    }
+
+    public record SlowStatement(Instant at, long millis, String sql, String request) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+public class CategoryPeriodSummaryResponse {
+
+    private UUID categoryId;
+    private String categoryName;
+    private BigDecimal total;
+    private List<PeriodTotalResponse> periods;
+
+    public UUID getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(UUID categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public List<PeriodTotalResponse> getPeriods() {
+        return periods;
+    }
+
+    public void setPeriods(List<PeriodTotalResponse> periods) {
+        this.periods = periods;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+public class CategoryRangeSummaryResponse {
+
+    private UUID categoryId;
+    private String categoryName;
+    private BigDecimal total;
+    private BigDecimal previousYearTotal;
+    private List<MonthTotalResponse> months;
+
+    public UUID getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(UUID categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public BigDecimal getPreviousYearTotal() {
+        return previousYearTotal;
+    }
+
+    public void setPreviousYearTotal(BigDecimal previousYearTotal) {
+        this.previousYearTotal = previousYearTotal;
+    }
+
+    public List<MonthTotalResponse> getMonths() {
+        return months;
+    }
+
+    public void setMonths(List<MonthTotalResponse> months) {
+        this.months = months;
+    }
+}
@@ -11,6 +11,7 @@ public class CategoryResponse {
     private BigDecimal monthlyBudgetLimit;
     private Instant createdAt;
     private Instant updatedAt;
+    private Long version;
 
     public UUID getId() {
         return id;
@@ -51,4 +52,12 @@ public class CategoryResponse {
     public void setUpdatedAt(Instant updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,61 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+
+public class DayKindSpendingResponse {
+
+    private BigDecimal total;
+    private long expenseCount;
+    private long unconvertedCount;
+    private long dayCount;
+    private BigDecimal averagePerDay;
+    private BigDecimal averagePerExpense;
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public long getExpenseCount() {
+        return expenseCount;
+    }
+
+    public void setExpenseCount(long expenseCount) {
+        this.expenseCount = expenseCount;
+    }
+
+    public long getUnconvertedCount() {
+        return unconvertedCount;
+    }
+
+    public void setUnconvertedCount(long unconvertedCount) {
+        this.unconvertedCount = unconvertedCount;
+    }
+
+    public long getDayCount() {
+        return dayCount;
+    }
+
+    public void setDayCount(long dayCount) {
+        this.dayCount = dayCount;
+    }
+
+    public BigDecimal getAveragePerDay() {
+        return averagePerDay;
+    }
+
+    public void setAveragePerDay(BigDecimal averagePerDay) {
+        this.averagePerDay = averagePerDay;
+    }
+
+    public BigDecimal getAveragePerExpense() {
+        return averagePerExpense;
+    }
+
+    public void setAveragePerExpense(BigDecimal averagePerExpense) {
+        this.averagePerExpense = averagePerExpense;
+    }
+}
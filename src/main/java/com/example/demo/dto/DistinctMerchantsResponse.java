@@ -0,0 +1,43 @@
+package com.example.demo.dto;
+
+import java.time.YearMonth;
+
+public class DistinctMerchantsResponse {
+
+    private YearMonth from;
+    private YearMonth to;
+    private long estimate;
+    private double relativeStandardError;
+
+    public YearMonth getFrom() {
+        return from;
+    }
+
+    public void setFrom(YearMonth from) {
+        this.from = from;
+    }
+
+    public YearMonth getTo() {
+        return to;
+    }
+
+    public void setTo(YearMonth to) {
+        this.to = to;
+    }
+
+    public long getEstimate() {
+        return estimate;
+    }
+
+    public void setEstimate(long estimate) {
+        this.estimate = estimate;
+    }
+
+    public double getRelativeStandardError() {
+        return relativeStandardError;
+    }
+
+    public void setRelativeStandardError(double relativeStandardError) {
+        this.relativeStandardError = relativeStandardError;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.dto;
 
+import com.example.demo.money.Money;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
@@ -52,6 +53,12 @@ public class ExpensePatchRequest {
         this.amount = amount;
     }
 
+    // The patched amount: a field the request leaves out keeps its current value
+    public Money patch(Money current) {
+        long minorUnits = amount == null ? current.minorUnits() : Money.minorUnits(amount);
+        return Money.ofMinor(minorUnits, currency == null ? current.currency() : currency.toUpperCase());
+    }
+
     public String getCurrency() {
         return currency;
     }
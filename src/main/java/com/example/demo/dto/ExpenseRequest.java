@@ -1,5 +1,7 @@
 package com.example.demo.dto;
 
+import com.example.demo.money.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -58,6 +60,12 @@ public class ExpenseRequest {
         this.amount = amount;
     }
 
+    // amount and currency travel as separate properties
+    @JsonIgnore
+    public Money getMoney() {
+        return Money.of(amount, currency.toUpperCase());
+    }
+
     public String getCurrency() {
         return currency;
     }
@@ -1,6 +1,7 @@
 package com.example.demo.dto;
 
-import java.math.BigDecimal;
+import com.example.demo.money.Money;
+
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.util.UUID;
@@ -11,7 +12,8 @@ public class ExpenseResponse {
     private UUID categoryId;
     private String categoryName;
     private String name;
-    private BigDecimal amount;
+    private Money amount;
+    private Money baseAmount;
     private String currency;
     private OffsetDateTime spentAt;
     private String location;
@@ -19,6 +21,7 @@ public class ExpenseResponse {
     private String holidayName;
     private Instant createdAt;
     private Instant updatedAt;
+    private Long version;
 
     public UUID getId() {
         return id;
@@ -52,14 +55,22 @@ public class ExpenseResponse {
         this.name = name;
     }
 
-    public BigDecimal getAmount() {
+    public Money getAmount() {
         return amount;
     }
 
-    public void setAmount(BigDecimal amount) {
+    public void setAmount(Money amount) {
         this.amount = amount;
     }
 
+    public Money getBaseAmount() {
+        return baseAmount;
+    }
+
+    public void setBaseAmount(Money baseAmount) {
+        this.baseAmount = baseAmount;
+    }
+
     public String getCurrency() {
         return currency;
     }
@@ -115,4 +126,12 @@ public class ExpenseResponse {
     public void setUpdatedAt(Instant updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,44 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public class HolidayCategoryTotalResponse {
+
+    private UUID categoryId;
+    private String categoryName;
+    private BigDecimal total;
+    private long expenseCount;
+
+    public UUID getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(UUID categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public long getExpenseCount() {
+        return expenseCount;
+    }
+
+    public void setExpenseCount(long expenseCount) {
+        this.expenseCount = expenseCount;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class HolidaySummaryResponse {
+
+    private LocalDate from;
+    private LocalDate to;
+    private String currency;
+    private DayKindSpendingResponse holidays;
+    private DayKindSpendingResponse regularDays;
+    private List<HolidayTotalResponse> byHoliday;
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public DayKindSpendingResponse getHolidays() {
+        return holidays;
+    }
+
+    public void setHolidays(DayKindSpendingResponse holidays) {
+        this.holidays = holidays;
+    }
+
+    public DayKindSpendingResponse getRegularDays() {
+        return regularDays;
+    }
+
+    public void setRegularDays(DayKindSpendingResponse regularDays) {
+        this.regularDays = regularDays;
+    }
+
+    public List<HolidayTotalResponse> getByHoliday() {
+        return byHoliday;
+    }
+
+    public void setByHoliday(List<HolidayTotalResponse> byHoliday) {
+        this.byHoliday = byHoliday;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class HolidayTotalResponse {
+
+    private String holidayName;
+    private BigDecimal total;
+    private long expenseCount;
+    private List<HolidayCategoryTotalResponse> categories;
+
+    public String getHolidayName() {
+        return holidayName;
+    }
+
+    public void setHolidayName(String holidayName) {
+        this.holidayName = holidayName;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public long getExpenseCount() {
+        return expenseCount;
+    }
+
+    public void setExpenseCount(long expenseCount) {
+        this.expenseCount = expenseCount;
+    }
+
+    public List<HolidayCategoryTotalResponse> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<HolidayCategoryTotalResponse> categories) {
+        this.categories = categories;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.dto;
+
+public class LocationCountResponse {
+
+    private String location;
+    private long count;
+    private long maxOvercount;
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getMaxOvercount() {
+        return maxOvercount;
+    }
+
+    public void setMaxOvercount(long maxOvercount) {
+        this.maxOvercount = maxOvercount;
+    }
+}
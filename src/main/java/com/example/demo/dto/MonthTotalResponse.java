@@ -0,0 +1,35 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+public class MonthTotalResponse {
+
+    private YearMonth month;
+    private BigDecimal total;
+    private BigDecimal previousYearTotal;
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public void setMonth(YearMonth month) {
+        this.month = month;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public BigDecimal getPreviousYearTotal() {
+        return previousYearTotal;
+    }
+
+    public void setPreviousYearTotal(BigDecimal previousYearTotal) {
+        this.previousYearTotal = previousYearTotal;
+    }
+}
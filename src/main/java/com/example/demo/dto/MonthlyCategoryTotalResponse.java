@@ -1,6 +1,7 @@
 package com.example.demo.dto;
 
-import java.math.BigDecimal;
+import com.example.demo.money.Money;
+
 import java.util.UUID;
 
 public class MonthlyCategoryTotalResponse {
@@ -9,7 +10,9 @@ public class MonthlyCategoryTotalResponse {
     private String categoryName;
     private int year;
     private int month;
-    private BigDecimal total;
+    private String currency;
+    private Money total;
+    private Long unconvertedCount;
 
     public UUID getCategoryId() {
         return categoryId;
@@ -43,11 +46,27 @@ public class MonthlyCategoryTotalResponse {
         this.month = month;
     }
 
-    public BigDecimal getTotal() {
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public Money getTotal() {
         return total;
     }
 
-    public void setTotal(BigDecimal total) {
+    public void setTotal(Money total) {
         this.total = total;
     }
+
+    public Long getUnconvertedCount() {
+        return unconvertedCount;
+    }
+
+    public void setUnconvertedCount(Long unconvertedCount) {
+        this.unconvertedCount = unconvertedCount;
+    }
 }
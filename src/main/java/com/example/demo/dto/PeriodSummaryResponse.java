@@ -0,0 +1,91 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public class PeriodSummaryResponse {
+
+    private LocalDate from;
+    private LocalDate to;
+    private Integer periodDays;
+    private UUID categoryId;
+    private String currency;
+    private long unconvertedCount;
+    private BigDecimal total;
+    private List<PeriodTotalResponse> periods;
+    private List<CategoryPeriodSummaryResponse> categories;
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public Integer getPeriodDays() {
+        return periodDays;
+    }
+
+    public void setPeriodDays(Integer periodDays) {
+        this.periodDays = periodDays;
+    }
+
+    public UUID getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(UUID categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public long getUnconvertedCount() {
+        return unconvertedCount;
+    }
+
+    public void setUnconvertedCount(long unconvertedCount) {
+        this.unconvertedCount = unconvertedCount;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public List<PeriodTotalResponse> getPeriods() {
+        return periods;
+    }
+
+    public void setPeriods(List<PeriodTotalResponse> periods) {
+        this.periods = periods;
+    }
+
+    public List<CategoryPeriodSummaryResponse> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<CategoryPeriodSummaryResponse> categories) {
+        this.categories = categories;
+    }
+}
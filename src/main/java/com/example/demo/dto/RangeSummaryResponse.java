@@ -0,0 +1,90 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+
+public class RangeSummaryResponse {
+
+    private YearMonth from;
+    private YearMonth to;
+    private boolean previousYear;
+    private String currency;
+    private long unconvertedCount;
+    private BigDecimal total;
+    private BigDecimal previousYearTotal;
+    private List<MonthTotalResponse> months;
+    private List<CategoryRangeSummaryResponse> categories;
+
+    public YearMonth getFrom() {
+        return from;
+    }
+
+    public void setFrom(YearMonth from) {
+        this.from = from;
+    }
+
+    public YearMonth getTo() {
+        return to;
+    }
+
+    public void setTo(YearMonth to) {
+        this.to = to;
+    }
+
+    public boolean isPreviousYear() {
+        return previousYear;
+    }
+
+    public void setPreviousYear(boolean previousYear) {
+        this.previousYear = previousYear;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public long getUnconvertedCount() {
+        return unconvertedCount;
+    }
+
+    public void setUnconvertedCount(long unconvertedCount) {
+        this.unconvertedCount = unconvertedCount;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public BigDecimal getPreviousYearTotal() {
+        return previousYearTotal;
+    }
+
+    public void setPreviousYearTotal(BigDecimal previousYearTotal) {
+        this.previousYearTotal = previousYearTotal;
+    }
+
+    public List<MonthTotalResponse> getMonths() {
+        return months;
+    }
+
+    public void setMonths(List<MonthTotalResponse> months) {
+        this.months = months;
+    }
+
+    public List<CategoryRangeSummaryResponse> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<CategoryRangeSummaryResponse> categories) {
+        this.categories = categories;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public class TimeseriesResponse {
+
+    private LocalDate from;
+    private LocalDate to;
+    private String granularity;
+    private UUID categoryId;
+    private String currency;
+    private long unconvertedCount;
+    private List<TimeseriesPointResponse> points;
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(String granularity) {
+        this.granularity = granularity;
+    }
+
+    public UUID getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(UUID categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public long getUnconvertedCount() {
+        return unconvertedCount;
+    }
+
+    public void setUnconvertedCount(long unconvertedCount) {
+        this.unconvertedCount = unconvertedCount;
+    }
+
+    public List<TimeseriesPointResponse> getPoints() {
+        return points;
+    }
+
+    public void setPoints(List<TimeseriesPointResponse> points) {
+        this.points = points;
+    }
+}
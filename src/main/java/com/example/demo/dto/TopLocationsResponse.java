@@ -0,0 +1,35 @@
+package com.example.demo.dto;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public class TopLocationsResponse {
+
+    private YearMonth from;
+    private YearMonth to;
+    private List<LocationCountResponse> locations;
+
+    public YearMonth getFrom() {
+        return from;
+    }
+
+    public void setFrom(YearMonth from) {
+        this.from = from;
+    }
+
+    public YearMonth getTo() {
+        return to;
+    }
+
+    public void setTo(YearMonth to) {
+        this.to = to;
+    }
+
+    public List<LocationCountResponse> getLocations() {
+        return locations;
+    }
+
+    public void setLocations(List<LocationCountResponse> locations) {
+        this.locations = locations;
+    }
+}
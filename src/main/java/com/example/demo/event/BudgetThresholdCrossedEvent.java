@@ -0,0 +1,14 @@
+package com.example.demo.event;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.UUID;
+
+// Raised when a write moves a category's monthly spend from below to at or above thresholdPercent of its limit
+public record BudgetThresholdCrossedEvent(UUID categoryId,
+                                          String categoryName,
+                                          YearMonth month,
+                                          int thresholdPercent,
+                                          BigDecimal limit,
+                                          BigDecimal spent) {
+}
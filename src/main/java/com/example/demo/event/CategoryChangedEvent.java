@@ -0,0 +1,17 @@
+package com.example.demo.event;
+
+// Published by the category write path: before is null on create, after is null on delete
+public record CategoryChangedEvent(CategorySnapshot before, CategorySnapshot after) {
+
+    public static CategoryChangedEvent created(CategorySnapshot after) {
+        return new CategoryChangedEvent(null, after);
+    }
+
+    public static CategoryChangedEvent updated(CategorySnapshot before, CategorySnapshot after) {
+        return new CategoryChangedEvent(before, after);
+    }
+
+    public static CategoryChangedEvent deleted(CategorySnapshot before) {
+        return new CategoryChangedEvent(before, null);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.demo.event;
+
+import com.example.demo.model.Category;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record CategorySnapshot(UUID id, UUID ownerId, String name, BigDecimal monthlyBudgetLimit) {
+
+    public static CategorySnapshot of(Category category) {
+        return new CategorySnapshot(category.getId(), category.getOwner() == null ? null : category.getOwner().getId(),
+                category.getName(), category.getMonthlyBudgetLimit());
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.event;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Published by the expense write path: before is null on create, after is null on delete
+public record ExpenseChangedEvent(ExpenseSnapshot before, ExpenseSnapshot after) {
+
+    public static ExpenseChangedEvent created(ExpenseSnapshot after) {
+        return new ExpenseChangedEvent(null, after);
+    }
+
+    public static ExpenseChangedEvent updated(ExpenseSnapshot before, ExpenseSnapshot after) {
+        return new ExpenseChangedEvent(before, after);
+    }
+
+    public static ExpenseChangedEvent deleted(ExpenseSnapshot before) {
+        return new ExpenseChangedEvent(before, null);
+    }
+
+    // UTC calendar months touched by the old and/or new spentAt
+    public Set<YearMonth> affectedMonths() {
+        Set<YearMonth> months = new LinkedHashSet<>(2);
+        if (before != null) {
+            months.add(utcMonth(before));
+        }
+        if (after != null) {
+            months.add(utcMonth(after));
+        }
+        return months;
+    }
+
+    private static YearMonth utcMonth(ExpenseSnapshot snapshot) {
+        return YearMonth.from(snapshot.spentAt().withOffsetSameInstant(ZoneOffset.UTC));
+    }
+}
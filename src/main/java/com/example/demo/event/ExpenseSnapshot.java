@@ -0,0 +1,37 @@
+package com.example.demo.event;
+
+import com.example.demo.model.Expense;
+import com.example.demo.money.Money;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// currency is the amount's, kept as its own property of the outbox payload
+public record ExpenseSnapshot(UUID id,
+                              UUID ownerId,
+                              UUID categoryId,
+                              String name,
+                              Money amount,
+                              BigDecimal baseAmount,
+                              String currency,
+                              OffsetDateTime spentAt,
+                              String location,
+                              boolean holiday,
+                              String holidayName) {
+
+    public static ExpenseSnapshot of(Expense expense) {
+        return new ExpenseSnapshot(
+                expense.getId(),
+                expense.getOwner() == null ? null : expense.getOwner().getId(),
+                expense.getCategory().getId(),
+                expense.getName(),
+                expense.getAmount(),
+                expense.getBaseAmount(),
+                expense.getCurrency(),
+                expense.getSpentAt(),
+                expense.getLocation(),
+                expense.isHoliday(),
+                expense.getHolidayName());
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.demo.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Published by the rollup inside the writing transaction each time a category's monthly total in the base currency moves
+public record MonthlyTotalChangedEvent(UUID categoryId, LocalDate periodStart, BigDecimal previousTotal, BigDecimal total) {
+}
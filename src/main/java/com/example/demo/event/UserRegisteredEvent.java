@@ -0,0 +1,7 @@
+package com.example.demo.event;
+
+import java.util.UUID;
+
+// Published in the registration transaction once the user row is saved
+public record UserRegisteredEvent(UUID userId) {
+}
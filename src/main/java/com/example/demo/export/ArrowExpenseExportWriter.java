@@ -0,0 +1,232 @@
+package com.example.demo.export;
+
+import com.example.demo.money.Money;
+import com.example.demo.repository.ExpenseExportRow;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FixedSizeBinaryVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMicroTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+// Arrow IPC stream: category, categoryId, currency and location are dictionary-encoded (location only up to its cap,
+// see ExportDictionaries), amount is a long in minor units (scale 2) and spentAt is UTC microseconds. Memory is
+// bounded by one batch and the dictionaries.
+public class ArrowExpenseExportWriter implements ExpenseExportWriter {
+
+    public static final int AMOUNT_SCALE = Money.SCALE;
+
+    private static final ArrowType.Int INDEX_TYPE = new ArrowType.Int(32, true);
+
+    private final BufferAllocator allocator;
+    private final int batchSize;
+    private final DictionaryProvider.MapDictionaryProvider dictionaryProvider = new DictionaryProvider.MapDictionaryProvider();
+    private final VectorSchemaRoot root;
+    private final ArrowStreamWriter streamWriter;
+
+    private final Map<UUID, Integer> categoryIndex = new HashMap<>();
+    private final Map<String, Integer> currencyIndex = new HashMap<>();
+    private final Map<String, Integer> locationIndex = new HashMap<>();
+
+    private final FixedSizeBinaryVector id;
+    private final IntVector categoryId;
+    private final IntVector category;
+    private final VarCharVector name;
+    private final BigIntVector amountMinor;
+    private final IntVector currency;
+    private final TimeStampMicroTZVector spentAt;
+    // One of the two, as the location column is dictionary-encoded or not
+    private final IntVector location;
+    private final VarCharVector plainLocation;
+    private final BitVector holiday;
+    private final VarCharVector holidayName;
+
+    private final ByteBuffer uuidBuffer = ByteBuffer.allocate(16);
+    private int rowsInBatch;
+
+    public ArrowExpenseExportWriter(BufferAllocator allocator, OutputStream out, ExportDictionaries dictionaries, int batchSize)
+            throws IOException {
+        this.allocator = allocator;
+        this.batchSize = batchSize;
+
+        List<ExportDictionaries.CategoryEntry> categories = dictionaries.categories();
+        for (int i = 0; i < categories.size(); i++) {
+            categoryIndex.put(categories.get(i).id(), i);
+        }
+        DictionaryEncoding categoryIdEncoding = dictionary(1L, "categoryId", categories, entry -> entry.id().toString());
+        DictionaryEncoding categoryEncoding = dictionary(2L, "category", categories, ExportDictionaries.CategoryEntry::name);
+        DictionaryEncoding currencyEncoding = dictionary(3L, "currency", index(dictionaries.currencies(), currencyIndex), Function.identity());
+        DictionaryEncoding locationEncoding = dictionaries.locations() == null
+                ? null : dictionary(4L, "location", index(dictionaries.locations(), locationIndex), Function.identity());
+
+        // In memory a dictionary-encoded column holds int32 indices; the writer publishes the Utf8 value type in the schema
+        Map<String, String> uuidMetadata = Map.of("ARROW:extension:name", "arrow.uuid", "ARROW:extension:metadata", "");
+        Schema schema = new Schema(List.of(
+                new Field("id", new FieldType(false, new ArrowType.FixedSizeBinary(16), null, uuidMetadata), null),
+                new Field("categoryId", new FieldType(false, INDEX_TYPE, categoryIdEncoding), null),
+                new Field("category", new FieldType(false, INDEX_TYPE, categoryEncoding), null),
+                new Field("name", FieldType.notNullable(new ArrowType.Utf8()), null),
+                new Field("amountMinor", new FieldType(false, new ArrowType.Int(64, true), null,
+                        Map.of("scale", Integer.toString(AMOUNT_SCALE))), null),
+                new Field("currency", new FieldType(false, INDEX_TYPE, currencyEncoding), null),
+                new Field("spentAt", FieldType.notNullable(new ArrowType.Timestamp(TimeUnit.MICROSECOND, "UTC")), null),
+                locationEncoding == null
+                        ? new Field("location", FieldType.nullable(new ArrowType.Utf8()), null)
+                        : new Field("location", new FieldType(true, INDEX_TYPE, locationEncoding), null),
+                new Field("holiday", FieldType.notNullable(ArrowType.Bool.INSTANCE), null),
+                new Field("holidayName", FieldType.nullable(new ArrowType.Utf8()), null)
+        ));
+
+        this.root = VectorSchemaRoot.create(schema, allocator);
+        this.id = (FixedSizeBinaryVector) root.getVector("id");
+        this.categoryId = (IntVector) root.getVector("categoryId");
+        this.category = (IntVector) root.getVector("category");
+        this.name = (VarCharVector) root.getVector("name");
+        this.amountMinor = (BigIntVector) root.getVector("amountMinor");
+        this.currency = (IntVector) root.getVector("currency");
+        this.spentAt = (TimeStampMicroTZVector) root.getVector("spentAt");
+        this.location = locationEncoding == null ? null : (IntVector) root.getVector("location");
+        this.plainLocation = locationEncoding == null ? (VarCharVector) root.getVector("location") : null;
+        this.holiday = (BitVector) root.getVector("holiday");
+        this.holidayName = (VarCharVector) root.getVector("holidayName");
+
+        this.streamWriter = new ArrowStreamWriter(root, dictionaryProvider, Channels.newChannel(new NonClosingOutputStream(out)));
+        streamWriter.start();
+        root.allocateNew();
+    }
+
+    @Override
+    public void write(ExpenseExportRow row) throws IOException {
+        int i = rowsInBatch;
+        uuidBuffer.clear();
+        uuidBuffer.putLong(row.id().getMostSignificantBits()).putLong(row.id().getLeastSignificantBits());
+        id.setSafe(i, uuidBuffer.array());
+        int categoryOrdinal = lookup(categoryIndex, row.categoryId(), "category");
+        categoryId.setSafe(i, categoryOrdinal);
+        category.setSafe(i, categoryOrdinal);
+        name.setSafe(i, row.name().getBytes(StandardCharsets.UTF_8));
+        amountMinor.setSafe(i, row.amount().minorUnits());
+        currency.setSafe(i, lookup(currencyIndex, row.amount().currency(), "currency"));
+        Instant instant = row.spentAt().toInstant();
+        spentAt.setSafe(i, instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000);
+        if (location != null) {
+            if (row.location() == null) {
+                location.setNull(i);
+            } else {
+                location.setSafe(i, lookup(locationIndex, row.location(), "location"));
+            }
+        } else if (row.location() == null) {
+            plainLocation.setNull(i);
+        } else {
+            plainLocation.setSafe(i, row.location().getBytes(StandardCharsets.UTF_8));
+        }
+        holiday.setSafe(i, row.holiday() ? 1 : 0);
+        if (row.holidayName() == null) {
+            holidayName.setNull(i);
+        } else {
+            holidayName.setSafe(i, row.holidayName().getBytes(StandardCharsets.UTF_8));
+        }
+
+        rowsInBatch++;
+        if (rowsInBatch == batchSize) {
+            flushBatch();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rowsInBatch > 0) {
+                flushBatch();
+            }
+            streamWriter.end();
+        } finally {
+            streamWriter.close();
+            root.close();
+            for (long dictionaryId : dictionaryProvider.getDictionaryIds()) {
+                dictionaryProvider.lookup(dictionaryId).getVector().close();
+            }
+        }
+    }
+
+    private void flushBatch() throws IOException {
+        root.setRowCount(rowsInBatch);
+        streamWriter.writeBatch();
+        rowsInBatch = 0;
+        root.allocateNew();
+    }
+
+    private <T> DictionaryEncoding dictionary(long dictionaryId, String fieldName, List<T> values, Function<T, String> label) {
+        VarCharVector vector = new VarCharVector(fieldName + "-dictionary", allocator);
+        vector.allocateNew(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            vector.setSafe(i, label.apply(values.get(i)).getBytes(StandardCharsets.UTF_8));
+        }
+        vector.setValueCount(values.size());
+        DictionaryEncoding encoding = new DictionaryEncoding(dictionaryId, false, INDEX_TYPE);
+        dictionaryProvider.put(new Dictionary(vector, encoding));
+        return encoding;
+    }
+
+    private static List<String> index(List<String> values, Map<String, Integer> target) {
+        List<String> distinct = new ArrayList<>(values.size());
+        for (String value : values) {
+            if (value != null && !target.containsKey(value)) {
+                target.put(value, distinct.size());
+                distinct.add(value);
+            }
+        }
+        return distinct;
+    }
+
+    private static <K> int lookup(Map<K, Integer> index, K key, String column) {
+        Integer ordinal = index.get(key);
+        if (ordinal == null) {
+            throw new IllegalStateException("Value missing from the " + column + " dictionary: " + key);
+        }
+        return ordinal;
+    }
+
+    // ArrowStreamWriter.close() closes its channel; the caller owns the response stream
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.export;
+
+import com.example.demo.money.Money;
+import com.example.demo.repository.ExpenseExportRow;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+
+// RFC 4180 CSV with a header row. Text cells a spreadsheet would read as a formula get a leading apostrophe.
+public class CsvExpenseExportWriter implements ExpenseExportWriter {
+
+    static final String HEADER = "id,categoryId,categoryName,name,amount,currency,spentAt,location,holiday,holidayName";
+
+    private final Writer writer;
+    private final char[] amountBuffer = new char[Money.MAX_DECIMAL_LENGTH];
+
+    public CsvExpenseExportWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(HEADER);
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void write(ExpenseExportRow row) throws IOException {
+        writer.write(row.id().toString());
+        writer.write(',');
+        writer.write(row.categoryId().toString());
+        writer.write(',');
+        writeText(row.categoryName());
+        writer.write(',');
+        writeText(row.name());
+        writer.write(',');
+        writer.write(amountBuffer, 0, row.amount().writeDecimal(amountBuffer));
+        writer.write(',');
+        writer.write(row.amount().currency());
+        writer.write(',');
+        writer.write(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(row.spentAt()));
+        writer.write(',');
+        writeText(row.location());
+        writer.write(',');
+        writer.write(row.holiday() ? "true" : "false");
+        writer.write(',');
+        writeText(row.holidayName());
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    private void writeText(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (startsFormula(value)) {
+            value = "'" + value;
+        }
+        if (!needsQuoting(value)) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    // OWASP's list: =, +, - and @, and the tab and carriage return some spreadsheets skip before them
+    private static boolean startsFormula(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        char first = value.charAt(0);
+        return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+    }
+
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
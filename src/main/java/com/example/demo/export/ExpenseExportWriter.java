@@ -0,0 +1,15 @@
+package com.example.demo.export;
+
+import com.example.demo.repository.ExpenseExportRow;
+
+import java.io.IOException;
+
+// Writes rows as they arrive; implementations must not retain rows between calls
+public interface ExpenseExportWriter extends AutoCloseable {
+
+    void write(ExpenseExportRow row) throws IOException;
+
+    // Flushes buffered output and writes any trailer, without closing the underlying stream
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,13 @@
+package com.example.demo.export;
+
+import java.util.List;
+import java.util.UUID;
+
+// Distinct values known before streaming starts; Arrow stream readers expect dictionaries ahead of the first batch.
+// locations is null when the range has more than export.arrow.max-location-dictionary of them: the column is then
+// written as plain strings rather than holding them all in memory.
+public record ExportDictionaries(List<CategoryEntry> categories, List<String> currencies, List<String> locations) {
+
+    public record CategoryEntry(UUID id, String name) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.export;
+
+import com.example.demo.money.Money;
+import com.example.demo.repository.ExpenseExportRow;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+
+// One JSON object per line, written field by field through a single streaming generator
+public class NdjsonExpenseExportWriter implements ExpenseExportWriter {
+
+    private final JsonGenerator generator;
+    private final char[] amountBuffer = new char[Money.MAX_DECIMAL_LENGTH];
+
+    public NdjsonExpenseExportWriter(JsonFactory jsonFactory, OutputStream out) throws IOException {
+        this.generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void write(ExpenseExportRow row) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", row.id().toString());
+        generator.writeStringField("categoryId", row.categoryId().toString());
+        generator.writeStringField("categoryName", row.categoryName());
+        generator.writeStringField("name", row.name());
+        generator.writeFieldName("amount");
+        generator.writeNumber(amountBuffer, 0, row.amount().writeDecimal(amountBuffer));
+        generator.writeStringField("currency", row.amount().currency());
+        generator.writeStringField("spentAt", DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(row.spentAt()));
+        generator.writeStringField("location", row.location());
+        generator.writeBooleanField("holiday", row.holiday());
+        generator.writeStringField("holidayName", row.holidayName());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
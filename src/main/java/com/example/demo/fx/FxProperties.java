@@ -0,0 +1,27 @@
+package com.example.demo.fx;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "fx")
+public class FxProperties {
+
+    private String baseCurrency = "USD";
+    // Spring resource location of a date,currency,rate CSV; conversion is limited to the base currency when unset
+    private String ratesLocation;
+
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    public void setBaseCurrency(String baseCurrency) {
+        this.baseCurrency = baseCurrency;
+    }
+
+    public String getRatesLocation() {
+        return ratesLocation;
+    }
+
+    public void setRatesLocation(String ratesLocation) {
+        this.ratesLocation = ratesLocation;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.fx;
+
+import com.example.demo.money.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+// Converts amounts into the base currency using the rate file loaded once at startup; no remote lookups
+@Service
+public class FxRateService {
+
+    private static final Logger log = LoggerFactory.getLogger(FxRateService.class);
+
+    private final FxRateTable table;
+
+    public FxRateService(FxProperties properties, ResourceLoader resourceLoader) {
+        this.table = load(properties, resourceLoader);
+    }
+
+    public String getBaseCurrency() {
+        return table.getBaseCurrency();
+    }
+
+    // Rounded to cents; empty when no rate is known for that currency and day
+    public Optional<BigDecimal> toBase(Money amount, LocalDate date) {
+        OptionalDouble rate = table.rate(amount.currency(), date);
+        if (rate.isEmpty()) {
+            return Optional.empty();
+        }
+        if (rate.getAsDouble() == 1.0) {
+            return Optional.of(amount.toBigDecimal());
+        }
+        return Optional.of(amount.toBigDecimal().multiply(BigDecimal.valueOf(rate.getAsDouble())).setScale(Money.SCALE, RoundingMode.HALF_EVEN));
+    }
+
+    private static FxRateTable load(FxProperties properties, ResourceLoader resourceLoader) {
+        String location = properties.getRatesLocation();
+        if (location == null || location.isBlank()) {
+            log.warn("No fx.rates-location configured; only {} amounts will be converted", properties.getBaseCurrency());
+            return FxRateTable.empty(properties.getBaseCurrency());
+        }
+        Resource resource = resourceLoader.getResource(location);
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            FxRateTable table = FxRateTable.parse(reader, properties.getBaseCurrency());
+            log.info("Loaded FX rates for {} currencies into {} from {}", table.currencyCount(), table.getBaseCurrency(), location);
+            return table;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read FX rates from " + location, ex);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.fx;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+// Immutable daily rates into the base currency: one double[] per currency, indexed by days since the first date in the file.
+// Days without a published rate (weekends, holidays) carry the previous rate forward, and dates after the
+// last published day reuse the latest rate. Lookups are a map get plus an array index.
+public final class FxRateTable {
+
+    private final String baseCurrency;
+    private final long firstEpochDay;
+    private final Map<String, double[]> ratesByCurrency;
+
+    private FxRateTable(String baseCurrency, long firstEpochDay, Map<String, double[]> ratesByCurrency) {
+        this.baseCurrency = baseCurrency;
+        this.firstEpochDay = firstEpochDay;
+        this.ratesByCurrency = ratesByCurrency;
+    }
+
+    public static FxRateTable empty(String baseCurrency) {
+        return new FxRateTable(baseCurrency.toUpperCase(Locale.ROOT), 0, Map.of());
+    }
+
+    // Reads "date,currency,rate" lines (ISO date, ISO 4217 code, base units per one unit of currency); a header line is optional
+    public static FxRateTable parse(Reader source, String baseCurrency) throws IOException {
+        String base = baseCurrency.toUpperCase(Locale.ROOT);
+        Map<String, Map<Long, Double>> parsed = new HashMap<>();
+        long minDay = Long.MAX_VALUE;
+        long maxDay = Long.MIN_VALUE;
+
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#") || (lineNumber == 1 && trimmed.toLowerCase(Locale.ROOT).startsWith("date"))) {
+                continue;
+            }
+            String[] fields = trimmed.split(",");
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("Invalid FX rate on line " + lineNumber + ": expected date,currency,rate");
+            }
+            long day;
+            double rate;
+            try {
+                day = LocalDate.parse(fields[0].trim()).toEpochDay();
+                rate = Double.parseDouble(fields[2].trim());
+            } catch (DateTimeParseException | NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid FX rate on line " + lineNumber + ": " + ex.getMessage(), ex);
+            }
+            String currency = fields[1].trim().toUpperCase(Locale.ROOT);
+            if (currency.length() != 3 || !(rate > 0) || Double.isInfinite(rate)) {
+                throw new IllegalArgumentException("Invalid FX rate on line " + lineNumber + ": " + trimmed);
+            }
+            if (currency.equals(base)) {
+                continue;
+            }
+            parsed.computeIfAbsent(currency, key -> new HashMap<>()).put(day, rate);
+            minDay = Math.min(minDay, day);
+            maxDay = Math.max(maxDay, day);
+        }
+        if (parsed.isEmpty()) {
+            return empty(base);
+        }
+
+        int length = Math.toIntExact(maxDay - minDay + 1);
+        Map<String, double[]> rates = new HashMap<>(parsed.size() * 2);
+        for (Map.Entry<String, Map<Long, Double>> entry : parsed.entrySet()) {
+            double[] daily = new double[length];
+            Arrays.fill(daily, Double.NaN);
+            for (Map.Entry<Long, Double> rate : entry.getValue().entrySet()) {
+                daily[(int) (rate.getKey() - minDay)] = rate.getValue();
+            }
+            for (int i = 1; i < length; i++) {
+                if (Double.isNaN(daily[i])) {
+                    daily[i] = daily[i - 1];
+                }
+            }
+            rates.put(entry.getKey(), daily);
+        }
+        return new FxRateTable(base, minDay, Map.copyOf(rates));
+    }
+
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    public int currencyCount() {
+        return ratesByCurrency.size();
+    }
+
+    // Empty when the currency is unknown or the date precedes its first published rate
+    public OptionalDouble rate(String currency, LocalDate date) {
+        if (baseCurrency.equalsIgnoreCase(currency)) {
+            return OptionalDouble.of(1.0);
+        }
+        double[] daily = ratesByCurrency.get(currency.toUpperCase(Locale.ROOT));
+        if (daily == null) {
+            return OptionalDouble.empty();
+        }
+        long index = date.toEpochDay() - firstEpochDay;
+        if (index < 0) {
+            return OptionalDouble.empty();
+        }
+        double rate = daily[(int) Math.min(index, daily.length - 1)];
+        return Double.isNaN(rate) ? OptionalDouble.empty() : OptionalDouble.of(rate);
+    }
+}
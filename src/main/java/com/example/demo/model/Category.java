@@ -2,10 +2,14 @@ package com.example.demo.model;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.persistence.UniqueConstraint;
 
 import java.math.BigDecimal;
@@ -14,7 +18,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "categories", uniqueConstraints = {
-        @UniqueConstraint(name = "uk_category_name", columnNames = "name")
+        @UniqueConstraint(name = "uk_categories_owner_name", columnNames = {"owner_id", "name"})
 })
 public class Category {
 
@@ -27,12 +31,21 @@ public class Category {
     @Column(precision = 19, scale = 2)
     private BigDecimal monthlyBudgetLimit;
 
+    // Null only for categories created before ownership, until LegacyOwnershipBackfill assigns them
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id")
+    private AppUser owner;
+
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
 
     @Column(nullable = false)
     private Instant updatedAt;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @PrePersist
     public void prePersist() {
         Instant now = Instant.now();
@@ -72,6 +85,14 @@ public class Category {
         this.monthlyBudgetLimit = monthlyBudgetLimit;
     }
 
+    public AppUser getOwner() {
+        return owner;
+    }
+
+    public void setOwner(AppUser owner) {
+        this.owner = owner;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -87,4 +108,8 @@ public class Category {
     public void setUpdatedAt(Instant updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
 }
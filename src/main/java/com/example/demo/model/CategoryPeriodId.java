@@ -0,0 +1,51 @@
+package com.example.demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+@Embeddable
+public class CategoryPeriodId implements Serializable {
+
+    @Column(name = "category_id", nullable = false)
+    private UUID categoryId;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    protected CategoryPeriodId() {
+    }
+
+    public CategoryPeriodId(UUID categoryId, LocalDate periodStart) {
+        this.categoryId = categoryId;
+        this.periodStart = periodStart;
+    }
+
+    public UUID getCategoryId() {
+        return categoryId;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CategoryPeriodId other)) {
+            return false;
+        }
+        return Objects.equals(categoryId, other.categoryId) && Objects.equals(periodStart, other.periodStart);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(categoryId, periodStart);
+    }
+}
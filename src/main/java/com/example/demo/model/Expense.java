@@ -1,6 +1,9 @@
 package com.example.demo.model;
 
+import com.example.demo.money.MinorUnitsConverter;
+import com.example.demo.money.Money;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
@@ -9,20 +12,18 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
-import jakarta.persistence.Index;
+import jakarta.persistence.Version;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.UUID;
 
+// Indexes are declared in the Flyway migrations (db/migration)
 @Entity
-@Table(
-        name = "expenses",
-        indexes = {
-                @Index(name = "idx_expenses_category_spent_at", columnList = "category_id, spent_at")
-        }
-)
+@Table(name = "expenses")
 public class Expense {
 
     @Id
@@ -31,15 +32,25 @@ public class Expense {
     @Column(nullable = false, length = 120)
     private String name;
 
+    // In minor units of currency; read and written as Money
+    @Convert(converter = MinorUnitsConverter.class)
     @Column(nullable = false, precision = 19, scale = 2)
-    private BigDecimal amount;
+    private Long amount;
 
     @Column(nullable = false, length = 3)
     private String currency;
 
+    // amount converted into fx.base-currency at write time; null when no rate was known
+    @Column(precision = 19, scale = 2)
+    private BigDecimal baseAmount;
+
     @Column(nullable = false)
     private OffsetDateTime spentAt;
 
+    // UTC calendar day of spentAt, kept in sync on every write so date bucketing never depends on the session time zone
+    @Column(name = "spent_on")
+    private LocalDate spentOn;
+
     @Column(length = 255)
     private String location;
 
@@ -53,12 +64,21 @@ public class Expense {
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
 
+    // Always the category's owner, copied so per-user reads use the (owner_id, spent_at) index without a join
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id")
+    private AppUser owner;
+
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
 
     @Column(nullable = false)
     private Instant updatedAt;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @PrePersist
     public void prePersist() {
         Instant now = Instant.now();
@@ -67,11 +87,17 @@ public class Expense {
         }
         createdAt = now;
         updatedAt = now;
+        syncSpentOn();
     }
 
     @PreUpdate
     public void preUpdate() {
         updatedAt = Instant.now();
+        syncSpentOn();
+    }
+
+    private void syncSpentOn() {
+        spentOn = spentAt == null ? null : spentAt.withOffsetSameInstant(ZoneOffset.UTC).toLocalDate();
     }
 
     public UUID getId() {
@@ -90,12 +116,22 @@ public class Expense {
         this.name = name;
     }
 
-    public BigDecimal getAmount() {
-        return amount;
+    public Money getAmount() {
+        return amount == null ? null : Money.ofMinor(amount, currency);
+    }
+
+    // Sets the currency too
+    public void setAmount(Money amount) {
+        this.amount = amount.minorUnits();
+        this.currency = amount.currency();
     }
 
-    public void setAmount(BigDecimal amount) {
-        this.amount = amount;
+    public BigDecimal getBaseAmount() {
+        return baseAmount;
+    }
+
+    public void setBaseAmount(BigDecimal baseAmount) {
+        this.baseAmount = baseAmount;
     }
 
     public String getCurrency() {
@@ -114,6 +150,10 @@ public class Expense {
         this.spentAt = spentAt;
     }
 
+    public LocalDate getSpentOn() {
+        return spentOn;
+    }
+
     public String getLocation() {
         return location;
     }
@@ -144,6 +184,11 @@ public class Expense {
 
     public void setCategory(Category category) {
         this.category = category;
+        this.owner = category.getOwner();
+    }
+
+    public AppUser getOwner() {
+        return owner;
     }
 
     public Instant getCreatedAt() {
@@ -161,4 +206,8 @@ public class Expense {
     public void setUpdatedAt(Instant updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
 }
@@ -0,0 +1,55 @@
+package com.example.demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+// Serialized top-locations (Space-Saving) and distinct-merchants (HyperLogLog) sketches for one user's UTC month
+@Entity
+@Table(name = "monthly_activity_sketches")
+public class MonthlyActivitySketch {
+
+    // Space-Saving counters kept per month
+    public static final int TOP_LOCATION_CAPACITY = 100;
+    // The top-locations payload when every counter holds a 255-character location (Expense.location) of 3-byte
+    // characters: capacity and size, then per counter the modified UTF-8 string and two longs
+    static final int TOP_LOCATIONS_MAX_BYTES = 8 + TOP_LOCATION_CAPACITY * (2 + 255 * 3 + 16);
+
+    @EmbeddedId
+    private OwnerPeriodId id;
+
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    @Column(nullable = false, length = TOP_LOCATIONS_MAX_BYTES)
+    private byte[] topLocations;
+
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    @Column(nullable = false, length = 65536)
+    private byte[] merchants;
+
+    public OwnerPeriodId getId() {
+        return id;
+    }
+
+    public void setId(OwnerPeriodId id) {
+        this.id = id;
+    }
+
+    public byte[] getTopLocations() {
+        return topLocations;
+    }
+
+    public void setTopLocations(byte[] topLocations) {
+        this.topLocations = topLocations;
+    }
+
+    public byte[] getMerchants() {
+        return merchants;
+    }
+
+    public void setMerchants(byte[] merchants) {
+        this.merchants = merchants;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.MapsId;
+import jakarta.persistence.Table;
+
+import java.math.BigDecimal;
+
+// Running per-category, per-month, per-currency totals maintained by delta from the expense write path
+@Entity
+@Table(name = "monthly_category_totals")
+public class MonthlyCategoryTotal {
+
+    @EmbeddedId
+    private MonthlyCategoryTotalId id;
+
+    @MapsId("categoryId")
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "category_id", nullable = false)
+    private Category category;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal total;
+
+    // Sum of Expense.baseAmount; expenses without a base amount are counted in unconvertedCount instead
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal baseTotal;
+
+    @Column(nullable = false)
+    private long unconvertedCount;
+
+    @Column(nullable = false)
+    private long expenseCount;
+
+    public MonthlyCategoryTotalId getId() {
+        return id;
+    }
+
+    public void setId(MonthlyCategoryTotalId id) {
+        this.id = id;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    public void setCategory(Category category) {
+        this.category = category;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public BigDecimal getBaseTotal() {
+        return baseTotal;
+    }
+
+    public void setBaseTotal(BigDecimal baseTotal) {
+        this.baseTotal = baseTotal;
+    }
+
+    public long getUnconvertedCount() {
+        return unconvertedCount;
+    }
+
+    public void setUnconvertedCount(long unconvertedCount) {
+        this.unconvertedCount = unconvertedCount;
+    }
+
+    public long getExpenseCount() {
+        return expenseCount;
+    }
+
+    public void setExpenseCount(long expenseCount) {
+        this.expenseCount = expenseCount;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+@Embeddable
+public class MonthlyCategoryTotalId implements Serializable {
+
+    @Column(name = "category_id", nullable = false)
+    private UUID categoryId;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    protected MonthlyCategoryTotalId() {
+    }
+
+    public MonthlyCategoryTotalId(UUID categoryId, LocalDate periodStart, String currency) {
+        this.categoryId = categoryId;
+        this.periodStart = periodStart;
+        this.currency = currency;
+    }
+
+    public UUID getCategoryId() {
+        return categoryId;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MonthlyCategoryTotalId other)) {
+            return false;
+        }
+        return Objects.equals(categoryId, other.categoryId) && Objects.equals(periodStart, other.periodStart)
+                && Objects.equals(currency, other.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(categoryId, periodStart, currency);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+// A closed month's monthly summary response, serialized and gzipped once when the month was frozen
+@Entity
+@Table(name = "monthly_summary_snapshots")
+public class MonthlySummarySnapshot {
+
+    @EmbeddedId
+    private MonthlySummarySnapshotId id;
+
+    // UTF-8 JSON, exactly what the summary endpoint would have written
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    @Column(nullable = false, length = 1048576)
+    private byte[] body;
+
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    @Column(nullable = false, length = 1048576)
+    private byte[] gzipBody;
+
+    // Quoted strong entity tag derived from the body
+    @Column(nullable = false, length = 64)
+    private String etag;
+
+    @Column(nullable = false)
+    private Instant frozenAt;
+
+    public MonthlySummarySnapshotId getId() {
+        return id;
+    }
+
+    public void setId(MonthlySummarySnapshotId id) {
+        this.id = id;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public void setBody(byte[] body) {
+        this.body = body;
+    }
+
+    public byte[] getGzipBody() {
+        return gzipBody;
+    }
+
+    public void setGzipBody(byte[] gzipBody) {
+        this.gzipBody = gzipBody;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public Instant getFrozenAt() {
+        return frozenAt;
+    }
+
+    public void setFrozenAt(Instant frozenAt) {
+        this.frozenAt = frozenAt;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+@Embeddable
+public class MonthlySummarySnapshotId implements Serializable {
+
+    @Column(name = "owner_id", nullable = false)
+    private UUID ownerId;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    // The ?convert=true variant
+    @Column(name = "base_currency", nullable = false)
+    private boolean baseCurrency;
+
+    protected MonthlySummarySnapshotId() {
+    }
+
+    public MonthlySummarySnapshotId(UUID ownerId, LocalDate periodStart, boolean baseCurrency) {
+        this.ownerId = ownerId;
+        this.periodStart = periodStart;
+        this.baseCurrency = baseCurrency;
+    }
+
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public boolean isBaseCurrency() {
+        return baseCurrency;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MonthlySummarySnapshotId other)) {
+            return false;
+        }
+        return baseCurrency == other.baseCurrency && Objects.equals(ownerId, other.ownerId) && Objects.equals(periodStart, other.periodStart);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ownerId, periodStart, baseCurrency);
+    }
+}
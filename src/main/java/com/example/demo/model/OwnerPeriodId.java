@@ -0,0 +1,51 @@
+package com.example.demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+@Embeddable
+public class OwnerPeriodId implements Serializable {
+
+    @Column(name = "owner_id", nullable = false)
+    private UUID ownerId;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    protected OwnerPeriodId() {
+    }
+
+    public OwnerPeriodId(UUID ownerId, LocalDate periodStart) {
+        this.ownerId = ownerId;
+        this.periodStart = periodStart;
+    }
+
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof OwnerPeriodId other)) {
+            return false;
+        }
+        return Objects.equals(ownerId, other.ownerId) && Objects.equals(periodStart, other.periodStart);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ownerId, periodStart);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.money;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+// An amount as a long count of hundredths plus its ISO currency code. Every amount column is numeric(19, 2), so the
+// scale is fixed at 2 for all currencies. Arithmetic is exact: overflow and currency mismatches throw.
+// In responses a Money is a plain number; the currency travels in a sibling property.
+@JsonSerialize(using = MoneyJsonSerializer.class)
+public record Money(long minorUnits, String currency) implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    // "-92233720368547758.08"
+    public static final int MAX_DECIMAL_LENGTH = 21;
+
+    public Money {
+        Objects.requireNonNull(currency, "currency");
+    }
+
+    public static Money ofMinor(long minorUnits, String currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money of(BigDecimal amount, String currency) {
+        return new Money(minorUnits(amount), currency);
+    }
+
+    public static Money zero(String currency) {
+        return new Money(0, currency);
+    }
+
+    // Throws ArithmeticException when the amount has more than two decimals or does not fit in a long
+    public static long minorUnits(BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minorUnits), currency);
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    // Writes the plain decimal form ("-12.05") into buffer, which needs room for MAX_DECIMAL_LENGTH chars; returns the length
+    public int writeDecimal(char[] buffer) {
+        // Works on the non-positive value so Long.MIN_VALUE needs no special case
+        long value = minorUnits > 0 ? -minorUnits : minorUnits;
+        int end = buffer.length;
+        int position = end;
+        for (int i = 0; i < SCALE; i++) {
+            buffer[--position] = (char) ('0' - (value % 10));
+            value /= 10;
+        }
+        buffer[--position] = '.';
+        do {
+            buffer[--position] = (char) ('0' - (value % 10));
+            value /= 10;
+        } while (value != 0);
+        if (minorUnits < 0) {
+            buffer[--position] = '-';
+        }
+        int length = end - position;
+        System.arraycopy(buffer, position, buffer, 0, length);
+        return length;
+    }
+
+    public String toPlainString() {
+        char[] buffer = new char[MAX_DECIMAL_LENGTH];
+        return new String(buffer, 0, writeDecimal(buffer));
+    }
+
+    @Override
+    public String toString() {
+        return toPlainString() + " " + currency;
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " and " + other.currency);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.money;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteCapability;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+// Textual formats get the digits straight from the long through a per-thread buffer: the JSON generators copy a
+// writeNumber(char[]) into their output (quoted when numbers are written as strings), so no BigDecimal or String is
+// created. Binary formats (CBOR, Smile) and token buffers get a typed decimal.
+public class MoneyJsonSerializer extends StdSerializer<Money> {
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[Money.MAX_DECIMAL_LENGTH]);
+
+    public MoneyJsonSerializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public void serialize(Money value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (gen.getWriteCapabilities().isEnabled(StreamWriteCapability.CAN_WRITE_FORMATTED_NUMBERS)) {
+            char[] buffer = BUFFER.get();
+            gen.writeNumber(buffer, 0, value.writeDecimal(buffer));
+        } else {
+            gen.writeNumber(value.toBigDecimal());
+        }
+    }
+}
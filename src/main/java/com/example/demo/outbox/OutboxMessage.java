@@ -0,0 +1,19 @@
+package com.example.demo.outbox;
+
+import com.example.demo.model.OutboxEvent;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// What a sink receives for one outbox row. sequence orders one shard's events; an entity's events are delivered in
+// the order they were written, even across a move between shards.
+public record OutboxMessage(UUID eventId,
+                            long sequence,
+                            OutboxEvent.AggregateType aggregateType,
+                            UUID aggregateId,
+                            UUID ownerId,
+                            OutboxEvent.ChangeType changeType,
+                            Instant occurredAt,
+                            @JsonRawValue String payload) {
+}
@@ -0,0 +1,228 @@
+package com.example.demo.outbox;
+
+import com.example.demo.model.OutboxEvent;
+import com.example.demo.shard.Shards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Publishes the outbox. Every outbox.relay.interval-ms, on each shard, batches of up to outbox.relay.batch-size events are
+// read oldest first, handed to every OutboxSink and deleted, each batch in one transaction holding the outbox_relay_lock
+// row so that only one instance publishes a shard's outbox at a time. A failing sink rolls its batch back and the
+// shard is retried on the next run: delivery is at-least-once and an entity's events never overtake each other.
+// Meters: outbox.pending and outbox.lag (age of the oldest unpublished event) per shard, outbox.publish.lag (from the
+// write to its event being published), and outbox.published and outbox.publish.failures per sink.
+@Component
+public class OutboxRelay implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    // Leaves the scheduler to other jobs now and then when writes outpace the sinks
+    private static final int MAX_BATCHES_PER_RUN = 100;
+
+    private final Shards shards;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<OutboxSink> sinks;
+    private final int batchSize;
+    private final Map<String, Backlog> backlogs = new ConcurrentHashMap<>();
+    // Set once the registry binds this
+    private volatile Timer publishLag;
+    private volatile Map<String, Counter> published = Map.of();
+    private volatile Map<String, Counter> failures = Map.of();
+
+    public OutboxRelay(Shards shards, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                       ObjectProvider<OutboxSink> sinks, @Value("${outbox.relay.batch-size:200}") int batchSize) {
+        this.shards = shards;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sinks = sinks.orderedStream().toList();
+        this.batchSize = batchSize;
+        if (this.sinks.isEmpty()) {
+            log.warn("No outbox sink is configured; change events stay in the outbox until one is");
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String shard : shards.names()) {
+            Gauge.builder("outbox.pending", backlogs, backlogs -> backlog(backlogs, shard).pending())
+                    .description("Change events not yet published")
+                    .tag("shard", shard)
+                    .register(registry);
+            Gauge.builder("outbox.lag", backlogs, backlogs -> backlog(backlogs, shard).lag().toMillis() / 1000.0)
+                    .description("Age of the oldest change event not yet published")
+                    .baseUnit("seconds")
+                    .tag("shard", shard)
+                    .register(registry);
+        }
+        Map<String, Counter> published = new HashMap<>();
+        Map<String, Counter> failures = new HashMap<>();
+        for (OutboxSink sink : sinks) {
+            published.put(sink.name(), Counter.builder("outbox.published")
+                    .description("Change events a sink accepted")
+                    .tag("sink", sink.name())
+                    .register(registry));
+            failures.put(sink.name(), Counter.builder("outbox.publish.failures")
+                    .description("Batches a sink failed to take")
+                    .tag("sink", sink.name())
+                    .register(registry));
+        }
+        this.published = published;
+        this.failures = failures;
+        this.publishLag = Timer.builder("outbox.publish.lag")
+                .description("Time from a write to its change event being published")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:1000}")
+    public void scheduledRelay() {
+        relay();
+    }
+
+    // Publishes each shard's outbox until it is empty or a sink fails; the number of events published
+    public int relay() {
+        int total = 0;
+        for (Map.Entry<String, Drained> shard : shards.scatter(this::drain).entrySet()) {
+            total += shard.getValue().published();
+            if (shard.getValue().backlog() != null) {
+                backlogs.put(shard.getKey(), shard.getValue().backlog());
+            }
+        }
+        return total;
+    }
+
+    // As of the last run, by shard in Shards.names() order
+    public Map<String, Backlog> backlogs() {
+        Map<String, Backlog> byShard = new LinkedHashMap<>();
+        for (String shard : shards.names()) {
+            byShard.put(shard, backlog(backlogs, shard));
+        }
+        return byShard;
+    }
+
+    public List<String> sinkNames() {
+        return sinks.stream().map(OutboxSink::name).toList();
+    }
+
+    private Drained drain() {
+        int total = 0;
+        try {
+            for (int run = 0; run < MAX_BATCHES_PER_RUN && !sinks.isEmpty(); run++) {
+                List<OutboxMessage> batch = transactionTemplate.execute(status -> publishBatch());
+                total += batch.size();
+                recordLag(batch);
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay stopped after {} event(s), retrying next run: {}", total, e.getMessage());
+        }
+        try {
+            return new Drained(total, measure());
+        } catch (RuntimeException e) {
+            log.warn("Could not measure the outbox backlog: {}", e.getMessage());
+            return new Drained(total, null);
+        }
+    }
+
+    private List<OutboxMessage> publishBatch() {
+        jdbcTemplate.queryForObject("select id from outbox_relay_lock where id = 1 for update", Integer.class);
+        List<OutboxMessage> batch = jdbcTemplate.query("""
+                select id, event_id, aggregate_type, aggregate_id, owner_id, change_type, payload, created_at
+                from outbox_events order by id limit ?
+                """, OutboxRelay::message, batchSize);
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        for (OutboxSink sink : sinks) {
+            try {
+                sink.publish(batch);
+            } catch (Exception e) {
+                increment(failures, sink, 1);
+                throw new IllegalStateException("Outbox sink " + sink.name() + " failed: " + e.getMessage(), e);
+            }
+            increment(published, sink, batch.size());
+        }
+        jdbcTemplate.batchUpdate("delete from outbox_events where id = ?",
+                batch.stream().map(message -> new Object[]{message.sequence()}).toList());
+        return batch;
+    }
+
+    private Backlog measure() {
+        return jdbcTemplate.queryForObject("select count(*), min(created_at) from outbox_events", (rs, rowNum) -> {
+            OffsetDateTime oldest = rs.getObject(2, OffsetDateTime.class);
+            return new Backlog(rs.getLong(1), oldest == null ? null : oldest.toInstant());
+        });
+    }
+
+    private void recordLag(List<OutboxMessage> batch) {
+        Timer timer = publishLag;
+        if (timer == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        for (OutboxMessage message : batch) {
+            timer.record(Duration.between(message.occurredAt(), now));
+        }
+    }
+
+    private static void increment(Map<String, Counter> counters, OutboxSink sink, int amount) {
+        Counter counter = counters.get(sink.name());
+        if (counter != null) {
+            counter.increment(amount);
+        }
+    }
+
+    private static OutboxMessage message(ResultSet rs, int rowNum) throws SQLException {
+        return new OutboxMessage(
+                rs.getObject("event_id", UUID.class),
+                rs.getLong("id"),
+                OutboxEvent.AggregateType.valueOf(rs.getString("aggregate_type")),
+                rs.getObject("aggregate_id", UUID.class),
+                rs.getObject("owner_id", UUID.class),
+                OutboxEvent.ChangeType.valueOf(rs.getString("change_type")),
+                rs.getObject("created_at", OffsetDateTime.class).toInstant(),
+                rs.getString("payload"));
+    }
+
+    private static Backlog backlog(Map<String, Backlog> backlogs, String shard) {
+        return backlogs.getOrDefault(shard, Backlog.EMPTY);
+    }
+
+    private record Drained(int published, Backlog backlog) {
+    }
+
+    public record Backlog(long pending, Instant oldest) {
+
+        static final Backlog EMPTY = new Backlog(0, null);
+
+        public Duration lag() {
+            return oldest == null ? Duration.ZERO : Duration.between(oldest, Instant.now());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.outbox;
+
+import java.util.List;
+
+// Where OutboxRelay delivers change events. Delivery is at-least-once: a batch that any sink fails stays in the
+// outbox and is offered to every sink again, so a sink can see a message twice and should skip eventIds it has.
+public interface OutboxSink {
+
+    String name();
+
+    // Messages in outbox order; returning means they are stored, throwing that none of them need be
+    void publish(List<OutboxMessage> messages) throws Exception;
+}
@@ -0,0 +1,73 @@
+package com.example.demo.outbox;
+
+import com.example.demo.event.CategoryChangedEvent;
+import com.example.demo.event.CategorySnapshot;
+import com.example.demo.event.ExpenseChangedEvent;
+import com.example.demo.event.ExpenseSnapshot;
+import com.example.demo.model.OutboxEvent;
+import com.example.demo.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Appends each expense and category change to the outbox. Synchronous: the event commits or rolls back with the write,
+// so nothing is published that did not happen and nothing that happened is missed.
+@Component
+public class OutboxWriter {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxWriter(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        ExpenseSnapshot state = event.after() != null ? event.after() : event.before();
+        append(OutboxEvent.AggregateType.EXPENSE, changeType(event.before(), event.after()), state.id(), state.ownerId(), state);
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        CategorySnapshot state = event.after() != null ? event.after() : event.before();
+        append(OutboxEvent.AggregateType.CATEGORY, changeType(event.before(), event.after()), state.id(), state.ownerId(), state);
+    }
+
+    private void append(OutboxEvent.AggregateType aggregateType, OutboxEvent.ChangeType changeType, UUID aggregateId,
+                        UUID ownerId, Object state) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventId(UUID.randomUUID());
+        event.setAggregateType(aggregateType);
+        event.setAggregateId(aggregateId);
+        event.setOwnerId(ownerId);
+        event.setChangeType(changeType);
+        event.setPayload(json(state));
+        event.setCreatedAt(Instant.now());
+        outboxEventRepository.save(event);
+    }
+
+    private String json(Object state) {
+        try {
+            return objectMapper.writeValueAsString(state);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + state.getClass().getSimpleName(), e);
+        }
+    }
+
+    private static OutboxEvent.ChangeType changeType(Object before, Object after) {
+        if (before == null) {
+            return OutboxEvent.ChangeType.CREATED;
+        }
+        return after == null ? OutboxEvent.ChangeType.DELETED : OutboxEvent.ChangeType.UPDATED;
+    }
+}
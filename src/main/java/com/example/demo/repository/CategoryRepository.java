@@ -1,14 +1,61 @@
 package com.example.demo.repository;
 
+import com.example.demo.model.AppUser;
 import com.example.demo.model.Category;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 public interface CategoryRepository extends JpaRepository<Category, UUID> {
 
-    boolean existsByNameIgnoreCase(String name);
+    // Names are unique per owner
+    boolean existsByOwnerIdAndNameIgnoreCase(UUID ownerId, String name);
 
-    Optional<Category> findByNameIgnoreCase(String name);
+    Optional<Category> findByIdAndOwnerId(UUID id, UUID ownerId);
+
+    boolean existsByIdAndOwnerId(UUID id, UUID ownerId);
+
+    List<Category> findByOwnerId(UUID ownerId, Sort sort);
+
+    // The owner's category ids, which scope reads of the in-memory indexes and the archive (both keyed by category)
+    @Query("select c.id from Category c where c.owner.id = :ownerId")
+    Set<UUID> findIdsByOwnerId(@Param("ownerId") UUID ownerId);
+
+    long countByOwnerIsNull();
+
+    @Modifying
+    @Query("update Category c set c.owner = :owner where c.owner is null")
+    int assignUnowned(@Param("owner") AppUser owner);
+
+    // Every category of the owner with its base-currency rollup total for the month; spent is null when nothing was spent
+    @Query("""
+            select c.id as categoryId,
+                   c.name as categoryName,
+                   c.monthlyBudgetLimit as monthlyBudgetLimit,
+                   sum(t.baseTotal) as spent,
+                   sum(t.unconvertedCount) as unconvertedCount
+            from Category c
+            left join MonthlyCategoryTotal t on t.category = c and t.id.periodStart = :periodStart
+            where c.owner.id = :ownerId
+            group by c.id, c.name, c.monthlyBudgetLimit
+            order by c.name asc
+            """)
+    List<CategoryBudgetView> findBudgetUsage(@Param("ownerId") UUID ownerId, @Param("periodStart") LocalDate periodStart);
+
+    interface CategoryBudgetView {
+        UUID getCategoryId();
+        String getCategoryName();
+        BigDecimal getMonthlyBudgetLimit();
+        BigDecimal getSpent();
+        Long getUnconvertedCount();
+    }
 }
@@ -0,0 +1,9 @@
+package com.example.demo.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// One category's expenses on one UTC day: summed base amount, row count and rows without a base amount
+public record DailyCategoryTotal(UUID categoryId, LocalDate day, BigDecimal baseTotal, long rows, long unconvertedCount) {
+}
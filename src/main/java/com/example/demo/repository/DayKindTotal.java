@@ -0,0 +1,7 @@
+package com.example.demo.repository;
+
+import java.math.BigDecimal;
+
+// Expenses on holidays or on regular days: summed base amount, rows, distinct UTC days and rows without a base amount
+public record DayKindTotal(boolean holiday, BigDecimal baseTotal, long rows, long days, long unconvertedCount) {
+}
@@ -0,0 +1,9 @@
+package com.example.demo.repository;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// Minimal constructor projection for recomputing aggregates from the raw rows; the amount is in minor units (see Money)
+public record ExpenseAmountRow(UUID categoryId, String currency, long amountMinorUnits, BigDecimal baseAmount, OffsetDateTime spentAt) {
+}
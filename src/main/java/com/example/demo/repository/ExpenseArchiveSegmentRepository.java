@@ -0,0 +1,29 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.ExpenseArchiveSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ExpenseArchiveSegmentRepository extends JpaRepository<ExpenseArchiveSegment, LocalDate> {
+
+    // Months from the one containing fromDay up to, not including, toExclusive
+    @Query("""
+            select s from ExpenseArchiveSegment s
+            where s.periodStart >= :fromMonth and s.periodStart < :toExclusive
+            order by s.periodStart
+            """)
+    List<ExpenseArchiveSegment> findMonthsBetween(@Param("fromMonth") LocalDate fromMonth, @Param("toExclusive") LocalDate toExclusive);
+
+    default List<ExpenseArchiveSegment> findOverlapping(LocalDate fromDay, LocalDate toExclusive) {
+        return findMonthsBetween(fromDay.withDayOfMonth(1), toExclusive);
+    }
+
+    List<ExpenseArchiveSegment> findAllByOrderByPeriodStartAsc();
+
+    @Query("select max(s.periodStart) from ExpenseArchiveSegment s")
+    LocalDate findLastPeriodStart();
+}
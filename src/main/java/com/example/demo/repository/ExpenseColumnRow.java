@@ -0,0 +1,9 @@
+package com.example.demo.repository;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// The fields the in-memory columnar store keeps per expense; the amount is in minor units (see Money)
+public record ExpenseColumnRow(UUID id, UUID categoryId, String currency, long amountMinorUnits, BigDecimal baseAmount, OffsetDateTime spentAt) {
+}
@@ -0,0 +1,24 @@
+package com.example.demo.repository;
+
+import com.example.demo.money.Money;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// Constructor projection: rows are plain values, never entities, so a streamed export does not fill the persistence context
+public record ExpenseExportRow(UUID id,
+                               UUID categoryId,
+                               String categoryName,
+                               String name,
+                               Money amount,
+                               OffsetDateTime spentAt,
+                               String location,
+                               boolean holiday,
+                               String holidayName) {
+
+    // The query's: the amount column arrives in minor units, its currency separately
+    public ExpenseExportRow(UUID id, UUID categoryId, String categoryName, String name, long amountMinorUnits, String currency,
+                            OffsetDateTime spentAt, String location, boolean holiday, String holidayName) {
+        this(id, categoryId, categoryName, name, Money.ofMinor(amountMinorUnits, currency), spentAt, location, holiday, holidayName);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.repository;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// Merchant name and location of one expense, for rebuilding its owner's activity sketches
+public record ExpenseLabelRow(UUID ownerId, String name, String location, OffsetDateTime spentAt) {
+}
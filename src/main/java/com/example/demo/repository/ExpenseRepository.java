@@ -2,39 +2,172 @@ package com.example.demo.repository;
 
 import com.example.demo.model.Category;
 import com.example.demo.model.Expense;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface ExpenseRepository extends JpaRepository<Expense, UUID> {
+public interface ExpenseRepository extends JpaRepository<Expense, UUID>, ExpenseTimeseriesRepository {
 
-    Page<Expense> findByOrderBySpentAtDesc(Pageable pageable);
+    // Reads that serve a user take the owner's id and filter on it first, matching the (owner_id, ...) indexes
+    Page<Expense> findByOwnerIdOrderBySpentAtDesc(UUID ownerId, Pageable pageable);
 
-    Page<Expense> findByCategoryOrderBySpentAtDesc(Category category, Pageable pageable);
+    Page<Expense> findByOwnerIdAndCategoryOrderBySpentAtDesc(UUID ownerId, Category category, Pageable pageable);
+
+    Optional<Expense> findByIdAndOwnerId(UUID id, UUID ownerId);
 
     boolean existsByCategory(Category category);
 
+    // Must be consumed inside a (read-only) transaction and closed; the fetch size lets the driver use a server-side cursor
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.example.demo.repository.ExpenseExportRow(
+                   e.id, c.id, c.name, e.name, e.amount, e.currency, e.spentAt, e.location, e.holiday, e.holidayName)
+            from Expense e join e.category c
+            where e.owner.id = :ownerId and e.spentAt >= :start and e.spentAt < :end
+            order by e.spentAt asc, e.id asc
+            """)
+    Stream<ExpenseExportRow> streamForExport(@Param("ownerId") UUID ownerId,
+                                             @Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.demo.repository.ExpenseAmountRow(e.category.id, e.currency, e.amount, e.baseAmount, e.spentAt) from Expense e")
+    Stream<ExpenseAmountRow> streamAmounts();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.example.demo.repository.ExpenseColumnRow(e.id, e.category.id, e.currency, e.amount, e.baseAmount, e.spentAt)
+            from Expense e
+            """)
+    Stream<ExpenseColumnRow> streamColumns();
+
+    default List<BigDecimal> findBaseAmounts(UUID categoryId, LocalDate fromDay, LocalDate toDay) {
+        return findBaseAmounts(categoryId, fromDay, toDay, utcStart(fromDay), utcStart(toDay));
+    }
+
+    @Query("""
+            select e.baseAmount from Expense e
+            where e.category.id = :categoryId and e.spentOn >= :fromDay and e.spentOn < :toDay and e.baseAmount is not null
+              and e.spentAt >= :fromTime and e.spentAt < :toTime
+            """)
+    List<BigDecimal> findBaseAmounts(@Param("categoryId") UUID categoryId,
+                                     @Param("fromDay") LocalDate fromDay,
+                                     @Param("toDay") LocalDate toDay,
+                                     @Param("fromTime") OffsetDateTime fromTime,
+                                     @Param("toTime") OffsetDateTime toTime);
+
+    default List<DailyCategoryTotal> findDailyCategoryTotals(UUID ownerId, LocalDate fromDay, LocalDate toDay) {
+        return findDailyCategoryTotals(ownerId, fromDay, toDay, utcStart(fromDay), utcStart(toDay));
+    }
+
     @Query("""
-            select e.category.id as categoryId,
-                   e.category.name as categoryName,
-                   sum(e.amount) as total
+            select new com.example.demo.repository.DailyCategoryTotal(
+                   e.category.id, e.spentOn, sum(e.baseAmount), count(e), sum(case when e.baseAmount is null then 1 else 0 end))
             from Expense e
-            where e.spentAt >= :start and e.spentAt < :end
-            group by e.category.id, e.category.name
-            order by e.category.name asc
+            where e.owner.id = :ownerId and e.spentOn >= :fromDay and e.spentOn < :toDay
+              and e.spentAt >= :fromTime and e.spentAt < :toTime
+            group by e.category.id, e.spentOn
             """)
-    List<CategoryMonthlyTotalView> findCategoryTotalsBetween(@Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
+    List<DailyCategoryTotal> findDailyCategoryTotals(@Param("ownerId") UUID ownerId, @Param("fromDay") LocalDate fromDay, @Param("toDay") LocalDate toDay,
+                                                     @Param("fromTime") OffsetDateTime fromTime, @Param("toTime") OffsetDateTime toTime);
+
+    default List<HolidayCategoryTotal> findHolidayCategoryTotals(UUID ownerId, LocalDate fromDay, LocalDate toDay) {
+        return findHolidayCategoryTotals(ownerId, fromDay, toDay, utcStart(fromDay), utcStart(toDay));
+    }
+
+    // Only reads holiday rows; on PostgreSQL the idx_expenses_owner_holiday partial index covers it
+    @Query("""
+            select new com.example.demo.repository.HolidayCategoryTotal(
+                   e.holidayName, e.category.id, sum(e.baseAmount), count(e), sum(case when e.baseAmount is null then 1 else 0 end))
+            from Expense e
+            where e.owner.id = :ownerId and e.holiday = true and e.spentOn >= :fromDay and e.spentOn < :toDay
+              and e.spentAt >= :fromTime and e.spentAt < :toTime
+            group by e.holidayName, e.category.id
+            """)
+    List<HolidayCategoryTotal> findHolidayCategoryTotals(@Param("ownerId") UUID ownerId, @Param("fromDay") LocalDate fromDay, @Param("toDay") LocalDate toDay,
+                                                         @Param("fromTime") OffsetDateTime fromTime, @Param("toTime") OffsetDateTime toTime);
+
+    default List<DayKindTotal> findDayKindTotals(UUID ownerId, LocalDate fromDay, LocalDate toDay) {
+        return findDayKindTotals(ownerId, fromDay, toDay, utcStart(fromDay), utcStart(toDay));
+    }
+
+    @Query("""
+            select new com.example.demo.repository.DayKindTotal(
+                   e.holiday, sum(e.baseAmount), count(e), count(distinct e.spentOn), sum(case when e.baseAmount is null then 1 else 0 end))
+            from Expense e
+            where e.owner.id = :ownerId and e.spentOn >= :fromDay and e.spentOn < :toDay
+              and e.spentAt >= :fromTime and e.spentAt < :toTime
+            group by e.holiday
+            """)
+    List<DayKindTotal> findDayKindTotals(@Param("ownerId") UUID ownerId, @Param("fromDay") LocalDate fromDay, @Param("toDay") LocalDate toDay,
+                                         @Param("fromTime") OffsetDateTime fromTime, @Param("toTime") OffsetDateTime toTime);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.demo.repository.ExpenseLabelRow(e.owner.id, e.name, e.location, e.spentAt) from Expense e where e.owner is not null")
+    Stream<ExpenseLabelRow> streamLabels();
+
+    default List<ExpenseLabelRow> findLabels(UUID ownerId, LocalDate fromDay, LocalDate toDay) {
+        return findLabels(ownerId, fromDay, toDay, utcStart(fromDay), utcStart(toDay));
+    }
+
+    @Query("""
+            select new com.example.demo.repository.ExpenseLabelRow(e.owner.id, e.name, e.location, e.spentAt) from Expense e
+            where e.owner.id = :ownerId and e.spentOn >= :fromDay and e.spentOn < :toDay
+              and e.spentAt >= :fromTime and e.spentAt < :toTime
+            """)
+    List<ExpenseLabelRow> findLabels(@Param("ownerId") UUID ownerId, @Param("fromDay") LocalDate fromDay, @Param("toDay") LocalDate toDay,
+                                     @Param("fromTime") OffsetDateTime fromTime, @Param("toTime") OffsetDateTime toTime);
+
+    @Query("select distinct e.currency from Expense e where e.owner.id = :ownerId and e.spentAt >= :start and e.spentAt < :end")
+    List<String> findDistinctCurrenciesBetween(@Param("ownerId") UUID ownerId,
+                                               @Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
+
+    @Query("""
+            select distinct e.location from Expense e
+            where e.owner.id = :ownerId and e.spentAt >= :start and e.spentAt < :end and e.location is not null
+            """)
+    List<String> findDistinctLocationsBetween(@Param("ownerId") UUID ownerId,
+                                              @Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end,
+                                              Limit limit);
+
+    // Legacy rows take their category's owner once it has one; see LegacyOwnershipBackfill
+    @Modifying
+    @Query(value = """
+            update expenses set owner_id = (select c.owner_id from categories c where c.id = expenses.category_id)
+            where owner_id is null and category_id in (select c.id from categories c where c.owner_id is not null)
+            """, nativeQuery = true)
+    int assignOwnersFromCategories();
 
-    interface CategoryMonthlyTotalView {
-        UUID getCategoryId();
-        String getCategoryName();
-        BigDecimal getTotal();
+    // spent_on is the UTC date of spent_at, so the same range on spent_at changes no result; it lets PostgreSQL prune
+    // the monthly partitions of expenses, which are keyed on spent_at
+    static OffsetDateTime utcStart(LocalDate day) {
+        return day.atStartOfDay().atOffset(ZoneOffset.UTC);
     }
 }
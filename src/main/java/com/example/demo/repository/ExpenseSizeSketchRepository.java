@@ -0,0 +1,34 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.CategoryPeriodId;
+import com.example.demo.model.ExpenseSizeSketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ExpenseSizeSketchRepository extends JpaRepository<ExpenseSizeSketch, CategoryPeriodId> {
+
+    // Row lock serializes concurrent read-modify-write of the same digest
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ExpenseSizeSketch s where s.id = :id")
+    Optional<ExpenseSizeSketch> findForUpdate(@Param("id") CategoryPeriodId id);
+
+    @Query("""
+            select s from ExpenseSizeSketch s join fetch s.category c
+            where c.owner.id = :ownerId and s.id.periodStart = :periodStart
+            order by c.name asc
+            """)
+    List<ExpenseSizeSketch> findByPeriod(@Param("ownerId") UUID ownerId, @Param("periodStart") LocalDate periodStart);
+
+    @Modifying
+    @Query("delete from ExpenseSizeSketch s where s.id.periodStart >= :from")
+    int deleteFrom(@Param("from") LocalDate from);
+}
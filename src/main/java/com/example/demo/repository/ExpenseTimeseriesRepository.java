@@ -0,0 +1,12 @@
+package com.example.demo.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+// Custom fragment of ExpenseRepository: the truncation unit is spliced into native SQL, so it cannot be a derived query
+public interface ExpenseTimeseriesRepository {
+
+    // unit is day, week (ISO, Monday-based) or month; sums the owner's base amounts, or raw amounts when currency is given
+    List<TimeBucketTotal> sumByTimeBucket(UUID ownerId, String unit, LocalDate from, LocalDate to, UUID categoryId, String currency);
+}
@@ -0,0 +1,83 @@
+package com.example.demo.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class ExpenseTimeseriesRepositoryImpl implements ExpenseTimeseriesRepository {
+
+    private static final Map<String, String> UNITS = Map.of("day", "day", "week", "week", "month", "month");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Grouped and truncated in the database over the (owner_id, spent_on) index; only one row per bucket comes back
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<TimeBucketTotal> sumByTimeBucket(UUID ownerId, String unit, LocalDate from, LocalDate to, UUID categoryId, String currency) {
+        String bucket = "cast(date_trunc('" + sqlUnit(unit) + "', cast(e.spent_on as timestamp)) as date)";
+        StringBuilder sql = new StringBuilder()
+                .append("select ").append(bucket).append(" as bucket_start, ")
+                .append(currency == null ? "sum(e.base_amount)" : "sum(e.amount)").append(" as total, ")
+                .append("count(*) - count(e.base_amount) as unconverted ")
+                .append("from expenses e where e.owner_id = :ownerId and e.spent_on >= :fromDay and e.spent_on <= :toDay")
+                .append(" and e.spent_at >= :fromTime and e.spent_at < :toTime");
+        if (categoryId != null) {
+            sql.append(" and e.category_id = :categoryId");
+        }
+        if (currency != null) {
+            sql.append(" and e.currency = :currency");
+        }
+        sql.append(" group by ").append(bucket).append(" order by bucket_start");
+
+        Query query = entityManager.createNativeQuery(sql.toString())
+                .setParameter("ownerId", ownerId)
+                .setParameter("fromDay", from)
+                .setParameter("toDay", to)
+                .setParameter("fromTime", ExpenseRepository.utcStart(from))
+                .setParameter("toTime", ExpenseRepository.utcStart(to.plusDays(1)));
+        if (categoryId != null) {
+            query.setParameter("categoryId", categoryId);
+        }
+        if (currency != null) {
+            query.setParameter("currency", currency);
+        }
+        List<Object[]> rows = query.getResultList();
+        return rows.stream()
+                .map(row -> new TimeBucketTotal(
+                        toLocalDate(row[0]),
+                        row[1] == null ? BigDecimal.ZERO : (BigDecimal) row[1],
+                        ((Number) row[2]).longValue()))
+                .toList();
+    }
+
+    // PostgreSQL weeks start on Monday; H2 needs iso_week for the same result
+    private String sqlUnit(String unit) {
+        String sqlUnit = UNITS.get(unit);
+        if (sqlUnit == null) {
+            throw new IllegalArgumentException("Unsupported time bucket: " + unit);
+        }
+        if (sqlUnit.equals("week") && dialect() instanceof H2Dialect) {
+            return "iso_week";
+        }
+        return sqlUnit;
+    }
+
+    private Dialect dialect() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+}
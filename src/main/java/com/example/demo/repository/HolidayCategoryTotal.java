@@ -0,0 +1,8 @@
+package com.example.demo.repository;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Holiday-tagged expenses of one holiday and category: summed base amount, row count and rows without a base amount
+public record HolidayCategoryTotal(String holidayName, UUID categoryId, BigDecimal baseTotal, long rows, long unconvertedCount) {
+}
@@ -0,0 +1,34 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.MonthlyActivitySketch;
+import com.example.demo.model.OwnerPeriodId;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface MonthlyActivitySketchRepository extends JpaRepository<MonthlyActivitySketch, OwnerPeriodId> {
+
+    // Row lock serializes concurrent read-modify-write of the same user's month
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from MonthlyActivitySketch s where s.id = :id")
+    Optional<MonthlyActivitySketch> findForUpdate(@Param("id") OwnerPeriodId id);
+
+    @Query("""
+            select s from MonthlyActivitySketch s
+            where s.id.ownerId = :ownerId and s.id.periodStart >= :from and s.id.periodStart <= :to
+            """)
+    List<MonthlyActivitySketch> findByOwnerBetween(@Param("ownerId") UUID ownerId, @Param("from") LocalDate from,
+                                                   @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("delete from MonthlyActivitySketch s where s.id.periodStart >= :from")
+    int deleteFrom(@Param("from") LocalDate from);
+}
@@ -0,0 +1,126 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.MonthlyCategoryTotal;
+import com.example.demo.model.MonthlyCategoryTotalId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface MonthlyCategoryTotalRepository extends JpaRepository<MonthlyCategoryTotal, MonthlyCategoryTotalId> {
+
+    // Row-level atomic increment; returns 0 when the (category, month, currency) row does not exist yet
+    @Modifying
+    @Query("""
+            update MonthlyCategoryTotal t
+            set t.total = t.total + :amount,
+                t.baseTotal = t.baseTotal + :baseAmount,
+                t.unconvertedCount = t.unconvertedCount + :unconverted,
+                t.expenseCount = t.expenseCount + :count
+            where t.id.categoryId = :categoryId and t.id.periodStart = :periodStart and t.id.currency = :currency
+            """)
+    int applyDelta(@Param("categoryId") UUID categoryId,
+                   @Param("periodStart") LocalDate periodStart,
+                   @Param("currency") String currency,
+                   @Param("amount") BigDecimal amount,
+                   @Param("baseAmount") BigDecimal baseAmount,
+                   @Param("unconverted") long unconverted,
+                   @Param("count") long count);
+
+    @Modifying
+    @Query(value = """
+            insert into monthly_category_totals
+                (category_id, period_start, currency, total, base_total, unconverted_count, expense_count)
+            values (:categoryId, :periodStart, :currency, :amount, :baseAmount, :unconverted, :count)
+            """, nativeQuery = true)
+    void insertTotal(@Param("categoryId") UUID categoryId,
+                     @Param("periodStart") LocalDate periodStart,
+                     @Param("currency") String currency,
+                     @Param("amount") BigDecimal amount,
+                     @Param("baseAmount") BigDecimal baseAmount,
+                     @Param("unconverted") long unconverted,
+                     @Param("count") long count);
+
+    @Modifying
+    @Query("""
+            delete from MonthlyCategoryTotal t
+            where t.id.categoryId = :categoryId and t.id.periodStart = :periodStart and t.id.currency = :currency
+              and t.expenseCount = 0
+            """)
+    int deleteIfEmpty(@Param("categoryId") UUID categoryId,
+                      @Param("periodStart") LocalDate periodStart,
+                      @Param("currency") String currency);
+
+    @Modifying
+    @Query("delete from MonthlyCategoryTotal t where t.id.periodStart >= :from")
+    int deleteFrom(@Param("from") LocalDate from);
+
+    // Across currencies; null when the category has no rows for the month
+    @Query("select sum(t.baseTotal) from MonthlyCategoryTotal t where t.id.categoryId = :categoryId and t.id.periodStart = :periodStart")
+    BigDecimal findBaseTotal(@Param("categoryId") UUID categoryId, @Param("periodStart") LocalDate periodStart);
+
+    @Query("""
+            select t.category.id as categoryId,
+                   t.category.name as categoryName,
+                   t.id.currency as currency,
+                   t.total as total
+            from MonthlyCategoryTotal t
+            where t.category.owner.id = :ownerId and t.id.periodStart = :periodStart
+            order by t.category.name asc, t.id.currency asc
+            """)
+    List<CategoryTotalView> findTotalsForPeriod(@Param("ownerId") UUID ownerId, @Param("periodStart") LocalDate periodStart);
+
+    @Query("""
+            select t.category.id as categoryId,
+                   t.category.name as categoryName,
+                   sum(t.baseTotal) as baseTotal,
+                   sum(t.unconvertedCount) as unconvertedCount
+            from MonthlyCategoryTotal t
+            where t.category.owner.id = :ownerId and t.id.periodStart = :periodStart
+            group by t.category.id, t.category.name
+            order by t.category.name asc
+            """)
+    List<CategoryBaseTotalView> findBaseTotalsForPeriod(@Param("ownerId") UUID ownerId, @Param("periodStart") LocalDate periodStart);
+
+    @Query("""
+            select t.category.id as categoryId,
+                   t.category.name as categoryName,
+                   t.id.periodStart as periodStart,
+                   sum(t.baseTotal) as baseTotal,
+                   sum(t.unconvertedCount) as unconvertedCount
+            from MonthlyCategoryTotal t
+            where t.category.owner.id = :ownerId and t.id.periodStart >= :fromPeriod and t.id.periodStart <= :toPeriod
+            group by t.category.id, t.category.name, t.id.periodStart
+            order by t.category.name asc, t.id.periodStart asc
+            """)
+    List<CategoryPeriodTotalView> findBaseTotalsBetweenPeriods(@Param("ownerId") UUID ownerId,
+                                                               @Param("fromPeriod") LocalDate fromPeriod,
+                                                               @Param("toPeriod") LocalDate toPeriod);
+
+    interface CategoryTotalView {
+        UUID getCategoryId();
+        String getCategoryName();
+        String getCurrency();
+        BigDecimal getTotal();
+    }
+
+    interface CategoryBaseTotalView {
+        UUID getCategoryId();
+        String getCategoryName();
+        BigDecimal getBaseTotal();
+        Long getUnconvertedCount();
+    }
+
+    interface CategoryPeriodTotalView {
+        UUID getCategoryId();
+        String getCategoryName();
+        LocalDate getPeriodStart();
+        BigDecimal getBaseTotal();
+        Long getUnconvertedCount();
+    }
+}
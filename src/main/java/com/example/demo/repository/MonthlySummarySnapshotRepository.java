@@ -0,0 +1,34 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.MonthlySummarySnapshot;
+import com.example.demo.model.MonthlySummarySnapshotId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface MonthlySummarySnapshotRepository extends JpaRepository<MonthlySummarySnapshot, MonthlySummarySnapshotId> {
+
+    // Each user's months before the given one that have rollup rows but not both snapshot variants
+    @Query("""
+            select distinct new com.example.demo.repository.OwnerPeriod(c.owner.id, t.id.periodStart)
+            from MonthlyCategoryTotal t join t.category c
+            where t.id.periodStart < :before and c.owner is not null
+              and (select count(s) from MonthlySummarySnapshot s
+                   where s.id.ownerId = c.owner.id and s.id.periodStart = t.id.periodStart) < 2
+            order by t.id.periodStart
+            """)
+    List<OwnerPeriod> findUnfrozenPeriodsBefore(@Param("before") LocalDate before);
+
+    @Modifying
+    @Query("delete from MonthlySummarySnapshot s where s.id.ownerId = :ownerId and s.id.periodStart in :periods")
+    int deleteByOwnerIdAndPeriodStartIn(@Param("ownerId") UUID ownerId, @Param("periods") List<LocalDate> periods);
+
+    @Modifying
+    @Query("delete from MonthlySummarySnapshot s")
+    int deleteAllSnapshots();
+}
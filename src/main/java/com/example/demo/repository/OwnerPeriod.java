@@ -0,0 +1,8 @@
+package com.example.demo.repository;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+// One user's UTC month (periodStart is its first day)
+public record OwnerPeriod(UUID ownerId, LocalDate periodStart) {
+}
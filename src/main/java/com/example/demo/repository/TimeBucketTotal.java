@@ -0,0 +1,8 @@
+package com.example.demo.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// One database-side bucket: its first day, the summed amount and how many rows had no base amount
+public record TimeBucketTotal(LocalDate bucketStart, BigDecimal total, long unconvertedCount) {
+}
@@ -0,0 +1,22 @@
+package com.example.demo.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+import java.util.UUID;
+
+// The authenticated user as loaded by AppUserService, carrying the id that owns their categories and expenses
+public class AppUserPrincipal extends User {
+
+    private final UUID id;
+
+    public AppUserPrincipal(UUID id, String username, String password, Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.id = id;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+}
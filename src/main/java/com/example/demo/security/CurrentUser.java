@@ -0,0 +1,28 @@
+package com.example.demo.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Optional;
+import java.util.UUID;
+
+// Owner of the data a request reads and writes; every owner-scoped query takes this id
+public final class CurrentUser {
+
+    private CurrentUser() {
+    }
+
+    public static UUID id() {
+        return find().orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authenticated"));
+    }
+
+    // Empty outside a signed-in request (startup jobs, schedulers, login itself)
+    public static Optional<UUID> find() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof AppUserPrincipal principal
+                ? Optional.of(principal.getId())
+                : Optional.empty();
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.demo.service;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.dto.DistinctMerchantsResponse;
+import com.example.demo.dto.LocationCountResponse;
+import com.example.demo.dto.TopLocationsResponse;
+import com.example.demo.event.ExpenseChangedEvent;
+import com.example.demo.event.ExpenseSnapshot;
+import com.example.demo.model.MonthlyActivitySketch;
+import com.example.demo.model.OwnerPeriodId;
+import com.example.demo.repository.ExpenseLabelRow;
+import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.repository.MonthlyActivitySketchRepository;
+import com.example.demo.security.CurrentUser;
+import com.example.demo.sketch.HyperLogLog;
+import com.example.demo.sketch.SpaceSavingSketch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+// Keeps a Space-Saving top-K of expense locations and a HyperLogLog of merchant names per user and UTC month, so
+// "where do I spend most" and "how many merchants" never scan expenses. Both sketches merge across months.
+// Neither can forget an item, so an update or delete rebuilds the month the expense left.
+@Service
+@Transactional(readOnly = true)
+public class ActivitySketchService {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivitySketchService.class);
+
+    // Counters kept per month; reported counts are exact while a month has fewer distinct locations than this
+    static final int TOP_LOCATION_CAPACITY = MonthlyActivitySketch.TOP_LOCATION_CAPACITY;
+    static final int MAX_TOP_LIMIT = 50;
+
+    private final MonthlyActivitySketchRepository sketchRepository;
+    private final ExpenseRepository expenseRepository;
+    private final InsertIfAbsent insertIfAbsent;
+
+    public ActivitySketchService(MonthlyActivitySketchRepository sketchRepository, ExpenseRepository expenseRepository,
+                                 InsertIfAbsent insertIfAbsent) {
+        this.sketchRepository = sketchRepository;
+        this.expenseRepository = expenseRepository;
+        this.insertIfAbsent = insertIfAbsent;
+    }
+
+    // Synchronous listener: the sketches commit or roll back with the expense write
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        ExpenseSnapshot before = event.before();
+        ExpenseSnapshot after = event.after();
+        if (before != null && after != null && periodOf(before).equals(periodOf(after))
+                && Objects.equals(locationKey(before.location()), locationKey(after.location()))
+                && Objects.equals(merchantKey(before.name()), merchantKey(after.name()))) {
+            return;
+        }
+        OwnerPeriodId rebuilt = null;
+        if (before != null && before.ownerId() != null) {
+            rebuilt = idOf(before);
+            rebuildMonth(rebuilt);
+        }
+        // A rebuilt month already reflects the new row
+        if (after != null && after.ownerId() != null && !idOf(after).equals(rebuilt)) {
+            add(idOf(after), after.name(), after.location());
+        }
+    }
+
+    public TopLocationsResponse topLocations(YearMonth from, YearMonth to, int limit) {
+        validateRange(from, to);
+        if (limit < 1 || limit > MAX_TOP_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_TOP_LIMIT);
+        }
+        SpaceSavingSketch merged = new SpaceSavingSketch(TOP_LOCATION_CAPACITY);
+        for (MonthlyActivitySketch sketch : sketchRepository.findByOwnerBetween(CurrentUser.id(), from.atDay(1), to.atDay(1))) {
+            merged.merge(SpaceSavingSketch.fromBytes(sketch.getTopLocations()));
+        }
+        TopLocationsResponse response = new TopLocationsResponse();
+        response.setFrom(from);
+        response.setTo(to);
+        response.setLocations(merged.top(limit).stream().map(entry -> {
+            LocationCountResponse location = new LocationCountResponse();
+            location.setLocation(entry.item());
+            location.setCount(entry.count());
+            location.setMaxOvercount(entry.error());
+            return location;
+        }).toList());
+        return response;
+    }
+
+    public DistinctMerchantsResponse distinctMerchants(YearMonth from, YearMonth to) {
+        validateRange(from, to);
+        HyperLogLog merged = new HyperLogLog();
+        for (MonthlyActivitySketch sketch : sketchRepository.findByOwnerBetween(CurrentUser.id(), from.atDay(1), to.atDay(1))) {
+            merged.merge(HyperLogLog.fromBytes(sketch.getMerchants()));
+        }
+        DistinctMerchantsResponse response = new DistinctMerchantsResponse();
+        response.setFrom(from);
+        response.setTo(to);
+        response.setEstimate(merged.estimate());
+        response.setRelativeStandardError(merged.relativeStandardError());
+        return response;
+    }
+
+    @Transactional
+    public int rebuildAll() {
+        return rebuildFrom(null);
+    }
+
+    // Rebuilds every user's months from the given one on (all when null), keeping the sketches of earlier, archived
+    // months; returns the number of user months rebuilt
+    @Transactional
+    public int rebuildFrom(LocalDate from) {
+        Map<OwnerPeriodId, Sketches> months = new HashMap<>();
+        try (Stream<ExpenseLabelRow> rows = expenseRepository.streamLabels()) {
+            rows.forEach(row -> {
+                LocalDate periodStart = row.spentAt().withOffsetSameInstant(ZoneOffset.UTC).toLocalDate().withDayOfMonth(1);
+                if (from == null || !periodStart.isBefore(from)) {
+                    months.computeIfAbsent(new OwnerPeriodId(row.ownerId(), periodStart), key -> new Sketches()).add(row.name(), row.location());
+                }
+            });
+        }
+        if (from == null) {
+            sketchRepository.deleteAllInBatch();
+        } else {
+            sketchRepository.deleteFrom(from);
+        }
+        months.forEach((id, sketches) -> sketchRepository.save(sketches.toEntity(id, null)));
+        log.info("Rebuilt activity sketches: {} months", months.size());
+        return months.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initializeIfEmpty() {
+        if (sketchRepository.count() == 0 && expenseRepository.count() > 0) {
+            rebuildAll();
+        }
+    }
+
+    private void add(OwnerPeriodId id, String name, String location) {
+        MonthlyActivitySketch entity = lockOrCreate(id);
+        Sketches sketches = Sketches.of(entity);
+        sketches.add(name, location);
+        sketches.toEntity(id, entity);
+    }
+
+    private void rebuildMonth(OwnerPeriodId id) {
+        MonthlyActivitySketch entity = lockOrCreate(id);
+        List<ExpenseLabelRow> rows = expenseRepository.findLabels(id.getOwnerId(), id.getPeriodStart(), id.getPeriodStart().plusMonths(1));
+        if (rows.isEmpty()) {
+            sketchRepository.delete(entity);
+            return;
+        }
+        Sketches sketches = new Sketches();
+        rows.forEach(row -> sketches.add(row.name(), row.location()));
+        sketches.toEntity(id, entity);
+    }
+
+    // A missing month is created empty first, so two first writes to it both end up locking the same row instead of
+    // both inserting one
+    private MonthlyActivitySketch lockOrCreate(OwnerPeriodId id) {
+        return sketchRepository.findForUpdate(id).orElseGet(() -> {
+            Sketches empty = new Sketches();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("owner_id", id.getOwnerId());
+            row.put("period_start", id.getPeriodStart());
+            row.put("top_locations", empty.locations.toBytes());
+            row.put("merchants", empty.merchants.toBytes());
+            insertIfAbsent.insert("monthly_activity_sketches", List.of("owner_id", "period_start"), row);
+            return sketchRepository.findForUpdate(id).orElseThrow();
+        });
+    }
+
+    private static void validateRange(YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        if (ChronoUnit.MONTHS.between(from, to) + 1 > SummaryService.MAX_RANGE_MONTHS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Range must not exceed " + SummaryService.MAX_RANGE_MONTHS + " months");
+        }
+    }
+
+    private static LocalDate periodOf(ExpenseSnapshot snapshot) {
+        return MonthlyTotalsRollupService.periodStart(snapshot);
+    }
+
+    private static OwnerPeriodId idOf(ExpenseSnapshot snapshot) {
+        return new OwnerPeriodId(snapshot.ownerId(), periodOf(snapshot));
+    }
+
+    // Locations are grouped as entered (trimmed); merchants are counted case-insensitively
+    private static String locationKey(String location) {
+        return location == null || location.isBlank() ? null : location.trim();
+    }
+
+    private static String merchantKey(String name) {
+        return name == null || name.isBlank() ? null : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Sketches {
+        private final SpaceSavingSketch locations;
+        private final HyperLogLog merchants;
+
+        private Sketches() {
+            this(new SpaceSavingSketch(TOP_LOCATION_CAPACITY), new HyperLogLog());
+        }
+
+        private Sketches(SpaceSavingSketch locations, HyperLogLog merchants) {
+            this.locations = locations;
+            this.merchants = merchants;
+        }
+
+        private static Sketches of(MonthlyActivitySketch entity) {
+            return new Sketches(SpaceSavingSketch.fromBytes(entity.getTopLocations()), HyperLogLog.fromBytes(entity.getMerchants()));
+        }
+
+        private void add(String name, String location) {
+            String locationKey = locationKey(location);
+            if (locationKey != null) {
+                locations.offer(locationKey);
+            }
+            String merchantKey = merchantKey(name);
+            if (merchantKey != null) {
+                merchants.add(merchantKey);
+            }
+        }
+
+        private MonthlyActivitySketch toEntity(OwnerPeriodId id, MonthlyActivitySketch existing) {
+            MonthlyActivitySketch entity = existing != null ? existing : new MonthlyActivitySketch();
+            entity.setId(id);
+            entity.setTopLocations(locations.toBytes());
+            entity.setMerchants(merchants.toBytes());
+            return entity;
+        }
+    }
+}
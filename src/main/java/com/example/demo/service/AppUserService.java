@@ -1,9 +1,14 @@
 package com.example.demo.service;
 
+import com.example.demo.datasource.ReplicaRoutingDataSource;
+import com.example.demo.event.UserRegisteredEvent;
 import com.example.demo.model.AppUser;
 import com.example.demo.repository.AppUserRepository;
+import com.example.demo.security.AppUserPrincipal;
+import com.example.demo.shard.ShardRoutingDataSource;
+import com.example.demo.shard.Shards;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -18,31 +23,39 @@ public class AppUserService implements UserDetailsService {
 
     private final AppUserRepository repository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AppUserService(AppUserRepository repository, PasswordEncoder passwordEncoder) {
+    public AppUserService(AppUserRepository repository, PasswordEncoder passwordEncoder, ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        AppUser user = repository.findByUsername(username)
+        // From the primary, so a user can log in right after registering; accounts are all on the main shard
+        AppUser user = ReplicaRoutingDataSource.onPrimary(() -> ShardRoutingDataSource.onShard(Shards.MAIN, () -> repository.findByUsername(username)))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        return new User(
+        return new AppUserPrincipal(
+                user.getId(),
                 user.getUsername(),
                 user.getPasswordHash(),
                 List.of(new SimpleGrantedAuthority(user.getRole()))
         );
     }
 
+    // Always on the main shard, whoever is signed in; the user's own shard gets a copy once they are placed
     @Transactional
     public void registerUser(String username, String rawPassword) {
-        if (repository.existsByUsername(username)) {
-            throw new IllegalArgumentException("Username already exists");
-        }
-        AppUser user = new AppUser();
-        user.setUsername(username);
-        user.setPasswordHash(passwordEncoder.encode(rawPassword));
-        repository.save(user);
+        AppUser saved = ShardRoutingDataSource.onShard(Shards.MAIN, () -> {
+            if (repository.existsByUsername(username)) {
+                throw new IllegalArgumentException("Username already exists");
+            }
+            AppUser user = new AppUser();
+            user.setUsername(username);
+            user.setPasswordHash(passwordEncoder.encode(rawPassword));
+            return repository.save(user);
+        });
+        eventPublisher.publishEvent(new UserRegisteredEvent(saved.getId()));
     }
 }
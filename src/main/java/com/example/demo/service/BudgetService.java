@@ -0,0 +1,139 @@
+package com.example.demo.service;
+
+import com.example.demo.analytics.ColumnScan;
+import com.example.demo.analytics.ColumnScanResult;
+import com.example.demo.analytics.ColumnarExpenseStore;
+import com.example.demo.dto.BudgetStatusResponse;
+import com.example.demo.event.BudgetThresholdCrossedEvent;
+import com.example.demo.event.MonthlyTotalChangedEvent;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.model.Category;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.security.CurrentUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional(readOnly = true)
+public class BudgetService {
+
+    private static final Logger log = LoggerFactory.getLogger(BudgetService.class);
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final CategoryRepository categoryRepository;
+    private final FxRateService fxRateService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ColumnarExpenseStore columnarStore;
+    private final int[] thresholdPercents;
+
+    public BudgetService(CategoryRepository categoryRepository, FxRateService fxRateService, ApplicationEventPublisher eventPublisher,
+                         ColumnarExpenseStore columnarStore, @Value("${budget.alert-thresholds:80,100}") int[] thresholdPercents) {
+        this.categoryRepository = categoryRepository;
+        this.fxRateService = fxRateService;
+        this.eventPublisher = eventPublisher;
+        this.columnarStore = columnarStore;
+        this.thresholdPercents = Arrays.stream(thresholdPercents).sorted().toArray();
+    }
+
+    // The current user's categories; null month means the current UTC month; limits and spend are in the base currency
+    public List<BudgetStatusResponse> status(YearMonth month) {
+        YearMonth period = month != null ? month : YearMonth.now(ZoneOffset.UTC);
+        UUID ownerId = CurrentUser.id();
+        List<Usage> usage = columnarStore.isReady()
+                ? columnarUsage(ownerId, period)
+                : categoryRepository.findBudgetUsage(ownerId, period.atDay(1)).stream()
+                        .map(view -> new Usage(view.getCategoryId(), view.getCategoryName(), view.getMonthlyBudgetLimit(),
+                                view.getSpent(), view.getUnconvertedCount() == null ? 0 : view.getUnconvertedCount()))
+                        .toList();
+        return usage.stream().map(view -> {
+            BigDecimal spent = view.spent() == null ? BigDecimal.ZERO.setScale(2) : view.spent();
+            BigDecimal limit = view.limit();
+
+            BudgetStatusResponse response = new BudgetStatusResponse();
+            response.setCategoryId(view.categoryId());
+            response.setCategoryName(view.categoryName());
+            response.setMonth(period);
+            response.setCurrency(fxRateService.getBaseCurrency());
+            response.setUnconvertedCount(view.unconvertedCount());
+            response.setLimit(limit);
+            response.setSpent(spent);
+            if (limit != null) {
+                response.setRemaining(limit.subtract(spent));
+                response.setPercentUsed(percentOf(spent, limit));
+            }
+            return response;
+        }).toList();
+    }
+
+    // Runs in the expense write transaction: one category lookup (usually already in the persistence context) per change
+    @EventListener
+    public void onMonthlyTotalChanged(MonthlyTotalChangedEvent event) {
+        if (event.total().compareTo(event.previousTotal()) <= 0) {
+            return;
+        }
+        Category category = categoryRepository.findById(event.categoryId()).orElse(null);
+        if (category == null || category.getMonthlyBudgetLimit() == null || category.getMonthlyBudgetLimit().signum() <= 0) {
+            return;
+        }
+        BigDecimal limit = category.getMonthlyBudgetLimit();
+        for (int percent : thresholdPercents) {
+            BigDecimal boundary = limit.multiply(BigDecimal.valueOf(percent)).divide(HUNDRED);
+            if (event.previousTotal().compareTo(boundary) < 0 && event.total().compareTo(boundary) >= 0) {
+                eventPublisher.publishEvent(new BudgetThresholdCrossedEvent(category.getId(), category.getName(),
+                        YearMonth.from(event.periodStart()), percent, limit, event.total()));
+            }
+        }
+    }
+
+    // After commit, so a rolled-back write never produces an alert
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onThresholdCrossed(BudgetThresholdCrossedEvent event) {
+        log.info("Category {} reached {}% of its {} budget: spent {} of {}",
+                event.categoryName(), event.thresholdPercent(), event.month(), event.spent(), event.limit());
+    }
+
+    // Every category of the owner with its spend from one scan of the month's days in the in-memory columns
+    private List<Usage> columnarUsage(UUID ownerId, YearMonth period) {
+        List<Category> categories = categoryRepository.findByOwnerId(ownerId, Sort.by("name"));
+        ColumnScanResult result = columnarStore.scan(new ColumnScan(period.atDay(1).toEpochDay(),
+                new int[period.lengthOfMonth()], 1, true, categories.stream().map(Category::getId).collect(Collectors.toSet()), null));
+        Map<UUID, Integer> groups = new HashMap<>();
+        for (int group = 0; group < result.categories().size(); group++) {
+            groups.put(result.categories().get(group), group);
+        }
+        return categories.stream().map(category -> {
+            Integer group = groups.get(category.getId());
+            boolean spent = group != null && result.rows(group, 0) > 0;
+            return new Usage(category.getId(), category.getName(), category.getMonthlyBudgetLimit(),
+                    spent ? result.total(group, 0) : null, spent ? result.unconverted(group, 0) : 0);
+        }).toList();
+    }
+
+    private BigDecimal percentOf(BigDecimal spent, BigDecimal limit) {
+        if (limit.signum() <= 0) {
+            return null;
+        }
+        return spent.multiply(HUNDRED).divide(limit, 1, RoundingMode.HALF_UP);
+    }
+
+    private record Usage(UUID categoryId, String categoryName, BigDecimal limit, BigDecimal spent, long unconvertedCount) {
+    }
+}
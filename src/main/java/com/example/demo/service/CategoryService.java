@@ -3,15 +3,22 @@ package com.example.demo.service;
 import com.example.demo.dto.CategoryRequest;
 import com.example.demo.dto.CategoryResponse;
 import com.example.demo.dto.CategoryPatchRequest;
+import com.example.demo.event.CategoryChangedEvent;
+import com.example.demo.event.CategorySnapshot;
 import com.example.demo.model.Category;
+import com.example.demo.repository.AppUserRepository;
 import com.example.demo.repository.CategoryRepository;
 import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.security.CurrentUser;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -20,47 +27,62 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final ExpenseRepository expenseRepository;
+    private final AppUserRepository appUserRepository;
+    private final WriteVersionTracker writeVersionTracker;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CategoryService(CategoryRepository categoryRepository, ExpenseRepository expenseRepository) {
+    public CategoryService(CategoryRepository categoryRepository, ExpenseRepository expenseRepository,
+                           AppUserRepository appUserRepository, WriteVersionTracker writeVersionTracker,
+                           ApplicationEventPublisher eventPublisher) {
         this.categoryRepository = categoryRepository;
         this.expenseRepository = expenseRepository;
+        this.appUserRepository = appUserRepository;
+        this.writeVersionTracker = writeVersionTracker;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional // overrides readOnly=true
     public CategoryResponse createCategory(CategoryRequest request) {
-        if (categoryRepository.existsByNameIgnoreCase(request.getName())) {
+        UUID ownerId = CurrentUser.id();
+        if (categoryRepository.existsByOwnerIdAndNameIgnoreCase(ownerId, request.getName())) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Category name already exists");
         }
 
         Category category = new Category();
+        category.setOwner(appUserRepository.getReferenceById(ownerId));
         category.setName(request.getName());
         category.setMonthlyBudgetLimit(request.getMonthlyBudgetLimit());
 
         Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(CategoryChangedEvent.created(CategorySnapshot.of(saved)));
         return toResponse(saved);
     }
 
     @Transactional
-    public CategoryResponse updateCategory(UUID id, CategoryRequest request) {
+    public CategoryResponse updateCategory(UUID id, CategoryRequest request, Set<Long> expectedVersions) {
         Category category = getCategory(id);
+        checkVersion(category, expectedVersions);
+        CategorySnapshot before = CategorySnapshot.of(category);
         if (!category.getName().equalsIgnoreCase(request.getName())
-                && categoryRepository.existsByNameIgnoreCase(request.getName())) {
+                && categoryRepository.existsByOwnerIdAndNameIgnoreCase(category.getOwner().getId(), request.getName())) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Category name already exists");
         }
         category.setName(request.getName());
         category.setMonthlyBudgetLimit(request.getMonthlyBudgetLimit());
-        return toResponse(categoryRepository.save(category));
+        return saveUpdated(before, category);
     }
 
     @Transactional
-    public CategoryResponse patchCategory(UUID id, CategoryPatchRequest request) {
+    public CategoryResponse patchCategory(UUID id, CategoryPatchRequest request, Set<Long> expectedVersions) {
         if (request.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No fields to update");
         }
         Category category = getCategory(id);
+        checkVersion(category, expectedVersions);
+        CategorySnapshot before = CategorySnapshot.of(category);
         if (request.getName() != null) {
             if (!category.getName().equalsIgnoreCase(request.getName())
-                    && categoryRepository.existsByNameIgnoreCase(request.getName())) {
+                    && categoryRepository.existsByOwnerIdAndNameIgnoreCase(category.getOwner().getId(), request.getName())) {
                 throw new ResponseStatusException(HttpStatus.CONFLICT, "Category name already exists");
             }
             category.setName(request.getName());
@@ -68,18 +90,23 @@ public class CategoryService {
         if (request.getMonthlyBudgetLimit() != null) {
             category.setMonthlyBudgetLimit(request.getMonthlyBudgetLimit());
         }
-        return toResponse(categoryRepository.save(category));
+        return saveUpdated(before, category);
     }
 
     public List<CategoryResponse> listCategories() {
-        return categoryRepository.findAll()
+        return categoryRepository.findByOwnerId(CurrentUser.id(), Sort.unsorted())
                 .stream()
                 .map(this::toResponse)
                 .toList();
     }
 
+    public String categoriesETag() {
+        return writeVersionTracker.categoriesETag(CurrentUser.id());
+    }
+
+    // Another user's category is reported as missing, like one that does not exist
     public Category getCategory(UUID id) {
-        return categoryRepository.findById(id)
+        return categoryRepository.findByIdAndOwnerId(id, CurrentUser.id())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found"));
     }
 
@@ -90,6 +117,19 @@ public class CategoryService {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Category has expenses and cannot be deleted");
         }
         categoryRepository.delete(category);
+        eventPublisher.publishEvent(CategoryChangedEvent.deleted(CategorySnapshot.of(category)));
+    }
+
+    private CategoryResponse saveUpdated(CategorySnapshot before, Category category) {
+        Category saved = categoryRepository.saveAndFlush(category);
+        eventPublisher.publishEvent(CategoryChangedEvent.updated(before, CategorySnapshot.of(saved)));
+        return toResponse(saved);
+    }
+
+    private void checkVersion(Category category, Set<Long> expectedVersions) {
+        if (expectedVersions != null && !expectedVersions.contains(category.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Category has been modified");
+        }
     }
 
     private CategoryResponse toResponse(Category category) {
@@ -99,6 +139,7 @@ public class CategoryService {
         response.setMonthlyBudgetLimit(category.getMonthlyBudgetLimit());
         response.setCreatedAt(category.getCreatedAt());
         response.setUpdatedAt(category.getUpdatedAt());
+        response.setVersion(category.getVersion());
         return response;
     }
 }
@@ -0,0 +1,255 @@
+package com.example.demo.service;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.datasource.ReplicaRoutingDataSource;
+import com.example.demo.dto.MonthlyCategoryTotalResponse;
+import com.example.demo.event.CategoryChangedEvent;
+import com.example.demo.event.ExpenseChangedEvent;
+import com.example.demo.event.ExpenseSnapshot;
+import com.example.demo.model.MonthlySummarySnapshot;
+import com.example.demo.model.MonthlySummarySnapshotId;
+import com.example.demo.repository.MonthlySummarySnapshotRepository;
+import com.example.demo.repository.OwnerPeriod;
+import com.example.demo.security.CurrentUser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// Freezes each user's monthly summary of each closed month (one that ended more than grace-days ago) into a stored snapshot:
+// the JSON response plus a gzipped copy and a content-derived ETag, so requests for old months skip the query,
+// serialization and compression. A write landing in a closed month deletes that month's snapshots; the month is
+// frozen again by the next close run or the next request for it.
+@Service
+public class ClosedMonthSummaryService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClosedMonthSummaryService.class);
+
+    private final ExpenseService expenseService;
+    private final MonthlySummarySnapshotRepository snapshotRepository;
+    private final ObjectMapper objectMapper;
+    private final InsertIfAbsent insertIfAbsent;
+    private final TransactionTemplate transactionTemplate;
+    private final int graceDays;
+    private final Duration maxAge;
+
+    public ClosedMonthSummaryService(ExpenseService expenseService, MonthlySummarySnapshotRepository snapshotRepository,
+                                     ObjectMapper objectMapper, InsertIfAbsent insertIfAbsent,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${summary.month-close.grace-days:7}") int graceDays,
+                                     @Value("${summary.month-close.max-age:1d}") Duration maxAge) {
+        this.expenseService = expenseService;
+        this.snapshotRepository = snapshotRepository;
+        this.objectMapper = objectMapper;
+        this.insertIfAbsent = insertIfAbsent;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.graceDays = graceDays;
+        this.maxAge = maxAge;
+    }
+
+    // How long clients may reuse a snapshot response without revalidating
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    public boolean isClosed(YearMonth month) {
+        return month.isBefore(YearMonth.from(LocalDate.now(ZoneOffset.UTC).minusDays(graceDays)));
+    }
+
+    // The current user's; empty for open months and for closed months without expenses, which are cheap to answer directly
+    public Optional<MonthlySummarySnapshot> snapshot(int year, int month, boolean baseCurrency) {
+        if (month < 1 || month > 12 || !isClosed(YearMonth.of(year, month))) {
+            return Optional.empty();
+        }
+        UUID ownerId = CurrentUser.id();
+        YearMonth yearMonth = YearMonth.of(year, month);
+        Optional<MonthlySummarySnapshot> stored = snapshotRepository.findById(new MonthlySummarySnapshotId(ownerId, yearMonth.atDay(1), baseCurrency));
+        return stored.isPresent() ? stored : freeze(ownerId, yearMonth, baseCurrency);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void closeOnStartup() {
+        closeMonths();
+    }
+
+    // Freezes every user's closed months that have expenses and are missing a snapshot; returns the number of snapshots stored
+    @Scheduled(cron = "${summary.month-close.cron:0 15 0 * * *}", zone = "UTC")
+    public int closeMonths() {
+        long started = System.nanoTime();
+        LocalDate firstOpen = YearMonth.from(LocalDate.now(ZoneOffset.UTC).minusDays(graceDays)).atDay(1);
+        int frozen = 0;
+        for (OwnerPeriod period : snapshotRepository.findUnfrozenPeriodsBefore(firstOpen)) {
+            for (boolean baseCurrency : new boolean[] {false, true}) {
+                if (!snapshotRepository.existsById(new MonthlySummarySnapshotId(period.ownerId(), period.periodStart(), baseCurrency))
+                        && freeze(period.ownerId(), YearMonth.from(period.periodStart()), baseCurrency).isPresent()) {
+                    frozen++;
+                }
+            }
+        }
+        if (frozen > 0) {
+            log.info("Froze {} closed-month summary snapshot(s) in {} ms", frozen, (System.nanoTime() - started) / 1_000_000);
+        }
+        return frozen;
+    }
+
+    // For changes to the rollup that are not expense writes (rebuilds)
+    @Transactional
+    public int reopenAll() {
+        return snapshotRepository.deleteAllSnapshots();
+    }
+
+    // In the write's transaction, so a committed backdated write never leaves its month's snapshot behind
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        reopen(event);
+    }
+
+    // Again after commit: a freeze that read the month before the write committed may have stored its snapshot after
+    // the delete above, and its own re-read only catches writes that committed before it
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onExpenseCommitted(ExpenseChangedEvent event) {
+        reopen(event);
+    }
+
+    // Category names are part of every snapshot
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (renamed(event)) {
+            snapshotRepository.deleteAllSnapshots();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onCategoryCommitted(CategoryChangedEvent event) {
+        if (renamed(event)) {
+            snapshotRepository.deleteAllSnapshots();
+        }
+    }
+
+    private void reopen(ExpenseChangedEvent event) {
+        List<LocalDate> periods = event.affectedMonths().stream()
+                .filter(this::isClosed)
+                .map(month -> month.atDay(1))
+                .toList();
+        if (periods.isEmpty()) {
+            return;
+        }
+        // An expense only ever moves between its owner's months; unowned rows are in no snapshot
+        ExpenseSnapshot expense = event.after() != null ? event.after() : event.before();
+        if (expense.ownerId() != null) {
+            snapshotRepository.deleteByOwnerIdAndPeriodStartIn(expense.ownerId(), periods);
+        }
+    }
+
+    private static boolean renamed(CategoryChangedEvent event) {
+        return event.before() != null && (event.after() == null || !Objects.equals(event.before().name(), event.after().name()));
+    }
+
+    // The month is read again once the snapshot is stored, and the snapshot dropped if a write committed in between
+    private Optional<MonthlySummarySnapshot> freeze(UUID ownerId, YearMonth month, boolean baseCurrency) {
+        byte[] body = serialize(ownerId, month, baseCurrency);
+        if (body == null) {
+            return Optional.empty();
+        }
+        MonthlySummarySnapshot snapshot = new MonthlySummarySnapshot();
+        snapshot.setId(new MonthlySummarySnapshotId(ownerId, month.atDay(1), baseCurrency));
+        snapshot.setBody(body);
+        snapshot.setGzipBody(gzip(body));
+        snapshot.setEtag(etag(body));
+        snapshot.setFrozenAt(Instant.now());
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("owner_id", ownerId);
+        row.put("period_start", month.atDay(1));
+        row.put("base_currency", baseCurrency);
+        row.put("body", body);
+        row.put("gzip_body", snapshot.getGzipBody());
+        row.put("etag", snapshot.getEtag());
+        row.put("frozen_at", snapshot.getFrozenAt());
+        Boolean inserted = transactionTemplate.execute(status ->
+                insertIfAbsent.insert("monthly_summary_snapshots", List.of("owner_id", "base_currency", "period_start"), row));
+        if (!Boolean.TRUE.equals(inserted)) {
+            // A concurrent freeze stored the month first; this copy is as current as the one it read
+            return Optional.of(snapshot);
+        }
+        if (!Arrays.equals(body, serialize(ownerId, month, baseCurrency))) {
+            snapshotRepository.deleteById(snapshot.getId());
+            return Optional.empty();
+        }
+        return Optional.of(snapshot);
+    }
+
+    // Null when the month has no expenses
+    private byte[] serialize(UUID ownerId, YearMonth month, boolean baseCurrency) {
+        // From the primary: a snapshot frozen from a lagging replica would outlive the write it missed
+        List<MonthlyCategoryTotalResponse> totals = ReplicaRoutingDataSource.onPrimary(
+                () -> expenseService.loadMonthlyTotals(ownerId, month, baseCurrency));
+        if (totals.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsBytes(totals);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Compressed once per freeze, so the slowest level is worth it
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // Derived from the content rather than the write counters, so it survives restarts and matches across instances
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"s-" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
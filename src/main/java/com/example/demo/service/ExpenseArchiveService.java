@@ -0,0 +1,193 @@
+package com.example.demo.service;
+
+import com.example.demo.archive.ArchivedExpense;
+import com.example.demo.archive.ExpenseArchive;
+import com.example.demo.model.ExpenseArchiveSegment;
+import com.example.demo.repository.ExpenseArchiveSegmentRepository;
+import com.example.demo.repository.ExpenseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Moves each UTC month older than expenses.archive.after-months out of the expenses table into an archive segment
+// (see ExpenseArchive), oldest first, one transaction per month. On PostgreSQL the month's partition is detached into
+// the expenses_archive schema and kept as its cold copy, so vacuum and the live indexes no longer carry it; elsewhere
+// its rows are deleted and the segment file is the only copy.
+@Service
+public class ExpenseArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpenseArchiveService.class);
+
+    private static final RowMapper<ArchivedExpense> ROW_MAPPER = (rs, rowNum) -> new ArchivedExpense(
+            rs.getObject("id", UUID.class),
+            rs.getObject("owner_id", UUID.class),
+            rs.getObject("category_id", UUID.class),
+            rs.getString("name"),
+            rs.getBigDecimal("amount"),
+            rs.getString("currency"),
+            rs.getBigDecimal("base_amount"),
+            rs.getObject("spent_at", OffsetDateTime.class),
+            rs.getString("location"),
+            rs.getBoolean("holiday"),
+            rs.getString("holiday_name"),
+            rs.getObject("created_at", OffsetDateTime.class).toInstant(),
+            rs.getObject("updated_at", OffsetDateTime.class).toInstant(),
+            rs.getLong("version"));
+
+    private final ExpenseArchive expenseArchive;
+    private final ExpenseArchiveSegmentRepository segmentRepository;
+    private final ExpensePartitionService partitionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int afterMonths;
+
+    public ExpenseArchiveService(ExpenseArchive expenseArchive, ExpenseArchiveSegmentRepository segmentRepository,
+                                 ExpensePartitionService partitionService, JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${expenses.archive.after-months:0}") int afterMonths) {
+        this.expenseArchive = expenseArchive;
+        this.segmentRepository = segmentRepository;
+        this.partitionService = partitionService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.afterMonths = afterMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void archiveOnStartup() {
+        restoreSegments();
+        archive();
+    }
+
+    // Returns the number of months archived; a month that fails is left live and retried on the next run
+    @Scheduled(cron = "${expenses.archive.cron:0 25 0 * * *}", zone = "UTC")
+    public int archive() {
+        if (afterMonths <= 0) {
+            return 0;
+        }
+        LocalDate cutoff = YearMonth.now(ZoneOffset.UTC).minusMonths(afterMonths).atDay(1);
+        int archived = 0;
+        for (LocalDate month = nextLiveMonth(expenseArchive.archivedBefore().orElse(null));
+             month != null && month.isBefore(cutoff);
+             month = nextLiveMonth(month.plusMonths(1))) {
+            try {
+                archiveMonth(month);
+                archived++;
+            } catch (RuntimeException e) {
+                log.warn("Archiving expenses of {} failed; they stay live until the next run", YearMonth.from(month), e);
+                break;
+            }
+        }
+        return archived;
+    }
+
+    // The catalog row commits together with the removal, so readers see the month on exactly one side. The segment
+    // file is written first and removed again if the transaction rolls back.
+    private void archiveMonth(LocalDate month) {
+        int rows = transactionTemplate.execute(status -> {
+            String coldTable = partitionService.detach(month);
+            List<ArchivedExpense> expenses = readMonth(coldTable != null ? coldTable : "expenses", month);
+            if (coldTable == null) {
+                int deleted = jdbcTemplate.update("delete from expenses where spent_at >= ? and spent_at < ?",
+                        ExpenseRepository.utcStart(month), ExpenseRepository.utcStart(month.plusMonths(1)));
+                if (deleted != expenses.size()) {
+                    throw new IllegalStateException("Expenses of " + YearMonth.from(month) + " changed while being archived");
+                }
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int completion) {
+                    if (completion != STATUS_COMMITTED) {
+                        expenseArchive.deleteSegmentFile(month);
+                    }
+                }
+            });
+            segmentRepository.save(catalogEntry(month, expenses.size(), writeSegment(month, expenses)));
+            return expenses.size();
+        });
+        expenseArchive.refresh();
+        log.info("Archived {} expense(s) of {}", rows, YearMonth.from(month));
+    }
+
+    // A catalogued month whose file is missing here (a new instance, a lost disk) is rewritten from its cold copy, and
+    // a detached partition without a catalog row is catalogued. Without a cold copy the month stays unreadable.
+    private void restoreSegments() {
+        Map<LocalDate, String> coldTables = partitionService.archivedPartitions();
+        for (ExpenseArchiveSegment entry : segmentRepository.findAllByOrderByPeriodStartAsc()) {
+            LocalDate month = entry.getPeriodStart();
+            String coldTable = coldTables.remove(month);
+            if (expenseArchive.hasSegmentFile(month)) {
+                continue;
+            }
+            if (coldTable == null) {
+                log.error("Archive segment for {} is missing and has no cold copy; reads across it will fail", YearMonth.from(month));
+                continue;
+            }
+            long checksum = writeSegment(month, readMonth(coldTable, month));
+            if (checksum != entry.getChecksum()) {
+                log.error("Archive segment for {} rebuilt from {} does not match its catalog entry", YearMonth.from(month), coldTable);
+            } else {
+                log.info("Rebuilt archive segment for {} from {}", YearMonth.from(month), coldTable);
+            }
+        }
+        coldTables.forEach((month, coldTable) -> transactionTemplate.executeWithoutResult(status -> {
+            List<ArchivedExpense> expenses = readMonth(coldTable, month);
+            segmentRepository.save(catalogEntry(month, expenses.size(), writeSegment(month, expenses)));
+            log.info("Catalogued {} archived expense(s) of {} from {}", expenses.size(), YearMonth.from(month), coldTable);
+        }));
+        expenseArchive.refresh();
+    }
+
+    private LocalDate nextLiveMonth(LocalDate from) {
+        OffsetDateTime first = from == null
+                ? jdbcTemplate.queryForObject("select min(spent_at) from expenses", OffsetDateTime.class)
+                : jdbcTemplate.queryForObject("select min(spent_at) from expenses where spent_at >= ?", OffsetDateTime.class, ExpenseRepository.utcStart(from));
+        return first == null ? null : YearMonth.from(first.withOffsetSameInstant(ZoneOffset.UTC)).atDay(1);
+    }
+
+    private List<ArchivedExpense> readMonth(String table, LocalDate month) {
+        return jdbcTemplate.query("""
+                select id, owner_id, category_id, name, amount, currency, base_amount, spent_at, location, holiday, holiday_name,
+                       created_at, updated_at, version
+                from %s where spent_at >= ? and spent_at < ?
+                """.formatted(table), ROW_MAPPER, ExpenseRepository.utcStart(month), ExpenseRepository.utcStart(month.plusMonths(1)));
+    }
+
+    private long writeSegment(LocalDate month, List<ArchivedExpense> expenses) {
+        try {
+            return expenseArchive.writeSegment(month, expenses);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the archive segment for " + YearMonth.from(month), e);
+        }
+    }
+
+    private static ExpenseArchiveSegment catalogEntry(LocalDate month, long rows, long checksum) {
+        ExpenseArchiveSegment entry = new ExpenseArchiveSegment();
+        entry.setPeriodStart(month);
+        entry.setRowCount(rows);
+        entry.setChecksum(checksum);
+        entry.setArchivedAt(Instant.now());
+        return entry;
+    }
+}
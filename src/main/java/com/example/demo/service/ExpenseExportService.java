@@ -0,0 +1,114 @@
+package com.example.demo.service;
+
+import com.example.demo.archive.ExpenseArchive;
+import com.example.demo.export.ArrowExpenseExportWriter;
+import com.example.demo.export.CsvExpenseExportWriter;
+import com.example.demo.export.ExpenseExportWriter;
+import com.example.demo.export.ExportDictionaries;
+import com.example.demo.export.ExportFormat;
+import com.example.demo.export.NdjsonExpenseExportWriter;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.repository.ExpenseExportRow;
+import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.security.CurrentUser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.arrow.memory.BufferAllocator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@Service
+public class ExpenseExportService {
+
+    private final ExpenseRepository expenseRepository;
+    private final CategoryRepository categoryRepository;
+    private final ExpenseArchive expenseArchive;
+    private final ObjectMapper objectMapper;
+    private final BufferAllocator arrowAllocator;
+    private final int arrowBatchSize;
+    private final int maxLocationDictionary;
+
+    public ExpenseExportService(ExpenseRepository expenseRepository, CategoryRepository categoryRepository, ExpenseArchive expenseArchive,
+                                ObjectMapper objectMapper, BufferAllocator arrowAllocator,
+                                @Value("${export.arrow.batch-size:8192}") int arrowBatchSize,
+                                @Value("${export.arrow.max-location-dictionary:10000}") int maxLocationDictionary) {
+        this.expenseRepository = expenseRepository;
+        this.categoryRepository = categoryRepository;
+        this.expenseArchive = expenseArchive;
+        this.objectMapper = objectMapper;
+        this.arrowAllocator = arrowAllocator;
+        this.arrowBatchSize = arrowBatchSize;
+        this.maxLocationDictionary = maxLocationDictionary;
+    }
+
+    public void validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+    }
+
+    // Streams expenses spent in [from, to] (UTC days, inclusive) straight to out; returns the number of rows written.
+    // Repeatable read keeps the Arrow dictionaries, the archived months and the streamed rows on the same snapshot.
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public long export(LocalDate from, LocalDate to, ExportFormat format, OutputStream out) throws IOException {
+        validateRange(from, to);
+        OffsetDateTime start = from.atStartOfDay().atOffset(ZoneOffset.UTC);
+        OffsetDateTime end = to.plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+        UUID ownerId = CurrentUser.id();
+
+        return switch (format) {
+            case CSV -> writeRows(ownerId, start, end, new CsvExpenseExportWriter(out));
+            case NDJSON -> writeRows(ownerId, start, end, new NdjsonExpenseExportWriter(objectMapper.getFactory(), out));
+            case ARROW -> {
+                try (BufferAllocator allocator = arrowAllocator.newChildAllocator("expense-export", 0, arrowAllocator.getLimit())) {
+                    yield writeRows(ownerId, start, end,
+                            new ArrowExpenseExportWriter(allocator, out, dictionaries(ownerId, start, end), arrowBatchSize));
+                }
+            }
+        };
+    }
+
+    private long writeRows(UUID ownerId, OffsetDateTime start, OffsetDateTime end, ExpenseExportWriter exportWriter) throws IOException {
+        long rows = 0;
+        // Archived months are all older than the live ones, so the order by spentAt holds across the two
+        try (Stream<ExpenseExportRow> stream = Stream.concat(
+                expenseArchive.streamForExport(ownerId, start, end), expenseRepository.streamForExport(ownerId, start, end));
+             ExpenseExportWriter writer = exportWriter) {
+            Iterator<ExpenseExportRow> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private ExportDictionaries dictionaries(UUID ownerId, OffsetDateTime start, OffsetDateTime end) {
+        List<ExportDictionaries.CategoryEntry> categories = categoryRepository.findByOwnerId(ownerId, Sort.unsorted()).stream()
+                .map(category -> new ExportDictionaries.CategoryEntry(category.getId(), category.getName()))
+                .toList();
+        // One past the cap is enough to know the column goes without a dictionary
+        List<String> locations = expenseArchive.mergeLocations(ownerId, start, end,
+                expenseRepository.findDistinctLocationsBetween(ownerId, start, end, Limit.of(maxLocationDictionary + 1)),
+                maxLocationDictionary);
+        return new ExportDictionaries(
+                categories,
+                expenseArchive.mergeCurrencies(ownerId, start, end, expenseRepository.findDistinctCurrenciesBetween(ownerId, start, end)),
+                locations.size() > maxLocationDictionary ? null : locations);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.service;
+
+import com.example.demo.shard.Shards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Keeps the monthly partitions of expenses (db/migration/postgresql/V3) ahead of the clock, and detaches the ones
+// ExpenseArchiveService archives into the expenses_archive schema, where they stay as the cold copy of their month.
+// Does nothing unless expenses is partitioned (H2 in tests). Maintenance covers every shard.
+@Service
+public class ExpensePartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpensePartitionService.class);
+
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("'expenses_'yyyy_MM");
+    private static final String PARTITION_PATTERN = "^expenses_[0-9]{4}_[0-9]{2}$";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Shards shards;
+    private final int monthsAhead;
+
+    public ExpensePartitionService(JdbcTemplate jdbcTemplate, Shards shards,
+                                   @Value("${expenses.partitions.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainOnStartup() {
+        maintain();
+    }
+
+    // Each partition is created in its own short transaction, outside any caller's
+    @Scheduled(cron = "${expenses.partitions.cron:0 5 0 * * *}", zone = "UTC")
+    public void maintain() {
+        shards.scatter(this::createPartitions);
+    }
+
+    private int createPartitions() {
+        if (!partitioned()) {
+            return 0;
+        }
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        int partitions = 0;
+        for (int ahead = 0; ahead <= monthsAhead; ahead++) {
+            String created = jdbcTemplate.queryForObject("select expenses_create_partition(?)", String.class,
+                    current.plusMonths(ahead).atDay(1));
+            if (created != null) {
+                log.info("Created expense partition {}", created);
+                partitions++;
+            }
+        }
+        return partitions;
+    }
+
+    // Detaches the month's partition into expenses_archive in the caller's transaction and returns its qualified name;
+    // null when expenses is not partitioned or the month has no partition of its own. The detach waits for
+    // transactions still writing to the partition and blocks new ones until the caller commits.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String detach(LocalDate periodStart) {
+        if (!partitioned()) {
+            return null;
+        }
+        String detached = jdbcTemplate.queryForObject("select expenses_archive_partition(?)", String.class, periodStart);
+        return detached == null ? null : "expenses_archive." + detached;
+    }
+
+    // Qualified names of the detached partitions by month
+    public Map<LocalDate, String> archivedPartitions() {
+        Map<LocalDate, String> partitions = new TreeMap<>();
+        if (!partitioned()) {
+            return partitions;
+        }
+        for (String partition : jdbcTemplate.queryForList("""
+                select c.relname from pg_class c join pg_namespace n on n.oid = c.relnamespace
+                where n.nspname = 'expenses_archive' and c.relkind = 'r' and c.relname ~ ?
+                """, String.class, PARTITION_PATTERN)) {
+            partitions.put(YearMonth.parse(partition, PARTITION_MONTH).atDay(1), "expenses_archive." + partition);
+        }
+        return partitions;
+    }
+
+    private boolean partitioned() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equals(database) && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "select exists (select 1 from pg_partitioned_table where partrelid = to_regclass('expenses'))", Boolean.class));
+    }
+}
@@ -4,10 +4,17 @@ import com.example.demo.dto.ExpenseRequest;
 import com.example.demo.dto.ExpenseResponse;
 import com.example.demo.dto.MonthlyCategoryTotalResponse;
 import com.example.demo.dto.ExpensePatchRequest;
+import com.example.demo.event.ExpenseChangedEvent;
+import com.example.demo.event.ExpenseSnapshot;
+import com.example.demo.fx.FxRateService;
 import com.example.demo.holiday.HolidayService;
 import com.example.demo.model.Category;
 import com.example.demo.model.Expense;
+import com.example.demo.money.Money;
 import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.repository.MonthlyCategoryTotalRepository;
+import com.example.demo.security.CurrentUser;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -17,11 +24,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.OffsetDateTime;
+import java.time.YearMonth;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -31,13 +38,26 @@ public class ExpenseService {
     private static final int MAX_PAGE_SIZE = 100;
 
     private final ExpenseRepository expenseRepository;
+    private final MonthlyCategoryTotalRepository monthlyTotalRepository;
     private final CategoryService categoryService;
     private final HolidayService holidayService;
+    private final FxRateService fxRateService;
+    private final WriteVersionTracker writeVersionTracker;
+    private final MonthlyTotalsCache monthlyTotalsCache;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ExpenseService(ExpenseRepository expenseRepository, CategoryService categoryService, HolidayService holidayService) {
+    public ExpenseService(ExpenseRepository expenseRepository, MonthlyCategoryTotalRepository monthlyTotalRepository,
+                          CategoryService categoryService, HolidayService holidayService, FxRateService fxRateService,
+                          WriteVersionTracker writeVersionTracker, MonthlyTotalsCache monthlyTotalsCache,
+                          ApplicationEventPublisher eventPublisher) {
         this.expenseRepository = expenseRepository;
+        this.monthlyTotalRepository = monthlyTotalRepository;
         this.categoryService = categoryService;
         this.holidayService = holidayService;
+        this.fxRateService = fxRateService;
+        this.writeVersionTracker = writeVersionTracker;
+        this.monthlyTotalsCache = monthlyTotalsCache;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -47,40 +67,44 @@ public class ExpenseService {
         Expense expense = new Expense();
         expense.setCategory(category);
         expense.setName(request.getName());
-        expense.setAmount(request.getAmount());
-        expense.setCurrency(request.getCurrency().toUpperCase());
+        expense.setAmount(request.getMoney());
         expense.setSpentAt(request.getSpentAt());
         expense.setLocation(request.getLocation());
 
         applyHoliday(expense);
+        applyBaseAmount(expense);
 
-        return toResponse(expenseRepository.save(expense));
+        Expense saved = expenseRepository.save(expense);
+        eventPublisher.publishEvent(ExpenseChangedEvent.created(ExpenseSnapshot.of(saved)));
+        return toResponse(saved);
     }
 
     @Transactional
-    public ExpenseResponse updateExpense(UUID id, ExpenseRequest request) {
-        Expense expense = expenseRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Expense not found"));
+    public ExpenseResponse updateExpense(UUID id, ExpenseRequest request, Set<Long> expectedVersions) {
+        Expense expense = getExpense(id);
+        checkVersion(expense, expectedVersions);
+        ExpenseSnapshot before = ExpenseSnapshot.of(expense);
         Category category = categoryService.getCategory(request.getCategoryId());
 
         expense.setCategory(category);
         expense.setName(request.getName());
-        expense.setAmount(request.getAmount());
-        expense.setCurrency(request.getCurrency().toUpperCase());
+        expense.setAmount(request.getMoney());
         expense.setSpentAt(request.getSpentAt());
         expense.setLocation(request.getLocation());
 
         applyHoliday(expense);
-        return toResponse(expenseRepository.save(expense));
+        applyBaseAmount(expense);
+        return saveUpdated(before, expense);
     }
 
     @Transactional
-    public ExpenseResponse patchExpense(UUID id, ExpensePatchRequest request) {
+    public ExpenseResponse patchExpense(UUID id, ExpensePatchRequest request, Set<Long> expectedVersions) {
         if (request.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No fields to update");
         }
-        Expense expense = expenseRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Expense not found"));
+        Expense expense = getExpense(id);
+        checkVersion(expense, expectedVersions);
+        ExpenseSnapshot before = ExpenseSnapshot.of(expense);
 
         if (request.getCategoryId() != null) {
             Category category = categoryService.getCategory(request.getCategoryId());
@@ -89,11 +113,8 @@ public class ExpenseService {
         if (request.getName() != null) {
             expense.setName(request.getName());
         }
-        if (request.getAmount() != null) {
-            expense.setAmount(request.getAmount());
-        }
-        if (request.getCurrency() != null) {
-            expense.setCurrency(request.getCurrency().toUpperCase());
+        if (request.getAmount() != null || request.getCurrency() != null) {
+            expense.setAmount(request.patch(expense.getAmount()));
         }
         if (request.getSpentAt() != null) {
             expense.setSpentAt(request.getSpentAt());
@@ -103,47 +124,110 @@ public class ExpenseService {
         }
 
         applyHoliday(expense);
-        return toResponse(expenseRepository.save(expense));
+        applyBaseAmount(expense);
+        return saveUpdated(before, expense);
     }
 
     public List<ExpenseResponse> listRecentExpenses(int limit) {
         Pageable pageable = PageRequest.of(0, clampLimit(limit), Sort.by(Sort.Direction.DESC, "spentAt", "createdAt"));
-        Page<Expense> page = expenseRepository.findByOrderBySpentAtDesc(pageable);
+        Page<Expense> page = expenseRepository.findByOwnerIdOrderBySpentAtDesc(CurrentUser.id(), pageable);
         return page.map(this::toResponse).toList();
     }
 
     public List<ExpenseResponse> listRecentExpensesByCategory(UUID categoryId, int limit) {
         Category category = categoryService.getCategory(categoryId);
         Pageable pageable = PageRequest.of(0, clampLimit(limit), Sort.by(Sort.Direction.DESC, "spentAt", "createdAt"));
-        Page<Expense> page = expenseRepository.findByCategoryOrderBySpentAtDesc(category, pageable);
+        Page<Expense> page = expenseRepository.findByOwnerIdAndCategoryOrderBySpentAtDesc(category.getOwner().getId(), category, pageable);
         return page.map(this::toResponse).toList();
     }
 
+    public String monthlyTotalsETag(int year, int month) {
+        validateMonth(month);
+        return writeVersionTracker.monthlySummaryETag(CurrentUser.id(), YearMonth.of(year, month));
+    }
+
+    // Reads the maintained rollup (one row per category and currency) instead of aggregating the month's expenses;
+    // only the current user's categories
     public List<MonthlyCategoryTotalResponse> calculateMonthlyTotals(int year, int month) {
-        if (month < 1 || month > 12) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Month must be between 1 and 12");
-        }
-        LocalDate startDate = LocalDate.of(year, month, 1);
-        OffsetDateTime start = startDate.atStartOfDay().atOffset(ZoneOffset.UTC);
-        OffsetDateTime end = startDate.plusMonths(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+        validateMonth(month);
+        UUID ownerId = CurrentUser.id();
+        return monthlyTotalsCache.get(ownerId, YearMonth.of(year, month), false, () -> loadMonthlyTotals(ownerId, year, month));
+    }
+
+    // One row per category, summing the write-time base amounts; unconvertedCount expenses had no FX rate and are left out
+    public List<MonthlyCategoryTotalResponse> calculateMonthlyTotalsInBaseCurrency(int year, int month) {
+        validateMonth(month);
+        UUID ownerId = CurrentUser.id();
+        return monthlyTotalsCache.get(ownerId, YearMonth.of(year, month), true, () -> loadMonthlyTotalsInBaseCurrency(ownerId, year, month));
+    }
+
+    // Uncached and for an explicit owner, for freezing closed months outside any request
+    List<MonthlyCategoryTotalResponse> loadMonthlyTotals(UUID ownerId, YearMonth month, boolean baseCurrency) {
+        return baseCurrency
+                ? loadMonthlyTotalsInBaseCurrency(ownerId, month.getYear(), month.getMonthValue())
+                : loadMonthlyTotals(ownerId, month.getYear(), month.getMonthValue());
+    }
 
-        List<ExpenseRepository.CategoryMonthlyTotalView> totals = expenseRepository.findCategoryTotalsBetween(start, end);
+    private List<MonthlyCategoryTotalResponse> loadMonthlyTotals(UUID ownerId, int year, int month) {
+        List<MonthlyCategoryTotalRepository.CategoryTotalView> totals =
+                monthlyTotalRepository.findTotalsForPeriod(ownerId, LocalDate.of(year, month, 1));
         return totals.stream().map(view -> {
             MonthlyCategoryTotalResponse response = new MonthlyCategoryTotalResponse();
             response.setCategoryId(view.getCategoryId());
             response.setCategoryName(view.getCategoryName());
             response.setYear(year);
             response.setMonth(month);
-            response.setTotal(view.getTotal() == null ? BigDecimal.ZERO : view.getTotal());
+            response.setCurrency(view.getCurrency());
+            response.setTotal(view.getTotal() == null ? Money.zero(view.getCurrency()) : Money.of(view.getTotal(), view.getCurrency()));
+            return response;
+        }).toList();
+    }
+
+    private List<MonthlyCategoryTotalResponse> loadMonthlyTotalsInBaseCurrency(UUID ownerId, int year, int month) {
+        List<MonthlyCategoryTotalRepository.CategoryBaseTotalView> totals =
+                monthlyTotalRepository.findBaseTotalsForPeriod(ownerId, LocalDate.of(year, month, 1));
+        return totals.stream().map(view -> {
+            MonthlyCategoryTotalResponse response = new MonthlyCategoryTotalResponse();
+            response.setCategoryId(view.getCategoryId());
+            response.setCategoryName(view.getCategoryName());
+            response.setYear(year);
+            response.setMonth(month);
+            response.setCurrency(fxRateService.getBaseCurrency());
+            response.setTotal(Money.of(view.getBaseTotal(), fxRateService.getBaseCurrency()));
+            response.setUnconvertedCount(view.getUnconvertedCount());
             return response;
         }).toList();
     }
 
     @Transactional
     public void deleteExpense(UUID id) {
-        Expense expense = expenseRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Expense not found"));
+        Expense expense = getExpense(id);
         expenseRepository.delete(expense);
+        eventPublisher.publishEvent(ExpenseChangedEvent.deleted(ExpenseSnapshot.of(expense)));
+    }
+
+    private Expense getExpense(UUID id) {
+        return expenseRepository.findByIdAndOwnerId(id, CurrentUser.id())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Expense not found"));
+    }
+
+    // Flushing assigns the new @Version before it is echoed back to the client
+    private ExpenseResponse saveUpdated(ExpenseSnapshot before, Expense expense) {
+        Expense saved = expenseRepository.saveAndFlush(expense);
+        eventPublisher.publishEvent(ExpenseChangedEvent.updated(before, ExpenseSnapshot.of(saved)));
+        return toResponse(saved);
+    }
+
+    private void checkVersion(Expense expense, Set<Long> expectedVersions) {
+        if (expectedVersions != null && !expectedVersions.contains(expense.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Expense has been modified");
+        }
+    }
+
+    private void validateMonth(int month) {
+        if (month < 1 || month > 12) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Month must be between 1 and 12");
+        }
     }
 
     private ExpenseResponse toResponse(Expense expense) {
@@ -153,6 +237,7 @@ public class ExpenseService {
         response.setCategoryName(expense.getCategory().getName());
         response.setName(expense.getName());
         response.setAmount(expense.getAmount());
+        response.setBaseAmount(expense.getBaseAmount() == null ? null : Money.of(expense.getBaseAmount(), fxRateService.getBaseCurrency()));
         response.setCurrency(expense.getCurrency());
         response.setSpentAt(expense.getSpentAt());
         response.setLocation(expense.getLocation());
@@ -160,6 +245,7 @@ public class ExpenseService {
         response.setHolidayName(expense.getHolidayName());
         response.setCreatedAt(expense.getCreatedAt());
         response.setUpdatedAt(expense.getUpdatedAt());
+        response.setVersion(expense.getVersion());
         return response;
     }
 
@@ -179,6 +265,12 @@ public class ExpenseService {
                 });
     }
 
+    // Converted on the UTC day of spentAt, matching the month buckets of the rollup
+    private void applyBaseAmount(Expense expense) {
+        LocalDate utcDate = expense.getSpentAt().withOffsetSameInstant(ZoneOffset.UTC).toLocalDate();
+        expense.setBaseAmount(fxRateService.toBase(expense.getAmount(), utcDate).orElse(null));
+    }
+
     private int clampLimit(int limit) {
         if (limit <= 0) {
             return 10;
@@ -0,0 +1,194 @@
+package com.example.demo.service;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.dto.CategoryStatsResponse;
+import com.example.demo.event.ExpenseChangedEvent;
+import com.example.demo.event.ExpenseSnapshot;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.model.CategoryPeriodId;
+import com.example.demo.model.ExpenseSizeSketch;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.repository.ExpenseAmountRow;
+import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.repository.ExpenseSizeSketchRepository;
+import com.example.demo.security.CurrentUser;
+import com.example.demo.sketch.QuantileSketches;
+import com.tdunning.math.stats.MergingDigest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Keeps one t-digest of base-currency amounts per (category, month). Adds are O(digest size); t-digests cannot
+// forget a value, so a removed or changed expense rebuilds only the bucket it left.
+@Service
+@Transactional(readOnly = true)
+public class ExpenseStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpenseStatsService.class);
+
+    private final ExpenseSizeSketchRepository sketchRepository;
+    private final ExpenseRepository expenseRepository;
+    private final CategoryRepository categoryRepository;
+    private final FxRateService fxRateService;
+    private final InsertIfAbsent insertIfAbsent;
+
+    public ExpenseStatsService(ExpenseSizeSketchRepository sketchRepository, ExpenseRepository expenseRepository,
+                               CategoryRepository categoryRepository, FxRateService fxRateService, InsertIfAbsent insertIfAbsent) {
+        this.sketchRepository = sketchRepository;
+        this.expenseRepository = expenseRepository;
+        this.categoryRepository = categoryRepository;
+        this.fxRateService = fxRateService;
+        this.insertIfAbsent = insertIfAbsent;
+    }
+
+    // Synchronous listener: the sketch commits or rolls back with the expense write
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        ExpenseSnapshot before = event.before();
+        ExpenseSnapshot after = event.after();
+        if (before != null && after != null && bucketOf(before).equals(bucketOf(after))
+                && sameAmount(before.baseAmount(), after.baseAmount())) {
+            return;
+        }
+        CategoryPeriodId rebuilt = null;
+        if (before != null && before.baseAmount() != null) {
+            rebuilt = bucketOf(before);
+            rebuildBucket(rebuilt);
+        }
+        // A rebuilt bucket already reflects the new row
+        if (after != null && after.baseAmount() != null && !bucketOf(after).equals(rebuilt)) {
+            add(bucketOf(after), after.baseAmount());
+        }
+    }
+
+    public List<CategoryStatsResponse> stats(int year, int month) {
+        if (month < 1 || month > 12) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Month must be between 1 and 12");
+        }
+        return sketchRepository.findByPeriod(CurrentUser.id(), LocalDate.of(year, month, 1)).stream().map(sketch -> {
+            MergingDigest digest = QuantileSketches.deserialize(sketch.getDigest());
+            CategoryStatsResponse response = new CategoryStatsResponse();
+            response.setCategoryId(sketch.getId().getCategoryId());
+            response.setCategoryName(sketch.getCategory().getName());
+            response.setYear(year);
+            response.setMonth(month);
+            response.setCurrency(fxRateService.getBaseCurrency());
+            response.setCount(sketch.getSampleCount());
+            response.setMedian(toAmount(digest.quantile(0.5)));
+            response.setP90(toAmount(digest.quantile(0.9)));
+            response.setMax(toAmount(digest.getMax()));
+            return response;
+        }).toList();
+    }
+
+    @Transactional
+    public int rebuildAll() {
+        return rebuildFrom(null);
+    }
+
+    // Rebuilds months from the given one on (all when null), keeping the sketches of earlier, archived months
+    @Transactional
+    public int rebuildFrom(LocalDate from) {
+        Map<CategoryPeriodId, MergingDigest> digests = new HashMap<>();
+        try (Stream<ExpenseAmountRow> rows = expenseRepository.streamAmounts()) {
+            rows.filter(row -> row.baseAmount() != null).forEach(row -> {
+                LocalDate periodStart = row.spentAt().withOffsetSameInstant(ZoneOffset.UTC).toLocalDate().withDayOfMonth(1);
+                if (from == null || !periodStart.isBefore(from)) {
+                    digests.computeIfAbsent(new CategoryPeriodId(row.categoryId(), periodStart), key -> QuantileSketches.create())
+                            .add(row.baseAmount().doubleValue());
+                }
+            });
+        }
+        if (from == null) {
+            sketchRepository.deleteAllInBatch();
+        } else {
+            sketchRepository.deleteFrom(from);
+        }
+        digests.forEach((id, digest) -> sketchRepository.save(newSketch(id, digest)));
+        log.info("Rebuilt expense size sketches: {} buckets", digests.size());
+        return digests.size();
+    }
+
+    // Backfills sketches the first time the application runs against existing expenses
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initializeIfEmpty() {
+        if (sketchRepository.count() == 0 && expenseRepository.count() > 0) {
+            rebuildAll();
+        }
+    }
+
+    private void add(CategoryPeriodId id, BigDecimal amount) {
+        ExpenseSizeSketch sketch = lockOrCreate(id);
+        MergingDigest digest = QuantileSketches.deserialize(sketch.getDigest());
+        digest.add(amount.doubleValue());
+        sketch.setDigest(QuantileSketches.serialize(digest));
+        sketch.setSampleCount(digest.size());
+    }
+
+    // Locked before the amounts are read, so a concurrent add to the bucket waits for the rebuild
+    private void rebuildBucket(CategoryPeriodId id) {
+        ExpenseSizeSketch sketch = lockOrCreate(id);
+        List<BigDecimal> amounts = expenseRepository.findBaseAmounts(id.getCategoryId(), id.getPeriodStart(), id.getPeriodStart().plusMonths(1));
+        if (amounts.isEmpty()) {
+            sketchRepository.delete(sketch);
+            return;
+        }
+        MergingDigest digest = QuantileSketches.create();
+        amounts.forEach(amount -> digest.add(amount.doubleValue()));
+        sketch.setDigest(QuantileSketches.serialize(digest));
+        sketch.setSampleCount(digest.size());
+    }
+
+    // A missing bucket is created empty first, so two first writes to it both end up locking the same row instead of
+    // both inserting one
+    private ExpenseSizeSketch lockOrCreate(CategoryPeriodId id) {
+        return sketchRepository.findForUpdate(id).orElseGet(() -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("category_id", id.getCategoryId());
+            row.put("period_start", id.getPeriodStart());
+            row.put("sample_count", 0L);
+            row.put("digest", QuantileSketches.serialize(QuantileSketches.create()));
+            insertIfAbsent.insert("expense_size_sketches", List.of("category_id", "period_start"), row);
+            return sketchRepository.findForUpdate(id).orElseThrow();
+        });
+    }
+
+    private ExpenseSizeSketch newSketch(CategoryPeriodId id, MergingDigest digest) {
+        ExpenseSizeSketch sketch = new ExpenseSizeSketch();
+        sketch.setId(id);
+        sketch.setCategory(categoryRepository.getReferenceById(id.getCategoryId()));
+        sketch.setDigest(QuantileSketches.serialize(digest));
+        sketch.setSampleCount(digest.size());
+        return sketch;
+    }
+
+    private static CategoryPeriodId bucketOf(ExpenseSnapshot snapshot) {
+        return new CategoryPeriodId(snapshot.categoryId(), MonthlyTotalsRollupService.periodStart(snapshot));
+    }
+
+    private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private static BigDecimal toAmount(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_EVEN);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.service;
+
+import com.example.demo.archive.ExpenseArchive;
+import com.example.demo.dto.DayKindSpendingResponse;
+import com.example.demo.dto.HolidayCategoryTotalResponse;
+import com.example.demo.dto.HolidaySummaryResponse;
+import com.example.demo.dto.HolidayTotalResponse;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.model.Category;
+import com.example.demo.money.Money;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.repository.DayKindTotal;
+import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.repository.HolidayCategoryTotal;
+import com.example.demo.security.CurrentUser;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+// Reads the holiday tags set at write time: spend per holiday and category, and holidays against regular days.
+// Amounts are in the base currency; expenses without a known rate are counted but not summed.
+@Service
+@Transactional(readOnly = true)
+public class HolidaySummaryService {
+
+    private final ExpenseRepository expenseRepository;
+    private final CategoryRepository categoryRepository;
+    private final FxRateService fxRateService;
+    private final ExpenseArchive expenseArchive;
+
+    public HolidaySummaryService(ExpenseRepository expenseRepository, CategoryRepository categoryRepository, FxRateService fxRateService,
+                                 ExpenseArchive expenseArchive) {
+        this.expenseRepository = expenseRepository;
+        this.categoryRepository = categoryRepository;
+        this.fxRateService = fxRateService;
+        this.expenseArchive = expenseArchive;
+    }
+
+    // The current user's expenses on UTC days [from, to]
+    public HolidaySummaryResponse summarize(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        if (!to.isBefore(from.plusMonths(SummaryService.MAX_RANGE_MONTHS))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Range must not exceed " + SummaryService.MAX_RANGE_MONTHS + " months");
+        }
+        UUID ownerId = CurrentUser.id();
+        LocalDate toExclusive = to.plusDays(1);
+        List<HolidayCategoryTotal> rows = expenseArchive.mergeHolidayCategoryTotals(ownerId, from, toExclusive,
+                expenseRepository.findHolidayCategoryTotals(ownerId, from, toExclusive));
+        Map<UUID, String> names = categoryRepository.findAllById(rows.stream().map(HolidayCategoryTotal::categoryId).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
+
+        Map<String, List<HolidayCategoryTotal>> byHoliday = new LinkedHashMap<>();
+        for (HolidayCategoryTotal row : rows) {
+            byHoliday.computeIfAbsent(row.holidayName(), name -> new ArrayList<>()).add(row);
+        }
+        List<HolidayTotalResponse> holidays = new ArrayList<>(byHoliday.size());
+        byHoliday.forEach((name, categoryRows) -> {
+            long cents = 0;
+            long expenses = 0;
+            List<HolidayCategoryTotalResponse> categories = new ArrayList<>(categoryRows.size());
+            for (HolidayCategoryTotal row : categoryRows) {
+                HolidayCategoryTotalResponse category = new HolidayCategoryTotalResponse();
+                category.setCategoryId(row.categoryId());
+                category.setCategoryName(names.get(row.categoryId()));
+                category.setTotal(amount(row.baseTotal()));
+                category.setExpenseCount(row.rows());
+                categories.add(category);
+                cents = Math.addExact(cents, Money.minorUnits(category.getTotal()));
+                expenses += row.rows();
+            }
+            categories.sort(Comparator.comparing(HolidayCategoryTotalResponse::getTotal).reversed()
+                    .thenComparing(HolidayCategoryTotalResponse::getCategoryName, Comparator.nullsLast(Comparator.naturalOrder())));
+            HolidayTotalResponse holiday = new HolidayTotalResponse();
+            holiday.setHolidayName(name);
+            holiday.setTotal(BigDecimal.valueOf(cents, Money.SCALE));
+            holiday.setExpenseCount(expenses);
+            holiday.setCategories(categories);
+            holidays.add(holiday);
+        });
+        holidays.sort(Comparator.comparing(HolidayTotalResponse::getTotal).reversed()
+                .thenComparing(HolidayTotalResponse::getHolidayName, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        List<DayKindTotal> kinds = expenseArchive.mergeDayKindTotals(ownerId, from, toExclusive,
+                expenseRepository.findDayKindTotals(ownerId, from, toExclusive));
+        HolidaySummaryResponse response = new HolidaySummaryResponse();
+        response.setFrom(from);
+        response.setTo(to);
+        response.setCurrency(fxRateService.getBaseCurrency());
+        response.setHolidays(spending(kinds, true));
+        response.setRegularDays(spending(kinds, false));
+        response.setByHoliday(holidays);
+        return response;
+    }
+
+    // Days are the distinct UTC days with at least one expense of that kind, so quiet days do not dilute the average
+    private static DayKindSpendingResponse spending(List<DayKindTotal> kinds, boolean holiday) {
+        DayKindTotal total = kinds.stream().filter(kind -> kind.holiday() == holiday).findFirst()
+                .orElse(new DayKindTotal(holiday, null, 0, 0, 0));
+        BigDecimal sum = amount(total.baseTotal());
+        long converted = total.rows() - total.unconvertedCount();
+
+        DayKindSpendingResponse response = new DayKindSpendingResponse();
+        response.setTotal(sum);
+        response.setExpenseCount(total.rows());
+        response.setUnconvertedCount(total.unconvertedCount());
+        response.setDayCount(total.days());
+        response.setAveragePerDay(total.days() == 0 ? null : sum.divide(BigDecimal.valueOf(total.days()), Money.SCALE, RoundingMode.HALF_UP));
+        response.setAveragePerExpense(converted == 0 ? null : sum.divide(BigDecimal.valueOf(converted), Money.SCALE, RoundingMode.HALF_UP));
+        return response;
+    }
+
+    private static BigDecimal amount(BigDecimal baseTotal) {
+        return Objects.requireNonNullElse(baseTotal, BigDecimal.ZERO).setScale(Money.SCALE);
+    }
+}
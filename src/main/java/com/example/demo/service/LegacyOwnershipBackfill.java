@@ -0,0 +1,75 @@
+package com.example.demo.service;
+
+import com.example.demo.model.AppUser;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.repository.ExpenseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Categories and expenses created before ownership have no owner and are visible to nobody. When
+// ownership.legacy-owner names a user, they are all given to that user at startup, and the per-user derived data
+// (activity sketches, summary snapshots, cached totals, ETags) is rebuilt to include them.
+@Component
+public class LegacyOwnershipBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(LegacyOwnershipBackfill.class);
+
+    private final CategoryRepository categoryRepository;
+    private final ExpenseRepository expenseRepository;
+    private final AppUserRepository appUserRepository;
+    private final ActivitySketchService activitySketchService;
+    private final ClosedMonthSummaryService closedMonthSummaryService;
+    private final MonthlyTotalsCache monthlyTotalsCache;
+    private final WriteVersionTracker writeVersionTracker;
+    private final TransactionTemplate transactionTemplate;
+    private final String legacyOwner;
+
+    public LegacyOwnershipBackfill(CategoryRepository categoryRepository, ExpenseRepository expenseRepository,
+                                   AppUserRepository appUserRepository, ActivitySketchService activitySketchService,
+                                   ClosedMonthSummaryService closedMonthSummaryService, MonthlyTotalsCache monthlyTotalsCache,
+                                   WriteVersionTracker writeVersionTracker,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${ownership.legacy-owner:}") String legacyOwner) {
+        this.categoryRepository = categoryRepository;
+        this.expenseRepository = expenseRepository;
+        this.appUserRepository = appUserRepository;
+        this.activitySketchService = activitySketchService;
+        this.closedMonthSummaryService = closedMonthSummaryService;
+        this.monthlyTotalsCache = monthlyTotalsCache;
+        this.writeVersionTracker = writeVersionTracker;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.legacyOwner = legacyOwner;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long unowned = categoryRepository.countByOwnerIsNull();
+        if (unowned == 0) {
+            return;
+        }
+        AppUser owner = legacyOwner.isBlank() ? null : appUserRepository.findByUsername(legacyOwner).orElse(null);
+        if (owner == null) {
+            log.warn("{} category(ies) have no owner and are hidden from every user; set ownership.legacy-owner to an "
+                    + "existing username to assign them", unowned);
+            return;
+        }
+        int[] assigned = transactionTemplate.execute(status -> {
+            int categories = categoryRepository.assignUnowned(owner);
+            int expenses = expenseRepository.assignOwnersFromCategories();
+            activitySketchService.rebuildAll();
+            closedMonthSummaryService.reopenAll();
+            writeVersionTracker.touch(owner.getId());
+            return new int[]{categories, expenses};
+        });
+        // Only after commit, so no request can cache totals read without the reassigned rows
+        monthlyTotalsCache.clear();
+        log.info("Assigned {} category(ies) and {} expense(s) without an owner to {}", assigned[0], assigned[1], legacyOwner);
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.MonthlyCategoryTotalResponse;
+import com.example.demo.event.CategoryChangedEvent;
+import com.example.demo.event.CategorySnapshot;
+import com.example.demo.event.ExpenseChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Bounded LRU of monthly summary results, per user and month. A write's entries are evicted once it commits on this
+// instance, and a load that overlapped an eviction is returned but not kept. Writes on other instances, and changes
+// that bypass the events (rollup rebuilds on another instance), are seen once an entry is older than
+// summary.monthly-cache.ttl. Loads run in the caller's transaction, so they read from the replica unless the user
+// wrote within the read-your-writes window. Lookups inside a read-write transaction bypass the cache, since they may
+// see that transaction's own uncommitted writes. Cached lists are shared and must not be modified.
+@Component
+public class MonthlyTotalsCache implements MeterBinder {
+
+    static final String NAME = "monthlyTotals";
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries;
+    // Bumped by every eviction and clear(), so a load that overlapped one is not kept
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public MonthlyTotalsCache(@Value("${summary.monthly-cache.max-entries:512}") int maxEntries,
+                              @Value("${summary.monthly-cache.ttl:30s}") Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > MonthlyTotalsCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public List<MonthlyCategoryTotalResponse> get(UUID ownerId, YearMonth month, boolean baseCurrency,
+                                                  Supplier<List<MonthlyCategoryTotalResponse>> loader) {
+        if (maxEntries <= 0 || (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            return loader.get();
+        }
+        Key key = new Key(ownerId, month, baseCurrency);
+        long loadGeneration;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.loadedAt < ttlNanos) {
+                hits.increment();
+                return entry.totals;
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        long loadedAt = System.nanoTime();
+        List<MonthlyCategoryTotalResponse> totals = List.copyOf(loader.get());
+        synchronized (entries) {
+            if (generation == loadGeneration) {
+                entries.put(key, new Entry(loadedAt, totals));
+            }
+        }
+        return totals;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        synchronized (entries) {
+            for (UUID ownerId : owners(event)) {
+                for (YearMonth month : event.affectedMonths()) {
+                    evict(new Key(ownerId, month, false));
+                    evict(new Key(ownerId, month, true));
+                }
+            }
+        }
+    }
+
+    // Category names appear in every month of their owner's totals
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        CategorySnapshot category = event.after() != null ? event.after() : event.before();
+        if (category.ownerId() == null) {
+            return;
+        }
+        synchronized (entries) {
+            generation++;
+            entries.keySet().removeIf(key -> {
+                boolean owned = key.ownerId().equals(category.ownerId());
+                if (owned) {
+                    invalidations.increment();
+                }
+                return owned;
+            });
+        }
+    }
+
+    // For changes to the rollup that are not expense writes; call after they commit
+    public void clear() {
+        synchronized (entries) {
+            invalidations.add(entries.size());
+            entries.clear();
+            generation++;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum).tag("cache", NAME).tag("result", "hit")
+                .description("Monthly summary lookups answered from the cache").register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum).tag("cache", NAME).tag("result", "miss")
+                .description("Monthly summary lookups that ran the query").register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum).tag("cache", NAME)
+                .description("Entries dropped to stay within max-entries").register(registry);
+        FunctionCounter.builder("cache.invalidations", invalidations, LongAdder::sum).tag("cache", NAME)
+                .description("Entries dropped because of a committed write").register(registry);
+        Gauge.builder("cache.size", this, MonthlyTotalsCache::size).tag("cache", NAME).register(registry);
+    }
+
+    private void evict(Key key) {
+        generation++;
+        if (entries.remove(key) != null) {
+            invalidations.increment();
+        }
+    }
+
+    // Rows without an owner are in nobody's totals
+    private static Set<UUID> owners(ExpenseChangedEvent event) {
+        Set<UUID> owners = new HashSet<>(2);
+        if (event.before() != null && event.before().ownerId() != null) {
+            owners.add(event.before().ownerId());
+        }
+        if (event.after() != null && event.after().ownerId() != null) {
+            owners.add(event.after().ownerId());
+        }
+        return owners;
+    }
+
+    private record Key(UUID ownerId, YearMonth month, boolean baseCurrency) {
+    }
+
+    private record Entry(long loadedAt, List<MonthlyCategoryTotalResponse> totals) {
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.demo.service;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.event.ExpenseChangedEvent;
+import com.example.demo.event.ExpenseSnapshot;
+import com.example.demo.event.MonthlyTotalChangedEvent;
+import com.example.demo.model.MonthlyCategoryTotal;
+import com.example.demo.money.Money;
+import com.example.demo.repository.ExpenseAmountRow;
+import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.repository.MonthlyCategoryTotalRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// Keeps monthly_category_totals in step with expenses. Deltas are applied inside the writing transaction,
+// so the rollup commits or rolls back together with the expense row.
+@Service
+@Transactional(readOnly = true)
+public class MonthlyTotalsRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(MonthlyTotalsRollupService.class);
+
+    private final MonthlyCategoryTotalRepository totalRepository;
+    private final ExpenseRepository expenseRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InsertIfAbsent insertIfAbsent;
+
+    public MonthlyTotalsRollupService(MonthlyCategoryTotalRepository totalRepository, ExpenseRepository expenseRepository,
+                                      ApplicationEventPublisher eventPublisher, InsertIfAbsent insertIfAbsent) {
+        this.totalRepository = totalRepository;
+        this.expenseRepository = expenseRepository;
+        this.eventPublisher = eventPublisher;
+        this.insertIfAbsent = insertIfAbsent;
+    }
+
+    // Synchronous listener: runs in the publisher's transaction and fails the write if the rollup cannot be updated
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        ExpenseSnapshot before = event.before();
+        ExpenseSnapshot after = event.after();
+        if (before != null && after != null && sameBucket(before, after)) {
+            // One net delta, so an amount edit is never seen as a dip followed by a rise
+            Money delta = after.amount().minus(before.amount());
+            BigDecimal baseDelta = baseOf(after).subtract(baseOf(before));
+            long unconvertedDelta = unconverted(after) - unconverted(before);
+            if (!delta.isZero() || baseDelta.signum() != 0 || unconvertedDelta != 0) {
+                apply(after.categoryId(), periodStart(after), delta, baseDelta, unconvertedDelta, 0);
+            }
+            return;
+        }
+        if (before != null) {
+            apply(before.categoryId(), periodStart(before), before.amount().negate(), baseOf(before).negate(), -unconverted(before), -1);
+        }
+        if (after != null) {
+            apply(after.categoryId(), periodStart(after), after.amount(), baseOf(after), unconverted(after), 1);
+        }
+    }
+
+    public List<Mismatch> verify() {
+        return verifyFrom(null);
+    }
+
+    // Only months from the given one on (all when null); earlier rollup rows may outlive their archived expenses
+    public List<Mismatch> verifyFrom(LocalDate from) {
+        Map<Key, Bucket> expected = aggregateExpenses(from);
+        List<Mismatch> mismatches = new ArrayList<>();
+        Set<Key> seen = new HashSet<>();
+        for (MonthlyCategoryTotal row : totalRepository.findAll()) {
+            if (from != null && row.getId().getPeriodStart().isBefore(from)) {
+                continue;
+            }
+            Key key = new Key(row.getId().getCategoryId(), row.getId().getPeriodStart(), row.getId().getCurrency());
+            seen.add(key);
+            Bucket bucket = expected.getOrDefault(key, Bucket.EMPTY);
+            if (bucket.total().compareTo(row.getTotal()) != 0
+                    || bucket.baseTotal.compareTo(row.getBaseTotal()) != 0
+                    || bucket.unconverted != row.getUnconvertedCount()
+                    || bucket.count != row.getExpenseCount()) {
+                mismatches.add(new Mismatch(key.categoryId, key.periodStart, key.currency,
+                        bucket.total(), bucket.baseTotal, bucket.count,
+                        row.getTotal(), row.getBaseTotal(), row.getExpenseCount()));
+            }
+        }
+        expected.forEach((key, bucket) -> {
+            if (!seen.contains(key)) {
+                mismatches.add(new Mismatch(key.categoryId, key.periodStart, key.currency,
+                        bucket.total(), bucket.baseTotal, bucket.count, null, null, 0));
+            }
+        });
+        return mismatches;
+    }
+
+    // SERIALIZABLE so a write racing the rebuild fails instead of being lost between the scan and the reinsert
+    @Transactional(isolation = Isolation.SERIALIZABLE)
+    public int rebuild() {
+        return rebuildFrom(null);
+    }
+
+    // Rebuilds months from the given one on (all when null), keeping the rows of earlier, archived months
+    @Transactional(isolation = Isolation.SERIALIZABLE)
+    public int rebuildFrom(LocalDate from) {
+        Map<Key, Bucket> expected = aggregateExpenses(from);
+        if (from == null) {
+            totalRepository.deleteAllInBatch();
+        } else {
+            totalRepository.deleteFrom(from);
+        }
+        expected.forEach((key, bucket) -> totalRepository.insertTotal(key.categoryId, key.periodStart, key.currency,
+                bucket.total(), bucket.baseTotal, bucket.unconverted, bucket.count));
+        log.info("Rebuilt monthly category totals: {} rows", expected.size());
+        return expected.size();
+    }
+
+    // Backfills the table the first time the application runs against existing expenses
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(isolation = Isolation.SERIALIZABLE)
+    public void initializeIfEmpty() {
+        if (totalRepository.count() == 0 && expenseRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    private void apply(UUID categoryId, LocalDate periodStart, Money money, BigDecimal baseAmount, long unconverted, long count) {
+        String currency = money.currency();
+        BigDecimal amount = money.toBigDecimal();
+        boolean updated = totalRepository.applyDelta(categoryId, periodStart, currency, amount, baseAmount, unconverted, count) > 0;
+        if (!updated && count < 0) {
+            // Nothing to take the expense out of: the rollup has drifted, and a negative row would only add to it
+            log.warn("No monthly total of category {} for {} in {} to remove an expense from; verify or rebuild the rollup",
+                    categoryId, periodStart, currency);
+            return;
+        }
+        // Two first writes to a bucket both find it missing: the second insert waits for the first, skips, and applies
+        // its delta to the row the first one created
+        if (!updated && !insertTotalIfAbsent(categoryId, periodStart, currency, amount, baseAmount, unconverted, count)) {
+            updated = totalRepository.applyDelta(categoryId, periodStart, currency, amount, baseAmount, unconverted, count) > 0;
+            if (!updated) {
+                throw new IllegalStateException("Monthly total of category " + categoryId + " for " + periodStart + " vanished");
+            }
+        }
+        if (updated && count < 0) {
+            // Empty buckets are dropped so a category can be deleted once its expenses are gone
+            totalRepository.deleteIfEmpty(categoryId, periodStart, currency);
+        }
+        if (baseAmount.signum() != 0) {
+            BigDecimal baseTotal = totalRepository.findBaseTotal(categoryId, periodStart);
+            baseTotal = baseTotal == null ? BigDecimal.ZERO : baseTotal;
+            eventPublisher.publishEvent(new MonthlyTotalChangedEvent(categoryId, periodStart, baseTotal.subtract(baseAmount), baseTotal));
+        }
+    }
+
+    private boolean insertTotalIfAbsent(UUID categoryId, LocalDate periodStart, String currency,
+                                        BigDecimal amount, BigDecimal baseAmount, long unconverted, long count) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("category_id", categoryId);
+        row.put("period_start", periodStart);
+        row.put("currency", currency);
+        row.put("total", amount);
+        row.put("base_total", baseAmount);
+        row.put("unconverted_count", unconverted);
+        row.put("expense_count", count);
+        return insertIfAbsent.insert("monthly_category_totals", List.of("category_id", "period_start", "currency"), row);
+    }
+
+    private Map<Key, Bucket> aggregateExpenses(LocalDate from) {
+        Map<Key, Bucket> buckets = new HashMap<>();
+        try (Stream<ExpenseAmountRow> rows = expenseRepository.streamAmounts()) {
+            rows.forEach(row -> {
+                LocalDate periodStart = periodStart(row.spentAt().withOffsetSameInstant(ZoneOffset.UTC).toLocalDate());
+                if (from == null || !periodStart.isBefore(from)) {
+                    buckets.computeIfAbsent(new Key(row.categoryId(), periodStart, row.currency()), key -> new Bucket())
+                            .add(row.amountMinorUnits(), row.baseAmount());
+                }
+            });
+        }
+        return buckets;
+    }
+
+    private static boolean sameBucket(ExpenseSnapshot before, ExpenseSnapshot after) {
+        return Objects.equals(before.categoryId(), after.categoryId())
+                && Objects.equals(before.currency(), after.currency())
+                && periodStart(before).equals(periodStart(after));
+    }
+
+    private static BigDecimal baseOf(ExpenseSnapshot snapshot) {
+        return snapshot.baseAmount() == null ? BigDecimal.ZERO : snapshot.baseAmount();
+    }
+
+    private static long unconverted(ExpenseSnapshot snapshot) {
+        return snapshot.baseAmount() == null ? 1 : 0;
+    }
+
+    // First day of the expense's UTC calendar month: the period_start of every per-month table
+    static LocalDate periodStart(ExpenseSnapshot snapshot) {
+        return periodStart(snapshot.spentAt().withOffsetSameInstant(ZoneOffset.UTC).toLocalDate());
+    }
+
+    private static LocalDate periodStart(LocalDate utcDate) {
+        return utcDate.withDayOfMonth(1);
+    }
+
+    // expected* come from the raw expenses, actual* from the rollup (null totals when the row is missing)
+    public record Mismatch(UUID categoryId, LocalDate periodStart, String currency,
+                           BigDecimal expectedTotal, BigDecimal expectedBaseTotal, long expectedCount,
+                           BigDecimal actualTotal, BigDecimal actualBaseTotal, long actualCount) {
+    }
+
+    private record Key(UUID categoryId, LocalDate periodStart, String currency) {
+    }
+
+    private static final class Bucket {
+        private static final Bucket EMPTY = new Bucket();
+
+        private long totalMinorUnits;
+        private BigDecimal baseTotal = BigDecimal.ZERO;
+        private long unconverted;
+        private long count;
+
+        private void add(long amountMinorUnits, BigDecimal baseAmount) {
+            totalMinorUnits = Math.addExact(totalMinorUnits, amountMinorUnits);
+            if (baseAmount == null) {
+                unconverted++;
+            } else {
+                baseTotal = baseTotal.add(baseAmount);
+            }
+            count++;
+        }
+
+        private BigDecimal total() {
+            return BigDecimal.valueOf(totalMinorUnits, Money.SCALE);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.demo.service;
+
+import com.example.demo.analytics.ColumnScanResult;
+import com.example.demo.analytics.DailyPrefixSumIndex;
+import com.example.demo.archive.ExpenseArchive;
+import com.example.demo.dto.CategoryPeriodSummaryResponse;
+import com.example.demo.dto.PeriodSummaryResponse;
+import com.example.demo.dto.PeriodTotalResponse;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.model.Category;
+import com.example.demo.money.Money;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.repository.DailyCategoryTotal;
+import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.security.CurrentUser;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Spend over arbitrary UTC day ranges (pay periods, weeks, fortnights) rather than calendar months, in the base
+// currency. Answered from the daily prefix-sum index when it is loaded, otherwise from per-day SQL totals.
+@Service
+@Transactional(readOnly = true)
+public class PeriodSummaryService {
+
+    static final int MAX_PERIODS = SummaryService.MAX_TIMESERIES_POINTS;
+
+    private final ExpenseRepository expenseRepository;
+    private final CategoryRepository categoryRepository;
+    private final FxRateService fxRateService;
+    private final DailyPrefixSumIndex prefixSumIndex;
+    private final ExpenseArchive expenseArchive;
+
+    public PeriodSummaryService(ExpenseRepository expenseRepository, CategoryRepository categoryRepository,
+                                FxRateService fxRateService, DailyPrefixSumIndex prefixSumIndex, ExpenseArchive expenseArchive) {
+        this.expenseRepository = expenseRepository;
+        this.categoryRepository = categoryRepository;
+        this.fxRateService = fxRateService;
+        this.prefixSumIndex = prefixSumIndex;
+        this.expenseArchive = expenseArchive;
+    }
+
+    // Days [from, to]; with periodDays the range is cut into consecutive periods of that many days starting at from,
+    // the last one ending at to
+    public PeriodSummaryResponse summarize(LocalDate from, LocalDate to, Integer periodDays, UUID categoryId) {
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        if (!to.isBefore(from.plusMonths(SummaryService.MAX_RANGE_MONTHS))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Range must not exceed " + SummaryService.MAX_RANGE_MONTHS + " months");
+        }
+        long fromDay = from.toEpochDay();
+        long days = to.toEpochDay() - fromDay + 1;
+        if (periodDays != null && periodDays < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "periodDays must be at least 1");
+        }
+        int length = periodDays == null ? (int) days : periodDays;
+        long periods = (days + length - 1) / length;
+        if (periods > MAX_PERIODS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Must not exceed " + MAX_PERIODS + " periods");
+        }
+        UUID ownerId = CurrentUser.id();
+        Set<UUID> categoryIds;
+        if (categoryId != null) {
+            if (!categoryRepository.existsByIdAndOwnerId(categoryId, ownerId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found");
+            }
+            categoryIds = Set.of(categoryId);
+        } else {
+            categoryIds = categoryRepository.findIdsByOwnerId(ownerId);
+        }
+
+        long[] boundaries = new long[(int) periods + 1];
+        for (int i = 0; i < periods; i++) {
+            boundaries[i] = fromDay + (long) i * length;
+        }
+        boundaries[(int) periods] = fromDay + days;
+        ColumnScanResult result = prefixSumIndex.isReady()
+                ? prefixSumIndex.periodTotals(boundaries, categoryIds)
+                : sqlPeriodTotals(ownerId, from, to, length, (int) periods, categoryIds);
+        return buildResponse(from, to, periodDays, categoryId, boundaries, result);
+    }
+
+    // Same shape as the index answer, from one grouped read of the owner's per-category daily totals
+    private ColumnScanResult sqlPeriodTotals(UUID ownerId, LocalDate from, LocalDate to, int length, int periods, Set<UUID> categoryIds) {
+        Map<UUID, List<DailyCategoryTotal>> byCategory = new LinkedHashMap<>();
+        LocalDate toExclusive = to.plusDays(1);
+        for (DailyCategoryTotal row : expenseArchive.mergeDailyCategoryTotals(ownerId, from, toExclusive,
+                expenseRepository.findDailyCategoryTotals(ownerId, from, toExclusive))) {
+            if (categoryIds.contains(row.categoryId())) {
+                byCategory.computeIfAbsent(row.categoryId(), id -> new ArrayList<>()).add(row);
+            }
+        }
+        List<UUID> ids = List.copyOf(byCategory.keySet());
+        int cells = Math.max(1, ids.size()) * periods;
+        long[] cents = new long[cells];
+        long[] rows = new long[cells];
+        long[] unconverted = new long[cells];
+        for (int group = 0; group < ids.size(); group++) {
+            for (DailyCategoryTotal day : byCategory.get(ids.get(group))) {
+                int cell = group * periods + (int) ((day.day().toEpochDay() - from.toEpochDay()) / length);
+                if (day.baseTotal() != null) {
+                    cents[cell] = Math.addExact(cents[cell], Money.minorUnits(day.baseTotal()));
+                }
+                rows[cell] += day.rows();
+                unconverted[cell] += day.unconvertedCount();
+            }
+        }
+        return new ColumnScanResult(ids, periods, cents, rows, unconverted);
+    }
+
+    // Categories without expenses in the range are left out, like the month range summary
+    private PeriodSummaryResponse buildResponse(LocalDate from, LocalDate to, Integer periodDays, UUID categoryId,
+                                                long[] boundaries, ColumnScanResult result) {
+        int periods = result.bucketCount();
+        List<Integer> groups = new ArrayList<>();
+        for (int group = 0; group < result.categories().size(); group++) {
+            for (int period = 0; period < periods; period++) {
+                if (result.rows(group, period) > 0) {
+                    groups.add(group);
+                    break;
+                }
+            }
+        }
+        Map<UUID, Category> categories = categoryRepository.findAllById(groups.stream().map(result.categories()::get).toList())
+                .stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+
+        long[] overall = new long[periods];
+        long unconverted = 0;
+        List<CategoryPeriodSummaryResponse> categoryResponses = new ArrayList<>(groups.size());
+        for (int group : groups) {
+            Category category = categories.get(result.categories().get(group));
+            if (category == null) {
+                continue;
+            }
+            long[] totals = new long[periods];
+            for (int period = 0; period < periods; period++) {
+                totals[period] = result.cents()[group * periods + period];
+                overall[period] = Math.addExact(overall[period], totals[period]);
+                unconverted += result.unconverted(group, period);
+            }
+            CategoryPeriodSummaryResponse response = new CategoryPeriodSummaryResponse();
+            response.setCategoryId(category.getId());
+            response.setCategoryName(category.getName());
+            response.setTotal(sum(totals));
+            response.setPeriods(periods(boundaries, totals));
+            categoryResponses.add(response);
+        }
+        categoryResponses.sort(Comparator.comparing(CategoryPeriodSummaryResponse::getCategoryName)
+                .thenComparing(CategoryPeriodSummaryResponse::getCategoryId));
+
+        PeriodSummaryResponse response = new PeriodSummaryResponse();
+        response.setFrom(from);
+        response.setTo(to);
+        response.setPeriodDays(periodDays);
+        response.setCategoryId(categoryId);
+        response.setCurrency(fxRateService.getBaseCurrency());
+        response.setUnconvertedCount(unconverted);
+        response.setTotal(sum(overall));
+        response.setPeriods(periods(boundaries, overall));
+        response.setCategories(categoryResponses);
+        return response;
+    }
+
+    private static List<PeriodTotalResponse> periods(long[] boundaries, long[] totals) {
+        List<PeriodTotalResponse> periods = new ArrayList<>(totals.length);
+        for (int i = 0; i < totals.length; i++) {
+            PeriodTotalResponse period = new PeriodTotalResponse();
+            period.setFrom(LocalDate.ofEpochDay(boundaries[i]));
+            period.setTo(LocalDate.ofEpochDay(boundaries[i + 1] - 1));
+            period.setTotal(BigDecimal.valueOf(totals[i], Money.SCALE));
+            periods.add(period);
+        }
+        return periods;
+    }
+
+    private static BigDecimal sum(long[] minorUnits) {
+        long total = 0;
+        for (long value : minorUnits) {
+            total = Math.addExact(total, value);
+        }
+        return BigDecimal.valueOf(total, Money.SCALE);
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.demo.service;
+
+import com.example.demo.analytics.ColumnScan;
+import com.example.demo.analytics.ColumnScanResult;
+import com.example.demo.analytics.ColumnarExpenseStore;
+import com.example.demo.archive.ExpenseArchive;
+import com.example.demo.dto.CategoryRangeSummaryResponse;
+import com.example.demo.dto.MonthTotalResponse;
+import com.example.demo.dto.RangeSummaryResponse;
+import com.example.demo.dto.TimeseriesPointResponse;
+import com.example.demo.dto.TimeseriesResponse;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.model.Category;
+import com.example.demo.money.Money;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.repository.MonthlyCategoryTotalRepository;
+import com.example.demo.repository.TimeBucketTotal;
+import com.example.demo.security.CurrentUser;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional(readOnly = true)
+public class SummaryService {
+
+    static final int MAX_RANGE_MONTHS = 120;
+    static final int MAX_TIMESERIES_POINTS = 1000;
+    private static final BigDecimal ZERO = BigDecimal.ZERO.setScale(2);
+
+    private final MonthlyCategoryTotalRepository monthlyTotalRepository;
+    private final ExpenseRepository expenseRepository;
+    private final CategoryRepository categoryRepository;
+    private final FxRateService fxRateService;
+    private final ColumnarExpenseStore columnarStore;
+    private final ExpenseArchive expenseArchive;
+
+    public SummaryService(MonthlyCategoryTotalRepository monthlyTotalRepository, ExpenseRepository expenseRepository,
+                          CategoryRepository categoryRepository, FxRateService fxRateService, ColumnarExpenseStore columnarStore,
+                          ExpenseArchive expenseArchive) {
+        this.monthlyTotalRepository = monthlyTotalRepository;
+        this.expenseRepository = expenseRepository;
+        this.categoryRepository = categoryRepository;
+        this.fxRateService = fxRateService;
+        this.columnarStore = columnarStore;
+        this.expenseArchive = expenseArchive;
+    }
+
+    // Either an explicit [from, to] range, or the trailing window of that many months ending at to (default: current UTC month)
+    public RangeSummaryResponse summarizeRange(YearMonth from, YearMonth to, Integer trailingMonths, boolean previousYear) {
+        if (trailingMonths != null) {
+            if (from != null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from cannot be combined with trailing");
+            }
+            if (trailingMonths < 1 || trailingMonths > MAX_RANGE_MONTHS) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "trailing must be between 1 and " + MAX_RANGE_MONTHS);
+            }
+            to = to != null ? to : YearMonth.now(ZoneOffset.UTC);
+            from = to.minusMonths(trailingMonths - 1L);
+        } else if (from == null || to == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from and to are required unless trailing is set");
+        }
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        int size = (int) ChronoUnit.MONTHS.between(from, to) + 1;
+        if (size > MAX_RANGE_MONTHS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Range must not exceed " + MAX_RANGE_MONTHS + " months");
+        }
+        return buildRange(from, to, size, previousYear);
+    }
+
+    // One grouped read over the rollup covers the range and, when requested, the same months a year earlier.
+    // Amounts are in the base currency; expenses without a known rate are only counted in unconvertedCount.
+    private RangeSummaryResponse buildRange(YearMonth from, YearMonth to, int size, boolean previousYear) {
+        UUID ownerId = CurrentUser.id();
+        YearMonth queryFrom = previousYear ? from.minusYears(1) : from;
+        List<PeriodTotal> rows = columnarStore.isReady()
+                ? columnarPeriodTotals(ownerId, queryFrom, to)
+                : monthlyTotalRepository.findBaseTotalsBetweenPeriods(ownerId, queryFrom.atDay(1), to.atDay(1)).stream()
+                        .map(view -> new PeriodTotal(view.getCategoryId(), view.getCategoryName(), view.getPeriodStart(),
+                                Money.minorUnits(view.getBaseTotal()), view.getUnconvertedCount()))
+                        .toList();
+
+        Map<UUID, Series> byCategory = new LinkedHashMap<>();
+        Series overall = new Series(null, null, size);
+        long unconverted = 0;
+        for (PeriodTotal row : rows) {
+            Series series = byCategory.computeIfAbsent(row.categoryId(),
+                    id -> new Series(id, row.categoryName(), size));
+            int offset = (int) ChronoUnit.MONTHS.between(from, YearMonth.from(row.periodStart()));
+            if (offset >= 0) {
+                series.current[offset] = Math.addExact(series.current[offset], row.baseTotal());
+                overall.current[offset] = Math.addExact(overall.current[offset], row.baseTotal());
+                unconverted += row.unconvertedCount();
+            }
+            // A row twelve months before a month in range is that month's previous-year value
+            int shifted = offset + 12;
+            if (previousYear && shifted >= 0 && shifted < size) {
+                series.previous[shifted] = Math.addExact(series.previous[shifted], row.baseTotal());
+                overall.previous[shifted] = Math.addExact(overall.previous[shifted], row.baseTotal());
+            }
+        }
+
+        RangeSummaryResponse response = new RangeSummaryResponse();
+        response.setFrom(from);
+        response.setTo(to);
+        response.setPreviousYear(previousYear);
+        response.setCurrency(fxRateService.getBaseCurrency());
+        response.setUnconvertedCount(unconverted);
+        response.setMonths(overall.months(from, previousYear));
+        response.setTotal(sum(overall.current));
+        response.setPreviousYearTotal(previousYear ? sum(overall.previous) : null);
+
+        List<CategoryRangeSummaryResponse> categories = new ArrayList<>(byCategory.size());
+        for (Series series : byCategory.values()) {
+            CategoryRangeSummaryResponse category = new CategoryRangeSummaryResponse();
+            category.setCategoryId(series.categoryId);
+            category.setCategoryName(series.categoryName);
+            category.setMonths(series.months(from, previousYear));
+            category.setTotal(sum(series.current));
+            category.setPreviousYearTotal(previousYear ? sum(series.previous) : null);
+            categories.add(category);
+        }
+        response.setCategories(categories);
+        return response;
+    }
+
+    // Buckets over UTC days [from, to]; amounts are base-currency unless a currency is given, in which case only that
+    // currency's expenses are summed in their own units. Buckets without expenses are returned as zero.
+    public TimeseriesResponse timeseries(LocalDate from, LocalDate to, TimeseriesGranularity granularity, UUID categoryId, String currency) {
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        LocalDate first = granularity.truncate(from);
+        LocalDate last = granularity.truncate(to);
+        long points = switch (granularity) {
+            case DAY -> ChronoUnit.DAYS.between(first, last) + 1;
+            case WEEK -> ChronoUnit.WEEKS.between(first, last) + 1;
+            case MONTH -> ChronoUnit.MONTHS.between(first, last) + 1;
+        };
+        if (points > MAX_TIMESERIES_POINTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Time series must not exceed " + MAX_TIMESERIES_POINTS + " points");
+        }
+        UUID ownerId = CurrentUser.id();
+        if (categoryId != null && !categoryRepository.existsByIdAndOwnerId(categoryId, ownerId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Category not found");
+        }
+        String normalizedCurrency = currency == null ? null : currency.toUpperCase(Locale.ROOT);
+
+        List<TimeBucketTotal> buckets = columnarStore.isReady()
+                ? columnarTimeBuckets(from, to, granularity, first, (int) points,
+                        categoryId != null ? Set.of(categoryId) : categoryRepository.findIdsByOwnerId(ownerId), normalizedCurrency)
+                : expenseArchive.mergeTimeBuckets(ownerId, from, to, granularity::truncate, categoryId, normalizedCurrency,
+                        expenseRepository.sumByTimeBucket(ownerId, granularity.getUnit(), from, to, categoryId, normalizedCurrency));
+        Map<LocalDate, BigDecimal> totals = new HashMap<>(buckets.size() * 2);
+        long unconverted = 0;
+        for (TimeBucketTotal bucket : buckets) {
+            totals.put(bucket.bucketStart(), bucket.total());
+            unconverted += bucket.unconvertedCount();
+        }
+
+        List<TimeseriesPointResponse> series = new ArrayList<>((int) points);
+        for (LocalDate start = first; !start.isAfter(last); start = granularity.next(start)) {
+            TimeseriesPointResponse point = new TimeseriesPointResponse();
+            point.setStart(start);
+            point.setTotal(totals.getOrDefault(start, ZERO));
+            series.add(point);
+        }
+
+        TimeseriesResponse response = new TimeseriesResponse();
+        response.setFrom(from);
+        response.setTo(to);
+        response.setGranularity(granularity.getUnit());
+        response.setCategoryId(categoryId);
+        response.setCurrency(normalizedCurrency != null ? normalizedCurrency : fxRateService.getBaseCurrency());
+        response.setUnconvertedCount(normalizedCurrency != null ? 0 : unconverted);
+        response.setPoints(series);
+        return response;
+    }
+
+    // Same rows as the rollup query (category name, then month), from one parallel scan of the in-memory columns
+    // restricted to the owner's categories
+    private List<PeriodTotal> columnarPeriodTotals(UUID ownerId, YearMonth from, YearMonth to) {
+        int months = (int) ChronoUnit.MONTHS.between(from, to) + 1;
+        LocalDate fromDay = from.atDay(1);
+        int[] dayToBucket = new int[(int) ChronoUnit.DAYS.between(fromDay, to.atEndOfMonth()) + 1];
+        for (int month = 0, day = 0; month < months; month++) {
+            int length = from.plusMonths(month).lengthOfMonth();
+            Arrays.fill(dayToBucket, day, day + length, month);
+            day += length;
+        }
+        Map<UUID, String> names = categoryRepository.findByOwnerId(ownerId, Sort.unsorted()).stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
+        ColumnScanResult result = columnarStore.scan(new ColumnScan(fromDay.toEpochDay(), dayToBucket, months, true, names.keySet(), null));
+
+        List<PeriodTotal> rows = new ArrayList<>();
+        for (int group = 0; group < result.groupCount() && group < result.categories().size(); group++) {
+            UUID categoryId = result.categories().get(group);
+            for (int month = 0; month < months; month++) {
+                if (result.rows(group, month) > 0 && names.containsKey(categoryId)) {
+                    rows.add(new PeriodTotal(categoryId, names.get(categoryId), from.plusMonths(month).atDay(1),
+                            result.cents()[group * months + month], result.unconverted(group, month)));
+                }
+            }
+        }
+        rows.sort(Comparator.comparing(PeriodTotal::categoryName).thenComparing(PeriodTotal::periodStart));
+        return rows;
+    }
+
+    private List<TimeBucketTotal> columnarTimeBuckets(LocalDate from, LocalDate to, TimeseriesGranularity granularity,
+                                                      LocalDate first, int points, Set<UUID> categoryIds, String currency) {
+        List<LocalDate> starts = new ArrayList<>(points);
+        Map<LocalDate, Integer> bucketOf = new HashMap<>(points * 2);
+        for (LocalDate start = first; starts.size() < points; start = granularity.next(start)) {
+            bucketOf.put(start, starts.size());
+            starts.add(start);
+        }
+        int[] dayToBucket = new int[(int) ChronoUnit.DAYS.between(from, to) + 1];
+        for (int i = 0; i < dayToBucket.length; i++) {
+            dayToBucket[i] = bucketOf.get(granularity.truncate(from.plusDays(i)));
+        }
+        ColumnScanResult result = columnarStore.scan(new ColumnScan(from.toEpochDay(), dayToBucket, points, false, categoryIds, currency));
+
+        List<TimeBucketTotal> buckets = new ArrayList<>();
+        for (int bucket = 0; bucket < points; bucket++) {
+            if (result.rows(0, bucket) > 0) {
+                buckets.add(new TimeBucketTotal(starts.get(bucket), result.total(0, bucket), result.unconverted(0, bucket)));
+            }
+        }
+        return buckets;
+    }
+
+    private static BigDecimal sum(long[] minorUnits) {
+        long total = 0;
+        for (long value : minorUnits) {
+            total = Math.addExact(total, value);
+        }
+        return BigDecimal.valueOf(total, Money.SCALE);
+    }
+
+    // baseTotal in minor units
+    private record PeriodTotal(UUID categoryId, String categoryName, LocalDate periodStart, long baseTotal, long unconvertedCount) {
+    }
+
+    // Dense per-month buckets of base-currency minor units, so every series has one entry per month, zero-filled
+    private static final class Series {
+        private final UUID categoryId;
+        private final String categoryName;
+        private final long[] current;
+        private final long[] previous;
+
+        private Series(UUID categoryId, String categoryName, int size) {
+            this.categoryId = categoryId;
+            this.categoryName = categoryName;
+            this.current = new long[size];
+            this.previous = new long[size];
+        }
+
+        private List<MonthTotalResponse> months(YearMonth from, boolean previousYear) {
+            List<MonthTotalResponse> months = new ArrayList<>(current.length);
+            for (int i = 0; i < current.length; i++) {
+                MonthTotalResponse month = new MonthTotalResponse();
+                month.setMonth(from.plusMonths(i));
+                month.setTotal(BigDecimal.valueOf(current[i], Money.SCALE));
+                month.setPreviousYearTotal(previousYear ? BigDecimal.valueOf(previous[i], Money.SCALE) : null);
+                months.add(month);
+            }
+            return months;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.service;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.event.CategoryChangedEvent;
+import com.example.demo.event.CategorySnapshot;
+import com.example.demo.event.ExpenseChangedEvent;
+import com.example.demo.event.ExpenseSnapshot;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+// Write counters used to build ETags, kept in write_versions: per user, one for their categories and one per UTC month
+// of their expenses. They are bumped inside the writing transaction, so every instance sees a write as soon as it
+// commits, and a version read before a query never labels data older than itself.
+@Component
+public class WriteVersionTracker {
+
+    static final String CATEGORIES = "categories";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InsertIfAbsent insertIfAbsent;
+
+    public WriteVersionTracker(JdbcTemplate jdbcTemplate, InsertIfAbsent insertIfAbsent) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertIfAbsent = insertIfAbsent;
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        CategorySnapshot category = event.after() != null ? event.after() : event.before();
+        if (category.ownerId() != null) {
+            bump(category.ownerId(), CATEGORIES);
+        }
+    }
+
+    // Sorted, so that two writes moving expenses between the same months lock their counters in the same order
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        Set<Counter> counters = new TreeSet<>(Comparator.comparing(Counter::ownerId).thenComparing(Counter::resource));
+        for (ExpenseSnapshot expense : new ExpenseSnapshot[]{event.before(), event.after()}) {
+            if (expense != null && expense.ownerId() != null) {
+                event.affectedMonths().forEach(month -> counters.add(new Counter(expense.ownerId(), month.toString())));
+            }
+        }
+        counters.forEach(counter -> bump(counter.ownerId(), counter.resource()));
+    }
+
+    // For writes that change what a user sees without a change event (legacy backfill); the categories version is part
+    // of every one of the user's ETags
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void touch(UUID ownerId) {
+        bump(ownerId, CATEGORIES);
+    }
+
+    public Versions versions(UUID ownerId, YearMonth month) {
+        Map<String, Long> versions = new HashMap<>();
+        jdbcTemplate.query("select resource, version from write_versions where owner_id = ? and resource in (?, ?)",
+                rs -> {
+                    versions.put(rs.getString("resource"), rs.getLong("version"));
+                }, ownerId, CATEGORIES, month.toString());
+        return new Versions(versions.getOrDefault(CATEGORIES, 0L), versions.getOrDefault(month.toString(), 0L));
+    }
+
+    public long categoriesVersion(UUID ownerId) {
+        return jdbcTemplate.queryForList("select version from write_versions where owner_id = ? and resource = ?", Long.class,
+                ownerId, CATEGORIES).stream().findFirst().orElse(0L);
+    }
+
+    // ETags name their owner: two users whose counters happen to match still see different bodies
+    public String categoriesETag(UUID ownerId) {
+        return "\"c-" + ownerId + "-" + categoriesVersion(ownerId) + "\"";
+    }
+
+    // Category names are part of the summary, so category writes invalidate it as well
+    public String monthlySummaryETag(UUID ownerId, YearMonth month) {
+        Versions versions = versions(ownerId, month);
+        return "\"m-" + ownerId + "-" + month + "-" + versions.categories() + "-" + versions.month() + "\"";
+    }
+
+    // A counter is created at 0 the first time it is bumped. Two first bumps racing both insert: one row wins, the other
+    // insert waits for it and does nothing, and both then increment it.
+    private void bump(UUID ownerId, String resource) {
+        String increment = "update write_versions set version = version + 1 where owner_id = ? and resource = ?";
+        if (jdbcTemplate.update(increment, ownerId, resource) == 0) {
+            insertIfAbsent.insert("write_versions", List.of("owner_id", "resource"),
+                    Map.of("owner_id", ownerId, "resource", resource, "version", 0L));
+            if (jdbcTemplate.update(increment, ownerId, resource) == 0) {
+                throw new IllegalStateException("Write version " + resource + " of user " + ownerId + " vanished");
+            }
+        }
+    }
+
+    public record Versions(long categories, long month) {
+    }
+
+    private record Counter(UUID ownerId, String resource) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.shard;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+// Each shard owns virtualNodes points on a 64-bit ring and a user belongs to the first point at or after the hash of
+// their id, so adding a shard only takes users from the points just before its own, and removing one only hands its
+// users to the points after. The same shards and virtualNodes always give the same ring.
+public final class ConsistentHashRing {
+
+    private final List<String> shards;
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+
+    public ConsistentHashRing(Collection<String> shards, int virtualNodes) {
+        if (shards.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A hash ring needs at least one shard and one virtual node per shard");
+        }
+        this.shards = shards.stream().distinct().sorted().toList();
+        // Sorted, so a (vanishingly rare) hash collision goes to the same shard whatever order they were listed in
+        for (String shard : this.shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.putIfAbsent(hash(shard + "#" + i), shard);
+            }
+        }
+    }
+
+    public List<String> shards() {
+        return shards;
+    }
+
+    public String shardFor(UUID userId) {
+        Map.Entry<Long, String> point = points.ceilingEntry(hash(userId.toString()));
+        return (point == null ? points.firstEntry() : point).getValue();
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.shard;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+// Shards with sharding on: one worker per shard, so a scatter takes as long as its slowest shard
+public class RoutedShards implements Shards, AutoCloseable {
+
+    private final List<String> names;
+    private final ExecutorService executor;
+
+    public RoutedShards(List<String> names) {
+        this.names = List.copyOf(names);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("shard-scatter-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newFixedThreadPool(names.size(), threadFactory);
+    }
+
+    @Override
+    public List<String> names() {
+        return names;
+    }
+
+    @Override
+    public <T> Map<String, T> scatter(Supplier<T> task) {
+        List<Future<T>> futures = new ArrayList<>();
+        for (String shard : names) {
+            futures.add(executor.submit(() -> ShardRoutingDataSource.onShard(shard, task)));
+        }
+        Map<String, T> results = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < names.size(); i++) {
+                results.put(names.get(i), futures.get(i).get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Interrupted waiting for shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
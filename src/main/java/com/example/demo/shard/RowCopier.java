@@ -0,0 +1,67 @@
+package com.example.demo.shard;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Copies rows between shards column for column: whatever select * returns on one side is inserted on the other, so
+// the copy keeps up with the schema as long as Flyway keeps the shards on the same version
+final class RowCopier {
+
+    static final int BATCH_SIZE = 500;
+
+    private RowCopier() {
+    }
+
+    static int copy(JdbcTemplate from, JdbcTemplate to, String table, String where, Object... args) {
+        return copy(from, to, table, null, where, args);
+    }
+
+    // For a table with a generated id: the target numbers the rows anew, in the order of their ids on the source
+    static int copyRenumbered(JdbcTemplate from, JdbcTemplate to, String table, String idColumn, String where, Object... args) {
+        return copy(from, to, table, idColumn, where + " order by " + idColumn, args);
+    }
+
+    private static int copy(JdbcTemplate from, JdbcTemplate to, String table, String skippedColumn, String where, Object... args) {
+        List<Object[]> batch = new ArrayList<>();
+        String[] insert = new String[1];
+        List<Integer> copiedColumns = new ArrayList<>();
+        int[] copied = new int[1];
+        from.query("select * from " + table + " where " + where, rs -> {
+            if (insert[0] == null) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                List<String> names = new ArrayList<>();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    if (!metaData.getColumnName(i).equalsIgnoreCase(skippedColumn)) {
+                        names.add(metaData.getColumnName(i));
+                        copiedColumns.add(i);
+                    }
+                }
+                insert[0] = "insert into " + table + " (" + String.join(", ", names) + ") values ("
+                        + String.join(", ", Collections.nCopies(names.size(), "?")) + ")";
+            }
+            Object[] row = new Object[copiedColumns.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = rs.getObject(copiedColumns.get(i));
+            }
+            batch.add(row);
+            if (batch.size() == BATCH_SIZE) {
+                copied[0] += flush(to, insert[0], batch);
+            }
+        }, args);
+        if (!batch.isEmpty()) {
+            copied[0] += flush(to, insert[0], batch);
+        }
+        return copied[0];
+    }
+
+    private static int flush(JdbcTemplate to, String insert, List<Object[]> batch) {
+        to.batchUpdate(insert, batch);
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// The pool of each shard by name, main first, for the router and for work that must reach a given shard directly
+// (the shard map, migrations). Closes the pools of the other shards; main's is a bean of its own.
+public class ShardDataSources implements AutoCloseable {
+
+    private final Map<String, DataSource> dataSources;
+
+    public ShardDataSources(Map<String, DataSource> dataSources) {
+        if (!dataSources.containsKey(Shards.MAIN)) {
+            throw new IllegalArgumentException("No " + Shards.MAIN + " shard");
+        }
+        this.dataSources = new LinkedHashMap<>();
+        this.dataSources.put(Shards.MAIN, dataSources.get(Shards.MAIN));
+        this.dataSources.putAll(dataSources);
+    }
+
+    public List<String> names() {
+        return List.copyOf(dataSources.keySet());
+    }
+
+    public boolean contains(String shard) {
+        return dataSources.containsKey(shard);
+    }
+
+    public DataSource get(String shard) {
+        DataSource dataSource = dataSources.get(shard);
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Unknown shard " + shard);
+        }
+        return dataSource;
+    }
+
+    public JdbcTemplate jdbc(String shard) {
+        return new JdbcTemplate(get(shard));
+    }
+
+    Map<String, DataSource> asMap() {
+        return dataSources;
+    }
+
+    @Override
+    public void close() {
+        dataSources.forEach((shard, dataSource) -> {
+            if (!shard.equals(Shards.MAIN) && dataSource instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        });
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.demo.shard;
+
+import com.example.demo.event.UserRegisteredEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The shard map: user_shards on main says which shard holds each user's data. New users are placed by the hash
+// ring when they register; users without a row live on main. Lookups are cached per instance for mapCacheTtl, so a
+// change to the map reaches every instance within that time.
+public class ShardDirectory {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardDirectory.class);
+
+    // Expired entries are dropped once the cache grows past this
+    private static final int PRUNE_THRESHOLD = 4096;
+
+    public enum State {
+        ACTIVE, MIGRATING
+    }
+
+    public record Placement(String shard, State state) {
+    }
+
+    private static final Placement PREDATES_SHARDING = new Placement(Shards.MAIN, State.ACTIVE);
+
+    private record Cached(Placement placement, long loadedAt) {
+    }
+
+    private final ShardDataSources shards;
+    private final JdbcTemplate main;
+    private final ConsistentHashRing ring;
+    private final long ttlNanos;
+    private final Map<UUID, Cached> cache = new ConcurrentHashMap<>();
+
+    public ShardDirectory(ShardDataSources shards, ConsistentHashRing ring, Duration mapCacheTtl) {
+        this.shards = shards;
+        this.main = shards.jdbc(Shards.MAIN);
+        this.ring = ring;
+        this.ttlNanos = mapCacheTtl.toNanos();
+    }
+
+    public ConsistentHashRing ring() {
+        return ring;
+    }
+
+    public Duration mapCacheTtl() {
+        return Duration.ofNanos(ttlNanos);
+    }
+
+    public String shardOf(UUID userId) {
+        return placement(userId).shard();
+    }
+
+    public Placement placement(UUID userId) {
+        long now = System.nanoTime();
+        Cached cached = cache.get(userId);
+        if (cached != null && now - cached.loadedAt() < ttlNanos) {
+            return cached.placement();
+        }
+        Placement placement = load(userId);
+        if (ttlNanos > 0) {
+            cache.put(userId, new Cached(placement, now));
+            if (cache.size() > PRUNE_THRESHOLD) {
+                cache.values().removeIf(entry -> now - entry.loadedAt() >= ttlNanos);
+            }
+        }
+        return placement;
+    }
+
+    // Uncached, for changes to the map
+    public Placement load(UUID userId) {
+        List<Placement> rows = main.query("select shard, state from user_shards where user_id = ?",
+                (rs, rowNum) -> new Placement(rs.getString("shard"), State.valueOf(rs.getString("state"))), userId);
+        return rows.isEmpty() ? PREDATES_SHARDING : rows.get(0);
+    }
+
+    public boolean exists(UUID userId) {
+        return main.queryForObject("select count(*) from app_users where id = ?", Integer.class, userId) > 0;
+    }
+
+    // Every user and the shard holding their data
+    public Map<UUID, String> all() {
+        Map<UUID, String> placements = new LinkedHashMap<>();
+        main.query("select u.id, s.shard from app_users u left join user_shards s on s.user_id = u.id order by u.id",
+                rs -> {
+                    String shard = rs.getString("shard");
+                    placements.put(rs.getObject("id", UUID.class), shard == null ? Shards.MAIN : shard);
+                });
+        return placements;
+    }
+
+    public void save(UUID userId, String shard, State state) {
+        if (!shards.contains(shard)) {
+            throw new IllegalArgumentException("Unknown shard " + shard);
+        }
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        if (main.update("update user_shards set shard = ?, state = ?, updated_at = ? where user_id = ?",
+                shard, state.name(), now, userId) == 0) {
+            main.update("insert into user_shards (user_id, shard, state, updated_at) values (?, ?, ?, ?)",
+                    userId, shard, state.name(), now);
+        }
+        cache.remove(userId);
+    }
+
+    // Marks the user MIGRATING if they are ACTIVE on the given shard; false when another migration got there first
+    public boolean claim(UUID userId, String shard) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        int claimed = main.update("update user_shards set state = ?, updated_at = ? where user_id = ? and shard = ? and state = ?",
+                State.MIGRATING.name(), now, userId, shard, State.ACTIVE.name());
+        if (claimed == 0 && shard.equals(Shards.MAIN)) {
+            // Users who predate sharding have no row yet
+            try {
+                claimed = main.update("insert into user_shards (user_id, shard, state, updated_at) values (?, ?, ?, ?)",
+                        userId, shard, State.MIGRATING.name(), now);
+            } catch (DuplicateKeyException e) {
+                claimed = 0;
+            }
+        }
+        cache.remove(userId);
+        return claimed > 0;
+    }
+
+    public void evict(UUID userId) {
+        cache.remove(userId);
+    }
+
+    // After commit, so the user row exists on main to be copied. The account works either way: a user the ring could
+    // not place stays on main.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserRegistered(UserRegisteredEvent event) {
+        String shard = ring.shardFor(event.userId());
+        try {
+            if (!shard.equals(Shards.MAIN)) {
+                // Owner foreign keys on the shard point at it
+                RowCopier.copy(main, shards.jdbc(shard), "app_users", "id = ?", event.userId());
+            }
+            save(event.userId(), shard, State.ACTIVE);
+        } catch (RuntimeException e) {
+            log.warn("Could not place user {} on shard {}; their data stays on {}", event.userId(), shard, Shards.MAIN, e);
+        }
+    }
+}
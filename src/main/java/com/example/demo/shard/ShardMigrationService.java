@@ -0,0 +1,181 @@
+package com.example.demo.shard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+// Moves a user's data between shards while the application keeps serving them:
+//  1. the user is marked MIGRATING, which only one migration of them can do at a time;
+//  2. their rows are copied to the target in one transaction (leftovers of an earlier failed attempt removed first),
+//     and their unpublished change events moved there from the outbox. That transaction first locks the user's
+//     app_users row on the source for update, which ShardWriteFence takes in every write: writes already in flight
+//     commit before the copy reads, and later ones see MIGRATING and are refused (503);
+//  3. the map points at the target, and the user can write again there; a write that still reaches the source is
+//     refused by the same fence;
+//  4. once every instance reads from the target, the rows are deleted from the source.
+// Reads keep working throughout, from the source until step 3 is seen. A failure before step 3 leaves the user where
+// they were.
+public class ShardMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardMigrationService.class);
+
+    // Parents before children; deletes go the other way
+    private static final List<Table> TABLES = List.of(
+            new Table("categories", "owner_id = ?"),
+            new Table("expenses", "owner_id = ?"),
+            new Table("monthly_category_totals", "category_id in (select id from categories where owner_id = ?)"),
+            new Table("expense_size_sketches", "category_id in (select id from categories where owner_id = ?)"),
+            new Table("monthly_activity_sketches", "owner_id = ?"),
+            new Table("monthly_summary_snapshots", "owner_id = ?"),
+            new Table("write_versions", "owner_id = ?"));
+
+    private static final List<Table> DELETE_ORDER = reversed(TABLES);
+
+    private record Table(String name, String where) {
+    }
+
+    private final ShardDataSources shards;
+    private final ShardDirectory directory;
+
+    public ShardMigrationService(ShardDataSources shards, ShardDirectory directory) {
+        this.shards = shards;
+        this.directory = directory;
+    }
+
+    public Migration migrate(UUID userId, String target) {
+        if (!shards.contains(target)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown shard " + target);
+        }
+        if (!directory.exists(userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+        String source = directory.load(userId).shard();
+        if (source.equals(target)) {
+            return new Migration(userId, source, target, 0, 0);
+        }
+        long started = System.nanoTime();
+        if (!directory.claim(userId, source)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "User is already being moved");
+        }
+        int rows;
+        try {
+            rows = copy(userId, source, target);
+            directory.save(userId, target, ShardDirectory.State.ACTIVE);
+        } catch (RuntimeException e) {
+            directory.save(userId, source, ShardDirectory.State.ACTIVE);
+            throw e;
+        }
+        awaitMapRefresh();
+        inTransaction(source, jdbc -> delete(jdbc, userId, !source.equals(Shards.MAIN)));
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Moved user {} from shard {} to {}: {} row(s) in {} ms", userId, source, target, rows, millis);
+        return new Migration(userId, source, target, rows, millis);
+    }
+
+    // Users whose shard is not the one the ring gives them, as after a shard joins or leaves the ring
+    public List<Move> plan() {
+        List<Move> moves = new ArrayList<>();
+        for (Map.Entry<UUID, String> user : directory.all().entrySet()) {
+            String placed = directory.ring().shardFor(user.getKey());
+            if (!placed.equals(user.getValue())) {
+                moves.add(new Move(user.getKey(), user.getValue(), placed));
+            }
+        }
+        return moves;
+    }
+
+    // One user at a time, so each user's writes are only held up for their own copy
+    public List<Migration> rebalance() {
+        List<Migration> migrations = new ArrayList<>();
+        for (Move move : plan()) {
+            migrations.add(migrate(move.userId(), move.to()));
+        }
+        return migrations;
+    }
+
+    // The source transaction encloses the target's, so the outbox rows it deletes are only gone once their copies are in
+    private int copy(UUID userId, String source, String target) {
+        return inTransaction(source, from -> inTransaction(target, to -> {
+            from.query("select id from app_users where id = ? for update", rs -> {
+            }, userId);
+            delete(to, userId, false);
+            // Its own template, so the fetch size stays with the copy; it shares the transaction's connection
+            JdbcTemplate reader = new JdbcTemplate(from.getDataSource());
+            reader.setFetchSize(RowCopier.BATCH_SIZE);
+            int rows = 0;
+            if (to.queryForObject("select count(*) from app_users where id = ?", Integer.class, userId) == 0) {
+                rows += RowCopier.copy(reader, to, "app_users", "id = ?", userId);
+            }
+            for (Table table : TABLES) {
+                rows += RowCopier.copy(reader, to, table.name(), table.where(), userId);
+            }
+            return rows + moveOutbox(from, to, userId);
+        }));
+    }
+
+    // Renumbered on the target in their order. The source's relay lock is held until they are deleted there, so none of
+    // them can be published from the source after the user's first write on the target has been.
+    private static int moveOutbox(JdbcTemplate from, JdbcTemplate to, UUID userId) {
+        from.queryForObject("select id from outbox_relay_lock where id = 1 for update", Integer.class);
+        int rows = RowCopier.copyRenumbered(from, to, "outbox_events", "id", "owner_id = ?", userId);
+        from.update("delete from outbox_events where owner_id = ?", userId);
+        return rows;
+    }
+
+    // The user row stays on main, which holds every account, and on a shard that is the user's target
+    private static int delete(JdbcTemplate jdbc, UUID userId, boolean user) {
+        int rows = 0;
+        for (Table table : DELETE_ORDER) {
+            rows += jdbc.update("delete from " + table.name() + " where " + table.where(), userId);
+        }
+        rows += jdbc.update("delete from outbox_events where owner_id = ?", userId);
+        if (user) {
+            rows += jdbc.update("delete from app_users where id = ?", userId);
+        }
+        return rows;
+    }
+
+    private <T> T inTransaction(String shard, Function<JdbcTemplate, T> work) {
+        JdbcTemplate jdbc = shards.jdbc(shard);
+        return new TransactionTemplate(new DataSourceTransactionManager(jdbc.getDataSource()))
+                .execute(status -> work.apply(jdbc));
+    }
+
+    private static List<Table> reversed(List<Table> tables) {
+        List<Table> reversed = new ArrayList<>(tables);
+        Collections.reverse(reversed);
+        return List.copyOf(reversed);
+    }
+
+    // Until then some instance may still read from the source with the map from before the last change
+    private void awaitMapRefresh() {
+        Duration ttl = directory.mapCacheTtl();
+        if (ttl.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(ttl.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while moving a user between shards", e);
+        }
+    }
+
+    public record Migration(UUID userId, String from, String to, int rows, long millis) {
+    }
+
+    public record Move(UUID userId, String from, String to) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.shard;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "datasource.shards")
+public class ShardProperties {
+
+    // Routing is off unless set; spring.datasource is always the shard named main
+    private boolean enabled;
+    // The other shards by name
+    private Map<String, Node> nodes = new LinkedHashMap<>();
+    // Shards new users are placed on and rebalancing moves users to; defaults to main and every node. A shard left
+    // out keeps serving the users it holds until they are moved off it.
+    private List<String> ring = new ArrayList<>();
+    // Points per shard on the hash ring; more spread users more evenly
+    private int virtualNodes = 64;
+    // How long each instance caches a user's shard; changes to the shard map wait this long to be seen everywhere
+    private Duration mapCacheTtl = Duration.ofSeconds(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Map<String, Node> getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(Map<String, Node> nodes) {
+        this.nodes = nodes;
+    }
+
+    public List<String> getRing() {
+        return ring;
+    }
+
+    public void setRing(List<String> ring) {
+        this.ring = ring;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    public Duration getMapCacheTtl() {
+        return mapCacheTtl;
+    }
+
+    public void setMapCacheTtl(Duration mapCacheTtl) {
+        this.mapCacheTtl = mapCacheTtl;
+    }
+
+    public static class Node {
+
+        private String url;
+        private String username;
+        private String password;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.shard;
+
+import com.example.demo.security.CurrentUser;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Sends each connection to the signed-in user's shard, and to main when there is no user (login, startup jobs,
+// schedulers). Like the replica router it sits behind a LazyConnectionDataSourceProxy, so the shard is chosen at a
+// transaction's first statement and a transaction never spans shards.
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<String> SHARD_SCOPE = new ThreadLocal<>();
+
+    // Transaction resource key for the shard the transaction's connection went to
+    private static final Object TRANSACTION_SHARD = new Object();
+
+    private final ShardDirectory directory;
+
+    public ShardRoutingDataSource(ShardDataSources shards, ShardDirectory directory) {
+        this.directory = directory;
+        setTargetDataSources(new HashMap<>(shards.asMap()));
+        setDefaultTargetDataSource(shards.get(Shards.MAIN));
+        // An unknown shard is a broken shard map, not a reason to write to main
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    // For work on behalf of no user or of every user (scatter-gather); wins over the signed-in user's shard. Only
+    // affects transactions that have not run a statement yet.
+    public static <T> T onShard(String shard, Supplier<T> work) {
+        String previous = SHARD_SCOPE.get();
+        SHARD_SCOPE.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                SHARD_SCOPE.remove();
+            } else {
+                SHARD_SCOPE.set(previous);
+            }
+        }
+    }
+
+    // The shard the current transaction runs on, once it has run a statement
+    public static Optional<String> currentShard() {
+        return Optional.ofNullable((String) TransactionSynchronizationManager.getResource(TRANSACTION_SHARD));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String shard = SHARD_SCOPE.get();
+        if (shard == null) {
+            shard = CurrentUser.find().map(directory::shardOf).orElse(Shards.MAIN);
+        }
+        remember(shard);
+        return shard;
+    }
+
+    private static void remember(String shard) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || TransactionSynchronizationManager.hasResource(TRANSACTION_SHARD)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(TRANSACTION_SHARD, shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_SHARD);
+            }
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.shard;
+
+import com.example.demo.event.CategoryChangedEvent;
+import com.example.demo.event.ExpenseChangedEvent;
+import com.example.demo.security.CurrentUser;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.UUID;
+
+// In the write's transaction, on the shard it runs on: the user's app_users row there is locked in share mode, then
+// the map is read uncached, and the write is refused (503) unless that shard holds the user and they are not being
+// moved. A migration locks the same row on the source for update before copying, so it waits for the writes already
+// past this point, and any write queued behind it sees the map as the migration left it. H2 has no share lock, so
+// there a user's writes take the row in turn.
+public class ShardWriteFence {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardDirectory directory;
+    private final String lockClause;
+
+    public ShardWriteFence(JdbcTemplate jdbcTemplate, ShardDirectory directory, ShardDataSources shards) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = directory;
+        String database = shards.jdbc(Shards.MAIN).execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        this.lockClause = "PostgreSQL".equals(database) ? "for share" : "for update";
+    }
+
+    @EventListener
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        CurrentUser.find().ifPresent(this::check);
+    }
+
+    @EventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        CurrentUser.find().ifPresent(this::check);
+    }
+
+    private void check(UUID userId) {
+        jdbcTemplate.query("select id from app_users where id = ? " + lockClause, rs -> {
+        }, userId);
+        String shard = ShardRoutingDataSource.currentShard().orElseGet(() -> directory.shardOf(userId));
+        ShardDirectory.Placement placement = directory.load(userId);
+        if (placement.state() == ShardDirectory.State.MIGRATING || !placement.shard().equals(shard)) {
+            // So the retry goes where the user is now
+            directory.evict(userId);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Your data is being moved; try again shortly");
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// With datasource.shards.enabled, user data is spread over spring.datasource (the shard named main, which also keeps
+// every account and the shard map) and the datasource.shards.nodes databases, behind a DataSource routing each user
+// to their shard. Flyway migrates main as usual and the other shards here, before anything uses them.
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.shards", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardProperties.class)
+public class ShardingConfig {
+
+    public ShardingConfig(Environment environment) {
+        checkSupported(environment);
+    }
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource mainShardDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(Shards.MAIN);
+        return dataSource;
+    }
+
+    @Bean
+    public ShardDataSources shardDataSources(@Qualifier("mainShardDataSource") DataSource main, ShardProperties shards,
+                                             DataSourceProperties primary, FlywayProperties flyway,
+                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        dataSources.put(Shards.MAIN, main);
+        shards.getNodes().forEach((name, node) -> {
+            if (name.equals(Shards.MAIN) || node.getUrl() == null) {
+                throw new IllegalStateException("datasource.shards.nodes." + name + " needs a url and a name other than " + Shards.MAIN);
+            }
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(node.getUrl())
+                    .username(Objects.requireNonNullElse(node.getUsername(), primary.determineUsername()))
+                    .password(Objects.requireNonNullElse(node.getPassword(), Objects.requireNonNullElse(primary.determinePassword(), "")))
+                    .build();
+            dataSource.setPoolName("shard-" + name);
+            // Not a bean, so the pool metrics are not bound for it
+            meterRegistry.ifAvailable(dataSource::setMetricRegistry);
+            migrate(dataSource, node.getUrl(), flyway);
+            dataSources.put(name, dataSource);
+        });
+        return new ShardDataSources(dataSources);
+    }
+
+    @Bean
+    public ConsistentHashRing shardRing(ShardProperties properties, ShardDataSources shards) {
+        List<String> members = properties.getRing().isEmpty() ? shards.names() : properties.getRing();
+        for (String member : members) {
+            if (!shards.contains(member)) {
+                throw new IllegalStateException("datasource.shards.ring names an unknown shard: " + member);
+            }
+        }
+        return new ConsistentHashRing(members, properties.getVirtualNodes());
+    }
+
+    @Bean
+    public ShardDirectory shardDirectory(ShardDataSources shards, ConsistentHashRing shardRing, ShardProperties properties) {
+        return new ShardDirectory(shards, shardRing, properties.getMapCacheTtl());
+    }
+
+    @Bean
+    public ShardMigrationService shardMigrationService(ShardDataSources shards, ShardDirectory shardDirectory) {
+        return new ShardMigrationService(shards, shardDirectory);
+    }
+
+    @Bean
+    public ShardWriteFence shardWriteFence(JdbcTemplate jdbcTemplate, ShardDirectory shardDirectory, ShardDataSources shards) {
+        return new ShardWriteFence(jdbcTemplate, shardDirectory, shards);
+    }
+
+    @Bean
+    public RoutedShards shards(ShardDataSources shards) {
+        return new RoutedShards(shards.names());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDataSources shards, ShardDirectory shardDirectory) {
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards, shardDirectory));
+    }
+
+    private static void migrate(DataSource dataSource, String url, FlywayProperties flyway) {
+        String vendor = DatabaseDriver.fromJdbcUrl(url).getId();
+        FluentConfiguration configuration = Flyway.configure()
+                .dataSource(dataSource)
+                .locations(flyway.getLocations().stream().map(location -> location.replace("{vendor}", vendor)).toArray(String[]::new))
+                .baselineOnMigrate(flyway.isBaselineOnMigrate())
+                .baselineVersion(flyway.getBaselineVersion())
+                .validateOnMigrate(flyway.isValidateOnMigrate());
+        Boolean transactionalLock = flyway.getPostgresql().getTransactionalLock();
+        if (transactionalLock != null) {
+            configuration.configuration(Map.of("flyway.postgresql.transactional.lock", transactionalLock.toString()));
+        }
+        configuration.load().migrate();
+    }
+
+    // These hold every user's data per instance, loaded from main alone
+    private static void checkSupported(Environment environment) {
+        List<String> unsupported = new ArrayList<>();
+        if (environment.getProperty("analytics.columnar.enabled", Boolean.class, false)) {
+            unsupported.add("analytics.columnar.enabled");
+        }
+        if (environment.getProperty("analytics.period-index.enabled", Boolean.class, false)) {
+            unsupported.add("analytics.period-index.enabled");
+        }
+        if (environment.getProperty("expenses.archive.after-months", Integer.class, 0) > 0) {
+            unsupported.add("expenses.archive.after-months");
+        }
+        if (!unsupported.isEmpty()) {
+            throw new IllegalStateException("datasource.shards.enabled cannot be combined with " + String.join(", ", unsupported));
+        }
+    }
+}
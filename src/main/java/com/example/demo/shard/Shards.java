@@ -0,0 +1,18 @@
+package com.example.demo.shard;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// The databases user data is spread over. Admin work that spans every user (rollup checks and rebuilds, per-shard
+// counts) runs once per shard and gathers the results; without sharding there is only main.
+public interface Shards {
+
+    String MAIN = "main";
+
+    List<String> names();
+
+    // Runs the task once per shard, in parallel, with its statements routed to that shard; results by shard, in
+    // names() order. Each run is on a thread of its own, outside the caller's transaction.
+    <T> Map<String, T> scatter(Supplier<T> task);
+}
@@ -0,0 +1,25 @@
+package com.example.demo.shard;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Shards without datasource.shards.enabled: the task just runs against spring.datasource
+@Component
+@ConditionalOnProperty(prefix = "datasource.shards", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class SingleShard implements Shards {
+
+    @Override
+    public List<String> names() {
+        return List.of(MAIN);
+    }
+
+    @Override
+    public <T> Map<String, T> scatter(Supplier<T> task) {
+        return Collections.singletonMap(MAIN, task.get());
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.sketch;
+
+import com.tdunning.math.stats.MergingDigest;
+
+import java.nio.ByteBuffer;
+
+// t-digest helpers: compression 100 keeps a digest to a few hundred centroids (a few KB) with ~1% rank error at the tails
+public final class QuantileSketches {
+
+    public static final double COMPRESSION = 100;
+
+    private QuantileSketches() {
+    }
+
+    public static MergingDigest create() {
+        return new MergingDigest(COMPRESSION);
+    }
+
+    public static byte[] serialize(MergingDigest digest) {
+        digest.compress();
+        ByteBuffer buffer = ByteBuffer.allocate(digest.smallByteSize());
+        digest.asSmallBytes(buffer);
+        return buffer.array();
+    }
+
+    // A digest read back empty is replaced: t-digest 3.x cannot add to one without corrupting its buffers
+    public static MergingDigest deserialize(byte[] bytes) {
+        MergingDigest digest = MergingDigest.fromBytes(ByteBuffer.wrap(bytes));
+        return digest.size() == 0 ? create() : digest;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.demo.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Space-Saving heavy hitters (Metwally et al.): at most capacity counters, so memory is bounded regardless of how many
+// distinct items are offered. A reported count over-estimates the true count by at most its error.
+public class SpaceSavingSketch {
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void offer(String item) {
+        offer(item, 1, 0);
+    }
+
+    // A new item evicts the smallest counter and inherits its count as error; capacity is small, so the scan is cheap
+    private void offer(String item, long count, long error) {
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            counter.count += count;
+            counter.error += error;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(item, new Counter(count, error));
+            return;
+        }
+        Map.Entry<String, Counter> min = smallest();
+        counters.remove(min.getKey());
+        long floor = min.getValue().count;
+        counters.put(item, new Counter(floor + count, floor + error));
+    }
+
+    // Items missing from one side may have had up to that side's minimum count there, which is added as error
+    public void merge(SpaceSavingSketch other) {
+        long thisFloor = counters.size() < capacity ? 0 : smallest().getValue().count;
+        long otherFloor = other.counters.size() < other.capacity ? 0 : other.smallest().getValue().count;
+        Map<String, Counter> merged = new HashMap<>();
+        counters.forEach((item, counter) -> {
+            Counter theirs = other.counters.get(item);
+            merged.put(item, theirs != null
+                    ? new Counter(counter.count + theirs.count, counter.error + theirs.error)
+                    : new Counter(counter.count + otherFloor, counter.error + otherFloor));
+        });
+        other.counters.forEach((item, counter) -> merged.computeIfAbsent(item,
+                key -> new Counter(counter.count + thisFloor, counter.error + thisFloor)));
+        counters.clear();
+        merged.entrySet().stream()
+                .sorted(Map.Entry.<String, Counter>comparingByValue(Comparator.comparingLong(c -> c.count)).reversed())
+                .limit(capacity)
+                .forEach(entry -> counters.put(entry.getKey(), entry.getValue()));
+    }
+
+    public List<Entry> top(int limit) {
+        return counters.entrySet().stream()
+                .map(entry -> new Entry(entry.getKey(), entry.getValue().count, entry.getValue().error))
+                .sorted(Comparator.comparingLong(Entry::count).reversed().thenComparing(Entry::item))
+                .limit(limit)
+                .toList();
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(capacity);
+            out.writeInt(counters.size());
+            for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().count);
+                out.writeLong(entry.getValue().error);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static SpaceSavingSketch fromBytes(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            SpaceSavingSketch sketch = new SpaceSavingSketch(in.readInt());
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                sketch.counters.put(in.readUTF(), new Counter(in.readLong(), in.readLong()));
+            }
+            return sketch;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Map.Entry<String, Counter> smallest() {
+        return counters.entrySet().stream()
+                .min(Map.Entry.comparingByValue(Comparator.comparingLong(c -> c.count)))
+                .orElseThrow();
+    }
+
+    public record Entry(String item, long count, long error) {
+    }
+
+    private static final class Counter {
+        private long count;
+        private long error;
+
+        private Counter(long count, long error) {
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
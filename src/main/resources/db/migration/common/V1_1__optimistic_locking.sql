@@ -0,0 +1,3 @@
+-- @Version counters behind If-Match on updates; existing rows start at 0
+alter table categories add column version bigint default 0 not null;
+alter table expenses add column version bigint default 0 not null;
@@ -0,0 +1,2 @@
+-- The amount in fx.base-currency, converted on write. Existing rows stay null and are counted as unconverted.
+alter table expenses add column base_amount numeric(19,2);
@@ -0,0 +1,4 @@
+-- The UTC date of spent_at, for day-bucketed reads. Existing rows are filled in one set-based update.
+alter table expenses add column spent_on date;
+update expenses set spent_on = cast(spent_at at time zone 'UTC' as date) where spent_on is null;
+create index idx_expenses_spent_on on expenses (spent_on, category_id);
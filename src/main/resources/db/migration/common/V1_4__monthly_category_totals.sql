@@ -0,0 +1,13 @@
+-- Rollup of expenses per category, UTC month and currency. Empty after this migration; filled at startup.
+create table monthly_category_totals (
+    category_id uuid not null,
+    period_start date not null,
+    currency varchar(3) not null,
+    total numeric(19,2) not null,
+    base_total numeric(19,2) not null,
+    unconverted_count bigint not null,
+    expense_count bigint not null,
+    primary key (currency, period_start, category_id)
+);
+create index idx_monthly_category_totals_period on monthly_category_totals (period_start);
+alter table monthly_category_totals add constraint FK52nyhvnghkvhc5jomnx1hxxt6 foreign key (category_id) references categories;
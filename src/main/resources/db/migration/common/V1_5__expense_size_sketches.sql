@@ -0,0 +1,9 @@
+-- Per category and UTC month t-digests of expense amounts. Empty after this migration; filled at startup.
+create table expense_size_sketches (
+    category_id uuid not null,
+    period_start date not null,
+    sample_count bigint not null,
+    digest bytea not null,
+    primary key (period_start, category_id)
+);
+alter table expense_size_sketches add constraint FKfc47xdpiuu3ekqse2bbkqtv5l foreign key (category_id) references categories;
@@ -0,0 +1,7 @@
+-- Per UTC month top-locations and distinct-merchant sketches. V5 makes them per user.
+create table monthly_activity_sketches (
+    period_start date not null,
+    top_locations bytea not null,
+    merchants bytea not null,
+    primary key (period_start)
+);
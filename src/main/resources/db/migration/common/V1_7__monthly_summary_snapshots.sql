@@ -0,0 +1,10 @@
+-- Frozen monthly summary bodies for closed months. V5 makes them per user.
+create table monthly_summary_snapshots (
+    period_start date not null,
+    base_currency boolean not null,
+    body bytea not null,
+    gzip_body bytea not null,
+    etag varchar(64) not null,
+    frozen_at timestamp(6) with time zone not null,
+    primary key (base_currency, period_start)
+);
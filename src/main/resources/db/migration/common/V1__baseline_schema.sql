@@ -0,0 +1,40 @@
+-- The schema as ddl-auto=update left it before Flyway took over, so databases created that way are baselined at this
+-- version (spring.flyway.baseline-on-migrate) and only run the migrations after it. Foreign key names are the ones
+-- Hibernate generated.
+
+create table app_users (
+    id uuid not null,
+    username varchar(255) not null unique,
+    password_hash varchar(255) not null,
+    role varchar(255) not null,
+    primary key (id)
+);
+
+create table categories (
+    id uuid not null,
+    name varchar(100) not null,
+    monthly_budget_limit numeric(19,2),
+    created_at timestamp(6) with time zone not null,
+    updated_at timestamp(6) with time zone not null,
+    primary key (id),
+    constraint uk_category_name unique (name)
+);
+
+create table expenses (
+    id uuid not null,
+    category_id uuid not null,
+    name varchar(120) not null,
+    amount numeric(19,2) not null,
+    currency varchar(3) not null,
+    spent_at timestamp(6) with time zone not null,
+    location varchar(255),
+    holiday boolean default false not null,
+    holiday_name varchar(255),
+    created_at timestamp(6) with time zone not null,
+    updated_at timestamp(6) with time zone not null,
+    primary key (id)
+);
+
+create index idx_expenses_category_spent_at on expenses (category_id, spent_at);
+
+alter table expenses add constraint FKjao23ohq935a4qrorwwsen0lr foreign key (category_id) references categories;
@@ -0,0 +1,9 @@
+-- Catalog of months moved out of expenses into archive segment files. A month's row commits in the same transaction
+-- that removes its expenses, so a reader sees each month either in expenses or here, never in both or neither.
+create table expense_archive_segments (
+    period_start date not null,
+    row_count bigint not null,
+    checksum bigint not null,
+    archived_at timestamp(6) with time zone not null,
+    primary key (period_start)
+);
@@ -0,0 +1,32 @@
+-- Categories and expenses belong to a user. Existing rows keep a null owner, which no user sees, until
+-- LegacyOwnershipBackfill hands them to ownership.legacy-owner. An expense's owner is its category's.
+alter table categories add column owner_id uuid;
+alter table categories add constraint fk_categories_owner foreign key (owner_id) references app_users;
+alter table categories drop constraint uk_category_name;
+
+alter table expenses add column owner_id uuid;
+alter table expenses add constraint fk_expenses_owner foreign key (owner_id) references app_users;
+
+-- Both are derived per user now: sketches are rebuilt at startup, snapshots frozen again on the next close run
+drop table monthly_activity_sketches;
+create table monthly_activity_sketches (
+    owner_id uuid not null,
+    period_start date not null,
+    top_locations bytea not null,
+    merchants bytea not null,
+    primary key (owner_id, period_start)
+);
+alter table monthly_activity_sketches add constraint fk_activity_sketches_owner foreign key (owner_id) references app_users;
+
+drop table monthly_summary_snapshots;
+create table monthly_summary_snapshots (
+    owner_id uuid not null,
+    period_start date not null,
+    base_currency boolean not null,
+    body bytea not null,
+    gzip_body bytea not null,
+    etag varchar(64) not null,
+    frozen_at timestamp(6) with time zone not null,
+    primary key (owner_id, base_currency, period_start)
+);
+alter table monthly_summary_snapshots add constraint fk_summary_snapshots_owner foreign key (owner_id) references app_users;
@@ -0,0 +1,10 @@
+-- The shard map (datasource.shards): which database holds each user's data. Only the main database's copy is read;
+-- users without a row live on main, as everyone did before sharding.
+create table user_shards (
+    user_id uuid not null,
+    shard varchar(64) not null,
+    state varchar(16) not null,
+    updated_at timestamp(6) with time zone not null,
+    primary key (user_id)
+);
+alter table user_shards add constraint fk_user_shards_user foreign key (user_id) references app_users;
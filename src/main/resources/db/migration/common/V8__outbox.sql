@@ -0,0 +1,21 @@
+-- Transactional outbox: every expense and category write appends its change event here in the same transaction, and
+-- OutboxRelay publishes them in id order, deleting each batch once every sink took it. Each shard has its own.
+create table outbox_events (
+    id bigint generated by default as identity,
+    event_id uuid not null,
+    aggregate_type varchar(16) not null,
+    aggregate_id uuid not null,
+    owner_id uuid,
+    change_type varchar(16) not null,
+    payload varchar(4000) not null,
+    created_at timestamp(6) with time zone not null,
+    primary key (id)
+);
+create index idx_outbox_events_owner on outbox_events (owner_id);
+
+-- One row, locked by the relay for each batch so that instances publish one at a time, in order
+create table outbox_relay_lock (
+    id integer not null,
+    primary key (id)
+);
+insert into outbox_relay_lock (id) values (1);
@@ -0,0 +1,9 @@
+-- Write counters behind the ETags of the category list and monthly summaries (WriteVersionTracker): per user, one for
+-- their categories and one per UTC month of their expenses, bumped inside every write so all instances see them. No
+-- foreign key: they are bumped over JDBC before Hibernate has flushed a user created in the same transaction
+create table write_versions (
+    owner_id uuid not null,
+    resource varchar(16) not null,
+    version bigint not null,
+    primary key (owner_id, resource)
+);
@@ -0,0 +1,2 @@
+-- H2 has no covering, partial or expression indexes; the PostgreSQL migration's plain index only
+create index if not exists idx_expenses_spent_at on expenses (spent_at);
@@ -0,0 +1,4 @@
+-- H2 has no covering, partial or expression indexes; the PostgreSQL migration's leading columns only
+create index if not exists idx_expenses_owner_spent_at on expenses (owner_id, spent_at);
+create index if not exists idx_expenses_owner_spent_on on expenses (owner_id, spent_on, category_id);
+alter table categories add constraint uk_categories_owner_name unique (owner_id, name);
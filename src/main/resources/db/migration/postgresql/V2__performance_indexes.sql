@@ -0,0 +1,18 @@
+-- Built concurrently so writes continue on existing tables; Flyway runs this migration outside a transaction
+-- (spring.flyway.postgresql.transactional-lock=false keeps its own lock from blocking the builds).
+
+-- Recent expenses and the spent_at range reads (monthly fallback, export, currencies, locations)
+create index concurrently if not exists idx_expenses_spent_at on expenses (spent_at);
+
+-- Per-day reads (custom periods, holiday days, time series, size percentiles) answered from the index alone
+create index concurrently if not exists idx_expenses_spent_on_covering
+    on expenses (spent_on, category_id) include (base_amount, holiday);
+drop index concurrently if exists idx_expenses_spent_on;
+
+-- Holiday rows are a small fraction of expenses; covers every column the holiday summary reads
+create index concurrently if not exists idx_expenses_holiday
+    on expenses (spent_on) include (holiday_name, category_id, base_amount)
+    where holiday = true;
+
+-- existsByNameIgnoreCase / findByNameIgnoreCase compare upper(name)
+create index concurrently if not exists idx_categories_name_upper on categories (upper(name));
@@ -0,0 +1,84 @@
+-- Partitions expenses by UTC month of spent_at (expenses_YYYY_MM), so month-bounded reads only touch their months'
+-- heaps and indexes. Rows outside every partition go to expenses_default. Copies the existing rows, so it holds an
+-- exclusive lock on expenses for the duration; run it in a maintenance window on large tables.
+
+alter table expenses rename to expenses_unpartitioned;
+alter table expenses_unpartitioned rename constraint expenses_pkey to expenses_unpartitioned_pkey;
+drop index if exists idx_expenses_category_spent_at;
+drop index if exists idx_expenses_spent_at;
+drop index if exists idx_expenses_spent_on_covering;
+drop index if exists idx_expenses_holiday;
+
+create table expenses (like expenses_unpartitioned including defaults including constraints)
+    partition by range (spent_at);
+create table expenses_default partition of expenses default;
+
+create schema if not exists expenses_archive;
+
+-- Creates the partition for the month containing month_start, moving its rows out of expenses_default first;
+-- returns its name, or null when it already exists
+create or replace function expenses_create_partition(month_start date) returns text
+language plpgsql as $$
+declare
+    first_day date := date_trunc('month', month_start)::date;
+    partition_name text := 'expenses_' || to_char(first_day, 'YYYY_MM');
+    lower_bound timestamptz := first_day::timestamp at time zone 'UTC';
+    upper_bound timestamptz := (first_day + interval '1 month')::timestamp at time zone 'UTC';
+begin
+    if exists (select 1 from pg_inherits i join pg_class c on c.oid = i.inhrelid
+               where i.inhparent = 'expenses'::regclass and c.relname = partition_name) then
+        return null;
+    end if;
+    execute format('create table %I (like expenses including defaults including constraints)', partition_name);
+    execute format('with moved as (delete from expenses_default where spent_at >= %L and spent_at < %L returning *) '
+                   || 'insert into %I select * from moved', lower_bound, upper_bound, partition_name);
+    execute format('alter table expenses attach partition %I for values from (%L) to (%L)',
+                   partition_name, lower_bound, upper_bound);
+    return partition_name;
+end
+$$;
+
+-- Detaches the month's partition into the expenses_archive schema, where it keeps its rows and indexes but is no
+-- longer read through expenses; returns its name, or null when there is no such partition
+create or replace function expenses_archive_partition(month_start date) returns text
+language plpgsql as $$
+declare
+    partition_name text := 'expenses_' || to_char(date_trunc('month', month_start), 'YYYY_MM');
+begin
+    if not exists (select 1 from pg_inherits i join pg_class c on c.oid = i.inhrelid
+                   where i.inhparent = 'expenses'::regclass and c.relname = partition_name) then
+        return null;
+    end if;
+    execute format('alter table expenses detach partition %I', partition_name);
+    execute format('alter table %I set schema expenses_archive', partition_name);
+    return partition_name;
+end
+$$;
+
+-- Every month from the oldest expense through three months ahead; ExpensePartitionService keeps creating them
+do $$
+declare
+    month_start date := coalesce(
+            (select date_trunc('month', min(spent_at) at time zone 'UTC')::date from expenses_unpartitioned),
+            date_trunc('month', now() at time zone 'UTC')::date);
+begin
+    while month_start <= (date_trunc('month', now() at time zone 'UTC') + interval '3 months')::date loop
+        perform expenses_create_partition(month_start);
+        month_start := (month_start + interval '1 month')::date;
+    end loop;
+end
+$$;
+
+insert into expenses select * from expenses_unpartitioned;
+drop table expenses_unpartitioned;
+
+-- Unique constraints on a partitioned table must include the partition key; ids stay unique as random UUIDs
+alter table expenses add constraint expenses_pkey primary key (id, spent_at);
+alter table expenses add constraint FKjao23ohq935a4qrorwwsen0lr foreign key (category_id) references categories;
+
+-- The V2 indexes, now one per partition
+create index idx_expenses_category_spent_at on expenses (category_id, spent_at);
+create index idx_expenses_spent_at on expenses (spent_at);
+create index idx_expenses_spent_on_covering on expenses (spent_on, category_id) include (base_amount, holiday);
+create index idx_expenses_holiday on expenses (spent_on) include (holiday_name, category_id, base_amount)
+    where holiday = true;
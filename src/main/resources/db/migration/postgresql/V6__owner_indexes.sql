@@ -0,0 +1,19 @@
+-- Per-user reads lead with owner_id, so they only touch that user's index entries whatever the table size. Plain
+-- builds: an index on the partitioned expenses table cannot be built concurrently (see V3).
+
+-- Recent expenses, export, currencies and locations: one user's spent_at range
+create index if not exists idx_expenses_owner_spent_at on expenses (owner_id, spent_at);
+
+-- Per-day reads (custom periods, day kinds, time series) answered from the index alone
+create index if not exists idx_expenses_owner_spent_on_covering
+    on expenses (owner_id, spent_on) include (category_id, base_amount, holiday);
+drop index if exists idx_expenses_spent_on_covering;
+
+create index if not exists idx_expenses_owner_holiday
+    on expenses (owner_id, spent_on) include (holiday_name, category_id, base_amount)
+    where holiday = true;
+drop index if exists idx_expenses_holiday;
+
+-- Names are unique per user, compared like existsByOwnerIdAndNameIgnoreCase
+create unique index if not exists uk_categories_owner_name on categories (owner_id, upper(name));
+drop index if exists idx_categories_name_upper;
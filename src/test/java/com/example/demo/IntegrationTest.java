@@ -1,8 +1,19 @@
 package com.example.demo;
 
+import com.example.demo.actuator.DatabaseEndpoint;
 import com.example.demo.repository.CategoryRepository;
 import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.repository.ExpenseSizeSketchRepository;
+import com.example.demo.repository.MonthlyActivitySketchRepository;
+import com.example.demo.repository.MonthlyCategoryTotalRepository;
+import com.example.demo.repository.MonthlySummarySnapshotRepository;
 import com.example.demo.holiday.HolidayService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,8 +25,10 @@ import org.springframework.context.annotation.Import;
 import com.example.demo.config.TestSecurityConfig;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 
@@ -44,6 +57,24 @@ class IntegrationTest {
     @Autowired
     private ExpenseRepository expenseRepository;
 
+    @Autowired
+    private MonthlyCategoryTotalRepository monthlyCategoryTotalRepository;
+
+    @Autowired
+    private ExpenseSizeSketchRepository expenseSizeSketchRepository;
+
+    @Autowired
+    private MonthlyActivitySketchRepository monthlyActivitySketchRepository;
+
+    @Autowired
+    private MonthlySummarySnapshotRepository monthlySummarySnapshotRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DatabaseEndpoint databaseEndpoint;
+
     @MockBean
     private HolidayService holidayService;
 
@@ -51,6 +82,10 @@ class IntegrationTest {
     void clean() {
         restTemplate.getRestTemplate().setRequestFactory(new HttpComponentsClientHttpRequestFactory());
         expenseRepository.deleteAll();
+        monthlyCategoryTotalRepository.deleteAll();
+        expenseSizeSketchRepository.deleteAll();
+        monthlyActivitySketchRepository.deleteAll();
+        monthlySummarySnapshotRepository.deleteAll();
         categoryRepository.deleteAll();
         when(holidayService.findHoliday(any())).thenReturn(java.util.Optional.of("Test Holiday"));
     }
@@ -194,6 +229,27 @@ class IntegrationTest {
         assertTrue(resp.getBody().stream().anyMatch(c -> name.equals(c.name) && c.monthlyBudgetLimit.intValue() == 120));
     }
 
+    @Test
+    void listCategories_recordsStatementsPerEndpoint() {
+        restTemplate.postForEntity(
+                "/api/categories",
+                Map.of("name", "Counted-" + UUID.randomUUID(), "monthlyBudgetLimit", 50),
+                CategoryDto.class);
+        restTemplate.getForEntity("/api/categories", String.class);
+
+        DistributionSummary listed = meterRegistry.get("db.request.statements")
+                .tags("method", "GET", "uri", "/api/categories")
+                .summary();
+        assertTrue(listed.count() >= 1);
+        assertTrue(listed.totalAmount() >= 1);
+
+        DatabaseEndpoint.DatabaseReport report = databaseEndpoint.report();
+        assertTrue(report.endpoints().stream()
+                .anyMatch(e -> e.method().equals("POST") && e.uri().equals("/api/categories") && e.meanStatements() >= 1));
+        assertTrue(report.statements().stream().anyMatch(s -> s.operation().equals("update") && s.count() > 0));
+        assertFalse(report.pools().isEmpty());
+    }
+
     @Test
     void deleteCategory_succeedsWhenNoExpenses() {
         ResponseEntity<CategoryDto> catResp = restTemplate.postForEntity(
@@ -364,7 +420,7 @@ class IntegrationTest {
                 ExpenseDto.class);
         assertEquals(HttpStatus.OK, putResp.getStatusCode());
         assertEquals("Updated", putResp.getBody().name);
-        assertEquals(new BigDecimal("20"), putResp.getBody().amount);
+        assertEquals(new BigDecimal("20.00"), putResp.getBody().amount);
     }
 
     @Test
@@ -427,6 +483,327 @@ class IntegrationTest {
         assertEquals("Expense not found", resp.getBody().get("message"));
     }
 
+    @Test
+    void listCategories_ifNoneMatch_returnsNotModifiedUntilCategoryChanges() {
+        ResponseEntity<String> first = restTemplate.getForEntity("/api/categories", String.class);
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag);
+        assertTrue(first.getHeaders().getVary().contains(HttpHeaders.AUTHORIZATION));
+
+        ResponseEntity<String> cached = restTemplate.exchange("/api/categories", HttpMethod.GET, ifNoneMatch(etag), String.class);
+        assertEquals(HttpStatus.NOT_MODIFIED, cached.getStatusCode());
+
+        restTemplate.postForEntity("/api/categories", Map.of("name", "EtagCat-" + UUID.randomUUID()), CategoryDto.class);
+
+        ResponseEntity<String> changed = restTemplate.exchange("/api/categories", HttpMethod.GET, ifNoneMatch(etag), String.class);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(etag, changed.getHeaders().getETag());
+    }
+
+    @Test
+    void monthlySummary_ifNoneMatch_returnsNotModifiedUntilMonthIsWritten() {
+        UUID categoryId = restTemplate.postForEntity(
+                "/api/categories",
+                Map.of("name", "EtagSummary-" + UUID.randomUUID()),
+                CategoryDto.class).getBody().id;
+        String url = "/api/summary/monthly?year=2024&month=3";
+        String etag = restTemplate.getForEntity(url, String.class).getHeaders().getETag();
+
+        // A write to another month leaves this summary untouched
+        createExpense(categoryId, OffsetDateTime.of(2024, 4, 2, 9, 0, 0, 0, ZoneOffset.UTC));
+        assertEquals(HttpStatus.NOT_MODIFIED, restTemplate.exchange(url, HttpMethod.GET, ifNoneMatch(etag), String.class).getStatusCode());
+
+        createExpense(categoryId, OffsetDateTime.of(2024, 3, 2, 9, 0, 0, 0, ZoneOffset.UTC));
+        assertEquals(HttpStatus.OK, restTemplate.exchange(url, HttpMethod.GET, ifNoneMatch(etag), String.class).getStatusCode());
+    }
+
+    @Test
+    void monthlySummary_closedMonth_servesFrozenSnapshotUntilBackdatedWrite() {
+        UUID categoryId = restTemplate.postForEntity(
+                "/api/categories",
+                Map.of("name", "Closed-" + UUID.randomUUID()),
+                CategoryDto.class).getBody().id;
+        createExpense(categoryId, OffsetDateTime.of(2023, 2, 10, 9, 0, 0, 0, ZoneOffset.UTC));
+        String url = "/api/summary/monthly?year=2023&month=2";
+
+        ResponseEntity<List<MonthlyTotalDto>> frozen = restTemplate.exchange(url, HttpMethod.GET, HttpEntity.EMPTY,
+                new ParameterizedTypeReference<List<MonthlyTotalDto>>() {});
+        assertEquals(HttpStatus.OK, frozen.getStatusCode());
+        assertEquals(new BigDecimal("4.25"), frozen.getBody().get(0).total);
+        assertEquals("max-age=86400, private", frozen.getHeaders().getCacheControl());
+        assertTrue(frozen.getHeaders().getVary().contains(HttpHeaders.AUTHORIZATION));
+        String etag = frozen.getHeaders().getETag();
+        assertTrue(etag.startsWith("\"s-"));
+        assertEquals(HttpStatus.NOT_MODIFIED, restTemplate.exchange(url, HttpMethod.GET, ifNoneMatch(etag), String.class).getStatusCode());
+
+        createExpense(categoryId, OffsetDateTime.of(2023, 2, 11, 9, 0, 0, 0, ZoneOffset.UTC));
+        ResponseEntity<List<MonthlyTotalDto>> reopened = restTemplate.exchange(url, HttpMethod.GET, ifNoneMatch(etag),
+                new ParameterizedTypeReference<List<MonthlyTotalDto>>() {});
+        assertEquals(HttpStatus.OK, reopened.getStatusCode());
+        assertEquals(new BigDecimal("8.50"), reopened.getBody().get(0).total);
+        assertNotEquals(etag, reopened.getHeaders().getETag());
+    }
+
+    @Test
+    void monthlySummary_closedMonth_gzipAndIdentityHaveTheirOwnETags() {
+        UUID categoryId = restTemplate.postForEntity(
+                "/api/categories",
+                Map.of("name", "Coded-" + UUID.randomUUID()),
+                CategoryDto.class).getBody().id;
+        createExpense(categoryId, OffsetDateTime.of(2023, 3, 10, 9, 0, 0, 0, ZoneOffset.UTC));
+        String url = "/api/summary/monthly?year=2023&month=3";
+
+        String identity = restTemplate.exchange(url, HttpMethod.GET, acceptEncoding("identity", null), String.class).getHeaders().getETag();
+        String gzip = restTemplate.exchange(url, HttpMethod.GET, acceptEncoding("gzip", null), String.class).getHeaders().getETag();
+        assertEquals(identity.substring(0, identity.length() - 1) + "-gzip\"", gzip);
+
+        // Either tag revalidates either coding
+        for (String coding : List.of("identity", "gzip")) {
+            for (String etag : List.of(identity, gzip, "W/" + gzip)) {
+                ResponseEntity<String> revalidated = restTemplate.exchange(url, HttpMethod.GET, acceptEncoding(coding, etag), String.class);
+                assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getStatusCode());
+                assertEquals(coding.equals("gzip") ? gzip : identity, revalidated.getHeaders().getETag());
+            }
+        }
+        assertEquals(HttpStatus.OK, restTemplate.exchange(url, HttpMethod.GET, acceptEncoding("gzip", "\"s-other\""), String.class).getStatusCode());
+    }
+
+    @Test
+    void updateExpense_ifMatch_rejectsStaleVersion() {
+        UUID categoryId = restTemplate.postForEntity(
+                "/api/categories",
+                Map.of("name", "IfMatch-" + UUID.randomUUID()),
+                CategoryDto.class).getBody().id;
+        ExpenseDto created = createExpense(categoryId, OffsetDateTime.of(2024, 5, 2, 9, 0, 0, 0, ZoneOffset.UTC));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch("\"" + created.version + "\"");
+        ResponseEntity<ExpenseDto> patched = restTemplate.exchange(
+                "/api/expenses/" + created.id,
+                HttpMethod.PATCH,
+                new HttpEntity<>(Map.of("name", "First"), headers),
+                ExpenseDto.class);
+        assertEquals(HttpStatus.OK, patched.getStatusCode());
+        assertEquals("\"" + (created.version + 1) + "\"", patched.getHeaders().getETag());
+
+        ResponseEntity<Map<String, Object>> stale = restTemplate.exchange(
+                "/api/expenses/" + created.id,
+                HttpMethod.PATCH,
+                new HttpEntity<>(Map.of("name", "Second"), headers),
+                new ParameterizedTypeReference<Map<String, Object>>() {});
+        assertEquals(HttpStatus.PRECONDITION_FAILED, stale.getStatusCode());
+
+        // A list precondition holds when any strong tag in it matches
+        HttpHeaders list = new HttpHeaders();
+        list.set(HttpHeaders.IF_MATCH, "W/\"" + (created.version + 1) + "\", \"" + created.version + "\", \"" + (created.version + 1) + "\"");
+        assertEquals(HttpStatus.OK, restTemplate.exchange("/api/expenses/" + created.id, HttpMethod.PATCH,
+                new HttpEntity<>(Map.of("name", "Third"), list), ExpenseDto.class).getStatusCode());
+        list.set(HttpHeaders.IF_MATCH, "W/\"" + (created.version + 2) + "\"");
+        assertEquals(HttpStatus.PRECONDITION_FAILED, restTemplate.exchange("/api/expenses/" + created.id, HttpMethod.PATCH,
+                new HttpEntity<>(Map.of("name", "Fourth"), list), String.class).getStatusCode());
+        list.set(HttpHeaders.IF_MATCH, "*");
+        assertEquals(HttpStatus.OK, restTemplate.exchange("/api/expenses/" + created.id, HttpMethod.PATCH,
+                new HttpEntity<>(Map.of("name", "Fifth"), list), ExpenseDto.class).getStatusCode());
+    }
+
+    @Test
+    void exportExpenses_streamsNdjsonWithGzip() {
+        UUID categoryId = restTemplate.postForEntity(
+                "/api/categories",
+                Map.of("name", "Export-" + UUID.randomUUID()),
+                CategoryDto.class).getBody().id;
+        createExpense(categoryId, OffsetDateTime.of(2023, 6, 1, 9, 0, 0, 0, ZoneOffset.UTC));
+        createExpense(categoryId, OffsetDateTime.of(2023, 6, 30, 9, 0, 0, 0, ZoneOffset.UTC));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        // The Apache client transparently inflates the gzipped body
+        ResponseEntity<String> resp = restTemplate.exchange(
+                "/api/expenses/export?from=2023-06-01&to=2023-06-30&format=ndjson",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                String.class);
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        assertNotNull(resp.getBody());
+        assertEquals(2, resp.getBody().lines().count());
+        assertTrue(resp.getBody().contains("\"categoryId\":\"" + categoryId + "\""));
+    }
+
+    @Test
+    void exportExpenses_unknownFormat_returnsBadRequest() {
+        ResponseEntity<Map<String, Object>> resp = restTemplate.exchange(
+                "/api/expenses/export?from=2023-06-01&to=2023-06-30&format=xml",
+                HttpMethod.GET,
+                HttpEntity.EMPTY,
+                new ParameterizedTypeReference<Map<String, Object>>() {});
+
+        assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
+    }
+
+    @Test
+    void createExpense_cborBody_andRecentAsCborAndSmile() throws Exception {
+        UUID categoryId = restTemplate.postForEntity(
+                "/api/categories",
+                Map.of("name", "Binary-" + UUID.randomUUID()),
+                CategoryDto.class).getBody().id;
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+        byte[] body = cbor.writeValueAsBytes(Map.of(
+                "categoryId", categoryId.toString(),
+                "name", "Bagel",
+                "amount", new BigDecimal("3.75"),
+                "currency", "CAD",
+                "spentAt", OffsetDateTime.of(2024, 7, 1, 8, 0, 0, 0, ZoneOffset.UTC).toString()));
+        HttpHeaders createHeaders = new HttpHeaders();
+        createHeaders.setContentType(MediaType.parseMediaType("application/cbor"));
+        createHeaders.setAccept(List.of(MediaType.parseMediaType("application/cbor")));
+
+        ResponseEntity<byte[]> created = restTemplate.exchange("/api/expenses", HttpMethod.POST, new HttpEntity<>(body, createHeaders), byte[].class);
+
+        assertEquals(HttpStatus.CREATED, created.getStatusCode());
+        assertEquals("application/cbor", created.getHeaders().getContentType().toString());
+        assertEquals("Bagel", cbor.readTree(created.getBody()).get("name").asText());
+
+        ResponseEntity<byte[]> json = restTemplate.exchange("/api/expenses/recent?limit=5", HttpMethod.GET, accept("application/json"), byte[].class);
+        ResponseEntity<byte[]> binary = restTemplate.exchange("/api/expenses/recent?limit=5", HttpMethod.GET, accept("application/cbor"), byte[].class);
+        ResponseEntity<byte[]> smile = restTemplate.exchange("/api/expenses/recent?limit=5", HttpMethod.GET, accept("application/x-jackson-smile"), byte[].class);
+
+        JsonNode recent = cbor.readTree(binary.getBody());
+        assertEquals("Bagel", recent.get(0).get("name").asText());
+        assertEquals("Bagel", new ObjectMapper(new SmileFactory()).readTree(smile.getBody()).get(0).get("name").asText());
+        assertTrue(binary.getBody().length < json.getBody().length);
+    }
+
+    @Test
+    void rangeSummary_withPreviousYear_returnsMonthlySeries() {
+        UUID categoryId = restTemplate.postForEntity(
+                "/api/categories",
+                Map.of("name", "Range-" + UUID.randomUUID()),
+                CategoryDto.class).getBody().id;
+        createExpense(categoryId, OffsetDateTime.of(2022, 2, 3, 9, 0, 0, 0, ZoneOffset.UTC));
+        createExpense(categoryId, OffsetDateTime.of(2023, 2, 3, 9, 0, 0, 0, ZoneOffset.UTC));
+        createExpense(categoryId, OffsetDateTime.of(2023, 2, 4, 9, 0, 0, 0, ZoneOffset.UTC));
+
+        ResponseEntity<JsonNode> resp = restTemplate.getForEntity(
+                "/api/summary/range?from=2023-01&to=2023-03&compare=previous-year", JsonNode.class);
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        JsonNode body = resp.getBody();
+        assertEquals("2023-01", body.get("from").asText());
+        assertEquals(8.5, body.get("total").asDouble());
+        assertEquals(4.25, body.get("previousYearTotal").asDouble());
+        JsonNode february = body.get("categories").get(0).get("months").get(1);
+        assertEquals("2023-02", february.get("month").asText());
+        assertEquals(8.5, february.get("total").asDouble());
+
+        ResponseEntity<Map<String, Object>> invalid = restTemplate.exchange(
+                "/api/summary/range?from=2023-13&to=2023-03",
+                HttpMethod.GET,
+                HttpEntity.EMPTY,
+                new ParameterizedTypeReference<Map<String, Object>>() {});
+        assertEquals(HttpStatus.BAD_REQUEST, invalid.getStatusCode());
+    }
+
+    @Test
+    void budgetStatus_returnsUtilizationForMonth() {
+        UUID categoryId = restTemplate.postForEntity(
+                "/api/categories",
+                Map.of("name", "Budget-" + UUID.randomUUID(), "monthlyBudgetLimit", 10),
+                CategoryDto.class).getBody().id;
+        createExpense(categoryId, OffsetDateTime.of(2022, 8, 3, 9, 0, 0, 0, ZoneOffset.UTC));
+
+        ResponseEntity<JsonNode> resp = restTemplate.getForEntity("/api/budgets/status?month=2022-08", JsonNode.class);
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        JsonNode status = resp.getBody().get(0);
+        assertEquals(categoryId.toString(), status.get("categoryId").asText());
+        assertEquals("2022-08", status.get("month").asText());
+        assertEquals(4.25, status.get("spent").asDouble());
+        assertEquals(5.75, status.get("remaining").asDouble());
+        assertEquals(42.5, status.get("percentUsed").asDouble());
+    }
+
+    @Test
+    void timeseries_returnsZeroFilledDailyPoints() {
+        UUID categoryId = restTemplate.postForEntity(
+                "/api/categories",
+                Map.of("name", "Series-" + UUID.randomUUID()),
+                CategoryDto.class).getBody().id;
+        createExpense(categoryId, OffsetDateTime.of(2021, 3, 2, 9, 0, 0, 0, ZoneOffset.UTC));
+
+        ResponseEntity<JsonNode> resp = restTemplate.getForEntity(
+                "/api/summary/timeseries?from=2021-03-01&to=2021-03-03&granularity=day&categoryId=" + categoryId, JsonNode.class);
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        JsonNode points = resp.getBody().get("points");
+        assertEquals(3, points.size());
+        assertEquals("2021-03-02", points.get(1).get("start").asText());
+        assertEquals(4.25, points.get(1).get("total").asDouble());
+        assertEquals(0.0, points.get(2).get("total").asDouble());
+    }
+
+    @Test
+    void periodSummary_returnsBiweeklyPeriods() {
+        UUID categoryId = restTemplate.postForEntity(
+                "/api/categories",
+                Map.of("name", "Period-" + UUID.randomUUID()),
+                CategoryDto.class).getBody().id;
+        createExpense(categoryId, OffsetDateTime.of(2020, 6, 1, 9, 0, 0, 0, ZoneOffset.UTC));
+        createExpense(categoryId, OffsetDateTime.of(2020, 6, 15, 9, 0, 0, 0, ZoneOffset.UTC));
+        createExpense(categoryId, OffsetDateTime.of(2020, 6, 16, 9, 0, 0, 0, ZoneOffset.UTC));
+
+        ResponseEntity<JsonNode> resp = restTemplate.getForEntity(
+                "/api/summary/periods?from=2020-06-01&to=2020-06-28&periodDays=14", JsonNode.class);
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        JsonNode body = resp.getBody();
+        assertEquals(12.75, body.get("total").asDouble());
+        JsonNode periods = body.get("periods");
+        assertEquals(2, periods.size());
+        assertEquals("2020-06-15", periods.get(1).get("from").asText());
+        assertEquals(4.25, periods.get(0).get("total").asDouble());
+        assertEquals(8.5, periods.get(1).get("total").asDouble());
+        assertEquals(categoryId.toString(), body.get("categories").get(0).get("categoryId").asText());
+
+        ResponseEntity<JsonNode> invalid = restTemplate.getForEntity(
+                "/api/summary/periods?from=2020-06-01&to=2020-06-28&periodDays=0", JsonNode.class);
+        assertEquals(HttpStatus.BAD_REQUEST, invalid.getStatusCode());
+    }
+
+    private HttpEntity<Void> accept(String mediaType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.parseMediaType(mediaType)));
+        return new HttpEntity<>(headers);
+    }
+
+    private ExpenseDto createExpense(UUID categoryId, OffsetDateTime spentAt) {
+        return restTemplate.postForEntity(
+                "/api/expenses",
+                Map.of(
+                        "categoryId", categoryId,
+                        "name", "Coffee",
+                        "amount", 4.25,
+                        "currency", "USD",
+                        "spentAt", spentAt.toString()
+                ),
+                ExpenseDto.class).getBody();
+    }
+
+    private HttpEntity<Void> acceptEncoding(String coding, String ifNoneMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, coding);
+        if (ifNoneMatch != null) {
+            headers.setIfNoneMatch(ifNoneMatch);
+        }
+        return new HttpEntity<>(headers);
+    }
+
+    private HttpEntity<Void> ifNoneMatch(String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        return new HttpEntity<>(headers);
+    }
+
     // Simple DTOs for deserialization
     static class CategoryDto {
         public UUID id;
@@ -445,6 +822,7 @@ class IntegrationTest {
         public OffsetDateTime spentAt;
         public boolean holiday;
         public String holidayName;
+        public Long version;
     }
 
     static class MonthlyTotalDto {
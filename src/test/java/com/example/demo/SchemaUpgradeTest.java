@@ -0,0 +1,124 @@
+package com.example.demo;
+
+import com.example.demo.config.TestSecurityConfig;
+import com.example.demo.dto.MonthlyCategoryTotalResponse;
+import com.example.demo.holiday.HolidayService;
+import com.example.demo.money.Money;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.security.TestUsers;
+import com.example.demo.service.CategoryService;
+import com.example.demo.service.ExpenseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A database as the baseline code's ddl-auto=update created it, with data and no Flyway history. Starting the
+// application baselines it at V1, runs every later migration and passes Hibernate's schema validation.
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + SchemaUpgradeTest.URL,
+        "spring.flyway.baseline-on-migrate=true",
+        "spring.flyway.baseline-version=1",
+        "ownership.legacy-owner=legacy"
+})
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+class SchemaUpgradeTest {
+
+    static final String URL = "jdbc:h2:mem:schema-upgrade;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final String CATEGORY_ID = "3f0c2a2e-1d6b-4b8e-9a51-0c6f1d2b7a10";
+
+    static {
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+        jdbc.execute("""
+                create table app_users (
+                    id uuid not null,
+                    username varchar(255) not null unique,
+                    password_hash varchar(255) not null,
+                    role varchar(255) not null,
+                    primary key (id)
+                )""");
+        jdbc.execute("""
+                create table categories (
+                    id uuid not null,
+                    name varchar(100) not null,
+                    monthly_budget_limit numeric(19,2),
+                    created_at timestamp(6) with time zone not null,
+                    updated_at timestamp(6) with time zone not null,
+                    primary key (id),
+                    constraint uk_category_name unique (name)
+                )""");
+        jdbc.execute("""
+                create table expenses (
+                    id uuid not null,
+                    category_id uuid not null,
+                    name varchar(120) not null,
+                    amount numeric(19,2) not null,
+                    currency varchar(3) not null,
+                    spent_at timestamp(6) with time zone not null,
+                    location varchar(255),
+                    holiday boolean default false not null,
+                    holiday_name varchar(255),
+                    created_at timestamp(6) with time zone not null,
+                    updated_at timestamp(6) with time zone not null,
+                    primary key (id)
+                )""");
+        jdbc.execute("create index idx_expenses_category_spent_at on expenses (category_id, spent_at)");
+        jdbc.execute("alter table expenses add constraint FKjao23ohq935a4qrorwwsen0lr foreign key (category_id) references categories");
+
+        jdbc.update("insert into app_users (id, username, password_hash, role) values (random_uuid(), 'legacy', '{noop}password', 'ROLE_USER')");
+        jdbc.update("insert into categories (id, name, created_at, updated_at) values (?, 'Rent', current_timestamp, current_timestamp)",
+                CATEGORY_ID);
+        // 23:30 on March 31st at UTC-5 is April 1st in UTC
+        jdbc.update("""
+                insert into expenses (id, category_id, name, amount, currency, spent_at, created_at, updated_at)
+                values (random_uuid(), ?, 'April rent', 900.00, 'USD', timestamp with time zone '2023-03-31 23:30:00-05:00',
+                        current_timestamp, current_timestamp)""", CATEGORY_ID);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @MockBean
+    private HolidayService holidayService;
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void baselineDatabase_isMigratedAndItsRowsKeepWorking() {
+        assertEquals("1", jdbcTemplate.queryForObject(
+                "select \"version\" from \"flyway_schema_history\" where \"type\" = 'BASELINE'", String.class));
+        assertEquals(LocalDate.of(2023, 4, 1), jdbcTemplate.queryForObject("select spent_on from expenses", LocalDate.class));
+        assertEquals(0L, jdbcTemplate.queryForObject("select version from expenses", Long.class));
+
+        TestUsers.signIn(appUserRepository, "legacy");
+        assertEquals(List.of("Rent"), categoryService.listCategories().stream().map(category -> category.getName()).toList());
+        List<MonthlyCategoryTotalResponse> totals = expenseService.calculateMonthlyTotals(2023, 4);
+        assertEquals(1, totals.size());
+        assertEquals(Money.ofMinor(90000, "USD"), totals.get(0).getTotal());
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.demo.analytics;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.archive.ExpenseArchive;
+import com.example.demo.dto.CategoryRequest;
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.dto.ExpenseResponse;
+import com.example.demo.event.ExpenseChangedEvent;
+import com.example.demo.event.ExpenseSnapshot;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.holiday.HolidayService;
+import com.example.demo.model.Category;
+import com.example.demo.money.Money;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.security.TestUsers;
+import com.example.demo.service.BudgetService;
+import com.example.demo.service.CategoryService;
+import com.example.demo.service.ExpenseService;
+import com.example.demo.service.MonthlyTotalsCache;
+import com.example.demo.service.MonthlyTotalsRollupService;
+import com.example.demo.service.SummaryService;
+import com.example.demo.service.TimeseriesGranularity;
+import com.example.demo.service.WriteVersionTracker;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+// The store is left disabled so the services answer from SQL until a test loads it explicitly; writes are rolled back
+// in @DataJpaTest, so after-commit updates never fire. The store holds state, so each test gets a fresh context.
+@DataJpaTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@Import({ColumnarExpenseStore.class, ExpenseArchive.class, SummaryService.class, BudgetService.class, ExpenseService.class, CategoryService.class,
+        WriteVersionTracker.class, InsertIfAbsent.class, MonthlyTotalsCache.class, MonthlyTotalsRollupService.class, FxRateService.class})
+class ColumnarExpenseStoreTest {
+
+    private static final OffsetDateTime JANUARY = OffsetDateTime.of(2025, 1, 3, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Autowired
+    private ColumnarExpenseStore store;
+
+    @Autowired
+    private SummaryService summaryService;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @MockBean
+    private HolidayService holidayService;
+
+    private Category food;
+    private Category travel;
+
+    @BeforeEach
+    void setup() {
+        TestUsers.signInNew(appUserRepository);
+        when(holidayService.findHoliday(any())).thenReturn(Optional.empty());
+        food = createCategory("Food", new BigDecimal("100.00"));
+        travel = createCategory("Travel", null);
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void scans_matchTheSqlPath() {
+        createExpense(food, "12.34", "USD", JANUARY);
+        createExpense(food, "10.00", "CAD", JANUARY);
+        createExpense(food, "5.00", "GBP", JANUARY.plusDays(10));
+        createExpense(travel, "250.00", "USD", JANUARY.plusMonths(1));
+        createExpense(travel, "99.99", "EUR", JANUARY.minusYears(1));
+
+        Supplier<Object> range = () -> summaryService.summarizeRange(YearMonth.of(2025, 1), YearMonth.of(2025, 3), null, true);
+        Supplier<Object> weekly = () -> summaryService.timeseries(LocalDate.of(2024, 12, 30), LocalDate.of(2025, 2, 10),
+                TimeseriesGranularity.WEEK, null, null);
+        Supplier<Object> cad = () -> summaryService.timeseries(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31),
+                TimeseriesGranularity.DAY, food.getId(), "CAD");
+        Supplier<Object> budgets = () -> budgetService.status(YearMonth.of(2025, 1));
+
+        JsonNode[] sql = {json(range), json(weekly), json(cad), json(budgets)};
+        assertFalse(store.isReady());
+        store.reload();
+        assertTrue(store.isReady());
+        assertEquals(5, store.size());
+
+        assertEquals(sql[0], json(range));
+        assertEquals(sql[1], json(weekly));
+        assertEquals(sql[2], json(cad));
+        assertEquals(sql[3], json(budgets));
+    }
+
+    @Test
+    void onExpenseChanged_appliesCommittedWrites() {
+        ExpenseResponse lunch = createExpense(food, "20.00", "USD", JANUARY);
+        store.reload();
+
+        ExpenseSnapshot before = snapshot(lunch.getId(), food, "20.00", JANUARY);
+        ExpenseSnapshot moved = snapshot(lunch.getId(), travel, "30.00", JANUARY);
+        ExpenseSnapshot added = snapshot(UUID.randomUUID(), food, "7.50", JANUARY);
+        store.onExpenseChanged(ExpenseChangedEvent.updated(before, moved));
+        store.onExpenseChanged(ExpenseChangedEvent.created(added));
+
+        ColumnScanResult result = store.scan(new ColumnScan(LocalDate.of(2025, 1, 1).toEpochDay(), new int[31], 1, false, null, null));
+        assertEquals(new BigDecimal("37.50"), result.total(0, 0));
+        assertEquals(2, result.rows(0, 0));
+
+        store.onExpenseChanged(ExpenseChangedEvent.deleted(moved));
+        store.onExpenseChanged(ExpenseChangedEvent.deleted(moved));
+        assertEquals(1, store.size());
+        ColumnScanResult travelOnly = store.scan(new ColumnScan(LocalDate.of(2025, 1, 1).toEpochDay(), new int[31], 1, false, Set.of(travel.getId()), null));
+        assertEquals(0, travelOnly.rows(0, 0));
+    }
+
+    private JsonNode json(Supplier<Object> query) {
+        return objectMapper.valueToTree(query.get());
+    }
+
+    private ExpenseSnapshot snapshot(UUID id, Category category, String amount, OffsetDateTime spentAt) {
+        return new ExpenseSnapshot(id, null, category.getId(), "Expense", Money.of(new BigDecimal(amount), "USD"), new BigDecimal(amount), "USD",
+                spentAt, null, false, null);
+    }
+
+    private Category createCategory(String name, BigDecimal limit) {
+        CategoryRequest request = new CategoryRequest();
+        request.setName(name + "-" + UUID.randomUUID());
+        request.setMonthlyBudgetLimit(limit);
+        return categoryRepository.findById(categoryService.createCategory(request).getId()).orElseThrow();
+    }
+
+    private ExpenseResponse createExpense(Category category, String amount, String currency, OffsetDateTime spentAt) {
+        ExpenseRequest request = new ExpenseRequest();
+        request.setCategoryId(category.getId());
+        request.setName("Expense");
+        request.setAmount(new BigDecimal(amount));
+        request.setCurrency(currency);
+        request.setSpentAt(spentAt);
+        return expenseService.createExpense(request);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DailyFenwickTreeTest {
+
+    @Test
+    void sum_matchesPlainDailyTotalsWhileGrowingBothWays() {
+        long origin = 20_000;
+        long[] daily = new long[4000];
+        DailyFenwickTree tree = new DailyFenwickTree(origin + 2000);
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            int day = random.nextInt(daily.length);
+            long delta = random.nextInt(10_000) - 2_000;
+            daily[day] += delta;
+            tree.add(origin + day, delta);
+        }
+        assertTrue(tree.span() >= daily.length);
+
+        for (int i = 0; i < 1000; i++) {
+            int from = random.nextInt(daily.length);
+            int to = from + random.nextInt(daily.length - from);
+            long expected = 0;
+            for (int day = from; day <= to; day++) {
+                expected += daily[day];
+            }
+            assertEquals(expected, tree.sum(origin + from, origin + to));
+        }
+    }
+
+    @Test
+    void sum_outsideTheIndexedDaysIsZero() {
+        DailyFenwickTree tree = new DailyFenwickTree(100);
+        tree.add(100, 5);
+        tree.add(101, 7);
+
+        assertEquals(12, tree.sum(-1_000, 1_000_000));
+        assertEquals(0, tree.sum(500, 600));
+        assertEquals(0, tree.sum(0, 50));
+        assertEquals(0, tree.sum(101, 100));
+        assertEquals(7, tree.sum(101, 101));
+    }
+}
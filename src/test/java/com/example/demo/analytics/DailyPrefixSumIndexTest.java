@@ -0,0 +1,101 @@
+package com.example.demo.analytics;
+
+import com.example.demo.archive.ExpenseArchive;
+import com.example.demo.event.ExpenseChangedEvent;
+import com.example.demo.event.ExpenseSnapshot;
+import com.example.demo.money.Money;
+import com.example.demo.repository.ExpenseColumnRow;
+import com.example.demo.repository.ExpenseRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DailyPrefixSumIndexTest {
+
+    private static final OffsetDateTime MARCH_3 = OffsetDateTime.of(2025, 3, 3, 9, 0, 0, 0, ZoneOffset.UTC);
+    private static final UUID FOOD = UUID.randomUUID();
+
+    private final ExpenseRepository expenseRepository = mock(ExpenseRepository.class);
+    private final DailyPrefixSumIndex index = new DailyPrefixSumIndex(expenseRepository, mock(ExpenseArchive.class), false);
+
+    @Test
+    void periodTotals_sumsEachPeriodAndFollowsWrites() {
+        ExpenseSnapshot lunch = snapshot(UUID.randomUUID(), "12.50", MARCH_3);
+        ExpenseSnapshot unconverted = snapshot(UUID.randomUUID(), null, MARCH_3.plusDays(7));
+        when(expenseRepository.streamColumns()).thenAnswer(invocation -> List.of(row(lunch), row(unconverted)).stream());
+        index.onExpenseChanged(ExpenseChangedEvent.created(lunch));
+        assertFalse(index.isReady());
+
+        index.reload();
+        assertTrue(index.isReady());
+        ExpenseSnapshot moved = snapshot(lunch.id(), "20.00", MARCH_3.plusDays(8));
+        index.onExpenseChanged(ExpenseChangedEvent.updated(lunch, moved));
+
+        ColumnScanResult result = index.periodTotals(boundaries("2025-03-01", "2025-03-08", "2025-03-15"), Set.of(FOOD));
+        assertEquals(new BigDecimal("0.00"), result.total(0, 0));
+        assertEquals(0, result.rows(0, 0));
+        assertEquals(new BigDecimal("20.00"), result.total(0, 1));
+        assertEquals(2, result.rows(0, 1));
+        assertEquals(1, result.unconverted(0, 1));
+
+        index.onExpenseChanged(ExpenseChangedEvent.deleted(moved));
+        assertEquals(1, index.periodTotals(boundaries("2025-01-01", "2025-12-31"), null).rows(0, 0));
+        assertEquals(0, index.periodTotals(boundaries("2025-01-01", "2025-12-31"), Set.of(UUID.randomUUID())).rows(0, 0));
+    }
+
+    // Writes that commit while the load streams are queued; the ones the stream already saw must not count twice
+    @Test
+    void reload_reconcilesWritesQueuedDuringTheLoad() {
+        ExpenseSnapshot seenCreate = snapshot(UUID.randomUUID(), "1.00", MARCH_3);
+        ExpenseSnapshot updated = snapshot(UUID.randomUUID(), "2.00", MARCH_3);
+        ExpenseSnapshot updatedAfter = snapshot(updated.id(), "30.00", MARCH_3);
+        ExpenseSnapshot unseenCreate = snapshot(UUID.randomUUID(), "400.00", MARCH_3);
+        ExpenseSnapshot createdAndDeleted = snapshot(UUID.randomUUID(), "5000.00", MARCH_3);
+        when(expenseRepository.streamColumns()).thenAnswer(invocation -> List.of(row(seenCreate), row(updated)).stream()
+                .peek(row -> {
+                    if (row.id().equals(updated.id())) {
+                        index.onExpenseChanged(ExpenseChangedEvent.created(seenCreate));
+                        index.onExpenseChanged(ExpenseChangedEvent.updated(updated, updatedAfter));
+                        index.onExpenseChanged(ExpenseChangedEvent.created(unseenCreate));
+                        index.onExpenseChanged(ExpenseChangedEvent.created(createdAndDeleted));
+                        index.onExpenseChanged(ExpenseChangedEvent.deleted(createdAndDeleted));
+                    }
+                }));
+
+        index.reload();
+
+        ColumnScanResult result = index.periodTotals(boundaries("2025-03-01", "2025-04-01"), Set.of(FOOD));
+        assertEquals(new BigDecimal("431.00"), result.total(0, 0));
+        assertEquals(3, result.rows(0, 0));
+    }
+
+    private static long[] boundaries(String... days) {
+        long[] boundaries = new long[days.length];
+        for (int i = 0; i < days.length; i++) {
+            boundaries[i] = LocalDate.parse(days[i]).toEpochDay();
+        }
+        return boundaries;
+    }
+
+    private static ExpenseSnapshot snapshot(UUID id, String baseAmount, OffsetDateTime spentAt) {
+        BigDecimal base = baseAmount == null ? null : new BigDecimal(baseAmount);
+        return new ExpenseSnapshot(id, null, FOOD, "Expense", base == null ? Money.of(BigDecimal.ONE, "GBP") : Money.of(base, "USD"), base,
+                base == null ? "GBP" : "USD",
+                spentAt, null, false, null);
+    }
+
+    private static ExpenseColumnRow row(ExpenseSnapshot snapshot) {
+        return new ExpenseColumnRow(snapshot.id(), snapshot.categoryId(), snapshot.currency(), snapshot.amount().minorUnits(),
+                snapshot.baseAmount(), snapshot.spentAt());
+    }
+}
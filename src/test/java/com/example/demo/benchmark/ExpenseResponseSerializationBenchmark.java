@@ -0,0 +1,119 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.ExpenseResponse;
+import com.example.demo.money.Money;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Serialization throughput for a /api/expenses/recent sized page; payload sizes are printed once per trial.
+// Run: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ExpenseResponseSerialization"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseResponseSerializationBenchmark {
+
+    private static final TypeReference<List<ExpenseResponse>> LIST_TYPE = new TypeReference<>() {
+    };
+
+    @Param({"10", "100"})
+    private int size;
+
+    private final ObjectMapper json = configure(new ObjectMapper());
+    private final ObjectMapper cbor = configure(new ObjectMapper(new CBORFactory()));
+    private final ObjectMapper smile = configure(new ObjectMapper(new SmileFactory()));
+
+    private List<ExpenseResponse> expenses;
+    private byte[] jsonBytes;
+    private byte[] cborBytes;
+    private byte[] smileBytes;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        expenses = new ArrayList<>(size);
+        UUID categoryId = UUID.randomUUID();
+        OffsetDateTime start = OffsetDateTime.of(2025, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        for (int i = 0; i < size; i++) {
+            ExpenseResponse response = new ExpenseResponse();
+            response.setId(UUID.randomUUID());
+            response.setCategoryId(categoryId);
+            response.setCategoryName("Food Out");
+            response.setName("Lunch " + i);
+            response.setAmount(Money.ofMinor(1250 + i * 100L, "USD"));
+            response.setCurrency("USD");
+            response.setSpentAt(start.plusHours(i));
+            response.setLocation("Downtown Market");
+            response.setCreatedAt(Instant.now());
+            response.setUpdatedAt(Instant.now());
+            response.setVersion(0L);
+            expenses.add(response);
+        }
+        jsonBytes = json.writeValueAsBytes(expenses);
+        cborBytes = cbor.writeValueAsBytes(expenses);
+        smileBytes = smile.writeValueAsBytes(expenses);
+        System.out.printf("%n[payload bytes, %d expenses] json=%d cbor=%d smile=%d%n",
+                size, jsonBytes.length, cborBytes.length, smileBytes.length);
+    }
+
+    @Benchmark
+    public byte[] writeJson() throws Exception {
+        return json.writeValueAsBytes(expenses);
+    }
+
+    @Benchmark
+    public byte[] writeCbor() throws Exception {
+        return cbor.writeValueAsBytes(expenses);
+    }
+
+    @Benchmark
+    public byte[] writeSmile() throws Exception {
+        return smile.writeValueAsBytes(expenses);
+    }
+
+    @Benchmark
+    public List<ExpenseResponse> readJson() throws Exception {
+        return json.readValue(jsonBytes, LIST_TYPE);
+    }
+
+    @Benchmark
+    public List<ExpenseResponse> readCbor() throws Exception {
+        return cbor.readValue(cborBytes, LIST_TYPE);
+    }
+
+    @Benchmark
+    public List<ExpenseResponse> readSmile() throws Exception {
+        return smile.readValue(smileBytes, LIST_TYPE);
+    }
+
+    // Mirrors the Spring Boot defaults used by the HTTP converters (ISO dates, java.time support)
+    private static ObjectMapper configure(ObjectMapper mapper) {
+        return mapper.registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.money.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Summing and serializing amounts as BigDecimal versus Money; run with -prof gc to compare gc.alloc.rate.norm.
+// Run: mvn -Pbenchmark test-compile exec:exec -Djmh.args="MoneyBenchmark -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyBenchmark {
+
+    @Param({"1000"})
+    private int size;
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    private BigDecimal[] decimals;
+    private Money[] amounts;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        decimals = new BigDecimal[size];
+        amounts = new Money[size];
+        for (int i = 0; i < size; i++) {
+            long cents = 100 + random.nextInt(200_000);
+            decimals[i] = BigDecimal.valueOf(cents, 2);
+            amounts[i] = Money.ofMinor(cents, "USD");
+        }
+    }
+
+    @Benchmark
+    public BigDecimal sumBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : decimals) {
+            total = total.add(amount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Money sumMoney() {
+        long total = 0;
+        for (Money amount : amounts) {
+            total = Math.addExact(total, amount.minorUnits());
+        }
+        return Money.ofMinor(total, "USD");
+    }
+
+    @Benchmark
+    public byte[] serializeBigDecimal() throws Exception {
+        return json.writeValueAsBytes(decimals);
+    }
+
+    // BigDecimal caches its string form, so the pre-built array above only formats once per trial; a response
+    // holds amounts freshly read from the database
+    @Benchmark
+    public byte[] serializeFreshBigDecimal() throws Exception {
+        BigDecimal[] fresh = new BigDecimal[amounts.length];
+        for (int i = 0; i < fresh.length; i++) {
+            fresh[i] = BigDecimal.valueOf(amounts[i].minorUnits(), 2);
+        }
+        return json.writeValueAsBytes(fresh);
+    }
+
+    @Benchmark
+    public byte[] serializeMoney() throws Exception {
+        return json.writeValueAsBytes(amounts);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.analytics.ColumnarExpenseStore;
+import com.example.demo.archive.ExpenseArchive;
+import com.example.demo.dto.BudgetStatusResponse;
+import com.example.demo.dto.RangeSummaryResponse;
+import com.example.demo.dto.TimeseriesResponse;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.repository.MonthlyCategoryTotalRepository;
+import com.example.demo.security.TestUsers;
+import com.example.demo.service.BudgetService;
+import com.example.demo.service.MonthlyTotalsRollupService;
+import com.example.demo.service.SummaryService;
+import com.example.demo.service.TimeseriesGranularity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Summary, time-series and budget queries answered from SQL (rollup table / date_trunc over expenses) versus a
+// parallel scan of the in-memory columns, over the same seeded H2 database (src/test/resources settings).
+// Run: mvn -Pbenchmark test-compile exec:exec -Djmh.args="SummaryScan"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SummaryScanBenchmark {
+
+    private static final YearMonth FROM = YearMonth.of(2024, 1);
+    private static final YearMonth TO = YearMonth.of(2024, 12);
+    private static final String[] CURRENCIES = {"USD", "USD", "USD", "CAD", "EUR"};
+    private static final String OWNER = "benchmark";
+
+    @Param({"100000"})
+    private int expenses;
+
+    private ConfigurableApplicationContext context;
+    private SummaryService sqlSummary;
+    private SummaryService columnarSummary;
+    private BudgetService sqlBudget;
+    private BudgetService columnarBudget;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run();
+        seed(context.getBean(JdbcTemplate.class));
+        context.getBean(MonthlyTotalsRollupService.class).rebuild();
+        // Benchmark methods may run on other threads than this setup
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        TestUsers.signIn(context.getBean(AppUserRepository.class), OWNER);
+
+        ColumnarExpenseStore loaded = context.getBean(ColumnarExpenseStore.class);
+        loaded.reload();
+        // Never loaded, so services built on it always take the SQL path
+        ColumnarExpenseStore unloaded = new ColumnarExpenseStore(context.getBean(ExpenseRepository.class), context.getBean(ExpenseArchive.class), false);
+        sqlSummary = summaryService(unloaded);
+        columnarSummary = summaryService(loaded);
+        sqlBudget = budgetService(unloaded);
+        columnarBudget = budgetService(loaded);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public RangeSummaryResponse rangeSummarySql() {
+        return sqlSummary.summarizeRange(FROM, TO, null, true);
+    }
+
+    @Benchmark
+    public RangeSummaryResponse rangeSummaryColumnar() {
+        return columnarSummary.summarizeRange(FROM, TO, null, true);
+    }
+
+    @Benchmark
+    public TimeseriesResponse dailyTimeseriesSql() {
+        return sqlSummary.timeseries(FROM.atDay(1), TO.atEndOfMonth(), TimeseriesGranularity.DAY, null, null);
+    }
+
+    @Benchmark
+    public TimeseriesResponse dailyTimeseriesColumnar() {
+        return columnarSummary.timeseries(FROM.atDay(1), TO.atEndOfMonth(), TimeseriesGranularity.DAY, null, null);
+    }
+
+    @Benchmark
+    public List<BudgetStatusResponse> budgetStatusSql() {
+        return sqlBudget.status(TO);
+    }
+
+    @Benchmark
+    public List<BudgetStatusResponse> budgetStatusColumnar() {
+        return columnarBudget.status(TO);
+    }
+
+    private SummaryService summaryService(ColumnarExpenseStore store) {
+        return new SummaryService(context.getBean(MonthlyCategoryTotalRepository.class), context.getBean(ExpenseRepository.class),
+                context.getBean(CategoryRepository.class), context.getBean(FxRateService.class), store,
+                context.getBean(ExpenseArchive.class));
+    }
+
+    private BudgetService budgetService(ColumnarExpenseStore store) {
+        return new BudgetService(context.getBean(CategoryRepository.class), context.getBean(FxRateService.class),
+                context, store, new int[]{80, 100});
+    }
+
+    // One user's twenty categories and two years of expenses, inserted directly so seeding does not dominate the trial
+    private void seed(JdbcTemplate jdbc) {
+        Random random = new Random(42);
+        Timestamp now = Timestamp.from(Instant.now());
+        UUID owner = UUID.randomUUID();
+        jdbc.update("insert into app_users (id, username, password_hash, role) values (?, ?, ?, 'ROLE_USER')", owner, OWNER, "{noop}");
+        List<UUID> categories = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            UUID id = UUID.randomUUID();
+            categories.add(id);
+            jdbc.update("insert into categories (id, owner_id, name, monthly_budget_limit, created_at, updated_at, version) values (?, ?, ?, ?, ?, ?, 0)",
+                    id, owner, "Category " + i, new BigDecimal("500.00"), now, now);
+        }
+        LocalDate start = FROM.minusYears(1).atDay(1);
+        List<Object[]> batch = new ArrayList<>(1000);
+        for (int i = 0; i < expenses; i++) {
+            LocalDate day = start.plusDays(random.nextInt(730));
+            String currency = CURRENCIES[random.nextInt(CURRENCIES.length)];
+            BigDecimal amount = BigDecimal.valueOf(100 + random.nextInt(20_000), 2);
+            BigDecimal base = currency.equals("USD") ? amount : null;
+            batch.add(new Object[]{UUID.randomUUID(), "Expense " + i, amount, currency, base,
+                    Timestamp.from(day.atTime(12, 0).toInstant(ZoneOffset.UTC)), day,
+                    categories.get(random.nextInt(categories.size())), owner, now, now});
+            if (batch.size() == 1000 || i == expenses - 1) {
+                jdbc.batchUpdate("""
+                        insert into expenses (id, name, amount, currency, base_amount, spent_at, spent_on, holiday,
+                                              category_id, owner_id, created_at, updated_at, version)
+                        values (?, ?, ?, ?, ?, ?, ?, false, ?, ?, ?, ?, 0)
+                        """, batch);
+                batch.clear();
+            }
+        }
+    }
+}
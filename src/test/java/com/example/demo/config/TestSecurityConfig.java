@@ -1,21 +1,57 @@
 package com.example.demo.config;
 
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.security.TestUsers;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Profile;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
 
 @TestConfiguration
 @Profile("test")
 public class TestSecurityConfig {
 
+    public static final String TEST_USERNAME = "test-user";
+
     @Bean
-    public SecurityFilterChain testSecurityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain testSecurityFilterChain(HttpSecurity http, ObjectProvider<AppUserRepository> appUserRepository)
+            throws Exception {
         return http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+                .addFilterBefore(new TestUserFilter(appUserRepository), AnonymousAuthenticationFilter.class)
                 .build();
     }
+
+    // Every request acts as the same user, created on first use; web slices without repositories stay anonymous
+    private static final class TestUserFilter extends OncePerRequestFilter {
+
+        private final ObjectProvider<AppUserRepository> appUserRepository;
+
+        private TestUserFilter(ObjectProvider<AppUserRepository> appUserRepository) {
+            this.appUserRepository = appUserRepository;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                throws ServletException, IOException {
+            AppUserRepository repository = appUserRepository.getIfAvailable();
+            if (repository != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                TestUsers.signIn(repository, TEST_USERNAME);
+            }
+            filterChain.doFilter(request, response);
+        }
+    }
 }
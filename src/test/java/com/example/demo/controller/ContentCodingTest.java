@@ -0,0 +1,33 @@
+package com.example.demo.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentCodingTest {
+
+    @Test
+    void acceptsGzip_honoursQValues() {
+        assertTrue(acceptsGzip("gzip"));
+        assertTrue(acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(acceptsGzip("br;q=1.0, *;q=0.1"));
+        assertTrue(acceptsGzip("x-gzip"));
+
+        assertFalse(acceptsGzip(null));
+        assertFalse(acceptsGzip("identity"));
+        assertFalse(acceptsGzip("gzip;q=0"));
+        assertFalse(acceptsGzip("gzip; q=0.000, *"));
+        assertFalse(acceptsGzip("*;q=0"));
+        assertFalse(acceptsGzip("gzip;q=nope"));
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return ContentCoding.acceptsGzip(request);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.datasource;
+
+import com.example.demo.config.TestSecurityConfig;
+import com.example.demo.dto.CategoryRequest;
+import com.example.demo.dto.CategoryResponse;
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.dto.MonthlyCategoryTotalResponse;
+import com.example.demo.holiday.HolidayService;
+import com.example.demo.model.AppUser;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.security.AppUserPrincipal;
+import com.example.demo.security.TestUsers;
+import com.example.demo.service.CategoryService;
+import com.example.demo.service.ExpenseService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two in-memory H2 databases stand in for the primary and the replica. Nothing replicates between them, so a read
+// shows which one it went to.
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTest.PRIMARY_URL,
+        "datasource.replica.url=" + ReplicaRoutingTest.REPLICA_URL,
+        "datasource.replica.read-your-writes-window=1m"
+})
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+class ReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    static {
+        // The replica's schema would come from the primary; here it is migrated up front
+        Flyway.configure()
+                .dataSource(REPLICA_URL, "sa", "")
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .load()
+                .migrate();
+    }
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @MockBean
+    private HolidayService holidayService;
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactions_readTheReplica_writesGoToThePrimary() {
+        actAs("alice");
+        CategoryResponse written = createCategory("Groceries");
+
+        AppUser bob = actAs("bob");
+        assertTrue(categoryNames().stream().noneMatch(name -> name.equals(written.getName())));
+        String replicaOnly = "Replica-" + UUID.randomUUID();
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.update("insert into app_users (id, username, password_hash, role) values (?, ?, ?, ?)",
+                bob.getId(), bob.getUsername(), bob.getPasswordHash(), bob.getRole());
+        replica.update(
+                "insert into categories (id, owner_id, name, version, created_at, updated_at) values (?, ?, ?, 0, current_timestamp, current_timestamp)",
+                UUID.randomUUID(), bob.getId(), replicaOnly);
+        assertTrue(categoryNames().contains(replicaOnly));
+    }
+
+    @Test
+    void readYourWrites_keepsTheWritersReadsOnThePrimary() {
+        actAs("carol");
+        CategoryResponse written = createCategory("Transport");
+        assertTrue(categoryNames().contains(written.getName()));
+    }
+
+    @Test
+    void monthlyTotals_loadInTheRequestsRouting() {
+        AppUser dave = actAs("dave");
+        CategoryResponse category = createCategory("Rent");
+        ExpenseRequest request = new ExpenseRequest();
+        request.setCategoryId(category.getId());
+        request.setName("March rent");
+        request.setAmount(new BigDecimal("900.00"));
+        request.setCurrency("USD");
+        request.setSpentAt(OffsetDateTime.of(2023, 3, 1, 12, 0, 0, 0, ZoneOffset.UTC));
+        expenseService.createExpense(request);
+        assertTrue(expenseService.calculateMonthlyTotals(2023, 3).stream()
+                .anyMatch(total -> total.getCategoryId().equals(category.getId())));
+
+        // Dave's data under a name the read-your-writes tracker has not seen, as once the window has passed
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                new AppUserPrincipal(dave.getId(), "dave-elsewhere", dave.getPasswordHash(), List.of()), null, List.of()));
+        UUID replicaCategory = UUID.randomUUID();
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.update("insert into app_users (id, username, password_hash, role) values (?, ?, ?, ?)",
+                dave.getId(), dave.getUsername(), dave.getPasswordHash(), dave.getRole());
+        replica.update(
+                "insert into categories (id, owner_id, name, version, created_at, updated_at) values (?, ?, ?, 0, current_timestamp, current_timestamp)",
+                replicaCategory, dave.getId(), "Replica-" + UUID.randomUUID());
+        replica.update("""
+                insert into monthly_category_totals (category_id, period_start, currency, total, base_total, unconverted_count, expense_count)
+                values (?, date '2023-05-01', 'USD', 10.00, 10.00, 0, 1)""", replicaCategory);
+        List<MonthlyCategoryTotalResponse> totals = expenseService.calculateMonthlyTotals(2023, 5);
+        assertTrue(totals.stream().anyMatch(total -> total.getCategoryId().equals(replicaCategory)));
+    }
+
+    private CategoryResponse createCategory(String name) {
+        CategoryRequest request = new CategoryRequest();
+        request.setName(name + "-" + UUID.randomUUID());
+        return categoryService.createCategory(request);
+    }
+
+    private List<String> categoryNames() {
+        return categoryService.listCategories().stream().map(CategoryResponse::getName).toList();
+    }
+
+    private AppUser actAs(String username) {
+        return TestUsers.signIn(appUserRepository, username);
+    }
+}
@@ -3,6 +3,7 @@ package com.example.demo.exception;
 import com.example.demo.controller.CategoryController;
 import com.example.demo.controller.ExpenseController;
 import com.example.demo.service.CategoryService;
+import com.example.demo.service.ClosedMonthSummaryService;
 import com.example.demo.service.ExpenseService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,6 +42,9 @@ class ApiExceptionHandlerTest {
     @MockBean
     private ExpenseService expenseService;
 
+    @MockBean
+    private ClosedMonthSummaryService closedMonthSummaryService;
+
     @Test
     void validationErrorsReturnStructuredResponse() throws Exception {
         String requestBody = """
@@ -0,0 +1,52 @@
+package com.example.demo.fx;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.OptionalDouble;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxRateTableTest {
+
+    private static final String RATES = """
+            date,currency,rate
+            2025-01-02,CAD,0.70
+            2025-01-03,cad,0.75
+            2025-01-06,CAD,0.72
+            2025-01-04,EUR,1.10
+            """;
+
+    @Test
+    void rate_looksUpDailyRatesAndCarriesGapsForward() throws IOException {
+        FxRateTable table = FxRateTable.parse(new StringReader(RATES), "usd");
+
+        assertEquals(2, table.currencyCount());
+        assertEquals(0.70, table.rate("CAD", LocalDate.of(2025, 1, 2)).getAsDouble());
+        // Weekend days reuse Friday's rate
+        assertEquals(0.75, table.rate("cad", LocalDate.of(2025, 1, 5)).getAsDouble());
+        assertEquals(0.72, table.rate("CAD", LocalDate.of(2025, 1, 6)).getAsDouble());
+        // After the last published day the latest rate applies
+        assertEquals(0.72, table.rate("CAD", LocalDate.of(2026, 3, 1)).getAsDouble());
+        assertEquals(1.0, table.rate("USD", LocalDate.of(1990, 1, 1)).getAsDouble());
+    }
+
+    @Test
+    void rate_isEmptyBeforeFirstRateOrForUnknownCurrency() throws IOException {
+        FxRateTable table = FxRateTable.parse(new StringReader(RATES), "USD");
+
+        assertEquals(OptionalDouble.empty(), table.rate("CAD", LocalDate.of(2025, 1, 1)));
+        assertEquals(OptionalDouble.empty(), table.rate("EUR", LocalDate.of(2025, 1, 3)));
+        assertEquals(OptionalDouble.empty(), table.rate("GBP", LocalDate.of(2025, 1, 3)));
+    }
+
+    @Test
+    void parse_rejectsMalformedLines() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> FxRateTable.parse(new StringReader("2025-01-02,CAD,-1"), "USD"));
+        assertTrue(ex.getMessage().contains("line 1"));
+        assertThrows(IllegalArgumentException.class, () -> FxRateTable.parse(new StringReader("2025-01-02,CAD"), "USD"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.money;
+
+import com.fasterxml.jackson.core.json.JsonWriteFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void arithmetic_isExactAndCurrencyChecked() {
+        Money lunch = Money.of(new BigDecimal("12.5"), "USD");
+        Money coffee = Money.ofMinor(395, "USD");
+
+        assertEquals(Money.ofMinor(1645, "USD"), lunch.plus(coffee));
+        assertEquals(new BigDecimal("8.55"), lunch.minus(coffee).toBigDecimal());
+        assertEquals(-1, coffee.minus(lunch).signum());
+        assertTrue(lunch.compareTo(coffee) > 0);
+
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1.005"), "USD"));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE, "USD").plus(Money.ofMinor(1, "USD")));
+        assertThrows(IllegalArgumentException.class, () -> lunch.plus(Money.ofMinor(1, "CAD")));
+    }
+
+    @Test
+    void toPlainString_matchesBigDecimal() {
+        for (long minor : new long[]{0, 5, -5, 100, -1234, 123456789, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(BigDecimal.valueOf(minor, 2).toPlainString(), Money.ofMinor(minor, "USD").toPlainString());
+        }
+    }
+
+    @Test
+    void json_isAPlainNumberInTextAndBinaryFormats() throws Exception {
+        ObjectMapper json = new ObjectMapper();
+        String text = json.writeValueAsString(Map.of("amount", Money.ofMinor(-1205, "USD")));
+        assertEquals("{\"amount\":-12.05}", text);
+        ObjectMapper quoted = JsonMapper.builder().enable(JsonWriteFeature.WRITE_NUMBERS_AS_STRINGS).build();
+        assertEquals("{\"amount\":\"-12.05\"}", quoted.writeValueAsString(Map.of("amount", Money.ofMinor(-1205, "USD"))));
+
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+        JsonNode node = cbor.readTree(cbor.writeValueAsBytes(Map.of("amount", Money.ofMinor(1999, "EUR"))));
+        assertEquals(new BigDecimal("19.99"), node.get("amount").decimalValue());
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.demo.outbox;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.dto.CategoryResponse;
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.dto.ExpenseResponse;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.holiday.HolidayService;
+import com.example.demo.model.OutboxEvent;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.repository.OutboxEventRepository;
+import com.example.demo.security.TestUsers;
+import com.example.demo.service.CategoryService;
+import com.example.demo.service.ExpenseService;
+import com.example.demo.service.MonthlyTotalsCache;
+import com.example.demo.service.MonthlyTotalsRollupService;
+import com.example.demo.service.TestExpenses;
+import com.example.demo.service.WriteVersionTracker;
+import com.example.demo.shard.SingleShard;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+// The relay only sees committed events, so this test runs outside the usual rolled-back transaction. Its scheduled runs
+// are pushed out of the way; the tests run it themselves.
+@DataJpaTest(properties = {"outbox.sink.memory.enabled=true", "outbox.relay.batch-size=2", "outbox.relay.interval-ms=3600000"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OutboxWriter.class, OutboxRelay.class, InMemoryOutboxSink.class, FileOutboxSink.class, OutboxRelayTest.FlakySink.class,
+        SingleShard.class, JacksonAutoConfiguration.class, ExpenseService.class, CategoryService.class, WriteVersionTracker.class, InsertIfAbsent.class,
+        MonthlyTotalsCache.class, MonthlyTotalsRollupService.class, FxRateService.class})
+class OutboxRelayTest {
+
+    private static final Path EVENTS_FILE = tempDirectory().resolve("events.ndjson");
+
+    @DynamicPropertySource
+    static void eventsFile(DynamicPropertyRegistry registry) {
+        registry.add("outbox.sink.file.path", EVENTS_FILE::toString);
+    }
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private InMemoryOutboxSink memorySink;
+
+    @Autowired
+    private FlakySink flakySink;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private HolidayService holidayService;
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setup() throws IOException {
+        outboxEventRepository.deleteAll();
+        Files.deleteIfExists(EVENTS_FILE);
+        registry = new SimpleMeterRegistry();
+        relay.bindTo(registry);
+        when(holidayService.findHoliday(any())).thenReturn(Optional.empty());
+        TestUsers.signInNew(appUserRepository);
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void writes_appendTheirChangeEvents_andRolledBackOnesDoNot() {
+        CategoryResponse category = createCategory("Food");
+        ExpenseResponse expense = createExpense(category, "12.50");
+        expenseService.updateExpense(expense.getId(), expenseRequest(category, "13.75"), null);
+        expenseService.deleteExpense(expense.getId());
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            createCategory("Rolled back");
+            status.setRollbackOnly();
+        });
+
+        List<OutboxEvent> events = outboxEventRepository.findAll(Sort.by("id"));
+        assertEquals(List.of(OutboxEvent.ChangeType.CREATED, OutboxEvent.ChangeType.CREATED, OutboxEvent.ChangeType.UPDATED,
+                OutboxEvent.ChangeType.DELETED), events.stream().map(OutboxEvent::getChangeType).toList());
+        assertEquals(List.of(category.getId(), expense.getId(), expense.getId(), expense.getId()),
+                events.stream().map(OutboxEvent::getAggregateId).toList());
+        assertEquals(OutboxEvent.AggregateType.CATEGORY, events.get(0).getAggregateType());
+        assertTrue(events.stream().allMatch(event -> event.getOwnerId().equals(events.get(0).getOwnerId())));
+        assertTrue(events.get(2).getPayload().contains("13.75"));
+    }
+
+    @Test
+    void relay_publishesInOrderToEverySink_andEmptiesTheOutbox() throws IOException {
+        CategoryResponse category = createCategory("Travel");
+        ExpenseResponse expense = createExpense(category, "40.00");
+        expenseService.updateExpense(expense.getId(), expenseRequest(category, "45.00"), null);
+        createExpense(category, "8.00");
+        expenseService.deleteExpense(expense.getId());
+        List<UUID> written = eventIds();
+        int kept = memorySink.messages().size();
+
+        assertEquals(5, relay.relay());
+
+        List<OutboxMessage> published = memorySink.messages().subList(kept, kept + 5);
+        assertEquals(written, published.stream().map(OutboxMessage::eventId).toList());
+        assertEquals(0, outboxEventRepository.count());
+        List<String> lines = Files.readAllLines(EVENTS_FILE);
+        assertEquals(5, lines.size());
+        JsonNode updated = objectMapper.readTree(lines.get(2));
+        assertEquals("UPDATED", updated.get("changeType").asText());
+        assertEquals(expense.getId().toString(), updated.get("aggregateId").asText());
+        assertEquals(0, new BigDecimal("45.00").compareTo(updated.get("payload").get("amount").decimalValue()));
+
+        assertEquals(5, registry.get("outbox.published").tag("sink", "memory").counter().count());
+        assertEquals(5, registry.get("outbox.publish.lag").timer().count());
+        assertEquals(0, registry.get("outbox.pending").tag("shard", "main").gauge().value());
+        assertEquals(0, relay.relay());
+    }
+
+    @Test
+    void failingSink_leavesTheBatchInTheOutbox_forTheNextRun() {
+        CategoryResponse category = createCategory("Rent");
+        createExpense(category, "900.00");
+        List<UUID> written = eventIds();
+        flakySink.failures = 1;
+
+        assertEquals(0, relay.relay());
+        assertEquals(2, outboxEventRepository.count());
+        assertEquals(1, registry.get("outbox.publish.failures").tag("sink", "flaky").counter().count());
+        assertEquals(2, registry.get("outbox.pending").tag("shard", "main").gauge().value());
+        assertTrue(registry.get("outbox.lag").tag("shard", "main").gauge().value() >= 0);
+
+        assertEquals(2, relay.relay());
+        assertEquals(0, outboxEventRepository.count());
+        List<UUID> received = memorySink.messages().stream().map(OutboxMessage::eventId).filter(written::contains).distinct().toList();
+        assertEquals(written, received);
+    }
+
+    private List<UUID> eventIds() {
+        return outboxEventRepository.findAll(Sort.by("id")).stream().map(OutboxEvent::getEventId).toList();
+    }
+
+    private CategoryResponse createCategory(String name) {
+        return TestExpenses.createCategory(categoryService, name);
+    }
+
+    private ExpenseResponse createExpense(CategoryResponse category, String amount) {
+        return expenseService.createExpense(expenseRequest(category, amount));
+    }
+
+    private static ExpenseRequest expenseRequest(CategoryResponse category, String amount) {
+        return TestExpenses.expenseRequest(category.getId(), category.getName() + " bill", amount, "USD",
+                OffsetDateTime.of(2024, 3, 10, 12, 0, 0, 0, ZoneOffset.UTC));
+    }
+
+    private static Path tempDirectory() {
+        try {
+            return Files.createTempDirectory("outbox");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Fails the next `failures` batches it is given
+    static class FlakySink implements OutboxSink {
+
+        volatile int failures;
+
+        @Override
+        public String name() {
+            return "flaky";
+        }
+
+        @Override
+        public void publish(List<OutboxMessage> messages) {
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("sink unavailable");
+            }
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package com.example.demo.repository;
 
+import com.example.demo.model.AppUser;
 import com.example.demo.model.Category;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.math.BigDecimal;
-import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -16,28 +20,56 @@ class CategoryRepositoryTest {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    private AppUser alice;
+    private AppUser bob;
+
+    @BeforeEach
+    void setup() {
+        alice = appUserRepository.save(user("alice"));
+        bob = appUserRepository.save(user("bob"));
+    }
+
     @Test
-    void existsByNameIgnoreCase_respectsCaseInsensitivity() {
-        Category saved = categoryRepository.save(category("Groceries"));
+    void existsByOwnerIdAndNameIgnoreCase_respectsCaseInsensitivityAndOwner() {
+        Category saved = categoryRepository.save(category(alice, "Groceries"));
 
-        assertTrue(categoryRepository.existsByNameIgnoreCase("groceries"));
-        assertTrue(categoryRepository.existsByNameIgnoreCase(saved.getName()));
-        assertFalse(categoryRepository.existsByNameIgnoreCase("other"));
+        assertTrue(categoryRepository.existsByOwnerIdAndNameIgnoreCase(alice.getId(), "groceries"));
+        assertTrue(categoryRepository.existsByOwnerIdAndNameIgnoreCase(alice.getId(), saved.getName()));
+        assertFalse(categoryRepository.existsByOwnerIdAndNameIgnoreCase(alice.getId(), "other"));
+        assertFalse(categoryRepository.existsByOwnerIdAndNameIgnoreCase(bob.getId(), "groceries"));
     }
 
     @Test
-    void findByNameIgnoreCase_returnsMatch() {
-        Category saved = categoryRepository.save(category("Utilities"));
+    void findByIdAndOwnerId_hidesOtherOwnersCategories() {
+        Category saved = categoryRepository.save(category(alice, "Utilities"));
 
-        Optional<Category> found = categoryRepository.findByNameIgnoreCase("utilities");
+        assertEquals(saved.getId(), categoryRepository.findByIdAndOwnerId(saved.getId(), alice.getId()).orElseThrow().getId());
+        assertTrue(categoryRepository.findByIdAndOwnerId(saved.getId(), bob.getId()).isEmpty());
+        assertEquals(Set.of(saved.getId()), categoryRepository.findIdsByOwnerId(alice.getId()));
+        assertEquals(Set.of(), categoryRepository.findIdsByOwnerId(bob.getId()));
+    }
+
+    @Test
+    void names_areUniquePerOwner() {
+        categoryRepository.saveAndFlush(category(alice, "Rent"));
+        categoryRepository.saveAndFlush(category(bob, "Rent"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> categoryRepository.saveAndFlush(category(alice, "Rent")));
+    }
 
-        assertTrue(found.isPresent());
-        assertEquals(saved.getId(), found.get().getId());
-        assertEquals(saved.getName(), found.get().getName());
+    private static AppUser user(String name) {
+        AppUser user = new AppUser();
+        user.setUsername(name + "-" + UUID.randomUUID());
+        user.setPasswordHash("hash");
+        return user;
     }
 
-    private Category category(String name) { //factory to create a valid Category entity for the tests
+    private Category category(AppUser owner, String name) { //factory to create a valid Category entity for the tests
         Category category = new Category();
+        category.setOwner(owner);
         category.setName(name);
         category.setMonthlyBudgetLimit(new BigDecimal("100.00"));
         return category;
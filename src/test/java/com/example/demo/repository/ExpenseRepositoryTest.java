@@ -1,7 +1,9 @@
 package com.example.demo.repository;
 
+import com.example.demo.model.AppUser;
 import com.example.demo.model.Category;
 import com.example.demo.model.Expense;
+import com.example.demo.money.Money;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,6 +17,7 @@ import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -27,6 +30,10 @@ class ExpenseRepositoryTest {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    private AppUser owner;
     private Category food;
     private Category travel;
 
@@ -34,18 +41,19 @@ class ExpenseRepositoryTest {
     void setup() {
         expenseRepository.deleteAll();
         categoryRepository.deleteAll();
-        food = categoryRepository.save(category("Food"));
-        travel = categoryRepository.save(category("Travel"));
+        owner = appUserRepository.save(user());
+        food = categoryRepository.save(category(owner, "Food"));
+        travel = categoryRepository.save(category(owner, "Travel"));
     }
 
     @Test
-    void findByOrderBySpentAtDesc_returnsOrderedPage() {
+    void findByOwnerIdOrderBySpentAtDesc_returnsOrderedPage() {
         OffsetDateTime base = OffsetDateTime.of(2025, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
         expenseRepository.save(expense(food, "A", base));
         expenseRepository.save(expense(food, "B", base.plusMinutes(1)));
         expenseRepository.save(expense(food, "C", base.plusMinutes(2)));
 
-        Page<Expense> page = expenseRepository.findByOrderBySpentAtDesc(PageRequest.of(0, 2, Sort.by("spentAt").descending()));
+        Page<Expense> page = expenseRepository.findByOwnerIdOrderBySpentAtDesc(owner.getId(), PageRequest.of(0, 2, Sort.by("spentAt").descending()));
 
         assertEquals(2, page.getNumberOfElements());
         assertEquals("C", page.getContent().get(0).getName());
@@ -53,13 +61,13 @@ class ExpenseRepositoryTest {
     }
 
     @Test
-    void findByCategoryOrderBySpentAtDesc_filtersByCategory() {
+    void findByOwnerIdAndCategoryOrderBySpentAtDesc_filtersByCategory() {
         OffsetDateTime now = OffsetDateTime.now();
         expenseRepository.save(expense(food, "FoodA", now));
         expenseRepository.save(expense(travel, "TravelA", now.plusMinutes(1)));
         expenseRepository.save(expense(travel, "TravelB", now.plusMinutes(2)));
 
-        Page<Expense> page = expenseRepository.findByCategoryOrderBySpentAtDesc(travel, PageRequest.of(0, 5));
+        Page<Expense> page = expenseRepository.findByOwnerIdAndCategoryOrderBySpentAtDesc(owner.getId(), travel, PageRequest.of(0, 5));
 
         assertEquals(2, page.getNumberOfElements());
         assertTrue(page.getContent().stream().allMatch(e -> e.getCategory().getId().equals(travel.getId())));
@@ -75,42 +83,57 @@ class ExpenseRepositoryTest {
     }
 
     @Test
-    void findCategoryTotalsBetween_sumsByCategory() {
+    void streamForExport_returnsRowsInRangeOrderedBySpentAt() {
+        OffsetDateTime jan = OffsetDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        expenseRepository.save(expense(travel, "Second", jan.plusDays(2)));
+        expenseRepository.save(expense(food, "First", jan.plusDays(1)));
+        expenseRepository.save(expense(food, "Outside", jan.plusMonths(1)));
+
+        List<ExpenseExportRow> rows;
+        try (Stream<ExpenseExportRow> stream = expenseRepository.streamForExport(owner.getId(), jan, jan.plusMonths(1))) {
+            rows = stream.toList();
+        }
+
+        assertEquals(2, rows.size());
+        assertEquals("First", rows.get(0).name());
+        assertEquals(food.getName(), rows.get(0).categoryName());
+        assertEquals("Second", rows.get(1).name());
+    }
+
+    @Test
+    void ownerScopedReads_leaveOtherOwnersOut() {
         OffsetDateTime jan = OffsetDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
-        expenseRepository.save(expense(food, "Lunch", jan.plusDays(1), new BigDecimal("10.00")));
-        expenseRepository.save(expense(food, "Dinner", jan.plusDays(2), new BigDecimal("15.00")));
-        expenseRepository.save(expense(travel, "Taxi", jan.plusDays(3), new BigDecimal("20.00")));
-        // Outside range
-        expenseRepository.save(expense(food, "NextMonth", jan.plusMonths(1), new BigDecimal("50.00")));
-
-        List<ExpenseRepository.CategoryMonthlyTotalView> totals = expenseRepository.findCategoryTotalsBetween(jan, jan.plusMonths(1));
-
-        assertEquals(2, totals.size());
-        ExpenseRepository.CategoryMonthlyTotalView foodTotal = totals.stream()
-                .filter(t -> t.getCategoryId().equals(food.getId()))
-                .findFirst()
-                .orElseThrow();
-        assertEquals(new BigDecimal("25.00"), foodTotal.getTotal());
-        assertEquals(food.getName(), foodTotal.getCategoryName());
+        Category theirs = categoryRepository.save(category(appUserRepository.save(user()), "Food"));
+        expenseRepository.save(expense(food, "Mine", jan.plusDays(1)));
+        expenseRepository.save(expense(theirs, "Theirs", jan.plusDays(2)));
+
+        Page<Expense> page = expenseRepository.findByOwnerIdOrderBySpentAtDesc(owner.getId(), PageRequest.of(0, 5));
+
+        assertEquals(List.of("Mine"), page.getContent().stream().map(Expense::getName).toList());
+        assertEquals(theirs.getOwner().getId(), expenseRepository.findAll().stream()
+                .filter(e -> e.getName().equals("Theirs")).findFirst().orElseThrow().getOwner().getId());
+    }
+
+    private static AppUser user() {
+        AppUser user = new AppUser();
+        user.setUsername("user-" + UUID.randomUUID());
+        user.setPasswordHash("hash");
+        return user;
     }
 
-    private Category category(String name) {
+    private Category category(AppUser owner, String name) {
         Category category = new Category();
+        category.setOwner(owner);
         category.setName(name + "-" + UUID.randomUUID());
         category.setMonthlyBudgetLimit(new BigDecimal("100.00"));
         return category;
     }
 
     private Expense expense(Category category, String name, OffsetDateTime spentAt) {
-        return expense(category, name, spentAt, new BigDecimal("5.00"));
-    }
-
-    private Expense expense(Category category, String name, OffsetDateTime spentAt, BigDecimal amount) {
         Expense expense = new Expense();
         expense.setCategory(category);
         expense.setName(name);
-        expense.setAmount(amount);
-        expense.setCurrency("USD");
+        expense.setAmount(Money.of(new BigDecimal("5.00"), "USD"));
         expense.setSpentAt(spentAt);
         expense.setHoliday(false);
         return expense;
@@ -0,0 +1,39 @@
+package com.example.demo.security;
+
+import com.example.demo.model.AppUser;
+import com.example.demo.repository.AppUserRepository;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.UUID;
+
+// Signs a user in on the current thread the way JwtAuthenticationFilter would; clear the context after each test
+public final class TestUsers {
+
+    private TestUsers() {
+    }
+
+    public static AppUser signInNew(AppUserRepository appUserRepository) {
+        return signIn(appUserRepository, "user-" + UUID.randomUUID());
+    }
+
+    public static AppUser signIn(AppUserRepository appUserRepository, String username) {
+        AppUser user = appUserRepository.findByUsername(username).orElseGet(() -> {
+            AppUser created = new AppUser();
+            created.setUsername(username);
+            created.setPasswordHash("{noop}password");
+            return appUserRepository.save(created);
+        });
+        signIn(user);
+        return user;
+    }
+
+    public static void signIn(AppUser user) {
+        AppUserPrincipal principal = new AppUserPrincipal(user.getId(), user.getUsername(), user.getPasswordHash(),
+                List.of(new SimpleGrantedAuthority(user.getRole())));
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.demo.service;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.dto.CategoryRequest;
+import com.example.demo.dto.DistinctMerchantsResponse;
+import com.example.demo.dto.ExpensePatchRequest;
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.dto.ExpenseResponse;
+import com.example.demo.dto.LocationCountResponse;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.holiday.HolidayService;
+import com.example.demo.model.Category;
+import com.example.demo.model.OwnerPeriodId;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.repository.MonthlyActivitySketchRepository;
+import com.example.demo.security.CurrentUser;
+import com.example.demo.security.TestUsers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Import({ActivitySketchService.class, ExpenseService.class, CategoryService.class, WriteVersionTracker.class, InsertIfAbsent.class, MonthlyTotalsCache.class, MonthlyTotalsRollupService.class, FxRateService.class})
+class ActivitySketchServiceTest {
+
+    private static final OffsetDateTime MARCH = OffsetDateTime.of(2025, 3, 10, 12, 0, 0, 0, ZoneOffset.UTC);
+    private static final YearMonth MARCH_MONTH = YearMonth.of(2025, 3);
+
+    @Autowired
+    private ActivitySketchService activitySketchService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private MonthlyActivitySketchRepository sketchRepository;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private HolidayService holidayService;
+
+    private Category food;
+
+    @BeforeEach
+    void setup() {
+        TestUsers.signInNew(appUserRepository);
+        when(holidayService.findHoliday(any())).thenReturn(Optional.empty());
+        CategoryRequest request = new CategoryRequest();
+        request.setName("Food-" + UUID.randomUUID());
+        food = categoryRepository.findById(categoryService.createCategory(request).getId()).orElseThrow();
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void topLocationsAndDistinctMerchants_mergeMonthsInRange() {
+        createExpense("Cafe Luna", "Downtown", MARCH);
+        createExpense("cafe luna ", "Downtown", MARCH);
+        createExpense("Bakery", "Harbor", MARCH);
+        createExpense("Bookshop", "Downtown", MARCH.plusMonths(1));
+        createExpense("Bakery", null, MARCH.plusMonths(1));
+
+        List<LocationCountResponse> march = activitySketchService.topLocations(MARCH_MONTH, MARCH_MONTH, 10).getLocations();
+        assertEquals(List.of("Downtown", "Harbor"), march.stream().map(LocationCountResponse::getLocation).toList());
+        assertEquals(2, march.get(0).getCount());
+
+        List<LocationCountResponse> quarter = activitySketchService.topLocations(MARCH_MONTH, MARCH_MONTH.plusMonths(2), 1).getLocations();
+        assertEquals(1, quarter.size());
+        assertEquals(3, quarter.get(0).getCount());
+        assertEquals(0, quarter.get(0).getMaxOvercount());
+
+        // Merchant names are compared case-insensitively
+        assertEquals(2, activitySketchService.distinctMerchants(MARCH_MONTH, MARCH_MONTH).getEstimate());
+        DistinctMerchantsResponse quarterMerchants = activitySketchService.distinctMerchants(MARCH_MONTH, MARCH_MONTH.plusMonths(2));
+        assertEquals(3, quarterMerchants.getEstimate());
+    }
+
+    @Test
+    void updatesAndDeletes_rebuildTheMonthTheExpenseLeft() {
+        ExpenseResponse moved = createExpense("Cafe Luna", "Downtown", MARCH);
+        ExpenseResponse deleted = createExpense("Bakery", "Harbor", MARCH);
+
+        ExpensePatchRequest patch = new ExpensePatchRequest();
+        patch.setSpentAt(MARCH.plusMonths(1));
+        expenseService.patchExpense(moved.getId(), patch, null);
+        expenseService.deleteExpense(deleted.getId());
+
+        assertTrue(activitySketchService.topLocations(MARCH_MONTH, MARCH_MONTH, 10).getLocations().isEmpty());
+        assertTrue(sketchRepository.findById(new OwnerPeriodId(CurrentUser.id(), MARCH_MONTH.atDay(1))).isEmpty());
+        assertEquals("Downtown", activitySketchService.topLocations(MARCH_MONTH.plusMonths(1), MARCH_MONTH.plusMonths(1), 10)
+                .getLocations().get(0).getLocation());
+
+        sketchRepository.deleteAll();
+        assertEquals(1, activitySketchService.rebuildAll());
+        assertEquals(1, activitySketchService.distinctMerchants(MARCH_MONTH, MARCH_MONTH.plusMonths(1)).getEstimate());
+    }
+
+    // At capacity, with the longest locations of 3-byte characters, the top-locations payload is over 64 KB
+    @Test
+    void topLocations_fullSketchOfLongLocations_roundTrips() {
+        for (int i = 0; i < ActivitySketchService.TOP_LOCATION_CAPACITY; i++) {
+            createExpense("Shop", "%03d".formatted(i) + "\u20ac".repeat(252), MARCH);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        assertTrue(sketchRepository.findById(new OwnerPeriodId(CurrentUser.id(), MARCH_MONTH.atDay(1))).orElseThrow()
+                .getTopLocations().length > 65536);
+        List<LocationCountResponse> top = activitySketchService.topLocations(MARCH_MONTH, MARCH_MONTH, 50).getLocations();
+        assertEquals(50, top.size());
+        assertEquals(255, top.get(0).getLocation().length());
+    }
+
+    @Test
+    void queries_rejectInvalidRangesAndLimits() {
+        assertThrows(ResponseStatusException.class, () -> activitySketchService.topLocations(MARCH_MONTH, MARCH_MONTH.minusMonths(1), 10));
+        assertThrows(ResponseStatusException.class, () -> activitySketchService.topLocations(MARCH_MONTH, MARCH_MONTH, 0));
+        assertThrows(ResponseStatusException.class, () -> activitySketchService.distinctMerchants(MARCH_MONTH, MARCH_MONTH.plusYears(10)));
+    }
+
+    private ExpenseResponse createExpense(String name, String location, OffsetDateTime spentAt) {
+        ExpenseRequest request = new ExpenseRequest();
+        request.setCategoryId(food.getId());
+        request.setName(name);
+        request.setAmount(new BigDecimal("5.00"));
+        request.setCurrency("USD");
+        request.setSpentAt(spentAt);
+        request.setLocation(location);
+        return expenseService.createExpense(request);
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.demo.service;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.analytics.ColumnarExpenseStore;
+import com.example.demo.archive.ExpenseArchive;
+import com.example.demo.dto.BudgetStatusResponse;
+import com.example.demo.dto.CategoryRequest;
+import com.example.demo.dto.ExpensePatchRequest;
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.dto.ExpenseResponse;
+import com.example.demo.event.BudgetThresholdCrossedEvent;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.holiday.HolidayService;
+import com.example.demo.model.Category;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.security.TestUsers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@RecordApplicationEvents
+@Import({BudgetService.class, ColumnarExpenseStore.class, ExpenseArchive.class, ExpenseService.class, CategoryService.class, WriteVersionTracker.class, InsertIfAbsent.class, MonthlyTotalsCache.class, MonthlyTotalsRollupService.class, FxRateService.class})
+class BudgetServiceTest {
+
+    private static final OffsetDateTime MARCH = OffsetDateTime.of(2025, 3, 10, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @MockBean
+    private HolidayService holidayService;
+
+    private Category food;
+    private Category misc;
+
+    @BeforeEach
+    void setup() {
+        TestUsers.signInNew(appUserRepository);
+        when(holidayService.findHoliday(any())).thenReturn(java.util.Optional.empty());
+        food = createCategory("Food", new BigDecimal("200.00"));
+        misc = createCategory("Misc", null);
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void status_reportsSpentRemainingAndPercentPerCategory() {
+        createExpense(food, "50.00");
+        createExpense(food, "25.50");
+        createExpense(misc, "10.00");
+
+        List<BudgetStatusResponse> status = budgetService.status(YearMonth.of(2025, 3));
+
+        BudgetStatusResponse foodStatus = statusFor(status, food);
+        assertEquals(new BigDecimal("75.50"), foodStatus.getSpent());
+        assertEquals(new BigDecimal("124.50"), foodStatus.getRemaining());
+        assertEquals(new BigDecimal("37.8"), foodStatus.getPercentUsed());
+
+        BudgetStatusResponse miscStatus = statusFor(status, misc);
+        assertNull(miscStatus.getLimit());
+        assertNull(miscStatus.getPercentUsed());
+
+        // Categories without spending in the month are still listed
+        BudgetStatusResponse emptyMonth = statusFor(budgetService.status(YearMonth.of(2025, 4)), food);
+        assertEquals(0, BigDecimal.ZERO.compareTo(emptyMonth.getSpent()));
+        assertEquals(new BigDecimal("200.00"), emptyMonth.getRemaining());
+    }
+
+    @Test
+    void writes_raiseEachThresholdOnceWhenCrossedUpward() {
+        ExpenseResponse first = createExpense(food, "150.00");
+        assertTrue(crossed().isEmpty());
+
+        createExpense(food, "10.00");
+        assertEquals(List.of(80), crossed());
+
+        // An amount edit is one net delta, not a dip below 80% followed by a second crossing
+        ExpensePatchRequest lower = new ExpensePatchRequest();
+        lower.setAmount(new BigDecimal("155.00"));
+        expenseService.patchExpense(first.getId(), lower, null);
+        assertEquals(List.of(80), crossed());
+
+        createExpense(food, "45.00");
+        assertEquals(List.of(80, 100), crossed());
+
+        BudgetThresholdCrossedEvent exceeded = events.stream(BudgetThresholdCrossedEvent.class).toList().get(1);
+        assertEquals(YearMonth.of(2025, 3), exceeded.month());
+        assertEquals(new BigDecimal("210.00"), exceeded.spent());
+
+        // Categories without a limit never alert
+        createExpense(misc, "1000.00");
+        assertEquals(2, crossed().size());
+    }
+
+    private List<Integer> crossed() {
+        return events.stream(BudgetThresholdCrossedEvent.class).map(BudgetThresholdCrossedEvent::thresholdPercent).toList();
+    }
+
+    private BudgetStatusResponse statusFor(List<BudgetStatusResponse> status, Category category) {
+        return status.stream().filter(s -> s.getCategoryId().equals(category.getId())).findFirst().orElseThrow();
+    }
+
+    private Category createCategory(String name, BigDecimal limit) {
+        CategoryRequest request = new CategoryRequest();
+        request.setName(name + "-" + UUID.randomUUID());
+        request.setMonthlyBudgetLimit(limit);
+        return categoryRepository.findById(categoryService.createCategory(request).getId()).orElseThrow();
+    }
+
+    private ExpenseResponse createExpense(Category category, String amount) {
+        ExpenseRequest request = new ExpenseRequest();
+        request.setCategoryId(category.getId());
+        request.setName("Expense");
+        request.setAmount(new BigDecimal(amount));
+        request.setCurrency("USD");
+        request.setSpentAt(MARCH);
+        return expenseService.createExpense(request);
+    }
+}
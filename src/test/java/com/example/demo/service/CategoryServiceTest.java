@@ -1,27 +1,36 @@
 package com.example.demo.service;
 
+import com.example.demo.datasource.InsertIfAbsent;
 import com.example.demo.dto.CategoryRequest;
 import com.example.demo.dto.CategoryResponse;
+import com.example.demo.model.AppUser;
 import com.example.demo.model.Category;
 import com.example.demo.model.Expense;
+import com.example.demo.money.Money;
+import com.example.demo.repository.AppUserRepository;
 import com.example.demo.repository.CategoryRepository;
 import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.security.TestUsers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
-@Import(CategoryService.class)
+@Import({CategoryService.class, WriteVersionTracker.class, InsertIfAbsent.class})
 class CategoryServiceTest {
 
     @Autowired
@@ -33,6 +42,21 @@ class CategoryServiceTest {
     @Autowired
     private ExpenseRepository expenseRepository;
 
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    private AppUser user;
+
+    @BeforeEach
+    void signIn() {
+        user = TestUsers.signInNew(appUserRepository);
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
     @Test
     void createCategory_succeeds() {
         //Arrange
@@ -95,6 +119,20 @@ class CategoryServiceTest {
         assertEquals(404, ex.getStatusCode().value());
     }
 
+    @Test
+    void categories_areVisibleOnlyToTheirOwner() {
+        CategoryResponse created = categoryService.createCategory(requestWithName("Mine"));
+
+        TestUsers.signInNew(appUserRepository);
+        assertTrue(categoryService.listCategories().isEmpty());
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> categoryService.getCategory(created.getId()));
+        assertEquals(404, ex.getStatusCode().value());
+        // Names only clash within one user's categories
+        CategoryRequest sameName = new CategoryRequest();
+        sameName.setName(created.getName());
+        assertNotEquals(created.getId(), categoryService.createCategory(sameName).getId());
+    }
+
     @Test
     void deleteCategory_succeedsWhenEmpty() {
         //category with no expenses
@@ -130,14 +168,14 @@ class CategoryServiceTest {
         update.setName("Renamed-" + System.nanoTime());
         update.setMonthlyBudgetLimit(new BigDecimal("300.00"));
 
-        CategoryResponse updated = categoryService.updateCategory(created.getId(), update);
+        CategoryResponse updated = categoryService.updateCategory(created.getId(), update, null);
         assertEquals(update.getName(), updated.getName());
         assertEquals(update.getMonthlyBudgetLimit(), updated.getMonthlyBudgetLimit());
 
         CategoryRequest conflict = new CategoryRequest();
         conflict.setName(other.getName());
         conflict.setMonthlyBudgetLimit(new BigDecimal("123.00"));
-        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> categoryService.updateCategory(created.getId(), conflict));
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> categoryService.updateCategory(created.getId(), conflict, null));
         assertEquals(409, ex.getStatusCode().value());
     }
 
@@ -147,17 +185,33 @@ class CategoryServiceTest {
 
         // empty patch should fail
         com.example.demo.dto.CategoryPatchRequest empty = new com.example.demo.dto.CategoryPatchRequest();
-        ResponseStatusException emptyEx = assertThrows(ResponseStatusException.class, () -> categoryService.patchCategory(created.getId(), empty));
+        ResponseStatusException emptyEx = assertThrows(ResponseStatusException.class, () -> categoryService.patchCategory(created.getId(), empty, null));
         assertEquals(400, emptyEx.getStatusCode().value());
 
         com.example.demo.dto.CategoryPatchRequest patch = new com.example.demo.dto.CategoryPatchRequest();
         patch.setName("Patched-" + System.nanoTime());
 
-        CategoryResponse patched = categoryService.patchCategory(created.getId(), patch);
+        CategoryResponse patched = categoryService.patchCategory(created.getId(), patch, null);
         assertEquals(patch.getName(), patched.getName());
         assertEquals(created.getMonthlyBudgetLimit(), patched.getMonthlyBudgetLimit());
     }
 
+    @Test
+    void updateCategory_checksExpectedVersion() {
+        CategoryResponse created = categoryService.createCategory(requestWithName("VersionCat"));
+
+        CategoryRequest update = new CategoryRequest();
+        update.setName("Versioned-" + System.nanoTime());
+        update.setMonthlyBudgetLimit(new BigDecimal("300.00"));
+        CategoryResponse updated = categoryService.updateCategory(created.getId(), update, Set.of(created.getVersion()));
+        assertEquals(created.getVersion() + 1, updated.getVersion());
+
+        com.example.demo.dto.CategoryPatchRequest stale = new com.example.demo.dto.CategoryPatchRequest();
+        stale.setName("Stale-" + System.nanoTime());
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> categoryService.patchCategory(created.getId(), stale, Set.of(created.getVersion())));
+        assertEquals(412, ex.getStatusCode().value());
+    }
+
     private CategoryRequest requestWithName(String prefix) {
         CategoryRequest request = new CategoryRequest();
         request.setName(prefix + "-" + System.nanoTime());
@@ -167,6 +221,7 @@ class CategoryServiceTest {
 
     private Category toCategory(String name) {
         Category category = new Category();
+        category.setOwner(user);
         category.setName(name + "-" + System.nanoTime());
         category.setMonthlyBudgetLimit(new BigDecimal("50.00"));
         return category;
@@ -176,8 +231,7 @@ class CategoryServiceTest {
         Expense expense = new Expense();
         expense.setCategory(category);
         expense.setName("TestExpense");
-        expense.setAmount(new BigDecimal("10.00"));
-        expense.setCurrency("USD");
+        expense.setAmount(Money.of(new BigDecimal("10.00"), "USD"));
         expense.setSpentAt(OffsetDateTime.now().withOffsetSameInstant(ZoneOffset.UTC));
         expense.setHoliday(false);
         return expense;
@@ -0,0 +1,151 @@
+package com.example.demo.service;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.dto.CategoryPatchRequest;
+import com.example.demo.dto.CategoryRequest;
+import com.example.demo.dto.CategoryResponse;
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.holiday.HolidayService;
+import com.example.demo.model.MonthlySummarySnapshot;
+import com.example.demo.model.MonthlySummarySnapshotId;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.repository.MonthlySummarySnapshotRepository;
+import com.example.demo.security.CurrentUser;
+import com.example.demo.security.TestUsers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@AutoConfigureJson
+@Import({ClosedMonthSummaryService.class, ExpenseService.class, CategoryService.class, WriteVersionTracker.class, InsertIfAbsent.class,
+        MonthlyTotalsCache.class, MonthlyTotalsRollupService.class, FxRateService.class})
+class ClosedMonthSummaryServiceTest {
+
+    @Autowired
+    private ClosedMonthSummaryService closedMonthSummaryService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private MonthlySummarySnapshotRepository snapshotRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @MockBean
+    private HolidayService holidayService;
+
+    private CategoryResponse food;
+
+    @BeforeEach
+    void setup() {
+        TestUsers.signInNew(appUserRepository);
+        when(holidayService.findHoliday(any())).thenReturn(Optional.empty());
+        CategoryRequest request = new CategoryRequest();
+        request.setName("Food Out");
+        food = categoryService.createCategory(request);
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void closeMonths_freezesClosedMonthsWithExpensesOnly() throws IOException {
+        createExpense(OffsetDateTime.of(2024, 3, 5, 12, 0, 0, 0, ZoneOffset.UTC), "12.50");
+        createExpense(OffsetDateTime.now(ZoneOffset.UTC), "3.00");
+
+        assertEquals(2, closedMonthSummaryService.closeMonths());
+        assertEquals(0, closedMonthSummaryService.closeMonths());
+        assertEquals(2, snapshotRepository.count());
+
+        MonthlySummarySnapshot snapshot = snapshotRepository.findById(new MonthlySummarySnapshotId(CurrentUser.id(), LocalDate.of(2024, 3, 1), true)).orElseThrow();
+        assertArrayEquals(objectMapper.writeValueAsBytes(expenseService.calculateMonthlyTotalsInBaseCurrency(2024, 3)), snapshot.getBody());
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(snapshot.getGzipBody()))) {
+            assertArrayEquals(snapshot.getBody(), in.readAllBytes());
+        }
+        assertTrue(snapshot.getEtag().startsWith("\"s-"));
+
+        assertTrue(closedMonthSummaryService.snapshot(2024, 4, false).isEmpty());
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        assertFalse(closedMonthSummaryService.isClosed(current));
+        assertTrue(closedMonthSummaryService.snapshot(current.getYear(), current.getMonthValue(), false).isEmpty());
+    }
+
+    @Test
+    void backdatedWrite_reopensOnlyItsMonth() {
+        createExpense(OffsetDateTime.of(2024, 3, 5, 12, 0, 0, 0, ZoneOffset.UTC), "12.50");
+        createExpense(OffsetDateTime.of(2024, 5, 5, 12, 0, 0, 0, ZoneOffset.UTC), "7.00");
+        String etag = closedMonthSummaryService.snapshot(2024, 3, false).orElseThrow().getEtag();
+        closedMonthSummaryService.snapshot(2024, 5, false).orElseThrow();
+
+        createExpense(OffsetDateTime.of(2024, 3, 20, 12, 0, 0, 0, ZoneOffset.UTC), "1.00");
+        assertFalse(snapshotRepository.existsById(new MonthlySummarySnapshotId(CurrentUser.id(), LocalDate.of(2024, 3, 1), false)));
+        assertTrue(snapshotRepository.existsById(new MonthlySummarySnapshotId(CurrentUser.id(), LocalDate.of(2024, 5, 1), false)));
+
+        // The bulk delete bypasses the test transaction's persistence context
+        entityManager.clear();
+        MonthlySummarySnapshot refrozen = closedMonthSummaryService.snapshot(2024, 3, false).orElseThrow();
+        assertNotEquals(etag, refrozen.getEtag());
+        assertTrue(new String(refrozen.getBody()).contains("\"total\":13.50"));
+    }
+
+    @Test
+    void categoryRename_reopensEveryMonth() {
+        createExpense(OffsetDateTime.of(2024, 3, 5, 12, 0, 0, 0, ZoneOffset.UTC), "12.50");
+        closedMonthSummaryService.closeMonths();
+
+        CategoryPatchRequest patch = new CategoryPatchRequest();
+        patch.setName("Dining");
+        categoryService.patchCategory(food.getId(), patch, null);
+        assertEquals(0, snapshotRepository.count());
+        entityManager.clear();
+        assertTrue(new String(closedMonthSummaryService.snapshot(2024, 3, false).orElseThrow().getBody()).contains("Dining"));
+    }
+
+    private void createExpense(OffsetDateTime spentAt, String amount) {
+        ExpenseRequest request = new ExpenseRequest();
+        request.setCategoryId(food.getId());
+        request.setName("Lunch");
+        request.setAmount(new BigDecimal(amount));
+        request.setCurrency("USD");
+        request.setSpentAt(spentAt);
+        expenseService.createExpense(request);
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.demo.service;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.analytics.ColumnarExpenseStore;
+import com.example.demo.analytics.DailyPrefixSumIndex;
+import com.example.demo.archive.ExpenseArchive;
+import com.example.demo.config.ArrowConfig;
+import com.example.demo.dto.CategoryResponse;
+import com.example.demo.export.ExportFormat;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.holiday.HolidayService;
+import com.example.demo.model.AppUser;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.security.TestUsers;
+import com.example.demo.shard.SingleShard;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+// Archiving commits its own transactions, so this test runs outside the usual rolled-back one
+@DataJpaTest(properties = {"expenses.archive.after-months=1", "analytics.period-index.enabled=false"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ExpenseArchiveService.class, ExpenseArchive.class, ExpensePartitionService.class, PeriodSummaryService.class,
+        DailyPrefixSumIndex.class, HolidaySummaryService.class, SummaryService.class, ColumnarExpenseStore.class,
+        ExpenseExportService.class, ArrowConfig.class, JacksonAutoConfiguration.class, ExpenseService.class, CategoryService.class,
+        WriteVersionTracker.class, InsertIfAbsent.class, MonthlyTotalsCache.class, MonthlyTotalsRollupService.class, FxRateService.class,
+        SingleShard.class})
+class ExpenseArchiveServiceTest {
+
+    private static final Path ARCHIVE_DIR = tempDirectory();
+    private static final LocalDate MARCH_2024 = LocalDate.of(2024, 3, 1);
+
+    @DynamicPropertySource
+    static void archiveDirectory(DynamicPropertyRegistry registry) {
+        registry.add("expenses.archive.dir", ARCHIVE_DIR::toString);
+    }
+
+    @Autowired
+    private ExpenseArchiveService archiveService;
+
+    @Autowired
+    private ExpenseArchive expenseArchive;
+
+    @Autowired
+    private PeriodSummaryService periodSummaryService;
+
+    @Autowired
+    private HolidaySummaryService holidaySummaryService;
+
+    @Autowired
+    private SummaryService summaryService;
+
+    @Autowired
+    private ExpenseExportService exportService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private FxRateService fxRateService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @MockBean
+    private HolidayService holidayService;
+
+    private AppUser user;
+
+    @BeforeEach
+    void signIn() {
+        user = TestUsers.signInNew(appUserRepository);
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void archive_movesOldMonthsOutAndReadsStayTheSame() throws IOException {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        when(holidayService.findHoliday(any())).thenReturn(Optional.empty());
+        when(holidayService.findHoliday(MARCH_2024)).thenReturn(Optional.of("Founders Day"));
+        when(holidayService.findHoliday(today.withDayOfMonth(1))).thenReturn(Optional.of("Founders Day"));
+        // Another user's rows share the archived month
+        AppUser other = TestUsers.signInNew(appUserRepository);
+        createExpense(createCategory("Food"), "99.00", "USD", LocalDate.of(2024, 3, 20));
+        List<Object> otherBefore = reads(today);
+        String otherExportBefore = export(today, 1);
+        TestUsers.signIn(user);
+
+        CategoryResponse food = createCategory("Food");
+        CategoryResponse travel = createCategory("Travel");
+        createExpense(food, "10.00", "USD", MARCH_2024);
+        createExpense(travel, "20.00", "EUR", LocalDate.of(2024, 3, 15));
+        createExpense(food, "5.00", "CAD", LocalDate.of(2024, 4, 30));
+        createExpense(food, "7.25", "USD", today.withDayOfMonth(1));
+
+        List<Object> before = reads(today);
+        String exportBefore = export(today, 4);
+
+        assertEquals(2, archiveService.archive());
+        assertEquals(1, expenseRepository.count());
+        assertEquals(Optional.of(LocalDate.of(2024, 5, 1)), expenseArchive.archivedBefore());
+        assertTrue(Files.isRegularFile(ARCHIVE_DIR.resolve("expenses-2024-03.seg")));
+        assertTrue(Files.isRegularFile(ARCHIVE_DIR.resolve("expenses-2024-04.seg")));
+        assertEquals(0, archiveService.archive());
+
+        assertEquals(before, reads(today));
+        assertEquals(exportBefore, export(today, 4));
+        TestUsers.signIn(other);
+        assertEquals(otherBefore, reads(today));
+        assertEquals(otherExportBefore, export(today, 1));
+        TestUsers.signIn(user);
+
+        DailyPrefixSumIndex index = new DailyPrefixSumIndex(expenseRepository, expenseArchive, false);
+        // Not a proxy, so the streamed load needs a transaction of its own
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> index.reload());
+        PeriodSummaryService indexed = new PeriodSummaryService(expenseRepository, categoryRepository, fxRateService, index, expenseArchive);
+        assertEquals(before.get(0), json(indexed.summarize(MARCH_2024, today, 30, null)));
+
+        ResponseStatusException conflict = assertThrows(ResponseStatusException.class,
+                () -> createExpense(food, "1.00", "USD", LocalDate.of(2024, 4, 1)));
+        assertEquals(HttpStatus.CONFLICT, conflict.getStatusCode());
+    }
+
+    private List<Object> reads(LocalDate today) {
+        return List.of(
+                json(periodSummaryService.summarize(MARCH_2024, today, 30, null)),
+                json(holidaySummaryService.summarize(MARCH_2024, today)),
+                json(summaryService.timeseries(MARCH_2024, today, TimeseriesGranularity.WEEK, null, null)),
+                json(summaryService.timeseries(MARCH_2024, today, TimeseriesGranularity.MONTH, null, "CAD")));
+    }
+
+    private String export(LocalDate today, long rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(rows, exportService.export(MARCH_2024, today, ExportFormat.CSV, out));
+        return out.toString();
+    }
+
+    private Object json(Object value) {
+        return objectMapper.valueToTree(value);
+    }
+
+    private CategoryResponse createCategory(String name) {
+        return TestExpenses.createCategory(categoryService, name);
+    }
+
+    private void createExpense(CategoryResponse category, String amount, String currency, LocalDate day) {
+        TestExpenses.createExpense(expenseService, category.getId(), category.getName() + " " + day, amount, currency, TestExpenses.noonUtc(day));
+    }
+
+    private static Path tempDirectory() {
+        try {
+            return Files.createTempDirectory("expense-archive");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
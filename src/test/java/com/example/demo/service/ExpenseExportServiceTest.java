@@ -0,0 +1,221 @@
+package com.example.demo.service;
+
+import com.example.demo.archive.ExpenseArchive;
+import com.example.demo.config.ArrowConfig;
+import com.example.demo.export.ExportFormat;
+import com.example.demo.model.AppUser;
+import com.example.demo.model.Category;
+import com.example.demo.model.Expense;
+import com.example.demo.money.Money;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.security.TestUsers;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryEncoder;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The location dictionary cap is lowered so a handful of rows go past it
+@DataJpaTest(properties = "export.arrow.max-location-dictionary=5")
+@Import({ExpenseExportService.class, ExpenseArchive.class, ArrowConfig.class, JacksonAutoConfiguration.class})
+class ExpenseExportServiceTest {
+
+    @Autowired
+    private ExpenseExportService exportService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    private Category food;
+
+    @BeforeEach
+    void setup() {
+        AppUser user = TestUsers.signInNew(appUserRepository);
+        expenseRepository.deleteAll();
+        categoryRepository.deleteAll();
+        Category category = new Category();
+        category.setOwner(user);
+        category.setName("Food, Out");
+        food = categoryRepository.save(category);
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void exportCsv_writesHeaderAndQuotesSpecialCharacters() throws Exception {
+        expenseRepository.save(expense("Pizza \"large\"", "18.50", OffsetDateTime.of(2025, 1, 3, 18, 0, 0, 0, ZoneOffset.UTC)));
+        expenseRepository.save(expense("Outside", "1.00", OffsetDateTime.of(2025, 2, 1, 0, 0, 0, 0, ZoneOffset.UTC)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.export(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(1, rows);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("id,categoryId,categoryName,name,amount"));
+        assertTrue(lines[1].contains(",\"Food, Out\",\"Pizza \"\"large\"\"\",18.50,USD,2025-01-03T18:00:00Z,"));
+    }
+
+    @Test
+    void exportCsv_escapesCellsThatStartAFormula() throws Exception {
+        Expense expense = expense("=HYPERLINK(\"http://example.com\")", "5.00", OffsetDateTime.of(2025, 1, 3, 18, 0, 0, 0, ZoneOffset.UTC));
+        expense.setLocation("@SUM(A1)");
+        expenseRepository.save(expense);
+        expenseRepository.save(expense("-2+3", "6.00", OffsetDateTime.of(2025, 1, 4, 18, 0, 0, 0, ZoneOffset.UTC)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertTrue(lines[1].contains(",\"'=HYPERLINK(\"\"http://example.com\"\")\",5.00,"), lines[1]);
+        assertTrue(lines[1].contains(",'@SUM(A1),false,"), lines[1]);
+        assertTrue(lines[2].contains(",'-2+3,6.00,"), lines[2]);
+    }
+
+    @Test
+    void exportNdjson_writesOneObjectPerLine() throws Exception {
+        expenseRepository.save(expense("Lunch", "12.00", OffsetDateTime.of(2025, 1, 3, 12, 0, 0, 0, ZoneOffset.UTC)));
+        expenseRepository.save(expense("Dinner", "20.00", OffsetDateTime.of(2025, 1, 4, 19, 0, 0, 0, ZoneOffset.UTC)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("Lunch", first.get("name").asText());
+        assertTrue(lines[0].contains("\"amount\":12.00,"));
+        assertEquals(food.getId().toString(), first.get("categoryId").asText());
+        assertEquals("Dinner", objectMapper.readTree(lines[1]).get("name").asText());
+    }
+
+    @Test
+    void exportArrow_writesDictionaryEncodedColumnsReadableByArrow() throws Exception {
+        Expense lunch = expense("Lunch", "12.34", OffsetDateTime.of(2025, 1, 3, 12, 0, 0, 0, ZoneOffset.UTC));
+        lunch.setLocation("Cafe");
+        expenseRepository.save(lunch);
+        expenseRepository.save(expense("Taxi", "7.00", OffsetDateTime.of(2025, 1, 4, 19, 0, 0, 0, ZoneOffset.UTC)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.export(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), ExportFormat.ARROW, out);
+
+        assertEquals(2, rows);
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+            assertTrue(reader.loadNextBatch());
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertEquals(2, root.getRowCount());
+            BigIntVector amounts = (BigIntVector) root.getVector("amountMinor");
+            assertEquals(1234L, amounts.get(0));
+            assertEquals(700L, amounts.get(1));
+            assertEquals("2", root.getSchema().findField("amountMinor").getMetadata().get("scale"));
+
+            FieldVector categoryIndices = root.getVector("category");
+            long dictionaryId = categoryIndices.getField().getDictionary().getId();
+            try (VarCharVector categories = (VarCharVector) DictionaryEncoder.decode(categoryIndices, reader.getDictionaryVectors().get(dictionaryId))) {
+                assertEquals("Food, Out", categories.getObject(0).toString());
+            }
+            FieldVector locationIndices = root.getVector("location");
+            assertFalse(locationIndices.isNull(0));
+            assertTrue(locationIndices.isNull(1));
+            assertFalse(reader.loadNextBatch());
+        }
+    }
+
+    @Test
+    void exportArrow_writesLocationsAsPlainStringsPastTheDictionaryCap() throws Exception {
+        OffsetDateTime start = OffsetDateTime.of(2025, 1, 3, 12, 0, 0, 0, ZoneOffset.UTC);
+        for (int i = 0; i < 6; i++) {
+            Expense expense = expense("Coffee", "3.00", start.plusHours(i));
+            expense.setLocation("Kiosk " + i);
+            expenseRepository.save(expense);
+        }
+        expenseRepository.save(expense("Tip", "1.00", start.plusHours(6)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), ExportFormat.ARROW, out);
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+            assertTrue(reader.loadNextBatch());
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertNull(root.getSchema().findField("location").getDictionary());
+            assertNotNull(root.getSchema().findField("category").getDictionary());
+            VarCharVector locations = (VarCharVector) root.getVector("location");
+            assertEquals("Kiosk 0", locations.getObject(0).toString());
+            assertEquals("Kiosk 5", locations.getObject(5).toString());
+            assertTrue(locations.isNull(6));
+        }
+    }
+
+    @Test
+    void exportArrow_isSeveralTimesSmallerThanNdjson() throws Exception {
+        OffsetDateTime start = OffsetDateTime.of(2025, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        for (int i = 0; i < 500; i++) {
+            Expense expense = expense("Groceries", (10 + i % 50) + ".25", start.plusMinutes(i * 37L));
+            expense.setLocation("Store " + (i % 5));
+            expenseRepository.save(expense);
+        }
+        ByteArrayOutputStream arrow = new ByteArrayOutputStream();
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+
+        exportService.export(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31), ExportFormat.ARROW, arrow);
+        exportService.export(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31), ExportFormat.NDJSON, ndjson);
+
+        assertTrue(arrow.size() * 3 < ndjson.size(), () -> "arrow=" + arrow.size() + " ndjson=" + ndjson.size());
+    }
+
+    @Test
+    void export_invertedRange_throwsBadRequest() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> exportService.export(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 1, 1), ExportFormat.CSV, new ByteArrayOutputStream()));
+        assertEquals(400, ex.getStatusCode().value());
+    }
+
+    private Expense expense(String name, String amount, OffsetDateTime spentAt) {
+        Expense expense = new Expense();
+        expense.setCategory(food);
+        expense.setName(name);
+        expense.setAmount(Money.of(new BigDecimal(amount), "USD"));
+        expense.setSpentAt(spentAt);
+        return expense;
+    }
+}
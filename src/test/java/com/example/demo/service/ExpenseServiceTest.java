@@ -1,25 +1,32 @@
 package com.example.demo.service;
 
+import com.example.demo.datasource.InsertIfAbsent;
 import com.example.demo.dto.CategoryRequest;
 import com.example.demo.dto.ExpenseRequest;
 import com.example.demo.dto.ExpenseResponse;
 import com.example.demo.dto.MonthlyCategoryTotalResponse;
+import com.example.demo.fx.FxRateService;
 import com.example.demo.holiday.HolidayService;
 import com.example.demo.model.Category;
+import com.example.demo.repository.AppUserRepository;
 import com.example.demo.repository.CategoryRepository;
 import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.security.TestUsers;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,7 +34,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
 @DataJpaTest
-@Import({ExpenseService.class, CategoryService.class})
+@Import({ExpenseService.class, CategoryService.class, WriteVersionTracker.class, InsertIfAbsent.class, MonthlyTotalsCache.class, MonthlyTotalsRollupService.class, FxRateService.class})
 class ExpenseServiceTest {
 
     @Autowired
@@ -42,6 +49,9 @@ class ExpenseServiceTest {
     @Autowired
     private ExpenseRepository expenseRepository;
 
+    @Autowired
+    private AppUserRepository appUserRepository;
+
     @MockBean
     private HolidayService holidayService;
 
@@ -50,6 +60,7 @@ class ExpenseServiceTest {
 
     @BeforeEach
     void setup() {
+        TestUsers.signInNew(appUserRepository);
         expenseRepository.deleteAll();
         categoryRepository.deleteAll();
         when(holidayService.findHoliday(any())).thenReturn(java.util.Optional.empty());
@@ -58,6 +69,11 @@ class ExpenseServiceTest {
         transport = createCategory("Transport");
     }
 
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
     @Test
     void createExpense_persistsWithLocation() {
         //Arrange
@@ -76,7 +92,7 @@ class ExpenseServiceTest {
         assertNotNull(response.getId());
         assertEquals(food.getId(), response.getCategoryId());
         assertEquals("Sushi", response.getName());
-        assertEquals(new BigDecimal("18.50"), response.getAmount());
+        assertEquals(new BigDecimal("18.50"), response.getAmount().toBigDecimal());
         assertEquals("USD", response.getCurrency());
         assertEquals(request.getSpentAt(), response.getSpentAt());
         assertEquals("Downtown Market", response.getLocation());
@@ -146,8 +162,24 @@ class ExpenseServiceTest {
         List<MonthlyCategoryTotalResponse> totals = expenseService.calculateMonthlyTotals(2025, 1);
 
         assertEquals(2, totals.size());
-        assertEquals(new BigDecimal("32.00"), totals.stream().filter(t -> t.getCategoryId().equals(food.getId())).findFirst().orElseThrow().getTotal());
-        assertEquals(new BigDecimal("5.00"), totals.stream().filter(t -> t.getCategoryId().equals(transport.getId())).findFirst().orElseThrow().getTotal());
+        assertEquals(new BigDecimal("32.00"), totals.stream().filter(t -> t.getCategoryId().equals(food.getId())).findFirst().orElseThrow().getTotal().toBigDecimal());
+        assertEquals(new BigDecimal("5.00"), totals.stream().filter(t -> t.getCategoryId().equals(transport.getId())).findFirst().orElseThrow().getTotal().toBigDecimal());
+    }
+
+    @Test
+    void expenses_areVisibleOnlyToTheirOwner() {
+        OffsetDateTime jan1 = OffsetDateTime.of(2025, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        ExpenseResponse lunch = createExpense(food.getId(), "Lunch", new BigDecimal("12.00"), jan1.plusDays(1));
+
+        TestUsers.signInNew(appUserRepository);
+        assertTrue(expenseService.listRecentExpenses(10).isEmpty());
+        assertTrue(expenseService.calculateMonthlyTotals(2025, 1).isEmpty());
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> expenseService.deleteExpense(lunch.getId()));
+        assertEquals(404, ex.getStatusCode().value());
+        // Nor can another user file an expense under someone else's category
+        ResponseStatusException foreign = assertThrows(ResponseStatusException.class,
+                () -> createExpense(food.getId(), "Sneaky", new BigDecimal("1.00"), jan1));
+        assertEquals(404, foreign.getStatusCode().value());
     }
 
     @Test
@@ -192,11 +224,11 @@ class ExpenseServiceTest {
         update.setSpentAt(newDate);
         update.setLocation("NewLoc");
 
-        ExpenseResponse updated = expenseService.updateExpense(existing.getId(), update);
+        ExpenseResponse updated = expenseService.updateExpense(existing.getId(), update, null);
 
         assertEquals(transport.getId(), updated.getCategoryId());
         assertEquals("Updated", updated.getName());
-        assertEquals(new BigDecimal("20.00"), updated.getAmount());
+        assertEquals(new BigDecimal("20.00"), updated.getAmount().toBigDecimal());
         assertEquals("USD", updated.getCurrency());
         assertEquals(newDate, updated.getSpentAt());
         assertEquals("NewLoc", updated.getLocation());
@@ -207,24 +239,38 @@ class ExpenseServiceTest {
         ExpenseResponse existing = createExpense(food.getId(), "Orig", new BigDecimal("10.00"), OffsetDateTime.now());
 
         com.example.demo.dto.ExpensePatchRequest empty = new com.example.demo.dto.ExpensePatchRequest();
-        ResponseStatusException emptyEx = assertThrows(ResponseStatusException.class, () -> expenseService.patchExpense(existing.getId(), empty));
+        ResponseStatusException emptyEx = assertThrows(ResponseStatusException.class, () -> expenseService.patchExpense(existing.getId(), empty, null));
         assertEquals(400, emptyEx.getStatusCode().value());
 
         com.example.demo.dto.ExpensePatchRequest patch = new com.example.demo.dto.ExpensePatchRequest();
         patch.setLocation("PatchedLoc");
         patch.setAmount(new BigDecimal("15.00"));
 
-        ExpenseResponse patched = expenseService.patchExpense(existing.getId(), patch);
+        ExpenseResponse patched = expenseService.patchExpense(existing.getId(), patch, null);
         assertEquals("PatchedLoc", patched.getLocation());
-        assertEquals(new BigDecimal("15.00"), patched.getAmount());
+        assertEquals(new BigDecimal("15.00"), patched.getAmount().toBigDecimal());
         assertEquals(existing.getName(), patched.getName());
     }
 
+    @Test
+    void patchExpense_staleVersion_throwsPreconditionFailed() {
+        ExpenseResponse existing = createExpense(food.getId(), "Orig", new BigDecimal("10.00"), OffsetDateTime.now());
+
+        com.example.demo.dto.ExpensePatchRequest patch = new com.example.demo.dto.ExpensePatchRequest();
+        patch.setName("First");
+        ExpenseResponse patched = expenseService.patchExpense(existing.getId(), patch, Set.of(existing.getVersion()));
+        assertEquals(existing.getVersion() + 1, patched.getVersion());
+
+        patch.setName("Second");
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> expenseService.patchExpense(existing.getId(), patch, Set.of(existing.getVersion())));
+        assertEquals(412, ex.getStatusCode().value());
+    }
+
     private Category createCategory(String name) {
         CategoryRequest request = new CategoryRequest();
         request.setName(name + "-" + UUID.randomUUID());
         request.setMonthlyBudgetLimit(new BigDecimal("100.00"));
-        return categoryRepository.findByNameIgnoreCase(categoryService.createCategory(request).getName()).orElseThrow();
+        return categoryRepository.findById(categoryService.createCategory(request).getId()).orElseThrow();
     }
 
     private ExpenseResponse createExpense(UUID categoryId, String name, BigDecimal amount, OffsetDateTime spentAt) {
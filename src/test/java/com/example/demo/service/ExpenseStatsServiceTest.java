@@ -0,0 +1,154 @@
+package com.example.demo.service;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.dto.CategoryStatsResponse;
+import com.example.demo.dto.ExpensePatchRequest;
+import com.example.demo.dto.ExpenseResponse;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.holiday.HolidayService;
+import com.example.demo.model.Category;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.repository.ExpenseSizeSketchRepository;
+import com.example.demo.security.TestUsers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Import({ExpenseStatsService.class, ExpenseService.class, CategoryService.class, WriteVersionTracker.class, InsertIfAbsent.class, MonthlyTotalsCache.class, MonthlyTotalsRollupService.class, FxRateService.class})
+class ExpenseStatsServiceTest {
+
+    private static final OffsetDateTime MARCH = OffsetDateTime.of(2025, 3, 10, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private ExpenseStatsService statsService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ExpenseSizeSketchRepository sketchRepository;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @MockBean
+    private HolidayService holidayService;
+
+    private Category food;
+    private Category travel;
+
+    @BeforeEach
+    void setup() {
+        TestUsers.signInNew(appUserRepository);
+        when(holidayService.findHoliday(any())).thenReturn(Optional.empty());
+        food = createCategory("Food");
+        travel = createCategory("Travel");
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void stats_reportsCountMedianP90AndMaxPerCategory() {
+        for (int i = 1; i <= 100; i++) {
+            createExpense(food, i + ".00", MARCH);
+        }
+        createExpense(travel, "400.00", MARCH);
+        createExpense(food, "999.00", MARCH.plusMonths(1));
+
+        List<CategoryStatsResponse> stats = statsService.stats(2025, 3);
+        assertEquals(2, stats.size());
+
+        CategoryStatsResponse foodStats = statsFor(stats, food);
+        assertEquals(100, foodStats.getCount());
+        assertEquals("USD", foodStats.getCurrency());
+        assertEquals(50.5, foodStats.getMedian().doubleValue(), 1.0);
+        assertEquals(90.5, foodStats.getP90().doubleValue(), 1.0);
+        assertEquals(new BigDecimal("100.00"), foodStats.getMax());
+
+        CategoryStatsResponse travelStats = statsFor(stats, travel);
+        assertEquals(1, travelStats.getCount());
+        assertEquals(new BigDecimal("400.00"), travelStats.getMedian());
+    }
+
+    @Test
+    void updatesAndDeletes_rebuildOnlyTheBucketTheExpenseLeft() {
+        ExpenseResponse small = createExpense(food, "10.00", MARCH);
+        ExpenseResponse large = createExpense(food, "500.00", MARCH);
+
+        ExpensePatchRequest lower = new ExpensePatchRequest();
+        lower.setAmount(new BigDecimal("20.00"));
+        expenseService.patchExpense(large.getId(), lower, null);
+
+        CategoryStatsResponse foodStats = statsFor(statsService.stats(2025, 3), food);
+        assertEquals(2, foodStats.getCount());
+        assertEquals(new BigDecimal("20.00"), foodStats.getMax());
+
+        ExpensePatchRequest move = new ExpensePatchRequest();
+        move.setCategoryId(travel.getId());
+        expenseService.patchExpense(small.getId(), move, null);
+
+        List<CategoryStatsResponse> stats = statsService.stats(2025, 3);
+        assertEquals(1, statsFor(stats, food).getCount());
+        assertEquals(new BigDecimal("10.00"), statsFor(stats, travel).getMax());
+
+        expenseService.deleteExpense(small.getId());
+        assertTrue(statsService.stats(2025, 3).stream().noneMatch(s -> s.getCategoryId().equals(travel.getId())));
+    }
+
+    @Test
+    void rebuildAll_matchesIncrementalSketches() {
+        createExpense(food, "12.00", MARCH);
+        createExpense(food, "30.00", MARCH);
+        createExpense(travel, "7.50", MARCH.plusMonths(1));
+        List<CategoryStatsResponse> before = statsService.stats(2025, 3);
+
+        sketchRepository.deleteAll();
+        assertEquals(2, statsService.rebuildAll());
+
+        CategoryStatsResponse rebuilt = statsFor(statsService.stats(2025, 3), food);
+        CategoryStatsResponse incremental = statsFor(before, food);
+        assertEquals(incremental.getCount(), rebuilt.getCount());
+        assertEquals(incremental.getMedian(), rebuilt.getMedian());
+        assertEquals(incremental.getMax(), rebuilt.getMax());
+    }
+
+    private CategoryStatsResponse statsFor(List<CategoryStatsResponse> stats, Category category) {
+        return stats.stream().filter(s -> s.getCategoryId().equals(category.getId())).findFirst().orElseThrow();
+    }
+
+    private Category createCategory(String name) {
+        UUID id = TestExpenses.createCategory(categoryService, name + "-" + UUID.randomUUID()).getId();
+        return categoryRepository.findById(id).orElseThrow();
+    }
+
+    private ExpenseResponse createExpense(Category category, String amount, OffsetDateTime spentAt) {
+        return TestExpenses.createExpense(expenseService, category.getId(), "Expense", amount, "USD", spentAt);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.demo.service;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.archive.ExpenseArchive;
+import com.example.demo.dto.DayKindSpendingResponse;
+import com.example.demo.dto.HolidaySummaryResponse;
+import com.example.demo.dto.HolidayTotalResponse;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.holiday.HolidayService;
+import com.example.demo.model.Category;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.security.TestUsers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Import({HolidaySummaryService.class, ExpenseArchive.class, ExpenseService.class, CategoryService.class, WriteVersionTracker.class, InsertIfAbsent.class, MonthlyTotalsCache.class,
+        MonthlyTotalsRollupService.class, FxRateService.class})
+class HolidaySummaryServiceTest {
+
+    private static final LocalDate NEW_YEAR = LocalDate.of(2025, 1, 1);
+    private static final LocalDate CANADA_DAY = LocalDate.of(2025, 7, 1);
+
+    @Autowired
+    private HolidaySummaryService holidaySummaryService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @MockBean
+    private HolidayService holidayService;
+
+    private Category food;
+    private Category travel;
+
+    @BeforeEach
+    void setup() {
+        TestUsers.signInNew(appUserRepository);
+        when(holidayService.findHoliday(any())).thenReturn(Optional.empty());
+        when(holidayService.findHoliday(NEW_YEAR)).thenReturn(Optional.of("New Year's Day"));
+        when(holidayService.findHoliday(CANADA_DAY)).thenReturn(Optional.of("Canada Day"));
+        food = createCategory("Food");
+        travel = createCategory("Travel");
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void summarize_totalsPerHolidayAndComparesWithRegularDays() {
+        createExpense(food, "30.00", "USD", NEW_YEAR);
+        createExpense(travel, "120.00", "USD", NEW_YEAR);
+        createExpense(food, "10.00", "GBP", NEW_YEAR);
+        createExpense(food, "25.00", "USD", CANADA_DAY);
+        createExpense(food, "10.00", "USD", LocalDate.of(2025, 1, 2));
+        createExpense(food, "20.00", "USD", LocalDate.of(2025, 1, 3));
+        createExpense(travel, "6.00", "USD", LocalDate.of(2025, 1, 3));
+        createExpense(food, "500.00", "USD", LocalDate.of(2026, 1, 1));
+
+        HolidaySummaryResponse summary = holidaySummaryService.summarize(NEW_YEAR, LocalDate.of(2025, 12, 31));
+
+        assertEquals("USD", summary.getCurrency());
+        HolidayTotalResponse newYear = summary.getByHoliday().get(0);
+        assertEquals("New Year's Day", newYear.getHolidayName());
+        assertEquals(new BigDecimal("150.00"), newYear.getTotal());
+        assertEquals(3, newYear.getExpenseCount());
+        assertEquals(travel.getId(), newYear.getCategories().get(0).getCategoryId());
+        assertEquals(new BigDecimal("30.00"), newYear.getCategories().get(1).getTotal());
+        assertEquals(2, newYear.getCategories().get(1).getExpenseCount());
+        assertEquals("Canada Day", summary.getByHoliday().get(1).getHolidayName());
+
+        DayKindSpendingResponse holidays = summary.getHolidays();
+        assertEquals(new BigDecimal("175.00"), holidays.getTotal());
+        assertEquals(4, holidays.getExpenseCount());
+        assertEquals(1, holidays.getUnconvertedCount());
+        assertEquals(2, holidays.getDayCount());
+        assertEquals(new BigDecimal("87.50"), holidays.getAveragePerDay());
+        assertEquals(new BigDecimal("58.33"), holidays.getAveragePerExpense());
+
+        DayKindSpendingResponse regular = summary.getRegularDays();
+        assertEquals(new BigDecimal("36.00"), regular.getTotal());
+        assertEquals(2, regular.getDayCount());
+        assertEquals(new BigDecimal("18.00"), regular.getAveragePerDay());
+        assertEquals(new BigDecimal("12.00"), regular.getAveragePerExpense());
+    }
+
+    @Test
+    void summarize_withoutExpensesReturnsEmptyTotals() {
+        HolidaySummaryResponse summary = holidaySummaryService.summarize(NEW_YEAR, NEW_YEAR);
+
+        assertTrue(summary.getByHoliday().isEmpty());
+        assertEquals(new BigDecimal("0.00"), summary.getHolidays().getTotal());
+        assertNull(summary.getHolidays().getAveragePerDay());
+        assertNull(summary.getRegularDays().getAveragePerExpense());
+    }
+
+    @Test
+    void summarize_invalidRange() {
+        ResponseStatusException reversed = assertThrows(ResponseStatusException.class,
+                () -> holidaySummaryService.summarize(CANADA_DAY, NEW_YEAR));
+        assertEquals(400, reversed.getStatusCode().value());
+        ResponseStatusException tooLong = assertThrows(ResponseStatusException.class,
+                () -> holidaySummaryService.summarize(LocalDate.of(2010, 1, 1), NEW_YEAR));
+        assertEquals(400, tooLong.getStatusCode().value());
+    }
+
+    private Category createCategory(String name) {
+        UUID id = TestExpenses.createCategory(categoryService, name + "-" + UUID.randomUUID()).getId();
+        return categoryRepository.findById(id).orElseThrow();
+    }
+
+    private void createExpense(Category category, String amount, String currency, LocalDate day) {
+        TestExpenses.createExpense(expenseService, category.getId(), "Expense", amount, currency, TestExpenses.noonUtc(day));
+    }
+}
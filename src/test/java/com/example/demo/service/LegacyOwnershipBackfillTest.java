@@ -0,0 +1,90 @@
+package com.example.demo.service;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.holiday.HolidayService;
+import com.example.demo.model.AppUser;
+import com.example.demo.model.Category;
+import com.example.demo.model.Expense;
+import com.example.demo.model.OwnerPeriodId;
+import com.example.demo.money.Money;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.repository.MonthlyActivitySketchRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "ownership.legacy-owner=legacy-owner")
+@AutoConfigureJson
+@Import({LegacyOwnershipBackfill.class, ActivitySketchService.class, ClosedMonthSummaryService.class, ExpenseService.class,
+        CategoryService.class, WriteVersionTracker.class, InsertIfAbsent.class, MonthlyTotalsCache.class, MonthlyTotalsRollupService.class, FxRateService.class})
+class LegacyOwnershipBackfillTest {
+
+    @Autowired
+    private LegacyOwnershipBackfill backfill;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private MonthlyActivitySketchRepository sketchRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private HolidayService holidayService;
+
+    @Test
+    void backfill_givesUnownedRowsToTheLegacyOwner() {
+        Category legacy = new Category();
+        legacy.setName("Legacy");
+        legacy = categoryRepository.save(legacy);
+        Expense expense = new Expense();
+        expense.setCategory(legacy);
+        expense.setName("Old lunch");
+        expense.setAmount(Money.of(new BigDecimal("9.00"), "USD"));
+        expense.setSpentAt(OffsetDateTime.of(2024, 2, 10, 12, 0, 0, 0, ZoneOffset.UTC));
+        expense.setHoliday(false);
+        expense = expenseRepository.save(expense);
+
+        // Without the user nothing is assigned
+        backfill.backfill();
+        entityManager.flush();
+        assertEquals(1, categoryRepository.countByOwnerIsNull());
+
+        AppUser owner = new AppUser();
+        owner.setUsername("legacy-owner");
+        owner.setPasswordHash("hash");
+        owner = appUserRepository.save(owner);
+        backfill.backfill();
+        // The bulk updates bypass the persistence context
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(0, categoryRepository.countByOwnerIsNull());
+        assertEquals(Set.of(legacy.getId()), categoryRepository.findIdsByOwnerId(owner.getId()));
+        assertEquals(owner.getId(), expenseRepository.findById(expense.getId()).orElseThrow().getOwner().getId());
+        assertTrue(sketchRepository.findById(new OwnerPeriodId(owner.getId(), LocalDate.of(2024, 2, 1))).isPresent());
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.MonthlyCategoryTotalResponse;
+import com.example.demo.event.CategoryChangedEvent;
+import com.example.demo.event.CategorySnapshot;
+import com.example.demo.event.ExpenseChangedEvent;
+import com.example.demo.event.ExpenseSnapshot;
+import com.example.demo.money.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonthlyTotalsCacheTest {
+
+    private static final YearMonth MARCH = YearMonth.of(2025, 3);
+    private static final YearMonth APRIL = YearMonth.of(2025, 4);
+    private static final UUID OWNER = UUID.randomUUID();
+
+    private final MonthlyTotalsCache cache = new MonthlyTotalsCache(2, Duration.ofMinutes(5));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void get_servesRepeatsUntilAWriteToTheMonthCommits() {
+        assertSame(cache.get(OWNER, MARCH, false, loader()), cache.get(OWNER, MARCH, false, loader()));
+        cache.get(OWNER, APRIL, false, loader());
+        assertEquals(2, loads.get());
+
+        commitWrite(MARCH);
+        cache.get(OWNER, MARCH, false, loader());
+        cache.get(OWNER, APRIL, false, loader());
+        assertEquals(3, loads.get());
+        assertEquals(2, cache.hitCount());
+        assertEquals(3, cache.missCount());
+    }
+
+    @Test
+    void get_doesNotKeepALoadThatOverlappedACommittedWrite() {
+        cache.get(OWNER, MARCH, true, () -> {
+            commitWrite(APRIL);
+            return loader().get();
+        });
+        cache.get(OWNER, MARCH, true, loader());
+        assertEquals(2, loads.get());
+        cache.get(OWNER, MARCH, true, loader());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_keepsEachUsersTotalsApart() {
+        UUID other = UUID.randomUUID();
+        assertNotSame(cache.get(OWNER, MARCH, false, loader()), cache.get(other, MARCH, false, loader()));
+        assertEquals(2, loads.get());
+
+        cache.onExpenseChanged(event(MARCH));
+        assertEquals(1, cache.size());
+        cache.get(other, MARCH, false, loader());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_keepsOtherUsersMonthsWhenOneUserWrites() {
+        UUID other = UUID.randomUUID();
+        cache.get(other, MARCH, false, loader());
+        commitWrite(MARCH);
+        cache.get(other, MARCH, false, loader());
+        assertEquals(1, loads.get());
+
+        cache.get(OWNER, MARCH, false, loader());
+        cache.onCategoryChanged(CategoryChangedEvent.created(new CategorySnapshot(UUID.randomUUID(), other, "Food", null)));
+        assertEquals(1, cache.size());
+        cache.get(OWNER, MARCH, false, loader());
+        assertEquals(2, loads.get());
+    }
+
+    // Bounds how long a write on another instance can go unseen
+    @Test
+    void get_reloadsEntriesOlderThanTheTtl() throws InterruptedException {
+        MonthlyTotalsCache shortLived = new MonthlyTotalsCache(2, Duration.ofMillis(20));
+        shortLived.get(OWNER, MARCH, false, loader());
+        Thread.sleep(40);
+        shortLived.get(OWNER, MARCH, false, loader());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_bypassesTheCacheInsideAReadWriteTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            cache.get(OWNER, MARCH, false, loader());
+            cache.get(OWNER, MARCH, false, loader());
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void metrics_reportHitsMissesEvictionsAndInvalidations() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.get(OWNER, MARCH, false, loader());
+        cache.get(OWNER, MARCH, false, loader());
+        cache.get(OWNER, MARCH, true, loader());
+        cache.get(OWNER, APRIL, false, loader());
+        commitWrite(APRIL);
+        cache.clear();
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "monthlyTotals").tag("result", "hit").functionCounter().count());
+        assertEquals(3.0, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.evictions").functionCounter().count());
+        assertEquals(2.0, registry.get("cache.invalidations").functionCounter().count());
+        assertEquals(0.0, registry.get("cache.size").gauge().value());
+    }
+
+    private void commitWrite(YearMonth month) {
+        cache.onExpenseChanged(event(month));
+    }
+
+    private Supplier<List<MonthlyCategoryTotalResponse>> loader() {
+        return () -> {
+            loads.incrementAndGet();
+            return List.of(new MonthlyCategoryTotalResponse());
+        };
+    }
+
+    private static ExpenseChangedEvent event(YearMonth month) {
+        OffsetDateTime spentAt = month.atDay(5).atTime(12, 0).atOffset(ZoneOffset.UTC);
+        return ExpenseChangedEvent.created(new ExpenseSnapshot(UUID.randomUUID(), OWNER, UUID.randomUUID(), "Expense", Money.of(BigDecimal.TEN, "USD"),
+                BigDecimal.TEN, "USD", spentAt, null, false, null));
+    }
+}
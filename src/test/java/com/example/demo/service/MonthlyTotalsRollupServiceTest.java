@@ -0,0 +1,237 @@
+package com.example.demo.service;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.dto.CategoryRequest;
+import com.example.demo.dto.ExpensePatchRequest;
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.dto.ExpenseResponse;
+import com.example.demo.dto.MonthlyCategoryTotalResponse;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.holiday.HolidayService;
+import com.example.demo.model.Category;
+import com.example.demo.model.Expense;
+import com.example.demo.model.MonthlyCategoryTotalId;
+import com.example.demo.money.Money;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.repository.MonthlyCategoryTotalRepository;
+import com.example.demo.security.TestUsers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Import({ExpenseService.class, CategoryService.class, WriteVersionTracker.class, InsertIfAbsent.class, MonthlyTotalsCache.class, MonthlyTotalsRollupService.class, FxRateService.class})
+class MonthlyTotalsRollupServiceTest {
+
+    private static final OffsetDateTime JAN = OffsetDateTime.of(2025, 1, 15, 12, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime FEB = OffsetDateTime.of(2025, 2, 15, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private MonthlyTotalsRollupService rollupService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private MonthlyCategoryTotalRepository totalRepository;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private InsertIfAbsent insertIfAbsent;
+
+    @MockBean
+    private HolidayService holidayService;
+
+    private Category food;
+    private Category transport;
+
+    @BeforeEach
+    void setup() {
+        TestUsers.signInNew(appUserRepository);
+        when(holidayService.findHoliday(any())).thenReturn(java.util.Optional.empty());
+        food = createCategory("Food");
+        transport = createCategory("Transport");
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void writes_maintainRollupByDelta() {
+        ExpenseResponse lunch = createExpense(food.getId(), new BigDecimal("12.00"), JAN);
+        createExpense(food.getId(), new BigDecimal("8.50"), JAN.plusDays(1));
+        assertEquals(new BigDecimal("20.50"), totalFor(2025, 1, food));
+
+        // Moving an expense to another category and month shifts it between buckets
+        ExpensePatchRequest patch = new ExpensePatchRequest();
+        patch.setCategoryId(transport.getId());
+        patch.setSpentAt(FEB);
+        patch.setAmount(new BigDecimal("15.00"));
+        expenseService.patchExpense(lunch.getId(), patch, null);
+
+        assertEquals(new BigDecimal("8.50"), totalFor(2025, 1, food));
+        assertEquals(new BigDecimal("15.00"), totalFor(2025, 2, transport));
+
+        expenseService.deleteExpense(lunch.getId());
+        assertTrue(expenseService.calculateMonthlyTotals(2025, 2).isEmpty());
+        assertFalse(totalRepository.existsById(new MonthlyCategoryTotalId(transport.getId(), LocalDate.of(2025, 2, 1), "USD")));
+
+        assertTrue(rollupService.verify().isEmpty());
+    }
+
+    // What the first write to a bucket does when a concurrent write created the bucket first: the insert skips without
+    // failing the transaction, and the delta goes to the existing row
+    @Test
+    void insertIfAbsent_skipsABucketThatExists() {
+        createExpense(food.getId(), new BigDecimal("12.00"), JAN);
+        assertFalse(insertIfAbsent.insert("monthly_category_totals", List.of("category_id", "period_start", "currency"), Map.of(
+                "category_id", food.getId(), "period_start", LocalDate.of(2025, 1, 1), "currency", "USD",
+                "total", new BigDecimal("5.00"), "base_total", new BigDecimal("5.00"), "unconverted_count", 0L, "expense_count", 1L)));
+
+        createExpense(food.getId(), new BigDecimal("8.50"), JAN);
+        assertEquals(new BigDecimal("20.50"), totalFor(2025, 1, food));
+        assertTrue(rollupService.verify().isEmpty());
+    }
+
+    @Test
+    void removingFromAMissingBucket_writesNoRow() {
+        ExpenseResponse lunch = createExpense(food.getId(), new BigDecimal("12.00"), JAN);
+        totalRepository.deleteAllInBatch();
+
+        expenseService.deleteExpense(lunch.getId());
+        assertEquals(0, totalRepository.count());
+        assertTrue(rollupService.verify().isEmpty());
+    }
+
+    @Test
+    void currencies_areTotalledSeparately_andConvertedAtWriteTime() {
+        createExpense(food.getId(), new BigDecimal("100.00"), JAN);
+        ExpenseResponse cad = createExpense(food.getId(), new BigDecimal("100.00"), JAN, "CAD");
+        createExpense(food.getId(), new BigDecimal("10.00"), JAN, "GBP");
+        assertEquals(Money.of(new BigDecimal("72.00"), "USD"), cad.getBaseAmount());
+
+        List<MonthlyCategoryTotalResponse> byCurrency = expenseService.calculateMonthlyTotals(2025, 1);
+        assertEquals(List.of("CAD", "GBP", "USD"), byCurrency.stream().map(MonthlyCategoryTotalResponse::getCurrency).toList());
+        assertTrue(byCurrency.stream().noneMatch(t -> t.getTotal().toBigDecimal().compareTo(new BigDecimal("200.00")) == 0));
+
+        MonthlyCategoryTotalResponse converted = expenseService.calculateMonthlyTotalsInBaseCurrency(2025, 1).get(0);
+        assertEquals("USD", converted.getCurrency());
+        assertEquals(Money.of(new BigDecimal("172.00"), "USD"), converted.getTotal());
+        assertEquals(1L, converted.getUnconvertedCount());
+
+        // Changing only the currency moves the expense between buckets and reconverts it
+        ExpensePatchRequest patch = new ExpensePatchRequest();
+        patch.setCurrency("EUR");
+        expenseService.patchExpense(cad.getId(), patch, null);
+        assertEquals(new BigDecimal("210.00"), expenseService.calculateMonthlyTotalsInBaseCurrency(2025, 1).get(0).getTotal().toBigDecimal());
+        assertTrue(rollupService.verify().isEmpty());
+    }
+
+    @Test
+    void monthBoundary_usesUtc() {
+        // 23:30 at -05:00 on Jan 31 is already February in UTC
+        createExpense(food.getId(), new BigDecimal("5.00"), OffsetDateTime.of(2025, 1, 31, 23, 30, 0, 0, ZoneOffset.ofHours(-5)));
+
+        assertTrue(expenseService.calculateMonthlyTotals(2025, 1).isEmpty());
+        assertEquals(new BigDecimal("5.00"), totalFor(2025, 2, food));
+    }
+
+    @Test
+    void verify_detectsDrift_and_rebuildRepairsIt() {
+        createExpense(food.getId(), new BigDecimal("10.00"), JAN);
+
+        // Bypasses the service, so the rollup does not see this row
+        Expense raw = new Expense();
+        raw.setCategory(transport);
+        raw.setName("Raw");
+        raw.setAmount(Money.of(new BigDecimal("4.00"), "USD"));
+        raw.setSpentAt(JAN);
+        expenseRepository.saveAndFlush(raw);
+
+        List<MonthlyTotalsRollupService.Mismatch> mismatches = rollupService.verify();
+        assertEquals(1, mismatches.size());
+        assertEquals(transport.getId(), mismatches.get(0).categoryId());
+        assertEquals(new BigDecimal("4.00"), mismatches.get(0).expectedTotal());
+        assertNull(mismatches.get(0).actualTotal());
+
+        assertEquals(2, rollupService.rebuild());
+        assertTrue(rollupService.verify().isEmpty());
+        assertEquals(new BigDecimal("4.00"), totalFor(2025, 1, transport));
+    }
+
+    @Test
+    void rebuildFrom_keepsEarlierMonths() {
+        createExpense(food.getId(), new BigDecimal("10.00"), JAN);
+        createExpense(food.getId(), new BigDecimal("5.00"), FEB);
+        // As if January's expenses had been archived
+        expenseRepository.deleteAllInBatch(expenseRepository.findAll().stream()
+                .filter(e -> e.getSpentAt().getMonthValue() == 1).toList());
+
+        LocalDate february = LocalDate.of(2025, 2, 1);
+        assertTrue(rollupService.verifyFrom(february).isEmpty());
+        assertEquals(1, rollupService.rebuildFrom(february));
+        assertEquals(new BigDecimal("10.00"), totalFor(2025, 1, food));
+        assertEquals(new BigDecimal("5.00"), totalFor(2025, 2, food));
+    }
+
+    private BigDecimal totalFor(int year, int month, Category category) {
+        return expenseService.calculateMonthlyTotals(year, month).stream()
+                .filter(t -> t.getCategoryId().equals(category.getId()))
+                .map(t -> t.getTotal().toBigDecimal())
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private Category createCategory(String name) {
+        CategoryRequest request = new CategoryRequest();
+        request.setName(name + "-" + UUID.randomUUID());
+        request.setMonthlyBudgetLimit(new BigDecimal("100.00"));
+        return categoryRepository.findById(categoryService.createCategory(request).getId()).orElseThrow();
+    }
+
+    private ExpenseResponse createExpense(UUID categoryId, BigDecimal amount, OffsetDateTime spentAt) {
+        return createExpense(categoryId, amount, spentAt, "USD");
+    }
+
+    private ExpenseResponse createExpense(UUID categoryId, BigDecimal amount, OffsetDateTime spentAt, String currency) {
+        ExpenseRequest request = new ExpenseRequest();
+        request.setCategoryId(categoryId);
+        request.setName("Expense");
+        request.setAmount(amount);
+        request.setCurrency(currency);
+        request.setSpentAt(spentAt);
+        return expenseService.createExpense(request);
+    }
+}
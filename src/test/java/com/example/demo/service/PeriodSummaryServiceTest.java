@@ -0,0 +1,173 @@
+package com.example.demo.service;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.analytics.DailyPrefixSumIndex;
+import com.example.demo.archive.ExpenseArchive;
+import com.example.demo.dto.CategoryPeriodSummaryResponse;
+import com.example.demo.dto.PeriodSummaryResponse;
+import com.example.demo.dto.PeriodTotalResponse;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.holiday.HolidayService;
+import com.example.demo.model.Category;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.repository.ExpenseRepository;
+import com.example.demo.security.TestUsers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+// The context's index stays disabled, so periodSummaryService answers from SQL; indexed() builds a second service
+// over an index loaded from the same (uncommitted) rows
+@DataJpaTest
+@Import({PeriodSummaryService.class, DailyPrefixSumIndex.class, ExpenseArchive.class, ExpenseService.class, CategoryService.class,
+        WriteVersionTracker.class, InsertIfAbsent.class, MonthlyTotalsCache.class, MonthlyTotalsRollupService.class, FxRateService.class})
+class PeriodSummaryServiceTest {
+
+    private static final LocalDate MARCH_1 = LocalDate.of(2025, 3, 1);
+    private static final LocalDate MARCH_31 = LocalDate.of(2025, 3, 31);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Autowired
+    private PeriodSummaryService periodSummaryService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private FxRateService fxRateService;
+
+    @Autowired
+    private ExpenseArchive expenseArchive;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @MockBean
+    private HolidayService holidayService;
+
+    private Category food;
+    private Category travel;
+
+    @BeforeEach
+    void setup() {
+        TestUsers.signInNew(appUserRepository);
+        when(holidayService.findHoliday(any())).thenReturn(Optional.empty());
+        food = createCategory("Food");
+        travel = createCategory("Travel");
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void summarize_splitsTheRangeIntoPeriods() {
+        createExpense(food, "10.00", "USD", MARCH_1);
+        createExpense(food, "5.00", "USD", LocalDate.of(2025, 3, 14));
+        createExpense(food, "7.25", "USD", LocalDate.of(2025, 3, 15));
+        createExpense(travel, "100.00", "USD", LocalDate.of(2025, 3, 30));
+        createExpense(travel, "40.00", "GBP", LocalDate.of(2025, 3, 30));
+        createExpense(travel, "999.00", "USD", LocalDate.of(2025, 4, 1));
+
+        PeriodSummaryResponse summary = periodSummaryService.summarize(MARCH_1, MARCH_31, 14, null);
+
+        assertEquals("USD", summary.getCurrency());
+        assertEquals(new BigDecimal("122.25"), summary.getTotal());
+        assertEquals(1, summary.getUnconvertedCount());
+        List<PeriodTotalResponse> periods = summary.getPeriods();
+        assertEquals(3, periods.size());
+        assertEquals(LocalDate.of(2025, 3, 14), periods.get(0).getTo());
+        assertEquals(LocalDate.of(2025, 3, 29), periods.get(2).getFrom());
+        assertEquals(MARCH_31, periods.get(2).getTo());
+        assertEquals(new BigDecimal("15.00"), periods.get(0).getTotal());
+        assertEquals(new BigDecimal("7.25"), periods.get(1).getTotal());
+        assertEquals(new BigDecimal("100.00"), periods.get(2).getTotal());
+
+        CategoryPeriodSummaryResponse foodSummary = summary.getCategories().get(0);
+        assertEquals(food.getId(), foodSummary.getCategoryId());
+        assertEquals(new BigDecimal("22.25"), foodSummary.getTotal());
+        assertEquals(2, summary.getCategories().size());
+
+        PeriodSummaryResponse whole = periodSummaryService.summarize(MARCH_1, MARCH_31, null, travel.getId());
+        assertEquals(1, whole.getPeriods().size());
+        assertEquals(new BigDecimal("100.00"), whole.getTotal());
+        assertEquals(1, whole.getCategories().size());
+    }
+
+    @Test
+    void summarize_indexMatchesTheSqlPath() {
+        createExpense(food, "12.34", "USD", MARCH_1);
+        createExpense(food, "10.00", "CAD", LocalDate.of(2025, 3, 9));
+        createExpense(food, "5.00", "GBP", LocalDate.of(2025, 3, 20));
+        createExpense(travel, "250.00", "USD", LocalDate.of(2025, 2, 27));
+        createExpense(travel, "99.99", "EUR", LocalDate.of(2025, 3, 31));
+
+        DailyPrefixSumIndex index = new DailyPrefixSumIndex(expenseRepository, expenseArchive, false);
+        index.reload();
+        PeriodSummaryService indexed = new PeriodSummaryService(expenseRepository, categoryRepository, fxRateService, index, expenseArchive);
+
+        assertEquals(json(periodSummaryService.summarize(MARCH_1, MARCH_31, 7, null)), json(indexed.summarize(MARCH_1, MARCH_31, 7, null)));
+        assertEquals(json(periodSummaryService.summarize(LocalDate.of(2025, 2, 1), MARCH_31, 1, food.getId())),
+                json(indexed.summarize(LocalDate.of(2025, 2, 1), MARCH_31, 1, food.getId())));
+        assertEquals(json(periodSummaryService.summarize(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), null, null)),
+                json(indexed.summarize(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), null, null)));
+    }
+
+    @Test
+    void summarize_invalidParameters() {
+        assertBadRequest(() -> periodSummaryService.summarize(MARCH_31, MARCH_1, null, null));
+        assertBadRequest(() -> periodSummaryService.summarize(MARCH_1, MARCH_31, 0, null));
+        assertBadRequest(() -> periodSummaryService.summarize(LocalDate.of(2020, 1, 1), MARCH_31, 1, null));
+        assertBadRequest(() -> periodSummaryService.summarize(LocalDate.of(2010, 1, 1), MARCH_31, null, null));
+        ResponseStatusException notFound = assertThrows(ResponseStatusException.class,
+                () -> periodSummaryService.summarize(MARCH_1, MARCH_31, null, UUID.randomUUID()));
+        assertEquals(404, notFound.getStatusCode().value());
+    }
+
+    private Object json(Object value) {
+        return objectMapper.valueToTree(value);
+    }
+
+    private void assertBadRequest(org.junit.jupiter.api.function.Executable executable) {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, executable);
+        assertEquals(400, ex.getStatusCode().value());
+    }
+
+    private Category createCategory(String name) {
+        UUID id = TestExpenses.createCategory(categoryService, name + "-" + UUID.randomUUID()).getId();
+        return categoryRepository.findById(id).orElseThrow();
+    }
+
+    private void createExpense(Category category, String amount, String currency, LocalDate day) {
+        TestExpenses.createExpense(expenseService, category.getId(), "Expense", amount, currency, TestExpenses.noonUtc(day));
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.demo.service;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.analytics.ColumnarExpenseStore;
+import com.example.demo.archive.ExpenseArchive;
+import com.example.demo.dto.CategoryRangeSummaryResponse;
+import com.example.demo.dto.RangeSummaryResponse;
+import com.example.demo.dto.TimeseriesPointResponse;
+import com.example.demo.dto.TimeseriesResponse;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.holiday.HolidayService;
+import com.example.demo.model.Category;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.repository.CategoryRepository;
+import com.example.demo.security.TestUsers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Import({SummaryService.class, ColumnarExpenseStore.class, ExpenseArchive.class, ExpenseService.class, CategoryService.class, WriteVersionTracker.class, InsertIfAbsent.class, MonthlyTotalsCache.class, MonthlyTotalsRollupService.class, FxRateService.class})
+class SummaryServiceTest {
+
+    @Autowired
+    private SummaryService summaryService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @MockBean
+    private HolidayService holidayService;
+
+    private Category food;
+    private Category transport;
+
+    @BeforeEach
+    void setup() {
+        TestUsers.signInNew(appUserRepository);
+        when(holidayService.findHoliday(any())).thenReturn(java.util.Optional.empty());
+        food = createCategory("Food");
+        transport = createCategory("Transport");
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void range_returnsZeroFilledMonthsPerCategory() {
+        createExpense(food, "12.00", YearMonth.of(2025, 1));
+        createExpense(food, "8.00", YearMonth.of(2025, 3));
+        createExpense(transport, "5.00", YearMonth.of(2025, 3));
+        createExpense(food, "99.00", YearMonth.of(2025, 4));
+
+        RangeSummaryResponse summary = summaryService.summarizeRange(YearMonth.of(2025, 1), YearMonth.of(2025, 3), null, false);
+
+        assertEquals(new BigDecimal("25.00"), summary.getTotal());
+        assertNull(summary.getPreviousYearTotal());
+        assertEquals(3, summary.getMonths().size());
+        assertEquals(new BigDecimal("13.00"), summary.getMonths().get(2).getTotal());
+
+        CategoryRangeSummaryResponse foodSummary = categorySummary(summary, food);
+        assertEquals(new BigDecimal("20.00"), foodSummary.getTotal());
+        assertEquals(YearMonth.of(2025, 2), foodSummary.getMonths().get(1).getMonth());
+        assertEquals(0, BigDecimal.ZERO.compareTo(foodSummary.getMonths().get(1).getTotal()));
+        assertEquals(new BigDecimal("5.00"), categorySummary(summary, transport).getTotal());
+    }
+
+    @Test
+    void trailingWithPreviousYear_alignsMonthsTwelveApart() {
+        createExpense(food, "10.00", YearMonth.of(2024, 6));
+        createExpense(food, "30.00", YearMonth.of(2025, 6));
+        createExpense(transport, "7.00", YearMonth.of(2023, 1));
+
+        RangeSummaryResponse summary = summaryService.summarizeRange(null, YearMonth.of(2025, 6), 12, true);
+
+        assertEquals(YearMonth.of(2024, 7), summary.getFrom());
+        assertEquals(12, summary.getMonths().size());
+        assertEquals(new BigDecimal("30.00"), summary.getTotal());
+        assertEquals(new BigDecimal("10.00"), summary.getPreviousYearTotal());
+
+        CategoryRangeSummaryResponse foodSummary = categorySummary(summary, food);
+        assertEquals(new BigDecimal("30.00"), foodSummary.getMonths().get(11).getTotal());
+        assertEquals(new BigDecimal("10.00"), foodSummary.getMonths().get(11).getPreviousYearTotal());
+        // January 2023 is outside both the window and its previous-year counterpart
+        assertTrue(summary.getCategories().stream().noneMatch(c -> c.getCategoryId().equals(transport.getId())));
+    }
+
+    @Test
+    void range_invalidParameters_throwBadRequest() {
+        assertBadRequest(() -> summaryService.summarizeRange(null, YearMonth.of(2025, 1), null, false));
+        assertBadRequest(() -> summaryService.summarizeRange(YearMonth.of(2025, 2), YearMonth.of(2025, 1), null, false));
+        assertBadRequest(() -> summaryService.summarizeRange(YearMonth.of(2000, 1), YearMonth.of(2025, 1), null, false));
+        assertBadRequest(() -> summaryService.summarizeRange(YearMonth.of(2025, 1), null, 12, false));
+        assertBadRequest(() -> summaryService.summarizeRange(null, null, 0, false));
+    }
+
+    @Test
+    void timeseries_bucketsByWeekAndZeroFills() {
+        // Wednesday and Sunday of the ISO week starting Monday 2025-01-06, then the following Monday
+        createExpense(food, "10.00", OffsetDateTime.of(2025, 1, 8, 12, 0, 0, 0, ZoneOffset.UTC), "USD");
+        createExpense(food, "5.00", OffsetDateTime.of(2025, 1, 12, 23, 0, 0, 0, ZoneOffset.UTC), "USD");
+        createExpense(transport, "7.00", OffsetDateTime.of(2025, 1, 20, 8, 0, 0, 0, ZoneOffset.UTC), "USD");
+        // 01:00 UTC on the 13th, even though it is still the 12th at -05:00
+        createExpense(food, "3.00", OffsetDateTime.of(2025, 1, 12, 20, 0, 0, 0, ZoneOffset.ofHours(-5)), "USD");
+
+        TimeseriesResponse weekly = summaryService.timeseries(LocalDate.of(2025, 1, 6), LocalDate.of(2025, 1, 26),
+                TimeseriesGranularity.WEEK, null, null);
+
+        assertEquals(List.of(LocalDate.of(2025, 1, 6), LocalDate.of(2025, 1, 13), LocalDate.of(2025, 1, 20)),
+                weekly.getPoints().stream().map(TimeseriesPointResponse::getStart).toList());
+        assertEquals(new BigDecimal("15.00"), weekly.getPoints().get(0).getTotal());
+        assertEquals(new BigDecimal("3.00"), weekly.getPoints().get(1).getTotal());
+        assertEquals(new BigDecimal("7.00"), weekly.getPoints().get(2).getTotal());
+
+        TimeseriesResponse daily = summaryService.timeseries(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31),
+                TimeseriesGranularity.DAY, food.getId(), null);
+        assertEquals(31, daily.getPoints().size());
+        assertEquals(new BigDecimal("10.00"), daily.getPoints().get(7).getTotal());
+        assertEquals(0, BigDecimal.ZERO.compareTo(daily.getPoints().get(19).getTotal()));
+    }
+
+    @Test
+    void timeseries_currencyFilterSumsNativeAmounts() {
+        createExpense(food, "100.00", OffsetDateTime.of(2025, 1, 15, 12, 0, 0, 0, ZoneOffset.UTC), "CAD");
+        createExpense(food, "10.00", OffsetDateTime.of(2025, 1, 16, 12, 0, 0, 0, ZoneOffset.UTC), "GBP");
+        createExpense(food, "1.00", OffsetDateTime.of(2025, 1, 16, 12, 0, 0, 0, ZoneOffset.UTC), "USD");
+
+        TimeseriesResponse base = summaryService.timeseries(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31),
+                TimeseriesGranularity.MONTH, null, null);
+        assertEquals("USD", base.getCurrency());
+        assertEquals(new BigDecimal("73.00"), base.getPoints().get(0).getTotal());
+        assertEquals(1, base.getUnconvertedCount());
+
+        TimeseriesResponse cad = summaryService.timeseries(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31),
+                TimeseriesGranularity.MONTH, null, "cad");
+        assertEquals("CAD", cad.getCurrency());
+        assertEquals(new BigDecimal("100.00"), cad.getPoints().get(0).getTotal());
+    }
+
+    @Test
+    void timeseries_invalidParameters() {
+        assertBadRequest(() -> summaryService.timeseries(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 1, 1), TimeseriesGranularity.DAY, null, null));
+        assertBadRequest(() -> summaryService.timeseries(LocalDate.of(2020, 1, 1), LocalDate.of(2025, 1, 1), TimeseriesGranularity.DAY, null, null));
+        assertBadRequest(() -> TimeseriesGranularity.fromParameter("hour"));
+        ResponseStatusException notFound = assertThrows(ResponseStatusException.class, () -> summaryService.timeseries(
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 2), TimeseriesGranularity.DAY, UUID.randomUUID(), null));
+        assertEquals(404, notFound.getStatusCode().value());
+    }
+
+    private void assertBadRequest(org.junit.jupiter.api.function.Executable executable) {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, executable);
+        assertEquals(400, ex.getStatusCode().value());
+    }
+
+    private CategoryRangeSummaryResponse categorySummary(RangeSummaryResponse summary, Category category) {
+        return summary.getCategories().stream()
+                .filter(c -> c.getCategoryId().equals(category.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private Category createCategory(String name) {
+        UUID id = TestExpenses.createCategory(categoryService, name + "-" + UUID.randomUUID(), new BigDecimal("100.00")).getId();
+        return categoryRepository.findById(id).orElseThrow();
+    }
+
+    private void createExpense(Category category, String amount, YearMonth month) {
+        createExpense(category, amount, OffsetDateTime.of(month.getYear(), month.getMonthValue(), 10, 12, 0, 0, 0, ZoneOffset.UTC), "USD");
+    }
+
+    private void createExpense(Category category, String amount, OffsetDateTime spentAt, String currency) {
+        TestExpenses.createExpense(expenseService, category.getId(), "Expense", amount, currency, spentAt);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CategoryRequest;
+import com.example.demo.dto.CategoryResponse;
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.dto.ExpenseResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+// Creates categories and expenses through the services, for the signed-in user (see TestUsers)
+public final class TestExpenses {
+
+    private TestExpenses() {
+    }
+
+    public static CategoryResponse createCategory(CategoryService categoryService, String name) {
+        return createCategory(categoryService, name, null);
+    }
+
+    public static CategoryResponse createCategory(CategoryService categoryService, String name, BigDecimal monthlyBudgetLimit) {
+        CategoryRequest request = new CategoryRequest();
+        request.setName(name);
+        request.setMonthlyBudgetLimit(monthlyBudgetLimit);
+        return categoryService.createCategory(request);
+    }
+
+    public static ExpenseResponse createExpense(ExpenseService expenseService, UUID categoryId, String name, String amount,
+                                                String currency, OffsetDateTime spentAt) {
+        return expenseService.createExpense(expenseRequest(categoryId, name, amount, currency, spentAt));
+    }
+
+    public static ExpenseRequest expenseRequest(UUID categoryId, String name, String amount, String currency, OffsetDateTime spentAt) {
+        ExpenseRequest request = new ExpenseRequest();
+        request.setCategoryId(categoryId);
+        request.setName(name);
+        request.setAmount(new BigDecimal(amount));
+        request.setCurrency(currency);
+        request.setSpentAt(spentAt);
+        return request;
+    }
+
+    public static OffsetDateTime noonUtc(LocalDate day) {
+        return day.atTime(12, 0).atOffset(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.service;
+
+import com.example.demo.datasource.InsertIfAbsent;
+import com.example.demo.dto.CategoryRequest;
+import com.example.demo.dto.CategoryResponse;
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.fx.FxRateService;
+import com.example.demo.holiday.HolidayService;
+import com.example.demo.model.AppUser;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.security.TestUsers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Import({ExpenseService.class, CategoryService.class, WriteVersionTracker.class, InsertIfAbsent.class, MonthlyTotalsCache.class,
+        MonthlyTotalsRollupService.class, FxRateService.class})
+class WriteVersionTrackerTest {
+
+    private static final YearMonth MARCH = YearMonth.of(2024, 3);
+    private static final YearMonth APRIL = YearMonth.of(2024, 4);
+
+    @Autowired
+    private WriteVersionTracker tracker;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InsertIfAbsent insertIfAbsent;
+
+    @MockBean
+    private HolidayService holidayService;
+
+    private AppUser user;
+    private AppUser other;
+
+    @BeforeEach
+    void signIn() {
+        when(holidayService.findHoliday(any())).thenReturn(Optional.empty());
+        other = TestUsers.signInNew(appUserRepository);
+        user = TestUsers.signInNew(appUserRepository);
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void writes_changeTheirOwnersETags_asSeenByEveryInstance() {
+        // Another instance shares nothing with this one but the database
+        WriteVersionTracker otherInstance = new WriteVersionTracker(jdbcTemplate, insertIfAbsent);
+        String categories = otherInstance.categoriesETag(user.getId());
+        String march = otherInstance.monthlySummaryETag(user.getId(), MARCH);
+        String april = otherInstance.monthlySummaryETag(user.getId(), APRIL);
+        String othersCategories = otherInstance.categoriesETag(other.getId());
+        String othersMarch = otherInstance.monthlySummaryETag(other.getId(), MARCH);
+
+        CategoryResponse category = createCategory("Food");
+        assertNotEquals(categories, otherInstance.categoriesETag(user.getId()));
+        // Category names are in every month's summary
+        assertNotEquals(march, otherInstance.monthlySummaryETag(user.getId(), MARCH));
+        march = otherInstance.monthlySummaryETag(user.getId(), MARCH);
+        april = otherInstance.monthlySummaryETag(user.getId(), APRIL);
+
+        createExpense(category, OffsetDateTime.of(2024, 3, 31, 23, 0, 0, 0, ZoneOffset.UTC));
+        assertNotEquals(march, otherInstance.monthlySummaryETag(user.getId(), MARCH));
+        assertEquals(april, otherInstance.monthlySummaryETag(user.getId(), APRIL));
+
+        assertEquals(othersCategories, tracker.categoriesETag(other.getId()));
+        assertEquals(othersMarch, tracker.monthlySummaryETag(other.getId(), MARCH));
+        assertEquals(new WriteVersionTracker.Versions(1, 1), tracker.versions(user.getId(), MARCH));
+        assertEquals(new WriteVersionTracker.Versions(0, 0), tracker.versions(other.getId(), MARCH));
+    }
+
+    @Test
+    void eTags_differBetweenOwnersWithTheSameCounters() {
+        assertNotEquals(tracker.categoriesETag(user.getId()), tracker.categoriesETag(other.getId()));
+        assertNotEquals(tracker.monthlySummaryETag(user.getId(), MARCH), tracker.monthlySummaryETag(other.getId(), MARCH));
+    }
+
+    private CategoryResponse createCategory(String name) {
+        CategoryRequest request = new CategoryRequest();
+        request.setName(name);
+        return categoryService.createCategory(request);
+    }
+
+    private void createExpense(CategoryResponse category, OffsetDateTime spentAt) {
+        ExpenseRequest request = new ExpenseRequest();
+        request.setCategoryId(category.getId());
+        request.setName("Dinner");
+        request.setAmount(new BigDecimal("20.00"));
+        request.setCurrency("USD");
+        request.setSpentAt(spentAt);
+        expenseService.createExpense(request);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    private static final List<UUID> USERS = IntStream.range(0, 10_000)
+            .mapToObj(i -> UUID.nameUUIDFromBytes(("user-" + i).getBytes()))
+            .toList();
+
+    @Test
+    void spreadsUsersEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("main", "b", "c"), 64);
+        Map<String, Integer> counts = new HashMap<>();
+        USERS.forEach(user -> counts.merge(ring.shardFor(user), 1, Integer::sum));
+        assertEquals(3, counts.size());
+        // A third each, give or take what 64 points per shard allow
+        counts.values().forEach(count -> assertTrue(count > 2_300 && count < 4_400, counts.toString()));
+    }
+
+    @Test
+    void sameShardsGiveTheSameRing_inAnyOrder() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("main", "b", "c"), 64);
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of("c", "main", "b"), 64);
+        USERS.forEach(user -> assertEquals(ring.shardFor(user), reordered.shardFor(user)));
+    }
+
+    @Test
+    void addingAShard_onlyMovesUsersToIt() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("main", "b"), 64);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("main", "b", "c"), 64);
+        int moved = 0;
+        for (UUID user : USERS) {
+            String from = before.shardFor(user);
+            String to = after.shardFor(user);
+            if (!from.equals(to)) {
+                assertEquals("c", to);
+                moved++;
+            }
+        }
+        assertTrue(moved > 2_300 && moved < 4_400, "moved " + moved);
+    }
+
+    @Test
+    void rejectsAnEmptyRing() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 64));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of("main"), 0));
+    }
+}
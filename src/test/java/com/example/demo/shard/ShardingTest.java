@@ -0,0 +1,321 @@
+package com.example.demo.shard;
+
+import com.example.demo.actuator.RollupEndpoint;
+import com.example.demo.actuator.ShardsEndpoint;
+import com.example.demo.config.TestSecurityConfig;
+import com.example.demo.dto.CategoryRequest;
+import com.example.demo.dto.CategoryResponse;
+import com.example.demo.dto.ExpenseRequest;
+import com.example.demo.holiday.HolidayService;
+import com.example.demo.model.AppUser;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.security.TestUsers;
+import com.example.demo.service.AppUserService;
+import com.example.demo.service.CategoryService;
+import com.example.demo.service.ExpenseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Three in-memory H2 databases stand in for the shards: main (also the directory) and the nodes b and c, each migrated
+// at startup. Reading them directly shows where a user's rows went.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard-main;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "datasource.shards.enabled=true",
+        "datasource.shards.nodes.b.url=jdbc:h2:mem:shard-b;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "datasource.shards.nodes.c.url=jdbc:h2:mem:shard-c;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "datasource.shards.map-cache-ttl=0s"
+})
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+class ShardingTest {
+
+    @Autowired
+    private AppUserService appUserService;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private ShardDirectory directory;
+
+    @Autowired
+    private ShardMigrationService migrationService;
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    @Autowired
+    private RollupEndpoint rollupEndpoint;
+
+    @Autowired
+    private ShardsEndpoint shardsEndpoint;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private HolidayService holidayService;
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void registeredUsers_arePlacedByTheRing_andTheirRowsStayOnTheirShard() {
+        for (String shard : List.of("main", "b", "c")) {
+            AppUser user = registerOn(shard);
+            assertEquals(shard, directory.shardOf(user.getId()));
+            TestUsers.signIn(user);
+            CategoryResponse category = createCategoryWithExpense("Groceries");
+
+            assertEquals(List.of(category.getId()), categoryService.listCategories().stream().map(CategoryResponse::getId).toList());
+            for (String other : shardDataSources.names()) {
+                assertEquals(other.equals(shard) ? 1 : 0, rows(other, "categories", user.getId()), other);
+                assertEquals(other.equals(shard) ? 1 : 0, rows(other, "expenses", user.getId()), other);
+            }
+        }
+    }
+
+    @Test
+    void migrate_movesTheUsersRows_andTheyKeepWorking() {
+        AppUser user = registerOn("b");
+        TestUsers.signIn(user);
+        CategoryResponse category = createCategoryWithExpense("Rent");
+        int totalsBefore = expenseService.calculateMonthlyTotals(2024, 3).size();
+        // No outbox sink here, so the change events are still waiting
+        List<UUID> events = eventIds("b", user.getId());
+        assertEquals(2, events.size());
+
+        ShardMigrationService.Migration migration = migrationService.migrate(user.getId(), "c");
+
+        assertEquals("b", migration.from());
+        assertTrue(migration.rows() >= 4, "user, category, expense and rollup rows");
+        assertEquals(new ShardDirectory.Placement("c", ShardDirectory.State.ACTIVE), directory.load(user.getId()));
+        assertEquals(0, rows("b", "categories", user.getId()));
+        assertEquals(0, rows("b", "expenses", user.getId()));
+        assertEquals(0, shardDataSources.jdbc("b").queryForObject("select count(*) from app_users where id = ?", Integer.class, user.getId()));
+        assertEquals(1, rows("c", "expenses", user.getId()));
+        assertEquals(List.of(category.getId()), categoryService.listCategories().stream().map(CategoryResponse::getId).toList());
+        assertEquals(totalsBefore, expenseService.calculateMonthlyTotals(2024, 3).size());
+        assertEquals(List.of(), eventIds("b", user.getId()));
+        assertEquals(events, eventIds("c", user.getId()));
+        createCategory("Travel");
+        assertEquals(2, rows("c", "categories", user.getId()));
+        assertEquals(events, eventIds("c", user.getId()).subList(0, 2));
+    }
+
+    @Test
+    void writes_areRefusedWhileTheUserIsMigrating() {
+        AppUser user = registerOn("c");
+        TestUsers.signIn(user);
+        createCategory("Fuel");
+
+        directory.save(user.getId(), "c", ShardDirectory.State.MIGRATING);
+        try {
+            ResponseStatusException refused = assertThrows(ResponseStatusException.class, () -> createCategory("Parking"));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, refused.getStatusCode());
+            assertEquals(1, categoryService.listCategories().size());
+        } finally {
+            directory.save(user.getId(), "c", ShardDirectory.State.ACTIVE);
+        }
+        createCategory("Parking");
+        assertEquals(2, rows("c", "categories", user.getId()));
+    }
+
+    @Test
+    void migrate_waitsForWritesInFlight_andCopiesThem() throws Exception {
+        AppUser user = registerOn("b");
+        TestUsers.signIn(user);
+        createCategory("Rent");
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> write = executor.submit(() -> {
+                TestUsers.signIn(user);
+                try {
+                    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                        createCategory("Fuel");
+                        written.countDown();
+                        awaitUninterruptibly(release);
+                    });
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            });
+            assertTrue(written.await(5, TimeUnit.SECONDS));
+            Future<ShardMigrationService.Migration> migration = executor.submit(() -> migrationService.migrate(user.getId(), "c"));
+            Thread.sleep(300);
+            assertFalse(migration.isDone(), "the copy waits for the write to commit");
+            release.countDown();
+            write.get(5, TimeUnit.SECONDS);
+            assertEquals("c", migration.get(10, TimeUnit.SECONDS).to());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertEquals(0, rows("b", "categories", user.getId()));
+        assertEquals(2, rows("c", "categories", user.getId()));
+    }
+
+    @Test
+    void writes_thatReachTheOldShard_areRefused() {
+        // Main keeps the account, so a write there would otherwise succeed
+        AppUser user = registerOn(Shards.MAIN);
+        TestUsers.signIn(user);
+        createCategory("Rent");
+        migrationService.migrate(user.getId(), "c");
+
+        // As on an instance still using the map from before the move
+        ResponseStatusException refused = assertThrows(ResponseStatusException.class,
+                () -> ShardRoutingDataSource.onShard(Shards.MAIN, () -> createCategory("Fuel")));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, refused.getStatusCode());
+        assertEquals(0, rows(Shards.MAIN, "categories", user.getId()));
+        createCategory("Fuel");
+        assertEquals(2, rows("c", "categories", user.getId()));
+    }
+
+    @Test
+    void migrate_refusesAUserAlreadyBeingMoved() {
+        AppUser user = registerOn("c");
+        assertTrue(directory.claim(user.getId(), "c"));
+        try {
+            ResponseStatusException refused = assertThrows(ResponseStatusException.class,
+                    () -> migrationService.migrate(user.getId(), "b"));
+            assertEquals(HttpStatus.CONFLICT, refused.getStatusCode());
+        } finally {
+            directory.save(user.getId(), "c", ShardDirectory.State.ACTIVE);
+        }
+        assertFalse(directory.claim(user.getId(), "b"));
+        assertEquals("c", directory.shardOf(user.getId()));
+    }
+
+    @Test
+    void rebalance_movesUsersToTheirRingShard() {
+        // Created without registering, as before sharding: no map entry, so on main whatever the ring says
+        AppUser legacy;
+        do {
+            legacy = TestUsers.signIn(appUserRepository, "legacy-" + UUID.randomUUID());
+        } while (directory.ring().shardFor(legacy.getId()).equals(Shards.MAIN));
+        createCategoryWithExpense("Utilities");
+        UUID legacyId = legacy.getId();
+        assertEquals(Shards.MAIN, directory.shardOf(legacyId));
+        assertTrue(migrationService.plan().stream().anyMatch(move -> move.userId().equals(legacyId)));
+
+        shardsEndpoint.migrate(null, null);
+
+        assertTrue(migrationService.plan().isEmpty());
+        String ringShard = directory.ring().shardFor(legacyId);
+        assertEquals(ringShard, directory.shardOf(legacyId));
+        assertEquals(0, rows(Shards.MAIN, "categories", legacyId));
+        assertEquals(1, rows(ringShard, "expenses", legacyId));
+        // Accounts stay on main
+        assertTrue(directory.exists(legacyId));
+        assertEquals(1, categoryService.listCategories().size());
+    }
+
+    @Test
+    void adminAggregates_gatherEveryShard() {
+        for (String shard : List.of("main", "b", "c")) {
+            TestUsers.signIn(registerOn(shard));
+            createCategoryWithExpense("Books");
+        }
+        SecurityContextHolder.clearContext();
+
+        ShardsEndpoint.ShardsReport report = shardsEndpoint.report();
+        assertEquals(List.of("b", "c", "main"), report.ring());
+        assertEquals(List.of("main", "b", "c"), report.shards().stream().map(ShardsEndpoint.ShardUsage::shard).toList());
+        for (ShardsEndpoint.ShardUsage usage : report.shards()) {
+            assertEquals(count(usage.shard(), "categories"), usage.categories());
+            assertEquals(count(usage.shard(), "expenses"), usage.expenses());
+            assertTrue(usage.expenses() > 0);
+        }
+
+        assertTrue(rollupEndpoint.verify().consistent());
+        RollupEndpoint.RebuildResult rebuilt = rollupEndpoint.rebuild();
+        long rollupRows = shardDataSources.names().stream().mapToLong(shard -> count(shard, "monthly_category_totals")).sum();
+        assertEquals(rollupRows, rebuilt.rows());
+        assertTrue(rollupEndpoint.verify().consistent());
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Registers users until the ring puts one on the shard
+    private AppUser registerOn(String shard) {
+        while (true) {
+            String username = "user-" + UUID.randomUUID();
+            appUserService.registerUser(username, "password");
+            AppUser user = ShardRoutingDataSource.onShard(Shards.MAIN, () -> appUserRepository.findByUsername(username)).orElseThrow();
+            if (directory.ring().shardFor(user.getId()).equals(shard)) {
+                return user;
+            }
+        }
+    }
+
+    private CategoryResponse createCategoryWithExpense(String name) {
+        CategoryResponse category = createCategory(name);
+        ExpenseRequest request = new ExpenseRequest();
+        request.setCategoryId(category.getId());
+        request.setName(name + " in March");
+        request.setAmount(new BigDecimal("42.00"));
+        request.setCurrency("USD");
+        request.setSpentAt(OffsetDateTime.of(2024, 3, 10, 12, 0, 0, 0, ZoneOffset.UTC));
+        expenseService.createExpense(request);
+        return category;
+    }
+
+    private CategoryResponse createCategory(String name) {
+        CategoryRequest request = new CategoryRequest();
+        request.setName(name);
+        return categoryService.createCategory(request);
+    }
+
+    private int rows(String shard, String table, UUID ownerId) {
+        return shardDataSources.jdbc(shard).queryForObject("select count(*) from " + table + " where owner_id = ?", Integer.class, ownerId);
+    }
+
+    private List<UUID> eventIds(String shard, UUID ownerId) {
+        return shardDataSources.jdbc(shard).queryForList("select event_id from outbox_events where owner_id = ? order by id",
+                UUID.class, ownerId);
+    }
+
+    private long count(String shard, String table) {
+        return shardDataSources.jdbc(shard).queryForObject("select count(*) from " + table, Long.class);
+    }
+}
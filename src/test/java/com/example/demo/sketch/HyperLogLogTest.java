@@ -0,0 +1,40 @@
+package com.example.demo.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimate_isWithinFewStandardErrors() {
+        HyperLogLog small = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            small.add("merchant-" + i);
+            small.add("merchant-" + i);
+        }
+        assertEquals(100, small.estimate(), 3);
+
+        HyperLogLog large = new HyperLogLog();
+        for (int i = 0; i < 50_000; i++) {
+            large.add("merchant-" + i);
+        }
+        assertEquals(50_000, large.estimate(), 50_000 * 4 * large.relativeStandardError());
+    }
+
+    @Test
+    void merge_estimatesTheUnion() {
+        HyperLogLog january = new HyperLogLog();
+        HyperLogLog february = new HyperLogLog();
+        for (int i = 0; i < 1000; i++) {
+            january.add("merchant-" + i);
+            february.add("merchant-" + (i + 500));
+        }
+
+        HyperLogLog union = HyperLogLog.fromBytes(january.toBytes());
+        union.merge(february);
+
+        assertEquals(1500, union.estimate(), 1500 * 4 * union.relativeStandardError());
+        assertThrows(IllegalArgumentException.class, () -> union.merge(new HyperLogLog(10)));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    void top_keepsHeavyHittersWithinBoundedCounters() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(10);
+        for (int i = 0; i < 1000; i++) {
+            sketch.offer("store-" + i);
+            if (i % 2 == 0) {
+                sketch.offer("Groceries");
+            }
+            if (i % 5 == 0) {
+                sketch.offer("Cafe");
+            }
+        }
+
+        List<SpaceSavingSketch.Entry> top = sketch.top(2);
+        assertEquals("Groceries", top.get(0).item());
+        assertEquals("Cafe", top.get(1).item());
+        // Count minus error is a lower bound on the true count
+        assertTrue(top.get(0).count() - top.get(0).error() <= 500 && top.get(0).count() >= 500);
+        assertEquals(10, sketch.top(100).size());
+    }
+
+    @Test
+    void merge_andRoundTrip_addCountsAcrossSketches() {
+        SpaceSavingSketch january = new SpaceSavingSketch(5);
+        january.offer("Cafe");
+        january.offer("Cafe");
+        january.offer("Bakery");
+        SpaceSavingSketch february = SpaceSavingSketch.fromBytes(january.toBytes());
+        february.offer("Bakery");
+
+        january.merge(february);
+
+        assertEquals(List.of(new SpaceSavingSketch.Entry("Cafe", 4, 0), new SpaceSavingSketch.Entry("Bakery", 3, 0)),
+                january.top(5));
+    }
+}